@@ -0,0 +1,326 @@
+package royce.redis.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 비트맵 명령. 비트맵은 String 값 이며 Redis 와 같이 0 번 비트가 첫 바이트의 최상위 비트 이다.
+ * 쓰는 명령은 필요한 만큼 0 으로 채워 문자열을 늘린다.
+ */
+final class BitmapCommands {
+
+    private static final long MAX_BITS = 1L << 32;
+
+    private BitmapCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.registerWrite("setbit", 4, BitmapCommands::setbit);
+        table.register("getbit", 3, context -> {
+            StringValue value = context.db().get(context.arg(1), StringValue.class);
+            return Reply.integer(value == null ? 0 : read(value.bytes, offset(context.arg(2)), 1));
+        });
+        table.register("bitcount", -2, BitmapCommands::bitcount);
+        table.registerWrite("bitop", -4, BitmapCommands::bitop);
+        table.registerWrite("bitfield", -2, context -> bitfield(context, false));
+        table.register("bitfield_ro", -2, context -> bitfield(context, true));
+    }
+
+    private static Reply setbit(CommandContext context) {
+        long offset = offset(context.arg(2));
+        String bit = context.arg(3);
+        if (!bit.equals("0") && !bit.equals("1")) {
+            throw new CommandException("ERR bit is not an integer or out of range");
+        }
+        StringValue value = context.db().getOrCreate(context.arg(1), StringValue.class,
+                () -> new StringValue(new byte[0]));
+        long previous = read(value.bytes, offset, 1);
+        write(value, offset, 1, Long.parseLong(bit));
+        return Reply.integer(previous);
+    }
+
+    /**
+     * BITCOUNT key [start end [BYTE|BIT]]. 범위는 GETRANGE 와 같이 음수를 끝 에서 부터 센다.
+     */
+    private static Reply bitcount(CommandContext context) {
+        if (context.argc() != 2 && context.argc() != 4 && context.argc() != 5) {
+            throw CommandException.syntax();
+        }
+        boolean bitRange = context.argc() == 5 && context.argIs(4, "BIT");
+        if (context.argc() == 5 && !bitRange && !context.argIs(4, "BYTE")) {
+            throw CommandException.syntax();
+        }
+        StringValue value = context.db().get(context.arg(1), StringValue.class);
+        if (value == null) {
+            return Reply.integer(0);
+        }
+        byte[] bytes = value.bytes;
+        if (context.argc() == 2) {
+            return Reply.integer(count(bytes, 0, bytes.length));
+        }
+        long length = bitRange ? (long) bytes.length * 8 : bytes.length;
+        long[] range = Numbers.clampRange(context.longArg(2), context.longArg(3), length);
+        if (range == null) {
+            return Reply.integer(0);
+        }
+        if (!bitRange) {
+            return Reply.integer(count(bytes, (int) range[0], (int) range[1] + 1));
+        }
+        long count = 0;
+        for (long bit = range[0]; bit <= range[1]; bit++) {
+            count += read(bytes, bit, 1);
+        }
+        return Reply.integer(count);
+    }
+
+    /**
+     * BITOP AND|OR|XOR|NOT destkey key [key ...]. 없는 키와 짧은 문자열은 0 으로 채운 것 으로 본다.
+     * 결과가 빈 문자열 이면 destkey 를 지운다.
+     */
+    private static Reply bitop(CommandContext context) {
+        String operation = context.arg(1).toUpperCase();
+        if (!List.of("AND", "OR", "XOR", "NOT").contains(operation)) {
+            throw CommandException.syntax();
+        }
+        if (operation.equals("NOT") && context.argc() != 4) {
+            throw new CommandException("ERR BITOP NOT must be called with a single source key.");
+        }
+        List<byte[]> sources = new ArrayList<>();
+        int length = 0;
+        for (int i = 3; i < context.argc(); i++) {
+            StringValue value = context.db().get(context.arg(i), StringValue.class);
+            byte[] bytes = value == null ? new byte[0] : value.bytes;
+            sources.add(bytes);
+            length = Math.max(length, bytes.length);
+        }
+        byte[] result = Arrays.copyOf(sources.get(0), length);
+        for (int i = 0; i < length; i++) {
+            if (operation.equals("NOT")) {
+                result[i] = (byte) ~result[i];
+                continue;
+            }
+            for (int s = 1; s < sources.size(); s++) {
+                byte[] source = sources.get(s);
+                byte other = i < source.length ? source[i] : 0;
+                result[i] = switch (operation) {
+                    case "AND" -> (byte) (result[i] & other);
+                    case "OR" -> (byte) (result[i] | other);
+                    default -> (byte) (result[i] ^ other);
+                };
+            }
+        }
+        String destination = context.arg(2);
+        if (length == 0) {
+            context.db().remove(destination);
+        } else {
+            context.db().put(destination, new StringValue(result));
+        }
+        return Reply.integer(length);
+    }
+
+    private enum Overflow {
+        WRAP, SAT, FAIL
+    }
+
+    private record Type(boolean signed, int bits) {
+
+        long min() {
+            return signed ? (bits == 64 ? Long.MIN_VALUE : -(1L << (bits - 1))) : 0;
+        }
+
+        long max() {
+            return signed ? (bits == 64 ? Long.MAX_VALUE : (1L << (bits - 1)) - 1) : (1L << bits) - 1;
+        }
+
+        /**
+         * 하위 bits 비트만 남기고, 부호 있는 타입은 부호를 확장 한다.
+         */
+        long wrap(long value) {
+            if (bits == 64) {
+                return value;
+            }
+            long raw = value & ((1L << bits) - 1);
+            return signed ? raw << (64 - bits) >> (64 - bits) : raw;
+        }
+    }
+
+    /**
+     * BITFIELD key [GET type offset] [SET type offset value] [INCRBY type offset increment] [OVERFLOW WRAP|SAT|FAIL].
+     * 연산은 순서대로 적용 하며, OVERFLOW 는 그 뒤의 SET/INCRBY 에 적용 된다. FAIL 로 넘친 연산은 쓰지 않고 nil 을 돌려 준다.
+     */
+    private static Reply bitfield(CommandContext context, boolean readOnly) {
+        boolean writes = false;
+        for (int i = 2; i < context.argc(); ) {
+            String operation = context.arg(i).toUpperCase();
+            int operands = switch (operation) {
+                case "OVERFLOW" -> 1;
+                case "GET" -> 2;
+                case "SET", "INCRBY" -> 3;
+                default -> throw CommandException.syntax();
+            };
+            if (i + operands >= context.argc()) {
+                throw CommandException.syntax();
+            }
+            if (operation.equals("OVERFLOW")) {
+                if (!List.of("WRAP", "SAT", "FAIL").contains(context.arg(i + 1).toUpperCase())) {
+                    throw new CommandException("ERR Invalid OVERFLOW type specified");
+                }
+            } else {
+                offset(context.arg(i + 2), type(context.arg(i + 1)));
+            }
+            if (operands == 3) {
+                if (readOnly) {
+                    throw new CommandException("ERR BITFIELD_RO only supports the GET subcommand");
+                }
+                context.longArg(i + 3);
+                writes = true;
+            }
+            i += operands + 1;
+        }
+        StringValue value = writes
+                ? context.db().getOrCreate(context.arg(1), StringValue.class, () -> new StringValue(new byte[0]))
+                : context.db().get(context.arg(1), StringValue.class);
+        byte[] empty = new byte[0];
+        Overflow overflow = Overflow.WRAP;
+        List<Reply> replies = new ArrayList<>();
+        for (int i = 2; i < context.argc(); ) {
+            String operation = context.arg(i).toUpperCase();
+            if (operation.equals("OVERFLOW")) {
+                overflow = Overflow.valueOf(context.arg(i + 1).toUpperCase());
+                i += 2;
+                continue;
+            }
+            Type type = type(context.arg(i + 1));
+            long offset = offset(context.arg(i + 2), type);
+            long current = type.wrap(read(value == null ? empty : value.bytes, offset, type.bits()));
+            if (operation.equals("GET")) {
+                replies.add(Reply.integer(current));
+                i += 3;
+                continue;
+            }
+            long operand = context.longArg(i + 3);
+            Long next = operation.equals("SET") ? fit(operand, type, overflow)
+                    : increment(current, operand, type, overflow);
+            if (next == null) {
+                replies.add(Reply.NULL);
+            } else {
+                write(value, offset, type.bits(), next);
+                replies.add(Reply.integer(operation.equals("SET") ? current : next));
+            }
+            i += 4;
+        }
+        return Reply.array(replies);
+    }
+
+    private static Long increment(long current, long increment, Type type, Overflow overflow) {
+        long sum = current + increment;
+        boolean overflowed = ((current ^ sum) & (increment ^ sum)) < 0;
+        if (overflowed) {
+            return switch (overflow) {
+                case WRAP -> type.wrap(sum);
+                case SAT -> increment > 0 ? type.max() : type.min();
+                case FAIL -> null;
+            };
+        }
+        return fit(sum, type, overflow);
+    }
+
+    /**
+     * value 가 타입의 범위를 벗어나면 overflow 규칙을 적용 한다.
+     */
+    private static Long fit(long value, Type type, Overflow overflow) {
+        if (value >= type.min() && value <= type.max()) {
+            return value;
+        }
+        return switch (overflow) {
+            case WRAP -> type.wrap(value);
+            case SAT -> value > type.max() ? type.max() : type.min();
+            case FAIL -> null;
+        };
+    }
+
+    /**
+     * i1..i64, u1..u63.
+     */
+    private static Type type(String type) {
+        boolean signed = type.startsWith("i") || type.startsWith("I");
+        boolean unsigned = type.startsWith("u") || type.startsWith("U");
+        int bits = -1;
+        if ((signed || unsigned) && type.length() > 1) {
+            try {
+                bits = Integer.parseInt(type.substring(1));
+            } catch (NumberFormatException ignored) {
+                // 아래 에서 거절 한다
+            }
+        }
+        if (bits < 1 || bits > (signed ? 64 : 63)) {
+            throw new CommandException("ERR Invalid bitfield type. Use something like i16 u8. "
+                    + "Note that u64 is not supported but i64 is.");
+        }
+        return new Type(signed, bits);
+    }
+
+    /**
+     * #N 은 N 번째 타입 크기 칸을 뜻한다.
+     */
+    private static long offset(String offset, Type type) {
+        long bit = offset.startsWith("#") ? offset(offset.substring(1)) * type.bits() : offset(offset);
+        if (bit + type.bits() > MAX_BITS) {
+            throw new CommandException("ERR bit offset is not an integer or out of range");
+        }
+        return bit;
+    }
+
+    private static long offset(String offset) {
+        long bit;
+        try {
+            bit = Long.parseLong(offset);
+        } catch (NumberFormatException e) {
+            bit = -1;
+        }
+        if (bit < 0 || bit >= MAX_BITS) {
+            throw new CommandException("ERR bit offset is not an integer or out of range");
+        }
+        return bit;
+    }
+
+    /**
+     * offset 비트 부터 bits 개를 최상위 비트 부터 읽는다. 문자열 밖은 0 이다.
+     */
+    private static long read(byte[] bytes, long offset, int bits) {
+        long value = 0;
+        for (int i = 0; i < bits; i++) {
+            long bit = offset + i;
+            int index = (int) (bit >>> 3);
+            int set = index < bytes.length ? (bytes[index] >> (7 - (int) (bit & 7))) & 1 : 0;
+            value = value << 1 | set;
+        }
+        return value;
+    }
+
+    private static void write(StringValue value, long offset, int bits, long field) {
+        int required = (int) ((offset + bits + 7) >>> 3);
+        if (value.bytes.length < required) {
+            value.bytes = Arrays.copyOf(value.bytes, required);
+        }
+        for (int i = 0; i < bits; i++) {
+            long bit = offset + i;
+            int index = (int) (bit >>> 3);
+            int mask = 1 << (7 - (int) (bit & 7));
+            if ((field >>> (bits - 1 - i) & 1) == 1) {
+                value.bytes[index] |= (byte) mask;
+            } else {
+                value.bytes[index] &= (byte) ~mask;
+            }
+        }
+    }
+
+    private static long count(byte[] bytes, int from, int to) {
+        long count = 0;
+        for (int i = from; i < to; i++) {
+            count += Integer.bitCount(bytes[i] & 0xff);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,88 @@
+package royce.redis.server;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 접속한 클라이언트 하나의 상태. 서버 스레드에서만 접근 한다.
+ */
+final class ClientSession {
+
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+
+    final long id;
+    final SocketChannel channel;
+    final ClusterNode node;
+    final Deque<ByteBuffer> output = new ArrayDeque<>();
+    final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    SelectionKey selectionKey;
+    ByteBuffer input = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    int protocol = 2;
+    boolean authenticated;
+    int db;
+    String name = "";
+    String lastCommand = "NULL";
+    Blocked blocked;
+    Tracking tracking;
+    boolean closeAfterWrite;
+    boolean readonly;
+
+    ClientSession(long id, SocketChannel channel, ClusterNode node, boolean authenticated) {
+        this.id = id;
+        this.channel = channel;
+        this.node = node;
+        this.authenticated = authenticated;
+    }
+
+    /**
+     * 블로킹 명령의 대기 상태.
+     *
+     * @param keys        기다리는 키
+     * @param deadline    System.nanoTime 기준 만료 시각. 0 이면 무기한
+     * @param retry       키에 값이 들어 왔을 때 다시 실행 할 명령. 여전히 처리할 수 없으면 null 을 반환 한다.
+     * @param onTimeout   만료 시 보낼 응답
+     */
+    record Blocked(int db, List<String> keys, long deadline, Supplier<Reply> retry, Reply onTimeout) {
+    }
+
+    /**
+     * CLIENT TRACKING 설정.
+     *
+     * @param broadcast 읽은 키와 상관 없이 prefixes 로 시작 하는 모든 키의 변경을 알린다
+     * @param prefixes  broadcast 모드의 대상 prefix. 비어 있으면 모든 키
+     * @param noloop    자신이 변경한 키는 알리지 않는다
+     */
+    record Tracking(boolean broadcast, List<String> prefixes, boolean noloop) {
+
+        boolean matches(String key) {
+            if (prefixes.isEmpty()) {
+                return true;
+            }
+            for (String prefix : prefixes) {
+                if (key.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    void ensureInputCapacity() {
+        if (!input.hasRemaining()) {
+            ByteBuffer larger = ByteBuffer.allocate(input.capacity() * 2);
+            input.flip();
+            larger.put(input);
+            input = larger;
+        }
+    }
+
+    boolean isBlocked() {
+        return blocked != null;
+    }
+}
@@ -0,0 +1,264 @@
+package royce.redis.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 클러스터 모드의 CLUSTER NODES/SLOTS/MYID/INFO/KEYSLOT/COUNTKEYSINSLOT 와 READONLY/READWRITE/ASKING, 그리고 키의 slot 라우팅.
+ * 키가 다른 노드의 slot 이면 MOVED 로, 여러 slot 에 걸친 명령은 CROSSSLOT 으로 거절 한다.
+ * replica 는 READONLY 를 보낸 커넥션의 읽기 명령만 처리 한다.
+ */
+final class ClusterCommands {
+
+    static final int SLOTS = 16384;
+
+    private static final int[] CRC16_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+            CRC16_TABLE[i] = crc & 0xFFFF;
+        }
+    }
+
+    private ClusterCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.register("cluster", -2, ClusterCommands::cluster);
+        table.register("readonly", 1, context -> readonly(context, true));
+        table.register("readwrite", 1, context -> readonly(context, false));
+        table.register("asking", 1, context -> {
+            requireCluster(context);
+            return Reply.OK;
+        });
+    }
+
+    /**
+     * 키에 {...} hash tag 가 있으면 그 안의 내용만으로 slot 을 계산 한다. CRC16(XMODEM) mod 16384.
+     */
+    static int slot(byte[] key) {
+        int from = 0;
+        int to = key.length;
+        for (int open = 0; open < key.length; open++) {
+            if (key[open] == '{') {
+                for (int close = open + 1; close < key.length; close++) {
+                    if (key[close] == '}') {
+                        if (close > open + 1) {
+                            from = open + 1;
+                            to = close;
+                        }
+                        break;
+                    }
+                }
+                break;
+            }
+        }
+        int crc = 0;
+        for (int i = from; i < to; i++) {
+            crc = ((crc << 8) ^ CRC16_TABLE[((crc >>> 8) ^ key[i]) & 0xFF]) & 0xFFFF;
+        }
+        return crc & (SLOTS - 1);
+    }
+
+    /**
+     * 명령을 이 노드 에서 실행 할 수 있으면 null, 아니면 MOVED/CROSSSLOT 에러 응답.
+     */
+    static Reply route(RespServer server, ClientSession client, CommandTable.Spec spec, List<byte[]> args) {
+        List<byte[]> keys = keys(spec.name(), args);
+        if (keys.isEmpty()) {
+            return null;
+        }
+        int slot = slot(keys.get(0));
+        for (int i = 1; i < keys.size(); i++) {
+            if (slot(keys.get(i)) != slot) {
+                return Reply.error("CROSSSLOT Keys in request don't hash to the same slot");
+            }
+        }
+        ClusterNode owner = server.slotOwner(slot);
+        ClusterNode node = client.node;
+        if (node == owner || (node.primary == owner && client.readonly && !spec.write())) {
+            return null;
+        }
+        return Reply.error("MOVED " + slot + " " + server.host() + ":" + owner.port());
+    }
+
+    /**
+     * 명령 인자 중 키의 목록. 서버가 지원 하는 명령만 다루며 키가 없는 명령은 빈 목록 이다.
+     */
+    static List<byte[]> keys(String command, List<byte[]> args) {
+        int argc = args.size();
+        return switch (command) {
+            case "ping", "echo", "auth", "hello", "quit", "select", "info", "flushall", "flushdb", "dbsize", "time",
+                 "client", "config", "command", "script", "cluster", "readonly", "readwrite", "asking", "scan", "keys",
+                 "randomkey", "role", "slowlog", "latency", "function" -> List.of();
+            case "memory", "object", "xinfo", "xgroup" -> argc > 2 ? List.of(args.get(2)) : List.of();
+            case "mget", "del", "unlink", "exists", "pfcount", "pfmerge", "sdiff", "sinter", "sunion", "sdiffstore",
+                 "sinterstore", "sunionstore" -> range(args, 1, argc, 1);
+            case "mset", "msetnx" -> range(args, 1, argc, 2);
+            case "blpop", "brpop" -> range(args, 1, argc - 1, 1);
+            case "bitop" -> range(args, 2, argc, 1);
+            case "rename", "rpoplpush", "brpoplpush", "lmove", "blmove" -> range(args, 1, Math.min(argc, 3), 1);
+            case "eval", "evalsha", "fcall", "fcall_ro" -> counted(args, 2);
+            case "lmpop" -> counted(args, 1);
+            case "blmpop" -> counted(args, 2);
+            case "xread", "xreadgroup" -> streams(args);
+            default -> argc > 1 ? List.of(args.get(1)) : List.of();
+        };
+    }
+
+    private static List<byte[]> range(List<byte[]> args, int from, int to, int step) {
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = from; i < to; i += step) {
+            keys.add(args.get(i));
+        }
+        return keys;
+    }
+
+    /**
+     * numkeys 인자 바로 뒤 에 키가 오는 명령. numkeys 가 잘못 되었으면 명령 처리기가 에러를 낸다.
+     */
+    private static List<byte[]> counted(List<byte[]> args, int numkeysIndex) {
+        if (numkeysIndex >= args.size()) {
+            return List.of();
+        }
+        long numkeys;
+        try {
+            numkeys = Numbers.parseLong(new String(args.get(numkeysIndex), StandardCharsets.ISO_8859_1));
+        } catch (CommandException e) {
+            return List.of();
+        }
+        if (numkeys < 0 || numkeys > args.size() - numkeysIndex - 1) {
+            return List.of();
+        }
+        return range(args, numkeysIndex + 1, numkeysIndex + 1 + (int) numkeys, 1);
+    }
+
+    /**
+     * XREAD ... STREAMS key [key ...] id [id ...]
+     */
+    private static List<byte[]> streams(List<byte[]> args) {
+        for (int i = 1; i < args.size(); i++) {
+            if (new String(args.get(i), StandardCharsets.ISO_8859_1).equalsIgnoreCase("STREAMS")) {
+                int count = (args.size() - i - 1) / 2;
+                return range(args, i + 1, i + 1 + count, 1);
+            }
+        }
+        return List.of();
+    }
+
+    private static Reply cluster(CommandContext context) {
+        requireCluster(context);
+        RespServer server = context.server();
+        ClusterNode myself = context.client().node;
+        String subcommand = context.arg(1).toUpperCase(Locale.ROOT);
+        return switch (subcommand) {
+            case "MYID" -> Reply.bulk(myself.id);
+            case "NODES" -> Reply.bulk(nodes(server, myself));
+            case "SLOTS" -> slots(server);
+            case "INFO" -> Reply.bulk(info(server));
+            case "KEYSLOT" -> {
+                if (context.argc() != 3) {
+                    throw CommandException.syntax();
+                }
+                yield Reply.integer(slot(context.rawArg(2)));
+            }
+            case "COUNTKEYSINSLOT" -> {
+                if (context.argc() != 3) {
+                    throw CommandException.syntax();
+                }
+                long slot = context.longArg(2);
+                if (slot < 0 || slot >= SLOTS) {
+                    throw new CommandException("ERR Invalid slot");
+                }
+                int count = 0;
+                for (String key : context.db().keys()) {
+                    if (slot(key.getBytes(StandardCharsets.ISO_8859_1)) == slot) {
+                        count++;
+                    }
+                }
+                yield Reply.integer(count);
+            }
+            default -> throw new CommandException("ERR unknown subcommand '" + context.arg(1) + "'.");
+        };
+    }
+
+    /**
+     * CLUSTER NODES 형식. id ip:port@cport flags primary ping-sent pong-recv epoch link-state slot...
+     */
+    private static String nodes(RespServer server, ClusterNode myself) {
+        StringBuilder nodes = new StringBuilder();
+        long now = System.currentTimeMillis();
+        for (ClusterNode node : server.nodes()) {
+            String role = node.isReplica() ? "slave" : "master";
+            nodes.append(node.id).append(' ')
+                    .append(server.host()).append(':').append(node.port()).append('@').append(node.port() + 10000)
+                    .append(' ').append(node == myself ? "myself," + role : role)
+                    .append(' ').append(node.isReplica() ? node.primary.id : "-")
+                    .append(" 0 ").append(now)
+                    .append(' ').append(node.epoch)
+                    .append(" connected");
+            if (!node.isReplica()) {
+                nodes.append(' ').append(node.firstSlot).append('-').append(node.lastSlot);
+            }
+            nodes.append('\n');
+        }
+        return nodes.toString();
+    }
+
+    private static Reply slots(RespServer server) {
+        List<Reply> ranges = new ArrayList<>();
+        for (ClusterNode primary : server.nodes()) {
+            if (primary.isReplica()) {
+                continue;
+            }
+            List<Reply> range = new ArrayList<>();
+            range.add(Reply.integer(primary.firstSlot));
+            range.add(Reply.integer(primary.lastSlot));
+            range.add(endpoint(server, primary));
+            for (ClusterNode replica : server.nodes()) {
+                if (replica.primary == primary) {
+                    range.add(endpoint(server, replica));
+                }
+            }
+            ranges.add(Reply.array(range));
+        }
+        return Reply.array(ranges);
+    }
+
+    private static Reply endpoint(RespServer server, ClusterNode node) {
+        return Reply.array(Reply.bulk(server.host()), Reply.integer(node.port()), Reply.bulk(node.id));
+    }
+
+    private static String info(RespServer server) {
+        int primaries = 0;
+        for (ClusterNode node : server.nodes()) {
+            if (!node.isReplica()) {
+                primaries++;
+            }
+        }
+        return "cluster_enabled:1\r\n"
+                + "cluster_state:ok\r\n"
+                + "cluster_slots_assigned:" + SLOTS + "\r\n"
+                + "cluster_slots_ok:" + SLOTS + "\r\n"
+                + "cluster_known_nodes:" + server.nodes().size() + "\r\n"
+                + "cluster_size:" + primaries + "\r\n";
+    }
+
+    private static Reply readonly(CommandContext context, boolean readonly) {
+        requireCluster(context);
+        context.client().readonly = readonly;
+        return Reply.OK;
+    }
+
+    private static void requireCluster(CommandContext context) {
+        if (!context.server().clusterEnabled()) {
+            throw new CommandException("ERR This instance has cluster support disabled");
+        }
+    }
+}
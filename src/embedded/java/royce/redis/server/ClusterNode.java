@@ -0,0 +1,72 @@
+package royce.redis.server;
+
+import java.nio.channels.ServerSocketChannel;
+
+/**
+ * 서버가 listen 하는 노드 하나. standalone 이면 primary 하나와 선택적인 replica 들 이다.
+ * 클러스터 모드 에서는 primary 마다 slot 범위와 데이터를 따로 가진다. replica 는 primary 의 데이터를 그대로 공유 하므로
+ * 데이터는 항상 최신 이고, 복제 지연은 offset 으로만 흉내 낸다. 모든 노드는 서버 스레드 하나 에서 처리 된다.
+ */
+final class ClusterNode {
+
+    final String id;
+    final ClusterNode primary;
+    final Database[] databases;
+    final int epoch;
+    int firstSlot = -1;
+    int lastSlot = -1;
+    ServerSocketChannel channel;
+    /**
+     * primary 가 복제 스트림에 쓴 바이트 수. 서버 스레드만 쓴다.
+     */
+    volatile long replicationOffset;
+    /**
+     * 0 이상 이면 replica 의 복제가 이 offset 에서 멈춘 것으로 보고 한다.
+     */
+    volatile long pausedOffset = -1;
+
+    ClusterNode(String id, int epoch, Database[] databases) {
+        this(id, epoch, databases, null);
+    }
+
+    ClusterNode(String id, ClusterNode primary) {
+        this(id, primary.epoch, primary.databases, primary);
+    }
+
+    private ClusterNode(String id, int epoch, Database[] databases, ClusterNode primary) {
+        this.id = id;
+        this.epoch = epoch;
+        this.databases = databases;
+        this.primary = primary;
+    }
+
+    boolean isReplica() {
+        return primary != null;
+    }
+
+    /**
+     * primary 는 자신이 쓴 offset, replica 는 primary 로 부터 받은 offset.
+     */
+    long replicationOffset() {
+        if (!isReplica()) {
+            return replicationOffset;
+        }
+        long paused = pausedOffset;
+        return paused >= 0 ? paused : primary.replicationOffset;
+    }
+
+    int port() {
+        return channel.socket().getLocalPort();
+    }
+
+    /**
+     * replica 이면 primary 의 slot 범위.
+     */
+    int firstSlot() {
+        return isReplica() ? primary.firstSlot : firstSlot;
+    }
+
+    int lastSlot() {
+        return isReplica() ? primary.lastSlot : lastSlot;
+    }
+}
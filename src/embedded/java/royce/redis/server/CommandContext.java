@@ -0,0 +1,73 @@
+package royce.redis.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 명령 하나를 실행 하는 동안의 인자와 서버, 클라이언트 상태.
+ * 키와 문자열 인자는 ISO-8859-1 로 해석 하여 바이트를 그대로 보존 한다.
+ */
+final class CommandContext {
+
+    private final RespServer server;
+    private final ClientSession client;
+    private final List<byte[]> args;
+
+    CommandContext(RespServer server, ClientSession client, List<byte[]> args) {
+        this.server = server;
+        this.client = client;
+        this.args = args;
+    }
+
+    RespServer server() {
+        return server;
+    }
+
+    ClientSession client() {
+        return client;
+    }
+
+    Database db() {
+        return server.database(client, client.db);
+    }
+
+    int argc() {
+        return args.size();
+    }
+
+    byte[] rawArg(int index) {
+        return args.get(index);
+    }
+
+    String arg(int index) {
+        return new String(args.get(index), StandardCharsets.ISO_8859_1);
+    }
+
+    List<String> args(int from, int to) {
+        List<String> result = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            result.add(arg(i));
+        }
+        return result;
+    }
+
+    boolean argIs(int index, String option) {
+        return arg(index).equalsIgnoreCase(option);
+    }
+
+    long longArg(int index) {
+        return Numbers.parseLong(arg(index));
+    }
+
+    double doubleArg(int index) {
+        return Numbers.parseDouble(arg(index));
+    }
+
+    /**
+     * 블로킹 명령이 기다리고 있을 수 있는 키에 값이 들어 왔음을 알린다.
+     */
+    void signalReady(String key) {
+        server.signalReady(client.db, key);
+    }
+}
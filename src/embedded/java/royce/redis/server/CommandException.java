@@ -0,0 +1,21 @@
+package royce.redis.server;
+
+/**
+ * 클라이언트에게 에러 응답으로 돌려줄 예외. 메시지는 "ERR ...", "WRONGTYPE ..." 처럼 에러 코드로 시작 한다.
+ */
+public class CommandException extends RuntimeException {
+
+    public static final String WRONG_TYPE = "WRONGTYPE Operation against a key holding the wrong kind of value";
+
+    public CommandException(String message) {
+        super(message, null, false, false);
+    }
+
+    static CommandException wrongType() {
+        return new CommandException(WRONG_TYPE);
+    }
+
+    static CommandException syntax() {
+        return new CommandException("ERR syntax error");
+    }
+}
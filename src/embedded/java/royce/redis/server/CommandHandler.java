@@ -0,0 +1,7 @@
+package royce.redis.server;
+
+@FunctionalInterface
+interface CommandHandler {
+
+    Reply execute(CommandContext context);
+}
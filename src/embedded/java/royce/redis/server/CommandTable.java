@@ -0,0 +1,56 @@
+package royce.redis.server;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 명령 이름과 인자 개수(arity), 처리기를 묶어 둔 표.
+ * arity 가 양수 이면 정확한 인자 개수(명령 이름 포함), 음수 이면 최소 인자 개수를 뜻한다.
+ * write 명령이 건드린 키는 클라이언트 캐시 무효화(CLIENT TRACKING) 대상이 된다.
+ */
+final class CommandTable {
+
+    private final Map<String, Spec> commands = new HashMap<>();
+
+    record Spec(String name, int arity, boolean write, CommandHandler handler) {
+
+        boolean acceptsArgc(int argc) {
+            return arity >= 0 ? argc == arity : argc >= -arity;
+        }
+    }
+
+    static CommandTable create() {
+        CommandTable table = new CommandTable();
+        ServerCommands.register(table);
+        KeyCommands.register(table);
+        StringCommands.register(table);
+        HashCommands.register(table);
+        ListCommands.register(table);
+        SetCommands.register(table);
+        SortedSetCommands.register(table);
+        HyperLogLogCommands.register(table);
+        BitmapCommands.register(table);
+        StreamCommands.register(table);
+        StreamGroupCommands.register(table);
+        ScriptCommands.register(table);
+        ClusterCommands.register(table);
+        return table;
+    }
+
+    void register(String name, int arity, CommandHandler handler) {
+        add(name, arity, false, handler);
+    }
+
+    void registerWrite(String name, int arity, CommandHandler handler) {
+        add(name, arity, true, handler);
+    }
+
+    private void add(String name, int arity, boolean write, CommandHandler handler) {
+        commands.put(name.toUpperCase(Locale.ROOT), new Spec(name.toLowerCase(Locale.ROOT), arity, write, handler));
+    }
+
+    Spec lookup(String name) {
+        return commands.get(name.toUpperCase(Locale.ROOT));
+    }
+}
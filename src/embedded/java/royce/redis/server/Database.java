@@ -0,0 +1,185 @@
+package royce.redis.server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 하나의 논리 DB. 만료 시간이 지난 키는 접근 할 때 지운다(lazy expiration).
+ * 키 마다 삽입 순번을 붙여 두고 SCAN 커서로 사용 하므로, 스캔 도중 계속 존재 하는 키는 반드시 한 번 이상 반환 된다.
+ * 명령 하나가 접근한 키는 touched 에 모아 두고, 서버가 명령 실행 후 키 추적(CLIENT TRACKING)에 사용 한다.
+ */
+final class Database {
+
+    final Set<String> touched = new LinkedHashSet<>();
+
+    private final Map<String, RedisValue> values = new LinkedHashMap<>();
+    private final Map<String, Long> expires = new HashMap<>();
+    private final Map<String, Long> sequences = new HashMap<>();
+    private final NavigableMap<Long, String> scanOrder = new TreeMap<>();
+    private long nextSequence = 1;
+
+    record ScanPage(long cursor, List<String> keys) {
+    }
+
+    RedisValue get(String key) {
+        touched.add(key);
+        Long expireAt = expires.get(key);
+        if (expireAt != null && expireAt <= System.currentTimeMillis()) {
+            remove(key);
+            return null;
+        }
+        return values.get(key);
+    }
+
+    <T extends RedisValue> T get(String key, Class<T> type) {
+        RedisValue value = get(key);
+        if (value == null) {
+            return null;
+        }
+        if (!type.isInstance(value)) {
+            throw CommandException.wrongType();
+        }
+        return type.cast(value);
+    }
+
+    <T extends RedisValue> T getOrCreate(String key, Class<T> type, Supplier<T> factory) {
+        T value = get(key, type);
+        if (value == null) {
+            value = factory.get();
+            insert(key, value);
+        }
+        return value;
+    }
+
+    boolean exists(String key) {
+        return get(key) != null;
+    }
+
+    /**
+     * 값을 저장 하며 기존 만료 시간은 지운다.
+     */
+    void put(String key, RedisValue value) {
+        touched.add(key);
+        insert(key, value);
+        expires.remove(key);
+    }
+
+    /**
+     * 기존 만료 시간을 유지 하면서 값을 교체 한다.
+     */
+    void replace(String key, RedisValue value) {
+        touched.add(key);
+        insert(key, value);
+    }
+
+    boolean remove(String key) {
+        touched.add(key);
+        expires.remove(key);
+        Long sequence = sequences.remove(key);
+        if (sequence != null) {
+            scanOrder.remove(sequence);
+        }
+        return values.remove(key) != null;
+    }
+
+    void removeIfEmpty(String key, boolean empty) {
+        if (empty) {
+            remove(key);
+        }
+    }
+
+    void expireAt(String key, long epochMillis) {
+        touched.add(key);
+        expires.put(key, epochMillis);
+    }
+
+    boolean persist(String key) {
+        return expires.remove(key) != null;
+    }
+
+    /**
+     * @return 남은 시간(ms). 키가 없으면 -2, 만료 시간이 없으면 -1
+     */
+    long ttlMillis(String key) {
+        if (get(key) == null) {
+            return -2;
+        }
+        Long expireAt = expires.get(key);
+        return expireAt == null ? -1 : Math.max(0, expireAt - System.currentTimeMillis());
+    }
+
+    Long expireAt(String key) {
+        return expires.get(key);
+    }
+
+    int size() {
+        purgeExpired();
+        return values.size();
+    }
+
+    /**
+     * 삽입 순서 기준의 키 목록 스냅샷. SCAN/KEYS 가 사용 한다.
+     */
+    List<String> keys() {
+        purgeExpired();
+        return new ArrayList<>(values.keySet());
+    }
+
+    /**
+     * cursor 이후의 키를 최대 count 개 까지 훑는다. 다음 커서가 0 이면 순회가 끝난 것이다.
+     */
+    ScanPage scan(long cursor, int count, Predicate<String> filter) {
+        List<String> keys = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        int visited = 0;
+        long next = 0;
+        for (Map.Entry<Long, String> entry : scanOrder.tailMap(cursor, true).entrySet()) {
+            if (visited == count) {
+                next = entry.getKey();
+                break;
+            }
+            visited++;
+            String key = entry.getValue();
+            Long expireAt = expires.get(key);
+            if ((expireAt == null || expireAt > now) && filter.test(key)) {
+                keys.add(key);
+            }
+        }
+        return new ScanPage(next, keys);
+    }
+
+    void clear() {
+        values.clear();
+        expires.clear();
+        sequences.clear();
+        scanOrder.clear();
+    }
+
+    private void insert(String key, RedisValue value) {
+        if (values.put(key, value) == null) {
+            long sequence = nextSequence++;
+            sequences.put(key, sequence);
+            scanOrder.put(sequence, key);
+        }
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        List<String> expired = new ArrayList<>();
+        expires.forEach((key, expireAt) -> {
+            if (expireAt <= now) {
+                expired.add(key);
+            }
+        });
+        expired.forEach(this::remove);
+    }
+}
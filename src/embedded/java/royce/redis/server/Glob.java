@@ -0,0 +1,94 @@
+package royce.redis.server;
+
+/**
+ * Redis 의 stringmatchlen 과 같은 규칙의 glob 매칭(*, ?, [abc], [^a-z], \x).
+ */
+final class Glob {
+
+    private Glob() {
+    }
+
+    static boolean matches(String pattern, String value) {
+        return matches(pattern, 0, value, 0);
+    }
+
+    private static boolean matches(String pattern, int p, String value, int v) {
+        while (p < pattern.length()) {
+            char c = pattern.charAt(p);
+            switch (c) {
+                case '*' -> {
+                    while (p + 1 < pattern.length() && pattern.charAt(p + 1) == '*') {
+                        p++;
+                    }
+                    if (p + 1 == pattern.length()) {
+                        return true;
+                    }
+                    for (int i = v; i <= value.length(); i++) {
+                        if (matches(pattern, p + 1, value, i)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                case '?' -> {
+                    if (v >= value.length()) {
+                        return false;
+                    }
+                    v++;
+                }
+                case '[' -> {
+                    if (v >= value.length()) {
+                        return false;
+                    }
+                    int end = p + 1;
+                    boolean not = end < pattern.length() && pattern.charAt(end) == '^';
+                    if (not) {
+                        end++;
+                    }
+                    boolean match = false;
+                    while (end < pattern.length() && pattern.charAt(end) != ']') {
+                        char current = pattern.charAt(end);
+                        if (current == '\\' && end + 1 < pattern.length()) {
+                            end++;
+                            match |= pattern.charAt(end) == value.charAt(v);
+                        } else if (end + 2 < pattern.length() && pattern.charAt(end + 1) == '-'
+                                && pattern.charAt(end + 2) != ']') {
+                            char from = (char) Math.min(current, pattern.charAt(end + 2));
+                            char to = (char) Math.max(current, pattern.charAt(end + 2));
+                            match |= value.charAt(v) >= from && value.charAt(v) <= to;
+                            end += 2;
+                        } else {
+                            match |= current == value.charAt(v);
+                        }
+                        end++;
+                    }
+                    if (not) {
+                        match = !match;
+                    }
+                    if (!match) {
+                        return false;
+                    }
+                    p = end;
+                    v++;
+                }
+                case '\\' -> {
+                    if (p + 1 < pattern.length()) {
+                        p++;
+                    }
+                    if (v >= value.length() || pattern.charAt(p) != value.charAt(v)) {
+                        return false;
+                    }
+                    v++;
+                }
+                default -> {
+                    if (v >= value.length() || c != value.charAt(v)) {
+                        return false;
+                    }
+                    v++;
+                }
+            }
+            p++;
+        }
+        return v == value.length();
+    }
+}
@@ -0,0 +1,149 @@
+package royce.redis.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash 타입 명령.
+ */
+final class HashCommands {
+
+    private HashCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.registerWrite("hset", -4, HashCommands::hset);
+        table.registerWrite("hmset", -4, context -> {
+            hset(context);
+            return Reply.OK;
+        });
+        table.registerWrite("hsetnx", 4, HashCommands::hsetnx);
+        table.register("hget", 3, HashCommands::hget);
+        table.register("hmget", -3, HashCommands::hmget);
+        table.register("hgetall", 2, HashCommands::hgetall);
+        table.register("hkeys", 2, context -> Reply.bulks(fields(context).keySet()));
+        table.register("hvals", 2, context -> Reply.bulks(fields(context).values()));
+        table.register("hlen", 2, context -> Reply.integer(fields(context).size()));
+        table.register("hexists", 3, context -> Reply.bool(fields(context).containsKey(context.arg(2))));
+        table.register("hstrlen", 3, context -> {
+            String value = fields(context).get(context.arg(2));
+            return Reply.integer(value == null ? 0 : value.length());
+        });
+        table.registerWrite("hdel", -3, HashCommands::hdel);
+        table.registerWrite("hincrby", 4, HashCommands::hincrby);
+        table.registerWrite("hincrbyfloat", 4, HashCommands::hincrbyfloat);
+        table.register("hscan", -3, HashCommands::hscan);
+    }
+
+    private static Map<String, String> fields(CommandContext context) {
+        HashValue hash = context.db().get(context.arg(1), HashValue.class);
+        return hash == null ? Map.of() : hash.fields;
+    }
+
+    private static HashValue hashForWrite(CommandContext context) {
+        return context.db().getOrCreate(context.arg(1), HashValue.class, HashValue::new);
+    }
+
+    private static Reply hset(CommandContext context) {
+        if (context.argc() % 2 != 0) {
+            throw new CommandException("ERR wrong number of arguments for '" + context.arg(0).toLowerCase() + "' command");
+        }
+        HashValue hash = hashForWrite(context);
+        long added = 0;
+        for (int i = 2; i < context.argc(); i += 2) {
+            if (hash.fields.put(context.arg(i), context.arg(i + 1)) == null) {
+                added++;
+            }
+        }
+        return Reply.integer(added);
+    }
+
+    private static Reply hsetnx(CommandContext context) {
+        HashValue hash = hashForWrite(context);
+        return Reply.bool(hash.fields.putIfAbsent(context.arg(2), context.arg(3)) == null);
+    }
+
+    private static Reply hget(CommandContext context) {
+        return Reply.bulk(fields(context).get(context.arg(2)));
+    }
+
+    private static Reply hmget(CommandContext context) {
+        Map<String, String> fields = fields(context);
+        List<Reply> values = new ArrayList<>(context.argc() - 2);
+        for (int i = 2; i < context.argc(); i++) {
+            values.add(Reply.bulk(fields.get(context.arg(i))));
+        }
+        return Reply.array(values);
+    }
+
+    private static Reply hgetall(CommandContext context) {
+        List<Reply> entries = new ArrayList<>();
+        fields(context).forEach((field, value) -> {
+            entries.add(Reply.bulk(field));
+            entries.add(Reply.bulk(value));
+        });
+        return new Reply.MapReply(entries);
+    }
+
+    private static Reply hdel(CommandContext context) {
+        HashValue hash = context.db().get(context.arg(1), HashValue.class);
+        if (hash == null) {
+            return Reply.ZERO;
+        }
+        long removed = 0;
+        for (int i = 2; i < context.argc(); i++) {
+            if (hash.fields.remove(context.arg(i)) != null) {
+                removed++;
+            }
+        }
+        context.db().removeIfEmpty(context.arg(1), hash.fields.isEmpty());
+        return Reply.integer(removed);
+    }
+
+    private static Reply hincrby(CommandContext context) {
+        long delta = context.longArg(3);
+        HashValue hash = hashForWrite(context);
+        String current = hash.fields.get(context.arg(2));
+        long value;
+        try {
+            value = current == null ? 0 : Long.parseLong(current);
+        } catch (NumberFormatException e) {
+            throw new CommandException("ERR hash value is not an integer");
+        }
+        long next;
+        try {
+            next = Math.addExact(value, delta);
+        } catch (ArithmeticException e) {
+            throw new CommandException("ERR increment or decrement would overflow");
+        }
+        hash.fields.put(context.arg(2), Long.toString(next));
+        return Reply.integer(next);
+    }
+
+    private static Reply hincrbyfloat(CommandContext context) {
+        double delta = context.doubleArg(3);
+        HashValue hash = hashForWrite(context);
+        String current = hash.fields.get(context.arg(2));
+        double value;
+        try {
+            value = current == null ? 0 : Numbers.parseDouble(current);
+        } catch (CommandException e) {
+            throw new CommandException("ERR hash value is not a float");
+        }
+        String next = Numbers.format(value + delta);
+        hash.fields.put(context.arg(2), next);
+        return Reply.bulk(next);
+    }
+
+    private static Reply hscan(CommandContext context) {
+        long cursor = ScanOptions.parseCursor(context, 2);
+        ScanOptions options = ScanOptions.parse(context, 3);
+        HashValue hash = context.db().get(context.arg(1), HashValue.class);
+        if (hash == null) {
+            return Reply.array(Reply.bulk("0"), Reply.EMPTY_ARRAY);
+        }
+        return options.scanCollection(cursor, hash.fields.entrySet(), hash.encoding().equals("listpack"),
+                Map.Entry::getKey, entry -> List.of(entry.getKey(), entry.getValue()));
+    }
+}
@@ -0,0 +1,41 @@
+package royce.redis.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+final class HashValue implements RedisValue {
+
+    static final int LISTPACK_MAX_ENTRIES = 128;
+    static final int LISTPACK_MAX_VALUE = 64;
+
+    final Map<String, String> fields = new LinkedHashMap<>();
+
+    @Override
+    public String type() {
+        return "hash";
+    }
+
+    @Override
+    public String encoding() {
+        if (fields.size() > LISTPACK_MAX_ENTRIES) {
+            return "hashtable";
+        }
+        for (Map.Entry<String, String> entry : fields.entrySet()) {
+            if (entry.getKey().length() > LISTPACK_MAX_VALUE || entry.getValue().length() > LISTPACK_MAX_VALUE) {
+                return "hashtable";
+            }
+        }
+        return "listpack";
+    }
+
+    @Override
+    public long memoryUsage() {
+        boolean listpack = encoding().equals("listpack");
+        long total = listpack ? 16 + 7 : 96;
+        for (Map.Entry<String, String> entry : fields.entrySet()) {
+            long payload = RedisValue.stringBytes(entry.getKey()) + RedisValue.stringBytes(entry.getValue());
+            total += listpack ? payload - 14 : payload + 40;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,73 @@
+package royce.redis.server;
+
+import royce.redis.hll.HyperLogLog;
+
+/**
+ * HyperLogLog 명령. Redis 와 같은 HYLL 문자열로 저장 하므로 GET/SET 으로 옮긴 값도 PFCOUNT/PFMERGE 할 수 있다.
+ */
+final class HyperLogLogCommands {
+
+    private HyperLogLogCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.registerWrite("pfadd", -2, HyperLogLogCommands::pfadd);
+        table.register("pfcount", -2, HyperLogLogCommands::pfcount);
+        table.registerWrite("pfmerge", -2, HyperLogLogCommands::pfmerge);
+    }
+
+    private static Reply pfadd(CommandContext context) {
+        String key = context.arg(1);
+        HyperLogLog hll = load(context, key);
+        boolean changed = hll == null;
+        if (hll == null) {
+            hll = new HyperLogLog();
+        }
+        for (int i = 2; i < context.argc(); i++) {
+            changed |= hll.add(context.rawArg(i));
+        }
+        if (changed) {
+            context.db().replace(key, new StringValue(hll.toBytes()));
+        }
+        return Reply.bool(changed);
+    }
+
+    private static Reply pfcount(CommandContext context) {
+        HyperLogLog union = new HyperLogLog();
+        for (int i = 1; i < context.argc(); i++) {
+            HyperLogLog hll = load(context, context.arg(i));
+            if (hll != null) {
+                union.merge(hll);
+            }
+        }
+        return Reply.integer(union.cardinality());
+    }
+
+    private static Reply pfmerge(CommandContext context) {
+        String destination = context.arg(1);
+        HyperLogLog merged = load(context, destination);
+        if (merged == null) {
+            merged = new HyperLogLog();
+        }
+        for (int i = 2; i < context.argc(); i++) {
+            HyperLogLog hll = load(context, context.arg(i));
+            if (hll != null) {
+                merged.merge(hll);
+            }
+        }
+        context.db().replace(destination, new StringValue(merged.toBytes()));
+        return Reply.OK;
+    }
+
+    private static HyperLogLog load(CommandContext context, String key) {
+        StringValue value = context.db().get(key, StringValue.class);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return HyperLogLog.fromBytes(value.bytes);
+        } catch (IllegalArgumentException e) {
+            throw new CommandException("WRONGTYPE Key is not a valid HyperLogLog string value.");
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package royce.redis.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 타입과 무관한 키 명령.
+ */
+final class KeyCommands {
+
+    private static final long KEY_OVERHEAD = 24 + 16;
+
+    private KeyCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.registerWrite("del", -2, KeyCommands::del);
+        table.registerWrite("unlink", -2, KeyCommands::del);
+        table.register("exists", -2, KeyCommands::exists);
+        table.register("type", 2, KeyCommands::type);
+        table.register("keys", 2, KeyCommands::keys);
+        table.register("scan", -2, KeyCommands::scan);
+        table.register("randomkey", 1, KeyCommands::randomKey);
+        table.registerWrite("rename", 3, KeyCommands::rename);
+        table.registerWrite("expire", -3, context -> expire(context, 1000, false));
+        table.registerWrite("pexpire", -3, context -> expire(context, 1, false));
+        table.registerWrite("expireat", -3, context -> expire(context, 1000, true));
+        table.registerWrite("pexpireat", -3, context -> expire(context, 1, true));
+        table.register("ttl", 2, context -> ttl(context, 1000));
+        table.register("pttl", 2, context -> ttl(context, 1));
+        table.registerWrite("persist", 2, context -> Reply.bool(context.db().exists(context.arg(1))
+                && context.db().persist(context.arg(1))));
+    }
+
+    static long memoryUsage(String key, RedisValue value) {
+        return KEY_OVERHEAD + RedisValue.stringBytes(key) + value.memoryUsage();
+    }
+
+    private static Reply del(CommandContext context) {
+        long removed = 0;
+        for (int i = 1; i < context.argc(); i++) {
+            if (context.db().remove(context.arg(i))) {
+                removed++;
+            }
+        }
+        return Reply.integer(removed);
+    }
+
+    private static Reply exists(CommandContext context) {
+        long count = 0;
+        for (int i = 1; i < context.argc(); i++) {
+            if (context.db().exists(context.arg(i))) {
+                count++;
+            }
+        }
+        return Reply.integer(count);
+    }
+
+    private static Reply type(CommandContext context) {
+        RedisValue value = context.db().get(context.arg(1));
+        return new Reply.SimpleString(value == null ? "none" : value.type());
+    }
+
+    private static Reply keys(CommandContext context) {
+        String pattern = context.arg(1);
+        List<String> matched = new ArrayList<>();
+        for (String key : context.db().keys()) {
+            if (Glob.matches(pattern, key)) {
+                matched.add(key);
+            }
+        }
+        return Reply.bulks(matched);
+    }
+
+    private static Reply scan(CommandContext context) {
+        long cursor = ScanOptions.parseCursor(context, 1);
+        ScanOptions options = ScanOptions.parse(context, 2);
+        Database db = context.db();
+        Database.ScanPage page = db.scan(cursor, options.count(), key -> {
+            if (!options.matches(key)) {
+                return false;
+            }
+            if (options.type() == null) {
+                return true;
+            }
+            RedisValue value = db.get(key);
+            return value != null && value.type().equalsIgnoreCase(options.type());
+        });
+        return Reply.array(Reply.bulk(Long.toString(page.cursor())), Reply.bulks(page.keys()));
+    }
+
+    private static Reply randomKey(CommandContext context) {
+        List<String> keys = context.db().keys();
+        if (keys.isEmpty()) {
+            return Reply.NULL;
+        }
+        return Reply.bulk(keys.get(ThreadLocalRandom.current().nextInt(keys.size())));
+    }
+
+    private static Reply rename(CommandContext context) {
+        Database db = context.db();
+        String source = context.arg(1);
+        RedisValue value = db.get(source);
+        if (value == null) {
+            throw new CommandException("ERR no such key");
+        }
+        Long expireAt = db.expireAt(source);
+        db.remove(source);
+        db.put(context.arg(2), value);
+        if (expireAt != null) {
+            db.expireAt(context.arg(2), expireAt);
+        }
+        context.signalReady(context.arg(2));
+        return Reply.OK;
+    }
+
+    private static Reply expire(CommandContext context, long unitMillis, boolean absolute) {
+        Database db = context.db();
+        String key = context.arg(1);
+        if (!db.exists(key)) {
+            return Reply.ZERO;
+        }
+        long amount = context.longArg(2);
+        long expireAt = absolute ? amount * unitMillis : System.currentTimeMillis() + amount * unitMillis;
+        if (context.argc() > 3) {
+            Long current = db.expireAt(key);
+            boolean allowed = switch (context.arg(3).toUpperCase()) {
+                case "NX" -> current == null;
+                case "XX" -> current != null;
+                case "GT" -> current != null && expireAt > current;
+                case "LT" -> current == null || expireAt < current;
+                default -> throw CommandException.syntax();
+            };
+            if (!allowed) {
+                return Reply.ZERO;
+            }
+        }
+        if (expireAt <= System.currentTimeMillis()) {
+            db.remove(key);
+        } else {
+            db.expireAt(key, expireAt);
+        }
+        return Reply.ONE;
+    }
+
+    private static Reply ttl(CommandContext context, long unitMillis) {
+        long ttl = context.db().ttlMillis(context.arg(1));
+        if (ttl < 0) {
+            return Reply.integer(ttl);
+        }
+        return Reply.integer(unitMillis == 1 ? ttl : (ttl + 500) / unitMillis);
+    }
+}
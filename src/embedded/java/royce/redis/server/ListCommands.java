@@ -0,0 +1,330 @@
+package royce.redis.server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * List 타입 명령. 블로킹 명령은 값이 없으면 서버의 대기열에 등록 되고, 다른 클라이언트가 push 하면 다시 실행 된다.
+ */
+final class ListCommands {
+
+    private ListCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.registerWrite("lpush", -3, context -> push(context, true, false));
+        table.registerWrite("rpush", -3, context -> push(context, false, false));
+        table.registerWrite("lpushx", -3, context -> push(context, true, true));
+        table.registerWrite("rpushx", -3, context -> push(context, false, true));
+        table.registerWrite("lpop", -2, context -> pop(context, true));
+        table.registerWrite("rpop", -2, context -> pop(context, false));
+        table.register("llen", 2, context -> {
+            ListValue list = context.db().get(context.arg(1), ListValue.class);
+            return Reply.integer(list == null ? 0 : list.elements.size());
+        });
+        table.register("lrange", 4, ListCommands::lrange);
+        table.register("lindex", 3, ListCommands::lindex);
+        table.registerWrite("lset", 4, ListCommands::lset);
+        table.registerWrite("ltrim", 4, ListCommands::ltrim);
+        table.registerWrite("lrem", 4, ListCommands::lrem);
+        table.registerWrite("lmove", 5, ListCommands::lmove);
+        table.registerWrite("rpoplpush", 3, context -> move(context, context.arg(1), context.arg(2), false, true));
+        table.registerWrite("lmpop", -4, context -> lmpop(context, 1));
+        table.registerWrite("blpop", -3, context -> blockingPop(context, true));
+        table.registerWrite("brpop", -3, context -> blockingPop(context, false));
+        table.registerWrite("blmove", 6, ListCommands::blmove);
+        table.registerWrite("brpoplpush", 4, ListCommands::brpoplpush);
+        table.registerWrite("blmpop", -5, ListCommands::blmpop);
+    }
+
+    private static Reply push(CommandContext context, boolean left, boolean onlyIfExists) {
+        String key = context.arg(1);
+        ListValue list = onlyIfExists
+                ? context.db().get(key, ListValue.class)
+                : context.db().getOrCreate(key, ListValue.class, ListValue::new);
+        if (list == null) {
+            return Reply.ZERO;
+        }
+        for (int i = 2; i < context.argc(); i++) {
+            if (left) {
+                list.elements.addFirst(context.arg(i));
+            } else {
+                list.elements.addLast(context.arg(i));
+            }
+        }
+        context.signalReady(key);
+        return Reply.integer(list.elements.size());
+    }
+
+    private static Reply pop(CommandContext context, boolean left) {
+        String key = context.arg(1);
+        ListValue list = context.db().get(key, ListValue.class);
+        if (context.argc() > 2) {
+            long count = context.longArg(2);
+            if (count < 0) {
+                throw new CommandException("ERR value is out of range, must be positive");
+            }
+            if (list == null) {
+                return Reply.NULL_ARRAY;
+            }
+            return Reply.bulks(popMany(context.db(), key, list, left, count));
+        }
+        if (list == null) {
+            return Reply.NULL;
+        }
+        return Reply.bulk(popMany(context.db(), key, list, left, 1).get(0));
+    }
+
+    private static List<String> popMany(Database db, String key, ListValue list, boolean left, long count) {
+        List<String> popped = new ArrayList<>();
+        while (popped.size() < count && !list.elements.isEmpty()) {
+            popped.add(left ? list.elements.pollFirst() : list.elements.pollLast());
+        }
+        db.removeIfEmpty(key, list.elements.isEmpty());
+        return popped;
+    }
+
+    private static Reply lrange(CommandContext context) {
+        ListValue list = context.db().get(context.arg(1), ListValue.class);
+        if (list == null) {
+            return Reply.EMPTY_ARRAY;
+        }
+        long[] range = Numbers.clampRange(context.longArg(2), context.longArg(3), list.elements.size());
+        if (range == null) {
+            return Reply.EMPTY_ARRAY;
+        }
+        List<String> result = new ArrayList<>();
+        long index = 0;
+        for (String element : list.elements) {
+            if (index > range[1]) {
+                break;
+            }
+            if (index >= range[0]) {
+                result.add(element);
+            }
+            index++;
+        }
+        return Reply.bulks(result);
+    }
+
+    private static Reply lindex(CommandContext context) {
+        ListValue list = context.db().get(context.arg(1), ListValue.class);
+        if (list == null) {
+            return Reply.NULL;
+        }
+        long index = context.longArg(2);
+        int size = list.elements.size();
+        if (index < 0) {
+            index += size;
+        }
+        if (index < 0 || index >= size) {
+            return Reply.NULL;
+        }
+        Iterator<String> iterator = list.elements.iterator();
+        for (long i = 0; i < index; i++) {
+            iterator.next();
+        }
+        return Reply.bulk(iterator.next());
+    }
+
+    private static Reply lset(CommandContext context) {
+        ListValue list = context.db().get(context.arg(1), ListValue.class);
+        if (list == null) {
+            throw new CommandException("ERR no such key");
+        }
+        long index = context.longArg(2);
+        int size = list.elements.size();
+        if (index < 0) {
+            index += size;
+        }
+        if (index < 0 || index >= size) {
+            throw new CommandException("ERR index out of range");
+        }
+        List<String> copy = new ArrayList<>(list.elements);
+        copy.set((int) index, context.arg(3));
+        list.elements.clear();
+        list.elements.addAll(copy);
+        return Reply.OK;
+    }
+
+    private static Reply ltrim(CommandContext context) {
+        String key = context.arg(1);
+        ListValue list = context.db().get(key, ListValue.class);
+        if (list == null) {
+            return Reply.OK;
+        }
+        long[] range = Numbers.clampRange(context.longArg(2), context.longArg(3), list.elements.size());
+        Deque<String> kept = new ArrayDeque<>();
+        long index = 0;
+        for (String element : list.elements) {
+            if (range != null && index >= range[0] && index <= range[1]) {
+                kept.add(element);
+            }
+            index++;
+        }
+        list.elements.clear();
+        list.elements.addAll(kept);
+        context.db().removeIfEmpty(key, list.elements.isEmpty());
+        return Reply.OK;
+    }
+
+    private static Reply lrem(CommandContext context) {
+        String key = context.arg(1);
+        ListValue list = context.db().get(key, ListValue.class);
+        if (list == null) {
+            return Reply.ZERO;
+        }
+        long count = context.longArg(2);
+        String target = context.arg(3);
+        long limit = count == 0 ? Long.MAX_VALUE : Math.abs(count);
+        Iterator<String> iterator = count < 0 ? list.elements.descendingIterator() : list.elements.iterator();
+        long removed = 0;
+        while (iterator.hasNext() && removed < limit) {
+            if (iterator.next().equals(target)) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        context.db().removeIfEmpty(key, list.elements.isEmpty());
+        return Reply.integer(removed);
+    }
+
+    private static Reply lmove(CommandContext context) {
+        return move(context, context.arg(1), context.arg(2), isLeft(context, 3), isLeft(context, 4));
+    }
+
+    private static Reply move(CommandContext context, String source, String destination,
+                              boolean fromLeft, boolean toLeft) {
+        Database db = context.db();
+        ListValue from = db.get(source, ListValue.class);
+        if (from == null) {
+            return Reply.NULL;
+        }
+        db.get(destination, ListValue.class);
+        String element = fromLeft ? from.elements.pollFirst() : from.elements.pollLast();
+        db.removeIfEmpty(source, from.elements.isEmpty());
+        ListValue to = db.getOrCreate(destination, ListValue.class, ListValue::new);
+        if (toLeft) {
+            to.elements.addFirst(element);
+        } else {
+            to.elements.addLast(element);
+        }
+        context.signalReady(destination);
+        return Reply.bulk(element);
+    }
+
+    private static Reply lmpop(CommandContext context, int numKeysIndex) {
+        long numKeys = context.longArg(numKeysIndex);
+        if (numKeys <= 0) {
+            throw new CommandException("ERR numkeys should be greater than 0");
+        }
+        if (numKeysIndex + numKeys + 1 >= context.argc()) {
+            throw CommandException.syntax();
+        }
+        int directionIndex = (int) (numKeysIndex + numKeys + 1);
+        boolean left = isLeft(context, directionIndex);
+        long count = 1;
+        if (directionIndex + 1 < context.argc()) {
+            if (!context.argIs(directionIndex + 1, "COUNT") || directionIndex + 2 >= context.argc()) {
+                throw CommandException.syntax();
+            }
+            count = context.longArg(directionIndex + 2);
+            if (count <= 0) {
+                throw new CommandException("ERR count should be greater than 0");
+            }
+        }
+        List<String> keys = context.args(numKeysIndex + 1, directionIndex);
+        Reply reply = popFirstNonEmpty(context, keys, left, count);
+        return reply == null ? Reply.NULL_ARRAY : reply;
+    }
+
+    private static Reply popFirstNonEmpty(CommandContext context, List<String> keys, boolean left, long count) {
+        for (String key : keys) {
+            ListValue list = context.db().get(key, ListValue.class);
+            if (list != null && !list.elements.isEmpty()) {
+                return Reply.array(Reply.bulk(key), Reply.bulks(popMany(context.db(), key, list, left, count)));
+            }
+        }
+        return null;
+    }
+
+    private static Reply blockingPop(CommandContext context, boolean left) {
+        List<String> keys = context.args(1, context.argc() - 1);
+        double timeout = parseTimeout(context, context.argc() - 1);
+        Reply immediate = popOne(context, keys, left);
+        if (immediate != null) {
+            return immediate;
+        }
+        return context.server().block(context, keys, timeout, () -> popOne(context, keys, left), Reply.NULL_ARRAY);
+    }
+
+    private static Reply popOne(CommandContext context, List<String> keys, boolean left) {
+        for (String key : keys) {
+            ListValue list = context.db().get(key, ListValue.class);
+            if (list != null && !list.elements.isEmpty()) {
+                return Reply.array(Reply.bulk(key), Reply.bulk(popMany(context.db(), key, list, left, 1).get(0)));
+            }
+        }
+        return null;
+    }
+
+    private static Reply blmove(CommandContext context) {
+        String source = context.arg(1);
+        String destination = context.arg(2);
+        boolean fromLeft = isLeft(context, 3);
+        boolean toLeft = isLeft(context, 4);
+        double timeout = parseTimeout(context, 5);
+        return blockingMove(context, source, destination, fromLeft, toLeft, timeout);
+    }
+
+    private static Reply brpoplpush(CommandContext context) {
+        return blockingMove(context, context.arg(1), context.arg(2), false, true, parseTimeout(context, 3));
+    }
+
+    private static Reply blockingMove(CommandContext context, String source, String destination,
+                                      boolean fromLeft, boolean toLeft, double timeout) {
+        Reply immediate = move(context, source, destination, fromLeft, toLeft);
+        if (immediate != Reply.NULL) {
+            return immediate;
+        }
+        return context.server().block(context, List.of(source), timeout, () -> {
+            Reply moved = move(context, source, destination, fromLeft, toLeft);
+            return moved == Reply.NULL ? null : moved;
+        }, Reply.NULL);
+    }
+
+    private static Reply blmpop(CommandContext context) {
+        double timeout = parseTimeout(context, 1);
+        Reply immediate = lmpop(context, 2);
+        if (immediate != Reply.NULL_ARRAY) {
+            return immediate;
+        }
+        long numKeys = context.longArg(2);
+        List<String> keys = context.args(3, (int) (3 + numKeys));
+        return context.server().block(context, keys, timeout, () -> {
+            Reply popped = lmpop(context, 2);
+            return popped == Reply.NULL_ARRAY ? null : popped;
+        }, Reply.NULL_ARRAY);
+    }
+
+    private static boolean isLeft(CommandContext context, int index) {
+        if (context.argIs(index, "LEFT")) {
+            return true;
+        }
+        if (context.argIs(index, "RIGHT")) {
+            return false;
+        }
+        throw CommandException.syntax();
+    }
+
+    private static double parseTimeout(CommandContext context, int index) {
+        try {
+            return Numbers.parseDouble(context.arg(index));
+        } catch (CommandException e) {
+            throw new CommandException("ERR timeout is not a float or out of range");
+        }
+    }
+}
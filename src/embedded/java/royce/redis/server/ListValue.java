@@ -0,0 +1,37 @@
+package royce.redis.server;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+final class ListValue implements RedisValue {
+
+    static final int LISTPACK_MAX_BYTES = 8 * 1024;
+
+    final Deque<String> elements = new ArrayDeque<>();
+
+    @Override
+    public String type() {
+        return "list";
+    }
+
+    @Override
+    public String encoding() {
+        long bytes = 0;
+        for (String element : elements) {
+            bytes += element.length() + 2;
+            if (bytes > LISTPACK_MAX_BYTES) {
+                return "quicklist";
+            }
+        }
+        return "listpack";
+    }
+
+    @Override
+    public long memoryUsage() {
+        long total = 40;
+        for (String element : elements) {
+            total += element.length() + 2;
+        }
+        return total + (total / LISTPACK_MAX_BYTES + 1) * 32;
+    }
+}
@@ -0,0 +1,477 @@
+package royce.redis.server;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LoadState;
+import org.luaj.vm2.LuaError;
+import org.luaj.vm2.LuaInteger;
+import org.luaj.vm2.LuaString;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.compiler.LuaC;
+import org.luaj.vm2.lib.PackageLib;
+import org.luaj.vm2.lib.StringLib;
+import org.luaj.vm2.lib.TableLib;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.jse.JseBaseLib;
+import org.luaj.vm2.lib.jse.JseMathLib;
+
+/**
+ * EVAL/EVALSHA 로 실행 하는 Lua 스크립트. luaj 로 컴파일 해서 SHA1 별로 보관 하고, 서버 스레드에서 명령 사이에 끼어 들지 않고 실행 한다.
+ * Redis 처럼 KEYS, ARGV 전역 테이블과 redis.call/pcall/error_reply/status_reply/sha1hex 를 제공 하며,
+ * 응답과 Lua 값은 RESP2 규칙(nil -> false, 상태 -> {ok=...}, 오류 -> {err=...}, 숫자 -> 정수)으로 변환 한다.
+ * FUNCTION LOAD 로 올린 라이브러리는 redis.register_function 으로 등록한 함수를 이름 별로 보관 하고 FCALL 로 호출 한다.
+ * Redis 와 달리 라이브러리와 EVAL 스크립트가 전역 환경을 함께 쓴다.
+ * luaj 는 Lua 5.2 이므로 Redis 의 Lua 5.1 과 다른 부분이 있고, cjson/cmsgpack/bit 라이브러리는 없다.
+ */
+final class LuaScripts {
+
+    private static final List<String> FORBIDDEN = List.of(
+            "eval", "evalsha", "eval_ro", "evalsha_ro", "script", "function", "fcall", "fcall_ro", "client", "hello",
+            "auth", "quit");
+    private static final Pattern SHEBANG = Pattern.compile("^#!(\\S+)(.*)$");
+    private static final Pattern FUNCTION_NAME = Pattern.compile("[A-Za-z0-9_]+");
+
+    private final RespServer server;
+    private final Globals globals = new Globals();
+    private final Map<String, LuaValue> compiled = new HashMap<>();
+    private final Map<String, Library> libraries = new LinkedHashMap<>();
+    private final Map<String, Function> functions = new HashMap<>();
+    private Map<String, Function> registering;
+    private ClientSession caller;
+
+    record Library(String name, String code, List<String> functions) {
+    }
+
+    record Function(String name, String library, LuaValue callback, List<String> flags) {
+    }
+
+    LuaScripts(RespServer server) {
+        this.server = server;
+        globals.load(new JseBaseLib());
+        globals.load(new PackageLib());
+        globals.load(new TableLib());
+        globals.load(new StringLib());
+        globals.load(new JseMathLib());
+        LoadState.install(globals);
+        LuaC.install(globals);
+        if (globals.get("unpack").isnil()) {
+            globals.set("unpack", globals.get("table").get("unpack"));
+        }
+        globals.set("redis", redisLibrary());
+    }
+
+    static String sha1(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.ISO_8859_1)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * SCRIPT LOAD. 컴파일 해서 보관 하고 SHA1 을 돌려 준다.
+     */
+    String load(String source) {
+        String sha = sha1(source);
+        if (!compiled.containsKey(sha)) {
+            compiled.put(sha, compile(source, "@user_script"));
+        }
+        return sha;
+    }
+
+    boolean exists(String sha) {
+        return compiled.containsKey(sha.toLowerCase(Locale.ROOT));
+    }
+
+    void flush() {
+        compiled.clear();
+    }
+
+    /**
+     * @throws CommandException 보관 된 스크립트가 없으면 NOSCRIPT
+     */
+    Reply evalsha(ClientSession client, String sha, List<String> keys, List<String> args) {
+        LuaValue function = compiled.get(sha.toLowerCase(Locale.ROOT));
+        if (function == null) {
+            throw new CommandException("NOSCRIPT No matching script. Please use EVAL.");
+        }
+        return run(client, function, keys, args);
+    }
+
+    Reply eval(ClientSession client, String source, List<String> keys, List<String> args) {
+        return evalsha(client, load(source), keys, args);
+    }
+
+    /**
+     * FUNCTION LOAD. 첫 줄의 #!lua name=&lt;library&gt; 를 읽고 본문을 실행 해서 register_function 으로 등록한 함수를 보관 한다.
+     * 등록에 실패 하면 기존 라이브러리는 그대로 남는다.
+     */
+    String loadLibrary(String code, boolean replace) {
+        int lineEnd = code.indexOf('\n');
+        String firstLine = lineEnd < 0 ? code : code.substring(0, lineEnd);
+        String name = libraryName(firstLine);
+        if (libraries.containsKey(name) && !replace) {
+            throw new CommandException("ERR Library '" + name + "' already exists");
+        }
+        // 첫 줄을 비워 오류 메시지의 줄 번호를 원본과 맞춘다
+        LuaValue chunk = compile(lineEnd < 0 ? "" : code.substring(lineEnd), "@user_function");
+        Map<String, Function> registered = new LinkedHashMap<>();
+        registering = registered;
+        try {
+            chunk.call();
+        } catch (LuaError e) {
+            throw new CommandException("ERR Error registering functions: " + singleLine(e.getMessage()));
+        } finally {
+            registering = null;
+        }
+        if (registered.isEmpty()) {
+            throw new CommandException("ERR No functions registered");
+        }
+        for (String function : registered.keySet()) {
+            Function existing = functions.get(function);
+            if (existing != null && !existing.library().equals(name)) {
+                throw new CommandException("ERR Function " + function + " already exists");
+            }
+        }
+        deleteLibrary(name, false);
+        registered.replaceAll((function, registration) ->
+                new Function(function, name, registration.callback(), registration.flags()));
+        functions.putAll(registered);
+        libraries.put(name, new Library(name, code, List.copyOf(registered.keySet())));
+        return name;
+    }
+
+    /**
+     * #!lua name=&lt;library&gt; 에서 라이브러리 이름을 읽는다.
+     */
+    private static String libraryName(String firstLine) {
+        Matcher shebang = SHEBANG.matcher(firstLine.strip());
+        if (!shebang.matches()) {
+            throw new CommandException("ERR Missing library metadata");
+        }
+        if (!shebang.group(1).equals("lua")) {
+            throw new CommandException("ERR Engine '" + shebang.group(1) + "' not found");
+        }
+        String name = null;
+        for (String option : shebang.group(2).strip().split("\\s+")) {
+            if (option.startsWith("name=")) {
+                name = option.substring("name=".length());
+            } else if (!option.isEmpty()) {
+                throw new CommandException("ERR Invalid metadata value given: " + option);
+            }
+        }
+        if (name == null || name.isEmpty()) {
+            throw new CommandException("ERR Library name was not given");
+        }
+        return name;
+    }
+
+    /**
+     * FUNCTION DELETE.
+     *
+     * @throws CommandException 라이브러리가 없으면
+     */
+    void deleteLibrary(String name) {
+        deleteLibrary(name, true);
+    }
+
+    private void deleteLibrary(String name, boolean required) {
+        Library library = libraries.remove(name);
+        if (library == null) {
+            if (required) {
+                throw new CommandException("ERR Library not found");
+            }
+            return;
+        }
+        library.functions().forEach(functions::remove);
+    }
+
+    void flushLibraries() {
+        libraries.clear();
+        functions.clear();
+    }
+
+    List<Library> libraries() {
+        return List.copyOf(libraries.values());
+    }
+
+    Function function(String name) {
+        return functions.get(name);
+    }
+
+    /**
+     * FCALL/FCALL_RO. 함수는 (keys, args) 두 테이블을 인자로 받는다.
+     *
+     * @throws CommandException 함수가 없거나 읽기 전용 호출에 no-writes 플래그가 없는 함수를 부르면
+     */
+    Reply fcall(ClientSession client, String name, List<String> keys, List<String> args, boolean readOnly) {
+        Function function = functions.get(name);
+        if (function == null) {
+            throw new CommandException("ERR Function not found");
+        }
+        if (readOnly && !function.flags().contains("no-writes")) {
+            throw new CommandException("ERR Can not execute a script with write flag using *_ro command.");
+        }
+        return invoke(client, () -> function.callback().call(toTable(keys), toTable(args)));
+    }
+
+    LuaValue compile(String source, String chunkName) {
+        try {
+            return globals.load(source, chunkName);
+        } catch (LuaError e) {
+            throw new CommandException("ERR Error compiling script (new function): " + singleLine(e.getMessage()));
+        }
+    }
+
+    /**
+     * KEYS, ARGV 를 채우고 함수를 호출 한다. 스크립트 안의 오류는 에러 응답으로 바꾼다.
+     */
+    Reply run(ClientSession client, LuaValue function, List<String> keys, List<String> args) {
+        globals.set("KEYS", toTable(keys));
+        globals.set("ARGV", toTable(args));
+        return invoke(client, () -> function.call());
+    }
+
+    Reply invoke(ClientSession client, Supplier<LuaValue> body) {
+        ClientSession previous = caller;
+        caller = client;
+        try {
+            return toReply(body.get());
+        } catch (LuaError e) {
+            LuaValue error = e.getMessageObject();
+            if (error != null && error.istable() && error.get("err").isstring()) {
+                return Reply.error(error.get("err").tojstring());
+            }
+            return Reply.error("ERR " + singleLine(e.getMessage()));
+        } finally {
+            caller = previous;
+        }
+    }
+
+    static LuaTable toTable(List<String> values) {
+        LuaTable table = new LuaTable();
+        for (int i = 0; i < values.size(); i++) {
+            table.set(i + 1, LuaValue.valueOf(values.get(i).getBytes(StandardCharsets.ISO_8859_1)));
+        }
+        return table;
+    }
+
+    static LuaValue toLua(Reply reply) {
+        if (reply instanceof Reply.IntegerReply integer) {
+            return LuaInteger.valueOf(integer.value());
+        } else if (reply instanceof Reply.Bulk bulk) {
+            return LuaValue.valueOf(bulk.value());
+        } else if (reply instanceof Reply.DoubleReply number) {
+            return LuaValue.valueOf(Numbers.format(number.value()));
+        } else if (reply instanceof Reply.SimpleString status) {
+            return singleField("ok", status.value());
+        } else if (reply instanceof Reply.Error error) {
+            return singleField("err", error.message());
+        } else if (reply instanceof Reply.ArrayReply array) {
+            return toLua(array.items());
+        } else if (reply instanceof Reply.SetReply set) {
+            return toLua(set.items());
+        } else if (reply instanceof Reply.MapReply map) {
+            return toLua(map.entries());
+        }
+        return LuaValue.FALSE;
+    }
+
+    private static LuaValue toLua(List<Reply> items) {
+        LuaTable table = new LuaTable();
+        for (int i = 0; i < items.size(); i++) {
+            table.set(i + 1, toLua(items.get(i)));
+        }
+        return table;
+    }
+
+    /**
+     * 숫자는 정수로 잘라 내고, 배열은 처음 나오는 nil 앞 까지만 변환 한다.
+     */
+    static Reply toReply(LuaValue value) {
+        if (value.isnil() || (value.isboolean() && !value.toboolean())) {
+            return Reply.NULL;
+        }
+        if (value.isboolean()) {
+            return Reply.ONE;
+        }
+        if (value.type() == LuaValue.TNUMBER) {
+            return Reply.integer((long) value.todouble());
+        }
+        if (value.isstring()) {
+            return Reply.bulk(bytes(value.checkstring()));
+        }
+        if (value.istable()) {
+            LuaValue error = value.get("err");
+            if (error.isstring()) {
+                return Reply.error(error.tojstring());
+            }
+            LuaValue status = value.get("ok");
+            if (status.isstring()) {
+                return new Reply.SimpleString(status.tojstring());
+            }
+            List<Reply> items = new ArrayList<>();
+            for (int i = 1; !value.get(i).isnil(); i++) {
+                items.add(toReply(value.get(i)));
+            }
+            return Reply.array(items);
+        }
+        return Reply.NULL;
+    }
+
+    private static byte[] bytes(LuaString value) {
+        byte[] bytes = new byte[value.length()];
+        value.copyInto(0, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    private LuaTable redisLibrary() {
+        LuaTable redis = new LuaTable();
+        redis.set("call", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs args) {
+                LuaValue result = redisCall(args);
+                if (result.istable() && result.get("err").isstring()) {
+                    throw new LuaError(result);
+                }
+                return result;
+            }
+        });
+        redis.set("pcall", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs args) {
+                return redisCall(args);
+            }
+        });
+        redis.set("register_function", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs args) {
+                register(args);
+                return LuaValue.NONE;
+            }
+        });
+        redis.set("error_reply", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs args) {
+                return LuaValue.tableOf(new LuaValue[]{LuaValue.valueOf("err"), args.checkstring(1)});
+            }
+        });
+        redis.set("status_reply", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs args) {
+                return LuaValue.tableOf(new LuaValue[]{LuaValue.valueOf("ok"), args.checkstring(1)});
+            }
+        });
+        redis.set("sha1hex", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs args) {
+                return LuaValue.valueOf(sha1(new String(bytes(args.checkstring(1)), StandardCharsets.ISO_8859_1)));
+            }
+        });
+        redis.set("log", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs args) {
+                return LuaValue.NONE;
+            }
+        });
+        redis.set("replicate_commands", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs args) {
+                return LuaValue.TRUE;
+            }
+        });
+        redis.set("LOG_DEBUG", 0);
+        redis.set("LOG_VERBOSE", 1);
+        redis.set("LOG_NOTICE", 2);
+        redis.set("LOG_WARNING", 3);
+        return redis;
+    }
+
+    /**
+     * redis.register_function(name, callback) 또는 redis.register_function{function_name=, callback=, flags=}.
+     */
+    private void register(Varargs args) {
+        if (registering == null) {
+            throw new LuaError("redis.register_function can only be called on FUNCTION LOAD command");
+        }
+        String name;
+        LuaValue callback;
+        List<String> flags = new ArrayList<>();
+        if (args.arg1().istable()) {
+            LuaTable options = args.checktable(1);
+            name = options.get("function_name").optjstring(null);
+            callback = options.get("callback");
+            LuaValue flagTable = options.get("flags");
+            if (flagTable.istable()) {
+                for (int i = 1; !flagTable.get(i).isnil(); i++) {
+                    flags.add(flagTable.get(i).tojstring());
+                }
+            }
+        } else {
+            name = args.optjstring(1, null);
+            callback = args.arg(2);
+        }
+        if (name == null || !FUNCTION_NAME.matcher(name).matches()) {
+            throw new LuaError("Function names can only contain letters, numbers, or underscores(_) "
+                    + "and must be at least one character long");
+        }
+        if (!callback.isfunction()) {
+            throw new LuaError("callback argument given to redis.register_function must be a function");
+        }
+        if (registering.containsKey(name)) {
+            throw new LuaError("Function already exists in the library");
+        }
+        registering.put(name, new Function(name, null, callback, List.copyOf(flags)));
+    }
+
+    /**
+     * redis.call/pcall 의 공통 부분. 오류는 {err=...} 테이블로 돌려 준다.
+     */
+    private LuaValue redisCall(Varargs args) {
+        if (registering != null) {
+            return singleField("err", "ERR redis.call can not be called on FUNCTION LOAD command");
+        }
+        if (args.narg() == 0) {
+            return singleField("err", "ERR Please specify at least one argument for this redis lib call");
+        }
+        List<byte[]> command = new ArrayList<>(args.narg());
+        for (int i = 1; i <= args.narg(); i++) {
+            LuaValue arg = args.arg(i);
+            if (!arg.isstring()) {
+                return singleField("err", "ERR Lua redis lib command arguments must be strings or integers");
+            }
+            command.add(bytes(arg.checkstring()));
+        }
+        String name = new String(command.get(0), StandardCharsets.ISO_8859_1).toLowerCase(Locale.ROOT);
+        if (FORBIDDEN.contains(name)) {
+            return singleField("err", "ERR This Redis command is not allowed from script");
+        }
+        return toLua(server.call(caller, command));
+    }
+
+    /**
+     * 에러 응답은 한 줄 이어야 하므로 traceback 의 줄 바꿈을 공백으로 바꾼다.
+     */
+    private static String singleLine(String message) {
+        return String.valueOf(message).replaceAll("\\s+", " ").trim();
+    }
+
+    private static LuaTable singleField(String name, String value) {
+        return LuaValue.tableOf(new LuaValue[]{LuaValue.valueOf(name), LuaValue.valueOf(value)});
+    }
+}
@@ -0,0 +1,71 @@
+package royce.redis.server;
+
+import java.math.BigDecimal;
+
+/**
+ * Redis 와 같은 방식으로 숫자 인자를 해석 하고 출력 한다.
+ */
+final class Numbers {
+
+    private Numbers() {
+    }
+
+    static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new CommandException("ERR value is not an integer or out of range");
+        }
+    }
+
+    static double parseDouble(String value) {
+        String lower = value.toLowerCase();
+        if (lower.equals("inf") || lower.equals("+inf")) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (lower.equals("-inf")) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        try {
+            double parsed = Double.parseDouble(value);
+            if (Double.isNaN(parsed)) {
+                throw new NumberFormatException();
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new CommandException("ERR value is not a valid float");
+        }
+    }
+
+    static String format(double value) {
+        if (value == Double.POSITIVE_INFINITY) {
+            return "inf";
+        }
+        if (value == Double.NEGATIVE_INFINITY) {
+            return "-inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e17) {
+            return Long.toString((long) value);
+        }
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Redis 의 음수 인덱스 규칙으로 [start, end] 범위를 길이에 맞게 자른다. 빈 범위이면 null 을 반환 한다.
+     */
+    static long[] clampRange(long start, long end, long length) {
+        if (start < 0) {
+            start += length;
+        }
+        if (end < 0) {
+            end += length;
+        }
+        if (start < 0) {
+            start = 0;
+        }
+        if (start > end || start >= length) {
+            return null;
+        }
+        return new long[]{start, Math.min(end, length - 1)};
+    }
+}
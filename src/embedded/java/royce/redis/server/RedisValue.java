@@ -0,0 +1,20 @@
+package royce.redis.server;
+
+/**
+ * 키스페이스에 저장 되는 값. TYPE, OBJECT ENCODING, MEMORY USAGE 의 근거가 된다.
+ */
+interface RedisValue {
+
+    String type();
+
+    String encoding();
+
+    /**
+     * 값이 차지 하는 대략적인 바이트 수. Redis 의 allocator 오버헤드까지 정확히 흉내 내지는 않는다.
+     */
+    long memoryUsage();
+
+    static long stringBytes(String value) {
+        return value.length() + 9L;
+    }
+}
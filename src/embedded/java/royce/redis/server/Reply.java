@@ -0,0 +1,106 @@
+package royce.redis.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 명령 실행 결과. 클라이언트가 협상한 프로토콜(RESP2/RESP3)에 맞게 RespWriter 가 직렬화 한다.
+ */
+public sealed interface Reply {
+
+    Reply OK = new SimpleString("OK");
+    Reply PONG = new SimpleString("PONG");
+    Reply NULL = new Null();
+    Reply NULL_ARRAY = new NullArray();
+    Reply ZERO = new IntegerReply(0);
+    Reply ONE = new IntegerReply(1);
+    Reply EMPTY_ARRAY = new ArrayReply(List.of());
+
+    /**
+     * 블로킹 명령이 대기 상태로 들어가 아직 응답 하지 않았음을 나타낸다.
+     */
+    Reply BLOCKED = new Blocked();
+
+    static Reply integer(long value) {
+        return new IntegerReply(value);
+    }
+
+    static Reply bool(boolean value) {
+        return value ? ONE : ZERO;
+    }
+
+    static Reply bulk(String value) {
+        return value == null ? NULL : new Bulk(value.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    static Reply bulk(byte[] value) {
+        return value == null ? NULL : new Bulk(value);
+    }
+
+    static Reply error(String message) {
+        return new Error(message);
+    }
+
+    static Reply bulks(Collection<String> values) {
+        List<Reply> items = new ArrayList<>(values.size());
+        for (String value : values) {
+            items.add(bulk(value));
+        }
+        return new ArrayReply(items);
+    }
+
+    static Reply array(List<Reply> items) {
+        return new ArrayReply(items);
+    }
+
+    static Reply array(Reply... items) {
+        return new ArrayReply(List.of(items));
+    }
+
+    record SimpleString(String value) implements Reply {
+    }
+
+    record Error(String message) implements Reply {
+    }
+
+    record IntegerReply(long value) implements Reply {
+    }
+
+    record Bulk(byte[] value) implements Reply {
+    }
+
+    /**
+     * RESP3 에서는 double, RESP2 에서는 bulk string 으로 직렬화 된다.
+     */
+    record DoubleReply(double value) implements Reply {
+    }
+
+    record ArrayReply(List<Reply> items) implements Reply {
+    }
+
+    /**
+     * key, value 가 번갈아 들어 있는 목록. RESP2 에서는 평탄화된 배열로 직렬화 된다.
+     */
+    record MapReply(List<Reply> entries) implements Reply {
+    }
+
+    record SetReply(List<Reply> items) implements Reply {
+    }
+
+    /**
+     * RESP3 push 메시지. RESP2 클라이언트에게는 전달 하지 않는다.
+     */
+    record Push(List<Reply> items) implements Reply {
+    }
+
+    record Null() implements Reply {
+    }
+
+    record NullArray() implements Reply {
+    }
+
+    record Blocked() implements Reply {
+    }
+}
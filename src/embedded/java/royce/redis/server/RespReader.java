@@ -0,0 +1,117 @@
+package royce.redis.server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 클라이언트 요청(RESP multi-bulk 또는 inline 명령)을 읽는다.
+ * 버퍼에 명령 하나가 온전히 들어 있지 않으면 position 을 되돌리고 null 을 반환 한다.
+ */
+final class RespReader {
+
+    private static final int MAX_BULK_LENGTH = 512 * 1024 * 1024;
+    private static final int MAX_INLINE_LENGTH = 64 * 1024;
+
+    private RespReader() {
+    }
+
+    static List<byte[]> read(ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            return null;
+        }
+        int start = buffer.position();
+        List<byte[]> command = buffer.get(start) == '*' ? readMultiBulk(buffer) : readInline(buffer);
+        if (command == null) {
+            buffer.position(start);
+        }
+        return command;
+    }
+
+    private static List<byte[]> readMultiBulk(ByteBuffer buffer) {
+        buffer.get();
+        Long count = readNumber(buffer);
+        if (count == null) {
+            return null;
+        }
+        if (count > 1024 * 1024) {
+            throw new CommandException("ERR Protocol error: invalid multibulk length");
+        }
+        List<byte[]> args = new ArrayList<>((int) Math.max(count, 0));
+        for (int i = 0; i < count; i++) {
+            if (!buffer.hasRemaining()) {
+                return null;
+            }
+            if (buffer.get() != '$') {
+                throw new CommandException("ERR Protocol error: expected '$'");
+            }
+            Long length = readNumber(buffer);
+            if (length == null) {
+                return null;
+            }
+            if (length < 0 || length > MAX_BULK_LENGTH) {
+                throw new CommandException("ERR Protocol error: invalid bulk length");
+            }
+            if (buffer.remaining() < length + 2) {
+                return null;
+            }
+            byte[] arg = new byte[length.intValue()];
+            buffer.get(arg);
+            buffer.get();
+            buffer.get();
+            args.add(arg);
+        }
+        return args;
+    }
+
+    private static List<byte[]> readInline(ByteBuffer buffer) {
+        int lineEnd = indexOf(buffer, buffer.position(), (byte) '\n');
+        if (lineEnd < 0) {
+            if (buffer.remaining() > MAX_INLINE_LENGTH) {
+                throw new CommandException("ERR Protocol error: too big inline request");
+            }
+            return null;
+        }
+        byte[] line = new byte[lineEnd - buffer.position()];
+        buffer.get(line);
+        buffer.get();
+        List<byte[]> args = new ArrayList<>();
+        for (String token : new String(line, StandardCharsets.ISO_8859_1).trim().split("\\s+")) {
+            if (!token.isEmpty()) {
+                args.add(token.getBytes(StandardCharsets.ISO_8859_1));
+            }
+        }
+        return args;
+    }
+
+    private static Long readNumber(ByteBuffer buffer) {
+        int lineEnd = indexOf(buffer, buffer.position(), (byte) '\r');
+        if (lineEnd < 0 || lineEnd + 1 >= buffer.limit()) {
+            return null;
+        }
+        long value = 0;
+        boolean negative = false;
+        for (int i = buffer.position(); i < lineEnd; i++) {
+            byte b = buffer.get(i);
+            if (b == '-' && i == buffer.position()) {
+                negative = true;
+            } else if (b >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+            } else {
+                throw new CommandException("ERR Protocol error: invalid number");
+            }
+        }
+        buffer.position(lineEnd + 2);
+        return negative ? -value : value;
+    }
+
+    private static int indexOf(ByteBuffer buffer, int from, byte target) {
+        for (int i = from; i < buffer.limit(); i++) {
+            if (buffer.get(i) == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
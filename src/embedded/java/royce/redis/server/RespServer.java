@@ -0,0 +1,773 @@
+package royce.redis.server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 테스트와 벤치마크를 위한 프로세스 내 RESP2/RESP3 서버.
+ * 실제 Redis 처럼 하나의 스레드가 selector 로 non-blocking I/O 를 처리 하고 명령도 같은 스레드에서 순서대로 실행 한다.
+ * 클러스터 모드 에서는 같은 스레드가 노드 마다 다른 포트를 listen 하며, 각 노드는 자기 slot 의 키만 처리 한다.
+ */
+public class RespServer implements AutoCloseable {
+
+    private static final Set<String> NO_AUTH_COMMANDS = Set.of("auth", "hello", "quit");
+
+    private final String host;
+    private final int requestedPort;
+    private final String password;
+    private final int databaseCount;
+    private final List<ClusterNode> nodes = new ArrayList<>();
+    private final ClusterNode[] slotOwners;
+    private final CommandTable commands = CommandTable.create();
+    private final LuaScripts scripts = new LuaScripts(this);
+    private final SlowLog slowLog = new SlowLog();
+    private final Map<Long, ClientSession> clients = new LinkedHashMap<>();
+    private final Map<BlockingKey, Deque<ClientSession>> blockedByKey = new HashMap<>();
+    private final Set<ClientSession> blockedClients = new LinkedHashSet<>();
+    private final Set<BlockingKey> readyKeys = new LinkedHashSet<>();
+    private final Deque<ClientSession> resumed = new ArrayDeque<>();
+    private final Set<ClientSession> dirty = new LinkedHashSet<>();
+    private final Map<String, Set<Long>> trackedKeys = new HashMap<>();
+    private final Set<ClientSession> broadcastClients = new LinkedHashSet<>();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final long startedAtMillis = System.currentTimeMillis();
+
+    private Selector selector;
+    private Thread thread;
+    private volatile boolean running;
+    private long nextClientId = 1;
+    private long commandsProcessed;
+
+    private record BlockingKey(int db, String key) {
+    }
+
+    private RespServer(Builder builder) {
+        this.host = builder.host;
+        this.requestedPort = builder.port;
+        this.password = builder.password;
+        this.databaseCount = builder.databases;
+        if (builder.primaries == 0) {
+            ClusterNode primary = new ClusterNode(nodeId(), 0, newDatabases());
+            nodes.add(primary);
+            for (int i = 0; i < builder.replicas; i++) {
+                nodes.add(new ClusterNode(nodeId(), primary));
+            }
+            this.slotOwners = null;
+            return;
+        }
+        this.slotOwners = new ClusterNode[ClusterCommands.SLOTS];
+        for (int i = 0; i < builder.primaries; i++) {
+            ClusterNode primary = new ClusterNode(nodeId(), i + 1, newDatabases());
+            primary.firstSlot = ClusterCommands.SLOTS * i / builder.primaries;
+            primary.lastSlot = ClusterCommands.SLOTS * (i + 1) / builder.primaries - 1;
+            for (int slot = primary.firstSlot; slot <= primary.lastSlot; slot++) {
+                slotOwners[slot] = primary;
+            }
+            nodes.add(primary);
+        }
+        for (int i = 0; i < builder.primaries; i++) {
+            for (int j = 0; j < builder.replicasPerPrimary; j++) {
+                nodes.add(new ClusterNode(nodeId(), nodes.get(i)));
+            }
+        }
+    }
+
+    private static String nodeId() {
+        byte[] id = new byte[20];
+        ThreadLocalRandom.current().nextBytes(id);
+        return HexFormat.of().formatHex(id);
+    }
+
+    private Database[] newDatabases() {
+        Database[] databases = new Database[databaseCount];
+        for (int i = 0; i < databases.length; i++) {
+            databases[i] = new Database();
+        }
+        return databases;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public RespServer start() {
+        try {
+            selector = Selector.open();
+            for (int i = 0; i < nodes.size(); i++) {
+                ClusterNode node = nodes.get(i);
+                node.channel = ServerSocketChannel.open();
+                node.channel.bind(new InetSocketAddress(host, requestedPort == 0 ? 0 : requestedPort + i));
+                node.channel.configureBlocking(false);
+                node.channel.register(selector, SelectionKey.OP_ACCEPT, node);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to start resp server", e);
+        }
+        running = true;
+        thread = new Thread(this::eventLoop, "resp-server-" + port());
+        thread.setDaemon(true);
+        thread.start();
+        try {
+            started.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return this;
+    }
+
+    /**
+     * 첫 번째 노드의 포트. 클러스터 모드 에서는 seed 로 사용 할 수 있다.
+     */
+    public int port() {
+        return nodes.get(0).port();
+    }
+
+    /**
+     * 모든 노드의 포트. 클러스터 모드 에서는 primary 가 먼저, 그 뒤에 replica 가 온다.
+     */
+    public List<Integer> ports() {
+        List<Integer> ports = new ArrayList<>(nodes.size());
+        for (ClusterNode node : nodes) {
+            ports.add(node.port());
+        }
+        return ports;
+    }
+
+    public String host() {
+        return host;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 클라이언트가 접속한 노드의 database. replica 는 primary 와 같은 database 를 돌려 준다.
+     */
+    Database database(ClientSession client, int index) {
+        if (index < 0 || index >= databaseCount) {
+            throw new CommandException("ERR DB index is out of range");
+        }
+        return client.node.databases[index];
+    }
+
+    int databaseCount() {
+        return databaseCount;
+    }
+
+    boolean clusterEnabled() {
+        return slotOwners != null;
+    }
+
+    List<ClusterNode> nodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    ClusterNode slotOwner(int slot) {
+        return slotOwners[slot];
+    }
+
+    /**
+     * port 의 replica 가 복제를 멈춘 것 처럼 보이게 한다. 데이터는 계속 공유 하지만 INFO/ROLE 의 offset 은 멈춘 시점에 머물러
+     * primary 가 쓰기를 받을 수록 복제 지연(바이트)이 늘어난다.
+     */
+    public void pauseReplication(int port) {
+        ClusterNode replica = replica(port);
+        replica.pausedOffset = replica.primary.replicationOffset;
+    }
+
+    public void resumeReplication(int port) {
+        replica(port).pausedOffset = -1;
+    }
+
+    private ClusterNode replica(int port) {
+        for (ClusterNode node : nodes) {
+            if (node.isReplica() && node.port() == port) {
+                return node;
+            }
+        }
+        throw new IllegalArgumentException("no replica listens on port " + port);
+    }
+
+    boolean checkPassword(String candidate) {
+        return password == null || password.equals(candidate);
+    }
+
+    boolean requiresPassword() {
+        return password != null;
+    }
+
+    Collection<ClientSession> clients() {
+        return Collections.unmodifiableCollection(clients.values());
+    }
+
+    ClientSession client(long id) {
+        return clients.get(id);
+    }
+
+    long uptimeSeconds() {
+        return (System.currentTimeMillis() - startedAtMillis) / 1000;
+    }
+
+    long commandsProcessed() {
+        return commandsProcessed;
+    }
+
+    int blockedClientCount() {
+        return blockedClients.size();
+    }
+
+    LuaScripts scripts() {
+        return scripts;
+    }
+
+    SlowLog slowLog() {
+        return slowLog;
+    }
+
+    /**
+     * 스크립트 안 에서 redis.call 로 명령을 실행 한다. 키 추적과 무효화는 바깥 EVAL 명령이 한 번에 처리 한다.
+     * 스크립트는 기다릴 수 없으므로 블로킹 명령이 대기 상태가 되면 바로 풀고 null 을 돌려 준다.
+     */
+    Reply call(ClientSession client, List<byte[]> args) {
+        commandsProcessed++;
+        CommandTable.Spec spec = commands.lookup(new String(args.get(0), StandardCharsets.ISO_8859_1));
+        if (spec == null) {
+            return Reply.error("ERR Unknown Redis command called from script");
+        }
+        if (!spec.acceptsArgc(args.size())) {
+            return Reply.error("ERR Wrong number of args calling Redis command from script");
+        }
+        Reply reply;
+        try {
+            reply = spec.handler().execute(new CommandContext(this, client, args));
+        } catch (CommandException e) {
+            reply = Reply.error(e.getMessage());
+        } catch (RuntimeException e) {
+            reply = Reply.error("ERR " + e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+        if (reply == Reply.BLOCKED) {
+            release(client);
+            reply = Reply.NULL_ARRAY;
+        }
+        return reply;
+    }
+
+    void send(ClientSession client, Reply reply) {
+        RespWriter.write(reply, client.protocol, client.pending);
+        dirty.add(client);
+    }
+
+    void signalReady(int db, String key) {
+        BlockingKey blockingKey = new BlockingKey(db, key);
+        if (blockedByKey.containsKey(blockingKey)) {
+            readyKeys.add(blockingKey);
+        }
+    }
+
+    /**
+     * CLIENT TRACKING ON. 기본 모드는 이후 읽은 키를, broadcast 모드는 prefix 에 맞는 모든 키를 추적 한다.
+     */
+    void enableTracking(ClientSession client, ClientSession.Tracking tracking) {
+        client.tracking = tracking;
+        if (tracking.broadcast()) {
+            broadcastClients.add(client);
+        } else {
+            broadcastClients.remove(client);
+        }
+    }
+
+    void disableTracking(ClientSession client) {
+        client.tracking = null;
+        broadcastClients.remove(client);
+    }
+
+    /**
+     * 키가 변경 되었음을 추적 중인 클라이언트에게 RESP3 invalidate push 로 알린다.
+     * 기본 모드의 클라이언트는 알림을 받은 키를 다시 읽을 때 까지 추적 대상에서 빠진다.
+     */
+    void invalidate(ClientSession writer, Collection<String> keys) {
+        if (keys.isEmpty() || (trackedKeys.isEmpty() && broadcastClients.isEmpty())) {
+            return;
+        }
+        Map<ClientSession, List<String>> targets = new LinkedHashMap<>();
+        for (String key : keys) {
+            Set<Long> readers = trackedKeys.remove(key);
+            if (readers != null) {
+                for (Long id : readers) {
+                    ClientSession reader = clients.get(id);
+                    if (reader != null && reader.tracking != null && !reader.tracking.broadcast()) {
+                        targets.computeIfAbsent(reader, k -> new ArrayList<>()).add(key);
+                    }
+                }
+            }
+            for (ClientSession subscriber : broadcastClients) {
+                if (subscriber.tracking.matches(key)) {
+                    targets.computeIfAbsent(subscriber, k -> new ArrayList<>()).add(key);
+                }
+            }
+        }
+        targets.forEach((target, invalidated) -> {
+            if (target != writer || !target.tracking.noloop()) {
+                push(target, Reply.bulk("invalidate"), Reply.bulks(invalidated));
+            }
+        });
+    }
+
+    /**
+     * FLUSHALL/FLUSHDB 처럼 모든 키가 바뀌었을 때 추적 중인 모든 클라이언트에게 null invalidate 를 보낸다.
+     */
+    void invalidateAll() {
+        trackedKeys.clear();
+        for (ClientSession client : clients.values()) {
+            if (client.tracking != null) {
+                push(client, Reply.bulk("invalidate"), Reply.NULL);
+            }
+        }
+    }
+
+    /**
+     * 현재 클라이언트를 대기 상태로 전환 한다. keys 중 하나에 값이 들어 오면 retry 를 다시 실행 한다.
+     *
+     * @param timeoutSeconds 0 이면 무기한 대기
+     */
+    Reply block(CommandContext context, List<String> keys, double timeoutSeconds,
+                Supplier<Reply> retry, Reply onTimeout) {
+        if (timeoutSeconds < 0) {
+            throw new CommandException("ERR timeout is negative");
+        }
+        ClientSession client = context.client();
+        long deadline = timeoutSeconds == 0 ? 0 : System.nanoTime() + (long) (timeoutSeconds * 1_000_000_000L);
+        client.blocked = new ClientSession.Blocked(client.db, List.copyOf(keys), deadline, retry, onTimeout);
+        blockedClients.add(client);
+        for (String key : keys) {
+            blockedByKey.computeIfAbsent(new BlockingKey(client.db, key), k -> new ArrayDeque<>()).add(client);
+        }
+        return Reply.BLOCKED;
+    }
+
+    /**
+     * 대기 중인 클라이언트를 깨워 reply 를 보낸다. CLIENT UNBLOCK 과 타임아웃이 사용 한다.
+     */
+    boolean unblock(ClientSession client, Reply reply) {
+        if (!client.isBlocked()) {
+            return false;
+        }
+        release(client);
+        send(client, reply);
+        resumed.add(client);
+        return true;
+    }
+
+    private void eventLoop() {
+        started.countDown();
+        try {
+            while (running) {
+                selector.select(nextTimeoutMillis());
+                Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    SelectionKey key = selected.next();
+                    selected.remove();
+                    handle(key);
+                }
+                expireBlockedClients();
+                drainResumed();
+                flushDirty();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isAcceptable()) {
+                accept(key);
+                return;
+            }
+            ClientSession client = (ClientSession) key.attachment();
+            if (key.isReadable()) {
+                read(client);
+            }
+            if (key.isValid() && key.isWritable()) {
+                write(client);
+            }
+        } catch (IOException e) {
+            if (key.attachment() instanceof ClientSession client) {
+                disconnect(client);
+            }
+        }
+    }
+
+    private void accept(SelectionKey key) throws IOException {
+        SocketChannel channel = ((ServerSocketChannel) key.channel()).accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        ClusterNode node = (ClusterNode) key.attachment();
+        ClientSession client = new ClientSession(nextClientId++, channel, node, password == null);
+        client.selectionKey = channel.register(selector, SelectionKey.OP_READ, client);
+        clients.put(client.id, client);
+    }
+
+    private void read(ClientSession client) throws IOException {
+        client.ensureInputCapacity();
+        int read = client.channel.read(client.input);
+        if (read < 0) {
+            disconnect(client);
+            return;
+        }
+        processInput(client);
+    }
+
+    private void processInput(ClientSession client) {
+        ByteBuffer input = client.input;
+        input.flip();
+        try {
+            while (!client.isBlocked() && !client.closeAfterWrite && clients.containsKey(client.id)) {
+                List<byte[]> args = RespReader.read(input);
+                if (args == null) {
+                    break;
+                }
+                if (args.isEmpty()) {
+                    continue;
+                }
+                Reply reply = execute(client, args);
+                if (reply != Reply.BLOCKED) {
+                    send(client, reply);
+                }
+                serveReadyKeys();
+            }
+        } catch (CommandException protocolError) {
+            send(client, Reply.error(protocolError.getMessage()));
+            client.closeAfterWrite = true;
+        } finally {
+            input.compact();
+        }
+    }
+
+    private Reply execute(ClientSession client, List<byte[]> args) {
+        commandsProcessed++;
+        String name = new String(args.get(0), StandardCharsets.ISO_8859_1);
+        CommandTable.Spec spec = commands.lookup(name);
+        if (spec == null) {
+            return Reply.error("ERR unknown command '" + name + "', with args beginning with: ");
+        }
+        if (!client.authenticated && !NO_AUTH_COMMANDS.contains(spec.name())) {
+            return Reply.error("NOAUTH Authentication required.");
+        }
+        if (!spec.acceptsArgc(args.size())) {
+            return Reply.error("ERR wrong number of arguments for '" + spec.name() + "' command");
+        }
+        if (slotOwners != null) {
+            Reply redirect = ClusterCommands.route(this, client, spec, args);
+            if (redirect != null) {
+                return redirect;
+            }
+        } else if (spec.write() && client.node.isReplica()) {
+            return Reply.error("READONLY You can't write against a read only replica.");
+        }
+        client.lastCommand = spec.name();
+        Database db = client.node.databases[client.db];
+        db.touched.clear();
+        long start = System.nanoTime();
+        Reply reply;
+        try {
+            reply = spec.handler().execute(new CommandContext(this, client, args));
+        } catch (CommandException e) {
+            reply = Reply.error(e.getMessage());
+        } catch (RuntimeException e) {
+            reply = Reply.error("ERR " + e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+        slowLog.record(client, args, System.nanoTime() - start);
+        trackKeys(client, spec, db);
+        if (spec.write() && !(reply instanceof Reply.Error)) {
+            replicate(client.node, args);
+        }
+        return reply;
+    }
+
+    /**
+     * replica 는 primary 의 데이터를 공유 하므로 실제로 전송 하지는 않고, 복제 스트림에 쓴 것 처럼 primary 의 offset 만 늘린다.
+     */
+    private void replicate(ClusterNode node, List<byte[]> args) {
+        long bytes = 0;
+        for (byte[] arg : args) {
+            bytes += arg.length;
+        }
+        node.replicationOffset += bytes;
+    }
+
+    /**
+     * write 명령이 건드린 키는 무효화 하고, 기본 모드로 추적 중인 클라이언트가 읽은 키는 추적 대상에 추가 한다.
+     * 무효화 push 는 명령의 응답 보다 먼저 전송 된다.
+     */
+    private void trackKeys(ClientSession client, CommandTable.Spec spec, Database db) {
+        if (spec.write()) {
+            invalidate(client, db.touched);
+        } else if (client.tracking != null && !client.tracking.broadcast()) {
+            for (String key : db.touched) {
+                trackedKeys.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(client.id);
+            }
+        }
+        db.touched.clear();
+    }
+
+    private void push(ClientSession client, Reply... items) {
+        if (client.protocol >= 3) {
+            send(client, new Reply.Push(List.of(items)));
+        }
+    }
+
+    private void serveReadyKeys() {
+        while (!readyKeys.isEmpty()) {
+            Iterator<BlockingKey> iterator = readyKeys.iterator();
+            BlockingKey readyKey = iterator.next();
+            iterator.remove();
+            Deque<ClientSession> waiters = blockedByKey.get(readyKey);
+            if (waiters == null) {
+                continue;
+            }
+            for (ClientSession waiter : new ArrayList<>(waiters)) {
+                if (!waiter.isBlocked()) {
+                    continue;
+                }
+                Database db = waiter.node.databases[waiter.blocked.db()];
+                db.touched.clear();
+                Reply reply = waiter.blocked.retry().get();
+                if (reply == null) {
+                    db.touched.clear();
+                    continue;
+                }
+                invalidate(waiter, db.touched);
+                db.touched.clear();
+                release(waiter);
+                send(waiter, reply);
+                resumed.add(waiter);
+            }
+        }
+    }
+
+    private void release(ClientSession client) {
+        ClientSession.Blocked blocked = client.blocked;
+        client.blocked = null;
+        blockedClients.remove(client);
+        for (String key : blocked.keys()) {
+            BlockingKey blockingKey = new BlockingKey(blocked.db(), key);
+            Deque<ClientSession> waiters = blockedByKey.get(blockingKey);
+            if (waiters != null) {
+                waiters.remove(client);
+                if (waiters.isEmpty()) {
+                    blockedByKey.remove(blockingKey);
+                }
+            }
+        }
+    }
+
+    private long nextTimeoutMillis() {
+        long nearest = Long.MAX_VALUE;
+        for (ClientSession client : blockedClients) {
+            if (client.blocked.deadline() != 0) {
+                nearest = Math.min(nearest, client.blocked.deadline());
+            }
+        }
+        if (nearest == Long.MAX_VALUE) {
+            return 0;
+        }
+        return Math.max(1, (nearest - System.nanoTime()) / 1_000_000 + 1);
+    }
+
+    private void expireBlockedClients() {
+        if (blockedClients.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (ClientSession client : new ArrayList<>(blockedClients)) {
+            long deadline = client.blocked.deadline();
+            if (deadline != 0 && deadline - now <= 0) {
+                unblock(client, client.blocked.onTimeout());
+            }
+        }
+    }
+
+    private void drainResumed() {
+        while (!resumed.isEmpty()) {
+            ClientSession client = resumed.poll();
+            if (clients.containsKey(client.id) && !client.isBlocked() && client.input.position() > 0) {
+                processInput(client);
+            }
+        }
+    }
+
+    private void flushDirty() {
+        for (ClientSession client : dirty) {
+            if (client.pending.size() > 0) {
+                client.output.add(ByteBuffer.wrap(client.pending.toByteArray()));
+                client.pending.reset();
+            }
+            try {
+                write(client);
+            } catch (IOException e) {
+                disconnect(client);
+            }
+        }
+        dirty.clear();
+    }
+
+    private void write(ClientSession client) throws IOException {
+        if (!clients.containsKey(client.id)) {
+            return;
+        }
+        while (!client.output.isEmpty()) {
+            ByteBuffer buffer = client.output.peek();
+            client.channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                client.selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            client.output.poll();
+        }
+        client.selectionKey.interestOps(SelectionKey.OP_READ);
+        if (client.closeAfterWrite) {
+            disconnect(client);
+        }
+    }
+
+    private void disconnect(ClientSession client) {
+        if (clients.remove(client.id) == null) {
+            return;
+        }
+        if (client.isBlocked()) {
+            release(client);
+        }
+        broadcastClients.remove(client);
+        client.selectionKey.cancel();
+        try {
+            client.channel.close();
+        } catch (IOException ignored) {
+            // already closed
+        }
+    }
+
+    private void shutdown() {
+        for (ClientSession client : new ArrayList<>(clients.values())) {
+            disconnect(client);
+        }
+        try {
+            for (ClusterNode node : nodes) {
+                node.channel.close();
+            }
+            selector.close();
+        } catch (IOException ignored) {
+            // shutting down
+        }
+    }
+
+    public static class Builder {
+
+        private String host = "127.0.0.1";
+        private int port;
+        private String password;
+        private int databases = 16;
+        private int replicas;
+        private int primaries;
+        private int replicasPerPrimary;
+
+        private Builder() {
+        }
+
+        public Builder host(String host) {
+            this.host = host;
+            return this;
+        }
+
+        /**
+         * 0 이면 사용 가능한 임의의 포트(ephemeral port)에 바인딩 한다.
+         */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder password(String password) {
+            this.password = password;
+            return this;
+        }
+
+        public Builder databases(int databases) {
+            this.databases = databases;
+            return this;
+        }
+
+        /**
+         * standalone primary 에 replicas 개의 replica 를 둔다. replica 는 primary 다음 포트를 사용 하고 쓰기 명령은 READONLY 로 거절 한다.
+         */
+        public Builder replicas(int replicas) {
+            if (replicas < 0) {
+                throw new IllegalArgumentException("replicas must not be negative: " + replicas);
+            }
+            this.replicas = replicas;
+            return this;
+        }
+
+        /**
+         * 클러스터 모드로 primaries 개의 노드가 slot 을 나누어 가지고, primary 마다 replicasPerPrimary 개의 replica 를 둔다.
+         * port 가 0 이 아니면 노드는 port 부터 차례로 포트를 사용 한다.
+         */
+        public Builder cluster(int primaries, int replicasPerPrimary) {
+            if (primaries < 1 || replicasPerPrimary < 0) {
+                throw new IllegalArgumentException(
+                        "invalid cluster shape: " + primaries + " primaries, " + replicasPerPrimary + " replicas");
+            }
+            this.primaries = primaries;
+            this.replicasPerPrimary = replicasPerPrimary;
+            this.databases = 1;
+            return this;
+        }
+
+        public RespServer build() {
+            return new RespServer(this);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package royce.redis.server;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import royce.redis.server.Reply.ArrayReply;
+import royce.redis.server.Reply.Blocked;
+import royce.redis.server.Reply.Bulk;
+import royce.redis.server.Reply.DoubleReply;
+import royce.redis.server.Reply.Error;
+import royce.redis.server.Reply.IntegerReply;
+import royce.redis.server.Reply.MapReply;
+import royce.redis.server.Reply.Null;
+import royce.redis.server.Reply.NullArray;
+import royce.redis.server.Reply.Push;
+import royce.redis.server.Reply.SetReply;
+import royce.redis.server.Reply.SimpleString;
+
+/**
+ * Reply 를 RESP2/RESP3 바이트로 직렬화 한다.
+ */
+final class RespWriter {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private RespWriter() {
+    }
+
+    static void write(Reply reply, int protocol, ByteArrayOutputStream out) {
+        if (reply instanceof SimpleString simple) {
+            line(out, '+', simple.value());
+        } else if (reply instanceof Error error) {
+            line(out, '-', error.message().replace('\r', ' ').replace('\n', ' '));
+        } else if (reply instanceof IntegerReply integer) {
+            line(out, ':', Long.toString(integer.value()));
+        } else if (reply instanceof Bulk bulk) {
+            bulk(out, bulk.value());
+        } else if (reply instanceof DoubleReply doubleReply) {
+            String value = Numbers.format(doubleReply.value());
+            if (protocol >= 3) {
+                line(out, ',', value);
+            } else {
+                bulk(out, value.getBytes(StandardCharsets.ISO_8859_1));
+            }
+        } else if (reply instanceof ArrayReply array) {
+            aggregate(out, '*', array.items(), protocol);
+        } else if (reply instanceof SetReply set) {
+            aggregate(out, protocol >= 3 ? '~' : '*', set.items(), protocol);
+        } else if (reply instanceof MapReply map) {
+            if (protocol >= 3) {
+                line(out, '%', Integer.toString(map.entries().size() / 2));
+                map.entries().forEach(entry -> write(entry, protocol, out));
+            } else {
+                aggregate(out, '*', map.entries(), protocol);
+            }
+        } else if (reply instanceof Push push) {
+            aggregate(out, '>', push.items(), protocol);
+        } else if (reply instanceof Null) {
+            if (protocol >= 3) {
+                line(out, '_', "");
+            } else {
+                line(out, '$', "-1");
+            }
+        } else if (reply instanceof NullArray) {
+            if (protocol >= 3) {
+                line(out, '_', "");
+            } else {
+                line(out, '*', "-1");
+            }
+        } else if (!(reply instanceof Blocked)) {
+            throw new IllegalArgumentException("unknown reply: " + reply);
+        }
+    }
+
+    private static void aggregate(ByteArrayOutputStream out, char type, List<Reply> items, int protocol) {
+        line(out, type, Integer.toString(items.size()));
+        for (Reply item : items) {
+            write(item, protocol, out);
+        }
+    }
+
+    private static void bulk(ByteArrayOutputStream out, byte[] value) {
+        line(out, '$', Integer.toString(value.length));
+        out.write(value, 0, value.length);
+        out.write(CRLF, 0, 2);
+    }
+
+    private static void line(ByteArrayOutputStream out, char type, String value) {
+        out.write(type);
+        byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+        out.write(bytes, 0, bytes.length);
+        out.write(CRLF, 0, 2);
+    }
+}
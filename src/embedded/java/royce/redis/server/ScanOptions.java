@@ -0,0 +1,78 @@
+package royce.redis.server;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * SCAN 계열 명령의 MATCH, COUNT, TYPE 옵션.
+ */
+record ScanOptions(String pattern, int count, String type) {
+
+    private static final int DEFAULT_COUNT = 10;
+
+    static ScanOptions parse(CommandContext context, int from) {
+        String pattern = null;
+        int count = DEFAULT_COUNT;
+        String type = null;
+        for (int i = from; i < context.argc(); i += 2) {
+            if (i + 1 >= context.argc()) {
+                throw CommandException.syntax();
+            }
+            if (context.argIs(i, "MATCH")) {
+                pattern = context.arg(i + 1);
+            } else if (context.argIs(i, "COUNT")) {
+                long parsed = context.longArg(i + 1);
+                if (parsed < 1) {
+                    throw CommandException.syntax();
+                }
+                count = (int) Math.min(parsed, Integer.MAX_VALUE);
+            } else if (context.argIs(i, "TYPE")) {
+                type = context.arg(i + 1);
+            } else {
+                throw CommandException.syntax();
+            }
+        }
+        return new ScanOptions(pattern, count, type);
+    }
+
+    static long parseCursor(CommandContext context, int index) {
+        try {
+            return Long.parseUnsignedLong(context.arg(index));
+        } catch (NumberFormatException e) {
+            throw new CommandException("ERR invalid cursor");
+        }
+    }
+
+    boolean matches(String value) {
+        return pattern == null || Glob.matches(pattern, value);
+    }
+
+    /**
+     * 컬렉션 요소를 cursor 위치 부터 count 개 훑는다. compact 인코딩(listpack, intset)은 Redis 처럼 한 번에 모두 반환 한다.
+     *
+     * @param render 요소 하나를 응답에 넣을 문자열 목록으로 바꾼다 (HSCAN 은 field, value 두 개)
+     */
+    <T> Reply scanCollection(long cursor, Iterable<T> elements, boolean compact,
+                             Function<T, String> matchKey, Function<T, List<String>> render) {
+        List<String> result = new ArrayList<>();
+        Iterator<T> iterator = elements.iterator();
+        long index = 0;
+        while (index < cursor && iterator.hasNext()) {
+            iterator.next();
+            index++;
+        }
+        int visited = 0;
+        while (iterator.hasNext() && (compact || visited < count)) {
+            T element = iterator.next();
+            index++;
+            visited++;
+            if (matches(matchKey.apply(element))) {
+                result.addAll(render.apply(element));
+            }
+        }
+        long next = iterator.hasNext() ? index : 0;
+        return Reply.array(Reply.bulk(Long.toString(next)), Reply.bulks(result));
+    }
+}
@@ -0,0 +1,135 @@
+package royce.redis.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * EVAL/EVALSHA 와 SCRIPT LOAD/EXISTS/FLUSH, FCALL/FCALL_RO 와 FUNCTION LOAD/DELETE/FLUSH/LIST.
+ * 스크립트와 함수 라이브러리는 LuaScripts 가 컴파일 해서 보관 한다.
+ * 스크립트 안의 명령이 건드린 키는 바깥 EVAL 명령의 키로 보고 한 번에 무효화 한다.
+ */
+final class ScriptCommands {
+
+    private ScriptCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.registerWrite("eval", -3, context -> context.server().scripts()
+                .eval(context.client(), context.arg(1), keys(context), args(context)));
+        table.registerWrite("evalsha", -3, context -> context.server().scripts()
+                .evalsha(context.client(), context.arg(1), keys(context), args(context)));
+        table.register("script", -2, ScriptCommands::script);
+        table.registerWrite("fcall", -3, context -> context.server().scripts()
+                .fcall(context.client(), context.arg(1), keys(context), args(context), false));
+        table.register("fcall_ro", -3, context -> context.server().scripts()
+                .fcall(context.client(), context.arg(1), keys(context), args(context), true));
+        table.register("function", -2, ScriptCommands::function);
+    }
+
+    private static Reply script(CommandContext context) {
+        LuaScripts scripts = context.server().scripts();
+        if (context.argIs(1, "LOAD") && context.argc() == 3) {
+            return Reply.bulk(scripts.load(context.arg(2)));
+        }
+        if (context.argIs(1, "EXISTS") && context.argc() >= 3) {
+            List<Reply> exists = new ArrayList<>(context.argc() - 2);
+            for (int i = 2; i < context.argc(); i++) {
+                exists.add(Reply.bool(scripts.exists(context.arg(i))));
+            }
+            return Reply.array(exists);
+        }
+        if (context.argIs(1, "FLUSH") && context.argc() <= 3) {
+            scripts.flush();
+            return Reply.OK;
+        }
+        throw new CommandException("ERR unknown subcommand or wrong number of arguments for '"
+                + context.arg(1) + "'. Try SCRIPT HELP.");
+    }
+
+    private static Reply function(CommandContext context) {
+        LuaScripts scripts = context.server().scripts();
+        if (context.argIs(1, "LOAD") && context.argc() >= 3) {
+            boolean replace = context.argc() == 4 && context.argIs(2, "REPLACE");
+            if (context.argc() == 4 && !replace) {
+                throw new CommandException("ERR Unknown option given: " + context.arg(2));
+            }
+            return Reply.bulk(scripts.loadLibrary(context.arg(context.argc() - 1), replace));
+        }
+        if (context.argIs(1, "DELETE") && context.argc() == 3) {
+            scripts.deleteLibrary(context.arg(2));
+            return Reply.OK;
+        }
+        if (context.argIs(1, "FLUSH") && context.argc() <= 3) {
+            scripts.flushLibraries();
+            return Reply.OK;
+        }
+        if (context.argIs(1, "LIST")) {
+            return list(context, scripts);
+        }
+        throw new CommandException("ERR unknown subcommand or wrong number of arguments for '"
+                + context.arg(1) + "'. Try FUNCTION HELP.");
+    }
+
+    /**
+     * FUNCTION LIST [LIBRARYNAME pattern] [WITHCODE].
+     */
+    private static Reply list(CommandContext context, LuaScripts scripts) {
+        String pattern = "*";
+        boolean withCode = false;
+        for (int i = 2; i < context.argc(); i++) {
+            if (context.argIs(i, "WITHCODE")) {
+                withCode = true;
+            } else if (context.argIs(i, "LIBRARYNAME") && i + 1 < context.argc()) {
+                pattern = context.arg(++i);
+            } else {
+                throw new CommandException("ERR Unknown argument " + context.arg(i));
+            }
+        }
+        List<Reply> libraries = new ArrayList<>();
+        for (LuaScripts.Library library : scripts.libraries()) {
+            if (!Glob.matches(pattern, library.name())) {
+                continue;
+            }
+            List<Reply> functions = new ArrayList<>();
+            for (String name : library.functions()) {
+                LuaScripts.Function function = scripts.function(name);
+                functions.add(new Reply.MapReply(List.of(
+                        Reply.bulk("name"), Reply.bulk(name),
+                        Reply.bulk("description"), Reply.NULL,
+                        Reply.bulk("flags"), new Reply.SetReply(function.flags().stream().map(Reply::bulk).toList()))));
+            }
+            List<Reply> entries = new ArrayList<>(List.of(
+                    Reply.bulk("library_name"), Reply.bulk(library.name()),
+                    Reply.bulk("engine"), Reply.bulk("LUA"),
+                    Reply.bulk("functions"), Reply.array(functions)));
+            if (withCode) {
+                entries.add(Reply.bulk("library_code"));
+                entries.add(Reply.bulk(library.code()));
+            }
+            libraries.add(new Reply.MapReply(entries));
+        }
+        return Reply.array(libraries);
+    }
+
+    /**
+     * EVAL script numkeys key [key ...] arg [arg ...] 의 key 목록.
+     */
+    static List<String> keys(CommandContext context) {
+        return context.args(3, 3 + numkeys(context));
+    }
+
+    static List<String> args(CommandContext context) {
+        return context.args(3 + numkeys(context), context.argc());
+    }
+
+    private static int numkeys(CommandContext context) {
+        long numkeys = context.longArg(2);
+        if (numkeys < 0) {
+            throw new CommandException("ERR Number of keys can't be negative");
+        }
+        if (numkeys > context.argc() - 3) {
+            throw new CommandException("ERR Number of keys can't be greater than number of args");
+        }
+        return (int) numkeys;
+    }
+}
@@ -0,0 +1,469 @@
+package royce.redis.server;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 접속, 인증, 서버 정보 관련 명령.
+ */
+final class ServerCommands {
+
+    private static final String VERSION = "7.2.0";
+
+    private ServerCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.register("ping", -1, ServerCommands::ping);
+        table.register("echo", 2, context -> Reply.bulk(context.rawArg(1)));
+        table.register("auth", -2, ServerCommands::auth);
+        table.register("hello", -1, ServerCommands::hello);
+        table.register("quit", 1, ServerCommands::quit);
+        table.register("select", 2, ServerCommands::select);
+        table.register("info", -1, ServerCommands::info);
+        table.register("flushall", -1, ServerCommands::flushall);
+        table.register("flushdb", -1, context -> {
+            context.db().clear();
+            context.server().invalidateAll();
+            return Reply.OK;
+        });
+        table.register("dbsize", 1, context -> Reply.integer(context.db().size()));
+        table.register("time", 1, ServerCommands::time);
+        table.register("client", -2, ServerCommands::client);
+        table.register("memory", -2, ServerCommands::memory);
+        table.register("object", -2, ServerCommands::object);
+        table.register("config", -2, ServerCommands::config);
+        table.register("command", -1, context -> Reply.EMPTY_ARRAY);
+        table.register("role", 1, ServerCommands::role);
+        table.register("slowlog", -2, ServerCommands::slowlog);
+        table.register("latency", -2, ServerCommands::latency);
+    }
+
+    private static Reply ping(CommandContext context) {
+        if (context.argc() > 2) {
+            throw new CommandException("ERR wrong number of arguments for 'ping' command");
+        }
+        return context.argc() == 2 ? Reply.bulk(context.rawArg(1)) : Reply.PONG;
+    }
+
+    private static Reply auth(CommandContext context) {
+        if (context.argc() > 3) {
+            throw CommandException.syntax();
+        }
+        if (!context.server().requiresPassword()) {
+            throw new CommandException("ERR AUTH <password> called without any password configured for the default user. "
+                    + "Are you sure your configuration is correct?");
+        }
+        String username = context.argc() == 3 ? context.arg(1) : "default";
+        authenticate(context, username, context.arg(context.argc() - 1));
+        return Reply.OK;
+    }
+
+    private static Reply hello(CommandContext context) {
+        ClientSession client = context.client();
+        int protocol = client.protocol;
+        int index = 1;
+        if (context.argc() > 1) {
+            long requested;
+            try {
+                requested = context.longArg(1);
+            } catch (CommandException e) {
+                throw new CommandException("ERR Protocol version is not an integer or out of range");
+            }
+            if (requested != 2 && requested != 3) {
+                throw new CommandException("NOPROTO unsupported protocol version");
+            }
+            protocol = (int) requested;
+            index = 2;
+        }
+        String name = null;
+        while (index < context.argc()) {
+            if (context.argIs(index, "AUTH") && index + 2 < context.argc()) {
+                authenticate(context, context.arg(index + 1), context.arg(index + 2));
+                index += 3;
+            } else if (context.argIs(index, "SETNAME") && index + 1 < context.argc()) {
+                name = context.arg(index + 1);
+                index += 2;
+            } else {
+                throw new CommandException("ERR Syntax error in HELLO option '" + context.arg(index) + "'");
+            }
+        }
+        if (!client.authenticated) {
+            throw new CommandException("NOAUTH HELLO must be called with the client already authenticated, "
+                    + "otherwise the HELLO <proto> AUTH <user> <pass> option can be used to authenticate "
+                    + "the client and select the RESP protocol version at the same time");
+        }
+        if (name != null) {
+            client.name = name;
+        }
+        client.protocol = protocol;
+        return new Reply.MapReply(List.of(
+                Reply.bulk("server"), Reply.bulk("redis"),
+                Reply.bulk("version"), Reply.bulk(VERSION),
+                Reply.bulk("proto"), Reply.integer(protocol),
+                Reply.bulk("id"), Reply.integer(client.id),
+                Reply.bulk("mode"), Reply.bulk(context.server().clusterEnabled() ? "cluster" : "standalone"),
+                Reply.bulk("role"), Reply.bulk(client.node.isReplica() ? "replica" : "master"),
+                Reply.bulk("modules"), Reply.EMPTY_ARRAY
+        ));
+    }
+
+    private static void authenticate(CommandContext context, String username, String password) {
+        if (!username.equals("default") || !context.server().checkPassword(password)) {
+            throw new CommandException("WRONGPASS invalid username-password pair or user is disabled.");
+        }
+        context.client().authenticated = true;
+    }
+
+    private static Reply quit(CommandContext context) {
+        context.client().closeAfterWrite = true;
+        return Reply.OK;
+    }
+
+    private static Reply select(CommandContext context) {
+        if (context.server().clusterEnabled()) {
+            throw new CommandException("ERR SELECT is not allowed in cluster mode");
+        }
+        long index = context.longArg(1);
+        if (index < 0 || index >= context.server().databaseCount()) {
+            throw new CommandException("ERR DB index is out of range");
+        }
+        context.client().db = (int) index;
+        return Reply.OK;
+    }
+
+    private static Reply flushall(CommandContext context) {
+        for (int i = 0; i < context.server().databaseCount(); i++) {
+            context.server().database(context.client(), i).clear();
+        }
+        context.server().invalidateAll();
+        return Reply.OK;
+    }
+
+    private static Reply time(CommandContext context) {
+        long micros = System.currentTimeMillis() * 1000;
+        return Reply.array(Reply.bulk(Long.toString(micros / 1_000_000)), Reply.bulk(Long.toString(micros % 1_000_000)));
+    }
+
+    private static Reply info(CommandContext context) {
+        RespServer server = context.server();
+        ClusterNode node = context.client().node;
+        String section = context.argc() > 1 ? context.arg(1).toLowerCase(Locale.ROOT) : "default";
+        boolean all = section.equals("default") || section.equals("all") || section.equals("everything");
+        StringBuilder info = new StringBuilder();
+        if (all || section.equals("server")) {
+            info.append("# Server\r\n")
+                    .append("redis_version:").append(VERSION).append("\r\n")
+                    .append("redis_mode:").append(server.clusterEnabled() ? "cluster" : "standalone").append("\r\n")
+                    .append("tcp_port:").append(node.port()).append("\r\n")
+                    .append("uptime_in_seconds:").append(server.uptimeSeconds()).append("\r\n")
+                    .append("\r\n");
+        }
+        if (all || section.equals("clients")) {
+            info.append("# Clients\r\n")
+                    .append("connected_clients:").append(server.clients().size()).append("\r\n")
+                    .append("blocked_clients:").append(server.blockedClientCount()).append("\r\n")
+                    .append("\r\n");
+        }
+        if (all || section.equals("memory")) {
+            long used = 0;
+            for (int i = 0; i < server.databaseCount(); i++) {
+                Database db = server.database(context.client(), i);
+                for (String key : db.keys()) {
+                    used += KeyCommands.memoryUsage(key, db.get(key));
+                }
+            }
+            info.append("# Memory\r\n")
+                    .append("used_memory:").append(used).append("\r\n")
+                    .append("\r\n");
+        }
+        if (all || section.equals("stats")) {
+            info.append("# Stats\r\n")
+                    .append("total_commands_processed:").append(server.commandsProcessed()).append("\r\n")
+                    .append("\r\n");
+        }
+        if (all || section.equals("replication")) {
+            info.append("# Replication\r\n");
+            if (node.isReplica()) {
+                info.append("role:slave\r\n")
+                        .append("master_host:").append(server.host()).append("\r\n")
+                        .append("master_port:").append(node.primary.port()).append("\r\n")
+                        .append("master_link_status:up\r\n")
+                        .append("slave_repl_offset:").append(node.replicationOffset()).append("\r\n");
+            } else {
+                List<ClusterNode> replicas = replicas(server, node);
+                info.append("role:master\r\n")
+                        .append("connected_slaves:").append(replicas.size()).append("\r\n");
+                for (int i = 0; i < replicas.size(); i++) {
+                    ClusterNode replica = replicas.get(i);
+                    info.append("slave").append(i).append(":ip=").append(server.host())
+                            .append(",port=").append(replica.port())
+                            .append(",state=online,offset=").append(replica.replicationOffset())
+                            .append(",lag=0\r\n");
+                }
+            }
+            info.append("master_repl_offset:").append(node.replicationOffset()).append("\r\n")
+                    .append("\r\n");
+        }
+        if (all || section.equals("cluster")) {
+            info.append("# Cluster\r\n")
+                    .append("cluster_enabled:").append(server.clusterEnabled() ? 1 : 0).append("\r\n")
+                    .append("\r\n");
+        }
+        if (all || section.equals("keyspace")) {
+            info.append("# Keyspace\r\n");
+            for (int i = 0; i < server.databaseCount(); i++) {
+                int size = server.database(context.client(), i).size();
+                if (size > 0) {
+                    info.append("db").append(i).append(":keys=").append(size).append(",expires=0,avg_ttl=0\r\n");
+                }
+            }
+        }
+        return Reply.bulk(info.toString());
+    }
+
+    /**
+     * primary 는 [master, offset, [[ip, port, offset] ...]], replica 는 [slave, ip, port, connected, offset].
+     */
+    private static Reply role(CommandContext context) {
+        RespServer server = context.server();
+        ClusterNode node = context.client().node;
+        if (node.isReplica()) {
+            return Reply.array(Reply.bulk("slave"), Reply.bulk(server.host()), Reply.integer(node.primary.port()),
+                    Reply.bulk("connected"), Reply.integer(node.replicationOffset()));
+        }
+        List<Reply> replicas = new ArrayList<>();
+        for (ClusterNode replica : replicas(server, node)) {
+            replicas.add(Reply.array(Reply.bulk(server.host()), Reply.bulk(String.valueOf(replica.port())),
+                    Reply.bulk(String.valueOf(replica.replicationOffset()))));
+        }
+        return Reply.array(Reply.bulk("master"), Reply.integer(node.replicationOffset()), Reply.array(replicas));
+    }
+
+    private static List<ClusterNode> replicas(RespServer server, ClusterNode primary) {
+        List<ClusterNode> replicas = new ArrayList<>();
+        for (ClusterNode node : server.nodes()) {
+            if (node.primary == primary) {
+                replicas.add(node);
+            }
+        }
+        return replicas;
+    }
+
+    private static Reply client(CommandContext context) {
+        ClientSession client = context.client();
+        String subcommand = context.arg(1).toUpperCase(Locale.ROOT);
+        return switch (subcommand) {
+            case "ID" -> Reply.integer(client.id);
+            case "SETNAME" -> {
+                client.name = context.arg(2);
+                yield Reply.OK;
+            }
+            case "GETNAME" -> client.name.isEmpty() ? Reply.NULL : Reply.bulk(client.name);
+            case "LIST" -> {
+                StringBuilder list = new StringBuilder();
+                for (ClientSession each : context.server().clients()) {
+                    list.append("id=").append(each.id)
+                            .append(" laddr=").append(context.server().host()).append(':').append(each.node.port())
+                            .append(" name=").append(each.name)
+                            .append(" db=").append(each.db)
+                            .append(" resp=").append(each.protocol)
+                            .append(" flags=").append(flags(each))
+                            .append(" cmd=").append(each.lastCommand)
+                            .append('\n');
+                }
+                yield Reply.bulk(list.toString());
+            }
+            case "UNBLOCK" -> {
+                ClientSession target = context.server().client(context.longArg(2));
+                boolean error = context.argc() > 3 && context.argIs(3, "ERROR");
+                if (target == null) {
+                    yield Reply.ZERO;
+                }
+                Reply reply = error
+                        ? Reply.error("UNBLOCKED client unblocked via CLIENT UNBLOCK")
+                        : target.blocked == null ? Reply.NULL_ARRAY : target.blocked.onTimeout();
+                yield Reply.bool(context.server().unblock(target, reply));
+            }
+            case "TRACKING" -> tracking(context);
+            case "SETINFO", "NO-EVICT", "NO-TOUCH" -> Reply.OK;
+            default -> throw new CommandException("ERR unknown subcommand '" + context.arg(1) + "'.");
+        };
+    }
+
+    private static String flags(ClientSession client) {
+        if (client.isBlocked()) {
+            return "b";
+        }
+        if (client.tracking != null) {
+            return "t";
+        }
+        return client.readonly ? "r" : "N";
+    }
+
+    /**
+     * CLIENT TRACKING ON|OFF [PREFIX prefix ...] [BCAST] [NOLOOP]. REDIRECT, OPTIN, OPTOUT 은 지원 하지 않는다.
+     */
+    private static Reply tracking(CommandContext context) {
+        if (context.argc() < 3) {
+            throw new CommandException("ERR wrong number of arguments for 'client|tracking' command");
+        }
+        if (context.argIs(2, "OFF")) {
+            context.server().disableTracking(context.client());
+            return Reply.OK;
+        }
+        if (!context.argIs(2, "ON")) {
+            throw CommandException.syntax();
+        }
+        boolean broadcast = false;
+        boolean noloop = false;
+        List<String> prefixes = new ArrayList<>();
+        for (int index = 3; index < context.argc(); index++) {
+            if (context.argIs(index, "BCAST")) {
+                broadcast = true;
+            } else if (context.argIs(index, "NOLOOP")) {
+                noloop = true;
+            } else if (context.argIs(index, "PREFIX") && index + 1 < context.argc()) {
+                prefixes.add(context.arg(++index));
+            } else {
+                throw new CommandException("ERR unsupported CLIENT TRACKING option '" + context.arg(index) + "'");
+            }
+        }
+        if (!broadcast && !prefixes.isEmpty()) {
+            throw new CommandException("ERR PREFIX option requires BCAST mode to be enabled");
+        }
+        ClientSession.Tracking tracking = new ClientSession.Tracking(broadcast, List.copyOf(prefixes), noloop);
+        context.server().enableTracking(context.client(), tracking);
+        return Reply.OK;
+    }
+
+    private static Reply memory(CommandContext context) {
+        if (!context.argIs(1, "USAGE") || context.argc() < 3) {
+            throw new CommandException("ERR unknown subcommand '" + context.arg(1) + "'.");
+        }
+        String key = context.arg(2);
+        RedisValue value = context.db().get(key);
+        return value == null ? Reply.NULL : Reply.integer(KeyCommands.memoryUsage(key, value));
+    }
+
+    private static Reply object(CommandContext context) {
+        if (context.argc() != 3) {
+            throw CommandException.syntax();
+        }
+        RedisValue value = context.db().get(context.arg(2));
+        String subcommand = context.arg(1).toUpperCase(Locale.ROOT);
+        return switch (subcommand) {
+            case "ENCODING" -> value == null ? Reply.NULL : Reply.bulk(value.encoding());
+            case "REFCOUNT" -> value == null ? Reply.NULL : Reply.ONE;
+            case "IDLETIME", "FREQ" -> value == null ? Reply.NULL : Reply.ZERO;
+            default -> throw new CommandException("ERR unknown subcommand '" + context.arg(1) + "'.");
+        };
+    }
+
+    /**
+     * slowlog-log-slower-than, slowlog-max-len, latency-monitor-threshold 만 실제로 반영 하고 나머지 설정은 무시 한다.
+     */
+    private static Reply config(CommandContext context) {
+        SlowLog slowLog = context.server().slowLog();
+        if (context.argIs(1, "GET") && context.argc() >= 3) {
+            Map<String, Long> values = new LinkedHashMap<>();
+            values.put("slowlog-log-slower-than", slowLog.slowerThanMicros);
+            values.put("slowlog-max-len", (long) slowLog.maxLength);
+            values.put("latency-monitor-threshold", slowLog.latencyThresholdMillis);
+            List<Reply> entries = new ArrayList<>();
+            values.forEach((name, value) -> {
+                for (int i = 2; i < context.argc(); i++) {
+                    if (Glob.matches(context.arg(i).toLowerCase(Locale.ROOT), name)) {
+                        entries.add(Reply.bulk(name));
+                        entries.add(Reply.bulk(String.valueOf(value)));
+                        break;
+                    }
+                }
+            });
+            return new Reply.MapReply(entries);
+        }
+        if (context.argIs(1, "SET") && context.argc() >= 4 && context.argc() % 2 == 0) {
+            for (int i = 2; i < context.argc(); i += 2) {
+                String name = context.arg(i).toLowerCase(Locale.ROOT);
+                switch (name) {
+                    case "slowlog-log-slower-than" -> slowLog.slowerThanMicros = context.longArg(i + 1);
+                    case "slowlog-max-len" -> slowLog.maxLength = (int) Math.max(0, context.longArg(i + 1));
+                    case "latency-monitor-threshold" -> slowLog.latencyThresholdMillis = context.longArg(i + 1);
+                    default -> {
+                        // 지원 하지 않는 설정은 무시 한다
+                    }
+                }
+            }
+            return Reply.OK;
+        }
+        if (context.argIs(1, "RESETSTAT")) {
+            return Reply.OK;
+        }
+        throw new CommandException("ERR unknown subcommand '" + context.arg(1) + "'.");
+    }
+
+    /**
+     * SLOWLOG GET [count] | LEN | RESET. 항목은 [id, timestamp, 마이크로초, [args], ip:port, client name].
+     */
+    private static Reply slowlog(CommandContext context) {
+        SlowLog slowLog = context.server().slowLog();
+        String subcommand = context.arg(1).toUpperCase(Locale.ROOT);
+        return switch (subcommand) {
+            case "GET" -> {
+                long count = context.argc() > 2 ? context.longArg(2) : 10;
+                List<Reply> entries = new ArrayList<>();
+                for (SlowLog.Entry entry : slowLog.entries(count)) {
+                    List<Reply> args = new ArrayList<>(entry.args().size());
+                    for (byte[] arg : entry.args()) {
+                        args.add(Reply.bulk(arg));
+                    }
+                    entries.add(Reply.array(Reply.integer(entry.id()), Reply.integer(entry.timestamp()),
+                            Reply.integer(entry.micros()), Reply.array(args),
+                            Reply.bulk(entry.client()), Reply.bulk(entry.name())));
+                }
+                yield Reply.array(entries);
+            }
+            case "LEN" -> Reply.integer(slowLog.length());
+            case "RESET" -> {
+                slowLog.reset();
+                yield Reply.OK;
+            }
+            default -> throw new CommandException("ERR unknown subcommand '" + context.arg(1) + "'.");
+        };
+    }
+
+    /**
+     * LATENCY LATEST | HISTORY event | RESET [event ...]. 명령 실행 시간을 기록 하는 command 이벤트만 있다.
+     */
+    private static Reply latency(CommandContext context) {
+        SlowLog slowLog = context.server().slowLog();
+        String subcommand = context.arg(1).toUpperCase(Locale.ROOT);
+        return switch (subcommand) {
+            case "LATEST" -> {
+                List<Reply> events = new ArrayList<>();
+                slowLog.events().forEach((name, event) -> events.add(Reply.array(Reply.bulk(name),
+                        Reply.integer(event.timestamp), Reply.integer(event.latestMillis),
+                        Reply.integer(event.maxMillis))));
+                yield Reply.array(events);
+            }
+            case "HISTORY" -> {
+                if (context.argc() != 3) {
+                    throw new CommandException("ERR wrong number of arguments for 'latency|history' command");
+                }
+                SlowLog.Event event = slowLog.events().get(context.arg(2).toLowerCase(Locale.ROOT));
+                List<Reply> samples = new ArrayList<>();
+                if (event != null) {
+                    for (long[] sample : event.history) {
+                        samples.add(Reply.array(Reply.integer(sample[0]), Reply.integer(sample[1])));
+                    }
+                }
+                yield Reply.array(samples);
+            }
+            case "RESET" -> Reply.integer(slowLog.resetEvents(context.args(2, context.argc())));
+            default -> throw new CommandException("ERR unknown subcommand '" + context.arg(1) + "'.");
+        };
+    }
+}
@@ -0,0 +1,163 @@
+package royce.redis.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Set 타입 명령.
+ */
+final class SetCommands {
+
+    private SetCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.registerWrite("sadd", -3, SetCommands::sadd);
+        table.registerWrite("srem", -3, SetCommands::srem);
+        table.register("scard", 2, context -> Reply.integer(members(context, context.arg(1)).size()));
+        table.register("smembers", 2, context -> set(members(context, context.arg(1))));
+        table.register("sismember", 3, context -> Reply.bool(members(context, context.arg(1)).contains(context.arg(2))));
+        table.register("smismember", -3, SetCommands::smismember);
+        table.register("sinter", -2, context -> set(combine(context, Operation.INTER, 1)));
+        table.register("sunion", -2, context -> set(combine(context, Operation.UNION, 1)));
+        table.register("sdiff", -2, context -> set(combine(context, Operation.DIFF, 1)));
+        table.registerWrite("sinterstore", -3, context -> store(context, Operation.INTER));
+        table.registerWrite("sunionstore", -3, context -> store(context, Operation.UNION));
+        table.registerWrite("sdiffstore", -3, context -> store(context, Operation.DIFF));
+        table.registerWrite("spop", -2, SetCommands::spop);
+        table.register("srandmember", -2, SetCommands::srandmember);
+        table.register("sscan", -3, SetCommands::sscan);
+    }
+
+    private enum Operation {
+        INTER, UNION, DIFF
+    }
+
+    private static Set<String> members(CommandContext context, String key) {
+        SetValue set = context.db().get(key, SetValue.class);
+        return set == null ? Set.of() : set.members;
+    }
+
+    private static Reply set(Iterable<String> members) {
+        List<Reply> items = new ArrayList<>();
+        members.forEach(member -> items.add(Reply.bulk(member)));
+        return new Reply.SetReply(items);
+    }
+
+    private static Reply sadd(CommandContext context) {
+        SetValue set = context.db().getOrCreate(context.arg(1), SetValue.class, SetValue::new);
+        long added = 0;
+        for (int i = 2; i < context.argc(); i++) {
+            if (set.members.add(context.arg(i))) {
+                added++;
+            }
+        }
+        return Reply.integer(added);
+    }
+
+    private static Reply srem(CommandContext context) {
+        SetValue set = context.db().get(context.arg(1), SetValue.class);
+        if (set == null) {
+            return Reply.ZERO;
+        }
+        long removed = 0;
+        for (int i = 2; i < context.argc(); i++) {
+            if (set.members.remove(context.arg(i))) {
+                removed++;
+            }
+        }
+        context.db().removeIfEmpty(context.arg(1), set.members.isEmpty());
+        return Reply.integer(removed);
+    }
+
+    private static Reply smismember(CommandContext context) {
+        Set<String> members = members(context, context.arg(1));
+        List<Reply> result = new ArrayList<>();
+        for (int i = 2; i < context.argc(); i++) {
+            result.add(Reply.bool(members.contains(context.arg(i))));
+        }
+        return Reply.array(result);
+    }
+
+    private static Set<String> combine(CommandContext context, Operation operation, int from) {
+        Set<String> result = new LinkedHashSet<>(members(context, context.arg(from)));
+        for (int i = from + 1; i < context.argc(); i++) {
+            Set<String> other = members(context, context.arg(i));
+            switch (operation) {
+                case INTER -> result.retainAll(other);
+                case UNION -> result.addAll(other);
+                case DIFF -> result.removeAll(other);
+            }
+        }
+        return result;
+    }
+
+    private static Reply store(CommandContext context, Operation operation) {
+        Set<String> result = combine(context, operation, 2);
+        String destination = context.arg(1);
+        if (result.isEmpty()) {
+            context.db().remove(destination);
+            return Reply.ZERO;
+        }
+        SetValue set = new SetValue();
+        set.members.addAll(result);
+        context.db().put(destination, set);
+        return Reply.integer(result.size());
+    }
+
+    private static Reply spop(CommandContext context) {
+        String key = context.arg(1);
+        SetValue set = context.db().get(key, SetValue.class);
+        boolean withCount = context.argc() > 2;
+        long count = withCount ? context.longArg(2) : 1;
+        if (count < 0) {
+            throw new CommandException("ERR value is out of range, must be positive");
+        }
+        if (set == null) {
+            return withCount ? new Reply.SetReply(List.of()) : Reply.NULL;
+        }
+        List<String> popped = randomMembers(set.members, count);
+        popped.forEach(set.members::remove);
+        context.db().removeIfEmpty(key, set.members.isEmpty());
+        return withCount ? set(popped) : Reply.bulk(popped.get(0));
+    }
+
+    private static Reply srandmember(CommandContext context) {
+        Set<String> members = members(context, context.arg(1));
+        if (context.argc() == 2) {
+            List<String> picked = randomMembers(members, 1);
+            return picked.isEmpty() ? Reply.NULL : Reply.bulk(picked.get(0));
+        }
+        long count = context.longArg(2);
+        if (count >= 0) {
+            return Reply.bulks(randomMembers(members, count));
+        }
+        List<String> all = new ArrayList<>(members);
+        List<String> picked = new ArrayList<>();
+        for (long i = 0; i < -count && !all.isEmpty(); i++) {
+            picked.add(all.get(ThreadLocalRandom.current().nextInt(all.size())));
+        }
+        return Reply.bulks(picked);
+    }
+
+    private static List<String> randomMembers(Set<String> members, long count) {
+        List<String> all = new ArrayList<>(members);
+        Collections.shuffle(all, ThreadLocalRandom.current());
+        return new ArrayList<>(all.subList(0, (int) Math.min(count, all.size())));
+    }
+
+    private static Reply sscan(CommandContext context) {
+        long cursor = ScanOptions.parseCursor(context, 2);
+        ScanOptions options = ScanOptions.parse(context, 3);
+        SetValue set = context.db().get(context.arg(1), SetValue.class);
+        if (set == null) {
+            return Reply.array(Reply.bulk("0"), Reply.EMPTY_ARRAY);
+        }
+        boolean compact = !set.encoding().equals("hashtable");
+        return options.scanCollection(cursor, set.members, compact, member -> member, List::of);
+    }
+}
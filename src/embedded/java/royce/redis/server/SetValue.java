@@ -0,0 +1,55 @@
+package royce.redis.server;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+final class SetValue implements RedisValue {
+
+    static final int INTSET_MAX_ENTRIES = 512;
+    static final int LISTPACK_MAX_ENTRIES = 128;
+    static final int LISTPACK_MAX_VALUE = 64;
+
+    final Set<String> members = new LinkedHashSet<>();
+
+    @Override
+    public String type() {
+        return "set";
+    }
+
+    @Override
+    public String encoding() {
+        if (members.size() <= INTSET_MAX_ENTRIES && members.stream().allMatch(SetValue::isInteger)) {
+            return "intset";
+        }
+        if (members.size() <= LISTPACK_MAX_ENTRIES
+                && members.stream().allMatch(member -> member.length() <= LISTPACK_MAX_VALUE)) {
+            return "listpack";
+        }
+        return "hashtable";
+    }
+
+    @Override
+    public long memoryUsage() {
+        String encoding = encoding();
+        if (encoding.equals("intset")) {
+            return 16 + members.size() * 8L;
+        }
+        long total = encoding.equals("listpack") ? 23 : 96;
+        for (String member : members) {
+            total += encoding.equals("listpack") ? member.length() + 2 : RedisValue.stringBytes(member) + 40;
+        }
+        return total;
+    }
+
+    private static boolean isInteger(String value) {
+        if (value.isEmpty() || value.length() > 20) {
+            return false;
+        }
+        try {
+            Long.parseLong(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
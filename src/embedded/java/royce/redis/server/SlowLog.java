@@ -0,0 +1,172 @@
+package royce.redis.server;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SLOWLOG 와 LATENCY 가 보여 주는 서버 측 기록. 명령 실행 시간만 재므로 네트워크와 대기 시간은 포함 하지 않는다.
+ * 기준 값은 Redis 와 같은 이름의 CONFIG 로 바꾼다. 서버 스레드에서만 접근 한다.
+ */
+final class SlowLog {
+
+    private static final int MAX_ARGS = 32;
+    private static final int MAX_ARG_LENGTH = 128;
+    private static final int HISTORY_LENGTH = 160;
+    private static final String COMMAND_EVENT = "command";
+
+    private final Deque<Entry> entries = new ArrayDeque<>();
+    private final Map<String, Event> events = new LinkedHashMap<>();
+    private long nextId;
+
+    /**
+     * slowlog-log-slower-than. 음수 이면 기록 하지 않고 0 이면 모든 명령을 기록 한다.
+     */
+    long slowerThanMicros = 10_000;
+
+    /**
+     * slowlog-max-len
+     */
+    int maxLength = 128;
+
+    /**
+     * latency-monitor-threshold. 0 이면 latency monitor 를 끈다.
+     */
+    long latencyThresholdMillis;
+
+    /**
+     * @param timestamp 유닉스 시간(초)
+     * @param args      최대 32 개, 각 128 바이트 까지 잘라 낸 인자
+     * @param client    ip:port
+     */
+    record Entry(long id, long timestamp, long micros, List<byte[]> args, String client, String name) {
+    }
+
+    /**
+     * 이벤트 하나의 최근 값과 최대 값, 초 단위로 묶은 최근 160 개의 기록.
+     */
+    static final class Event {
+
+        final Deque<long[]> history = new ArrayDeque<>();
+        long timestamp;
+        long latestMillis;
+        long maxMillis;
+    }
+
+    void record(ClientSession client, List<byte[]> args, long nanos) {
+        long micros = nanos / 1_000;
+        if (slowerThanMicros >= 0 && micros >= slowerThanMicros) {
+            entries.addFirst(new Entry(nextId++, System.currentTimeMillis() / 1000, micros, truncate(args),
+                    address(client), client.name));
+            while (entries.size() > maxLength) {
+                entries.removeLast();
+            }
+        }
+        long millis = nanos / 1_000_000;
+        if (latencyThresholdMillis > 0 && millis >= latencyThresholdMillis) {
+            sample(COMMAND_EVENT, millis);
+        }
+    }
+
+    private void sample(String name, long millis) {
+        long now = System.currentTimeMillis() / 1000;
+        Event event = events.computeIfAbsent(name, n -> new Event());
+        event.timestamp = now;
+        event.latestMillis = millis;
+        event.maxMillis = Math.max(event.maxMillis, millis);
+        long[] last = event.history.peekLast();
+        if (last != null && last[0] == now) {
+            last[1] = Math.max(last[1], millis);
+            return;
+        }
+        event.history.addLast(new long[]{now, millis});
+        if (event.history.size() > HISTORY_LENGTH) {
+            event.history.removeFirst();
+        }
+    }
+
+    /**
+     * 최근 것 부터 count 개. count 가 음수 이면 전부
+     */
+    List<Entry> entries(long count) {
+        List<Entry> result = new ArrayList<>();
+        Iterator<Entry> iterator = entries.iterator();
+        while (iterator.hasNext() && (count < 0 || result.size() < count)) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    int length() {
+        return entries.size();
+    }
+
+    void reset() {
+        entries.clear();
+    }
+
+    Map<String, Event> events() {
+        return events;
+    }
+
+    /**
+     * @param names 비어 있으면 모든 이벤트
+     * @return 지운 이벤트 수
+     */
+    int resetEvents(List<String> names) {
+        if (names.isEmpty()) {
+            int size = events.size();
+            events.clear();
+            return size;
+        }
+        int removed = 0;
+        for (String name : names) {
+            if (events.remove(name) != null) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Redis 처럼 32 개가 넘는 인자는 마지막 자리에 남은 개수를, 128 바이트가 넘는 인자는 뒤에 남은 바이트 수를 적는다.
+     */
+    private static List<byte[]> truncate(List<byte[]> args) {
+        int kept = Math.min(args.size(), MAX_ARGS);
+        if (args.size() > MAX_ARGS) {
+            kept--;
+        }
+        List<byte[]> result = new ArrayList<>(kept + 1);
+        for (int i = 0; i < kept; i++) {
+            byte[] arg = args.get(i);
+            if (arg.length <= MAX_ARG_LENGTH) {
+                result.add(arg);
+                continue;
+            }
+            String more = "... (" + (arg.length - MAX_ARG_LENGTH) + " more bytes)";
+            byte[] cut = Arrays.copyOf(arg, MAX_ARG_LENGTH + more.length());
+            System.arraycopy(more.getBytes(StandardCharsets.ISO_8859_1), 0, cut, MAX_ARG_LENGTH, more.length());
+            result.add(cut);
+        }
+        if (args.size() > MAX_ARGS) {
+            result.add(("... (" + (args.size() - kept) + " more arguments)").getBytes(StandardCharsets.ISO_8859_1));
+        }
+        return result;
+    }
+
+    private static String address(ClientSession client) {
+        SocketAddress address = client.channel.socket().getRemoteSocketAddress();
+        if (address instanceof InetSocketAddress inet) {
+            return inet.getAddress().getHostAddress() + ":" + inet.getPort();
+        }
+        return String.valueOf(address);
+    }
+}
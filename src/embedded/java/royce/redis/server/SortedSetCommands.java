@@ -0,0 +1,360 @@
+package royce.redis.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import royce.redis.server.SortedSetValue.Entry;
+
+/**
+ * Sorted Set 타입 명령.
+ */
+final class SortedSetCommands {
+
+    private SortedSetCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.registerWrite("zadd", -4, SortedSetCommands::zadd);
+        table.registerWrite("zincrby", 4, SortedSetCommands::zincrby);
+        table.register("zscore", 3, context -> {
+            Double score = score(context, context.arg(2));
+            return score == null ? Reply.NULL : new Reply.DoubleReply(score);
+        });
+        table.register("zmscore", -3, SortedSetCommands::zmscore);
+        table.register("zcard", 2, context -> {
+            SortedSetValue zset = context.db().get(context.arg(1), SortedSetValue.class);
+            return Reply.integer(zset == null ? 0 : zset.size());
+        });
+        table.register("zrank", 3, context -> rank(context, false));
+        table.register("zrevrank", 3, context -> rank(context, true));
+        table.register("zrange", -4, SortedSetCommands::zrange);
+        table.register("zrevrange", -4, context -> rangeByRank(context, true, withScores(context, 4)));
+        table.register("zrangebyscore", -4, context -> rangeByScore(context, false, 2, 3, 4));
+        table.register("zrevrangebyscore", -4, context -> rangeByScore(context, true, 3, 2, 4));
+        table.register("zcount", 4, SortedSetCommands::zcount);
+        table.registerWrite("zrem", -3, SortedSetCommands::zrem);
+        table.registerWrite("zremrangebyrank", 4, SortedSetCommands::zremrangebyrank);
+        table.registerWrite("zremrangebyscore", 4, SortedSetCommands::zremrangebyscore);
+        table.registerWrite("zpopmin", -2, context -> pop(context, false));
+        table.registerWrite("zpopmax", -2, context -> pop(context, true));
+        table.register("zscan", -3, SortedSetCommands::zscan);
+    }
+
+    record ScoreBound(double value, boolean exclusive) {
+
+        static ScoreBound parse(String raw) {
+            try {
+                if (raw.startsWith("(")) {
+                    return new ScoreBound(Numbers.parseDouble(raw.substring(1)), true);
+                }
+                return new ScoreBound(Numbers.parseDouble(raw), false);
+            } catch (CommandException e) {
+                throw new CommandException("ERR min or max is not a float");
+            }
+        }
+    }
+
+    private static Double score(CommandContext context, String member) {
+        SortedSetValue zset = context.db().get(context.arg(1), SortedSetValue.class);
+        return zset == null ? null : zset.score(member);
+    }
+
+    private static Reply zadd(CommandContext context) {
+        boolean nx = false;
+        boolean xx = false;
+        boolean gt = false;
+        boolean lt = false;
+        boolean ch = false;
+        boolean incr = false;
+        int index = 2;
+        for (; index < context.argc(); index++) {
+            String option = context.arg(index).toUpperCase();
+            if (option.equals("NX")) {
+                nx = true;
+            } else if (option.equals("XX")) {
+                xx = true;
+            } else if (option.equals("GT")) {
+                gt = true;
+            } else if (option.equals("LT")) {
+                lt = true;
+            } else if (option.equals("CH")) {
+                ch = true;
+            } else if (option.equals("INCR")) {
+                incr = true;
+            } else {
+                break;
+            }
+        }
+        int pairs = context.argc() - index;
+        if (pairs <= 0 || pairs % 2 != 0) {
+            throw CommandException.syntax();
+        }
+        if ((nx && xx) || (nx && (gt || lt)) || (gt && lt)) {
+            throw new CommandException("ERR GT, LT, and/or NX options at the same time are not compatible");
+        }
+        if (incr && pairs != 2) {
+            throw new CommandException("ERR INCR option supports a single increment-element pair");
+        }
+        List<Double> scores = new ArrayList<>();
+        for (int i = index; i < context.argc(); i += 2) {
+            scores.add(context.doubleArg(i));
+        }
+        SortedSetValue zset = context.db().getOrCreate(context.arg(1), SortedSetValue.class, SortedSetValue::new);
+        long added = 0;
+        long changed = 0;
+        Double incremented = null;
+        for (int i = index, s = 0; i < context.argc(); i += 2, s++) {
+            String member = context.arg(i + 1);
+            Double current = zset.score(member);
+            double score = incr && current != null ? current + scores.get(s) : scores.get(s);
+            if ((nx && current != null) || (xx && current == null)
+                    || (current != null && gt && score <= current) || (current != null && lt && score >= current)) {
+                continue;
+            }
+            if (current == null) {
+                added++;
+            } else if (current != score) {
+                changed++;
+            }
+            zset.put(member, score);
+            incremented = score;
+        }
+        context.db().removeIfEmpty(context.arg(1), zset.size() == 0);
+        if (incr) {
+            return incremented == null ? Reply.NULL : new Reply.DoubleReply(incremented);
+        }
+        return Reply.integer(ch ? added + changed : added);
+    }
+
+    private static Reply zincrby(CommandContext context) {
+        double delta = context.doubleArg(2);
+        SortedSetValue zset = context.db().getOrCreate(context.arg(1), SortedSetValue.class, SortedSetValue::new);
+        Double current = zset.score(context.arg(3));
+        double next = (current == null ? 0 : current) + delta;
+        zset.put(context.arg(3), next);
+        return new Reply.DoubleReply(next);
+    }
+
+    private static Reply zmscore(CommandContext context) {
+        List<Reply> scores = new ArrayList<>();
+        for (int i = 2; i < context.argc(); i++) {
+            Double score = score(context, context.arg(i));
+            scores.add(score == null ? Reply.NULL : new Reply.DoubleReply(score));
+        }
+        return Reply.array(scores);
+    }
+
+    private static Reply rank(CommandContext context, boolean reverse) {
+        SortedSetValue zset = context.db().get(context.arg(1), SortedSetValue.class);
+        Long rank = zset == null ? null : zset.rank(context.arg(2));
+        if (rank == null) {
+            return Reply.NULL;
+        }
+        return Reply.integer(reverse ? zset.size() - 1 - rank : rank);
+    }
+
+    private static Reply zrange(CommandContext context) {
+        boolean byScore = false;
+        boolean reverse = false;
+        boolean scores = false;
+        long offset = 0;
+        long limit = -1;
+        for (int i = 4; i < context.argc(); i++) {
+            switch (context.arg(i).toUpperCase()) {
+                case "BYSCORE" -> byScore = true;
+                case "REV" -> reverse = true;
+                case "WITHSCORES" -> scores = true;
+                case "LIMIT" -> {
+                    if (i + 2 >= context.argc()) {
+                        throw CommandException.syntax();
+                    }
+                    offset = context.longArg(++i);
+                    limit = context.longArg(++i);
+                }
+                default -> throw CommandException.syntax();
+            }
+        }
+        if (byScore) {
+            int min = reverse ? 3 : 2;
+            int max = reverse ? 2 : 3;
+            List<Entry> entries = entriesByScore(context, reverse, ScoreBound.parse(context.arg(min)),
+                    ScoreBound.parse(context.arg(max)));
+            return render(context, limit(entries, offset, limit), scores);
+        }
+        if (limit >= 0 || offset != 0) {
+            throw new CommandException("ERR syntax error, LIMIT is only supported in combination with either BYSCORE or BYLEX");
+        }
+        return rangeByRank(context, reverse, scores);
+    }
+
+    private static boolean withScores(CommandContext context, int index) {
+        if (context.argc() <= index) {
+            return false;
+        }
+        if (context.argc() == index + 1 && context.argIs(index, "WITHSCORES")) {
+            return true;
+        }
+        throw CommandException.syntax();
+    }
+
+    private static Reply rangeByRank(CommandContext context, boolean reverse, boolean scores) {
+        SortedSetValue zset = context.db().get(context.arg(1), SortedSetValue.class);
+        if (zset == null) {
+            return Reply.EMPTY_ARRAY;
+        }
+        long[] range = Numbers.clampRange(context.longArg(2), context.longArg(3), zset.size());
+        if (range == null) {
+            return Reply.EMPTY_ARRAY;
+        }
+        if (!reverse) {
+            return render(context, zset.range(range[0], range[1]), scores);
+        }
+        List<Entry> entries = new ArrayList<>();
+        Iterator<Entry> iterator = zset.descendingIterator();
+        for (long index = 0; iterator.hasNext() && index <= range[1]; index++) {
+            Entry entry = iterator.next();
+            if (index >= range[0]) {
+                entries.add(entry);
+            }
+        }
+        return render(context, entries, scores);
+    }
+
+    private static Reply rangeByScore(CommandContext context, boolean reverse, int minIndex, int maxIndex, int from) {
+        boolean scores = false;
+        long offset = 0;
+        long limit = -1;
+        for (int i = from; i < context.argc(); i++) {
+            if (context.argIs(i, "WITHSCORES")) {
+                scores = true;
+            } else if (context.argIs(i, "LIMIT") && i + 2 < context.argc()) {
+                offset = context.longArg(++i);
+                limit = context.longArg(++i);
+            } else {
+                throw CommandException.syntax();
+            }
+        }
+        List<Entry> entries = entriesByScore(context, reverse, ScoreBound.parse(context.arg(minIndex)),
+                ScoreBound.parse(context.arg(maxIndex)));
+        return render(context, limit(entries, offset, limit), scores);
+    }
+
+    private static List<Entry> entriesByScore(CommandContext context, boolean reverse, ScoreBound min, ScoreBound max) {
+        SortedSetValue zset = context.db().get(context.arg(1), SortedSetValue.class);
+        if (zset == null) {
+            return List.of();
+        }
+        List<Entry> entries = zset.rangeByScore(min.value(), min.exclusive(), max.value(), max.exclusive());
+        if (reverse) {
+            Collections.reverse(entries);
+        }
+        return entries;
+    }
+
+    private static List<Entry> limit(List<Entry> entries, long offset, long limit) {
+        if (offset < 0 || offset >= entries.size()) {
+            return offset == 0 ? entries : List.of();
+        }
+        long end = limit < 0 ? entries.size() : Math.min(entries.size(), offset + limit);
+        return entries.subList((int) offset, (int) end);
+    }
+
+    static Reply render(CommandContext context, List<Entry> entries, boolean scores) {
+        List<Reply> items = new ArrayList<>();
+        boolean resp3 = context.client().protocol >= 3;
+        for (Entry entry : entries) {
+            if (!scores) {
+                items.add(Reply.bulk(entry.member()));
+            } else if (resp3) {
+                items.add(Reply.array(Reply.bulk(entry.member()), new Reply.DoubleReply(entry.score())));
+            } else {
+                items.add(Reply.bulk(entry.member()));
+                items.add(Reply.bulk(Numbers.format(entry.score())));
+            }
+        }
+        return Reply.array(items);
+    }
+
+    private static Reply zcount(CommandContext context) {
+        return Reply.integer(entriesByScore(context, false, ScoreBound.parse(context.arg(2)),
+                ScoreBound.parse(context.arg(3))).size());
+    }
+
+    private static Reply zrem(CommandContext context) {
+        SortedSetValue zset = context.db().get(context.arg(1), SortedSetValue.class);
+        if (zset == null) {
+            return Reply.ZERO;
+        }
+        long removed = 0;
+        for (int i = 2; i < context.argc(); i++) {
+            if (zset.remove(context.arg(i))) {
+                removed++;
+            }
+        }
+        context.db().removeIfEmpty(context.arg(1), zset.size() == 0);
+        return Reply.integer(removed);
+    }
+
+    private static Reply zremrangebyrank(CommandContext context) {
+        SortedSetValue zset = context.db().get(context.arg(1), SortedSetValue.class);
+        if (zset == null) {
+            return Reply.ZERO;
+        }
+        long[] range = Numbers.clampRange(context.longArg(2), context.longArg(3), zset.size());
+        if (range == null) {
+            return Reply.ZERO;
+        }
+        List<Entry> entries = zset.range(range[0], range[1]);
+        entries.forEach(entry -> zset.remove(entry.member()));
+        context.db().removeIfEmpty(context.arg(1), zset.size() == 0);
+        return Reply.integer(entries.size());
+    }
+
+    private static Reply zremrangebyscore(CommandContext context) {
+        List<Entry> entries = entriesByScore(context, false, ScoreBound.parse(context.arg(2)),
+                ScoreBound.parse(context.arg(3)));
+        SortedSetValue zset = context.db().get(context.arg(1), SortedSetValue.class);
+        if (zset == null) {
+            return Reply.ZERO;
+        }
+        entries.forEach(entry -> zset.remove(entry.member()));
+        context.db().removeIfEmpty(context.arg(1), zset.size() == 0);
+        return Reply.integer(entries.size());
+    }
+
+    private static Reply pop(CommandContext context, boolean max) {
+        SortedSetValue zset = context.db().get(context.arg(1), SortedSetValue.class);
+        long count = context.argc() > 2 ? context.longArg(2) : 1;
+        if (zset == null || count <= 0) {
+            return Reply.EMPTY_ARRAY;
+        }
+        List<Entry> popped = new ArrayList<>();
+        Iterator<Entry> iterator = max ? zset.descendingIterator() : zset.entries().iterator();
+        while (iterator.hasNext() && popped.size() < count) {
+            popped.add(iterator.next());
+        }
+        popped.forEach(entry -> zset.remove(entry.member()));
+        context.db().removeIfEmpty(context.arg(1), zset.size() == 0);
+        if (context.argc() == 2 || context.client().protocol < 3) {
+            List<Reply> flat = new ArrayList<>();
+            for (Entry entry : popped) {
+                flat.add(Reply.bulk(entry.member()));
+                flat.add(Reply.bulk(Numbers.format(entry.score())));
+            }
+            return Reply.array(flat);
+        }
+        return render(context, popped, true);
+    }
+
+    private static Reply zscan(CommandContext context) {
+        long cursor = ScanOptions.parseCursor(context, 2);
+        ScanOptions options = ScanOptions.parse(context, 3);
+        SortedSetValue zset = context.db().get(context.arg(1), SortedSetValue.class);
+        if (zset == null) {
+            return Reply.array(Reply.bulk("0"), Reply.EMPTY_ARRAY);
+        }
+        return options.scanCollection(cursor, zset.entries(), zset.encoding().equals("listpack"),
+                Entry::member, entry -> List.of(entry.member(), Numbers.format(entry.score())));
+    }
+}
@@ -0,0 +1,123 @@
+package royce.redis.server;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+final class SortedSetValue implements RedisValue {
+
+    static final int LISTPACK_MAX_ENTRIES = 128;
+    static final int LISTPACK_MAX_VALUE = 64;
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingDouble(Entry::score)
+            .thenComparing(Entry::member);
+
+    private final Map<String, Double> scores = new HashMap<>();
+    private final NavigableSet<Entry> entries = new TreeSet<>(ORDER);
+
+    record Entry(String member, double score) {
+    }
+
+    int size() {
+        return scores.size();
+    }
+
+    Double score(String member) {
+        return scores.get(member);
+    }
+
+    /**
+     * @return 새로 추가된 멤버 이면 true
+     */
+    boolean put(String member, double score) {
+        Double previous = scores.put(member, score);
+        if (previous != null) {
+            entries.remove(new Entry(member, previous));
+        }
+        entries.add(new Entry(member, score));
+        return previous == null;
+    }
+
+    boolean remove(String member) {
+        Double previous = scores.remove(member);
+        if (previous == null) {
+            return false;
+        }
+        entries.remove(new Entry(member, previous));
+        return true;
+    }
+
+    Long rank(String member) {
+        Double score = scores.get(member);
+        if (score == null) {
+            return null;
+        }
+        return (long) entries.headSet(new Entry(member, score), false).size();
+    }
+
+    List<Entry> range(long start, long stop) {
+        List<Entry> result = new ArrayList<>();
+        long index = 0;
+        for (Entry entry : entries) {
+            if (index > stop) {
+                break;
+            }
+            if (index >= start) {
+                result.add(entry);
+            }
+            index++;
+        }
+        return result;
+    }
+
+    List<Entry> rangeByScore(double min, boolean minExclusive, double max, boolean maxExclusive) {
+        List<Entry> result = new ArrayList<>();
+        for (Entry entry : entries.tailSet(new Entry("", min), true)) {
+            if (entry.score() > max || (maxExclusive && entry.score() == max)) {
+                break;
+            }
+            if (minExclusive && entry.score() == min) {
+                continue;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    Iterable<Entry> entries() {
+        return entries;
+    }
+
+    Iterator<Entry> descendingIterator() {
+        return entries.descendingIterator();
+    }
+
+    @Override
+    public String type() {
+        return "zset";
+    }
+
+    @Override
+    public String encoding() {
+        if (scores.size() <= LISTPACK_MAX_ENTRIES
+                && scores.keySet().stream().allMatch(member -> member.length() <= LISTPACK_MAX_VALUE)) {
+            return "listpack";
+        }
+        return "skiplist";
+    }
+
+    @Override
+    public long memoryUsage() {
+        boolean listpack = encoding().equals("listpack");
+        long total = listpack ? 23 : 160;
+        for (String member : scores.keySet()) {
+            total += listpack ? member.length() + 12 : RedisValue.stringBytes(member) + 80;
+        }
+        return total;
+    }
+}
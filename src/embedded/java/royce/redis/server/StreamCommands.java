@@ -0,0 +1,285 @@
+package royce.redis.server;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * Stream 타입 명령.
+ */
+final class StreamCommands {
+
+    private StreamCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.registerWrite("xadd", -5, StreamCommands::xadd);
+        table.register("xlen", 2, context -> {
+            StreamValue stream = context.db().get(context.arg(1), StreamValue.class);
+            return Reply.integer(stream == null ? 0 : stream.entries.size());
+        });
+        table.register("xrange", -4, context -> range(context, false));
+        table.register("xrevrange", -4, context -> range(context, true));
+        table.registerWrite("xdel", -3, StreamCommands::xdel);
+        table.registerWrite("xtrim", -4, StreamCommands::xtrim);
+        table.register("xread", -4, StreamCommands::xread);
+    }
+
+    private static Reply xadd(CommandContext context) {
+        int index = 2;
+        boolean noMkStream = false;
+        Trim trim = null;
+        while (index < context.argc()) {
+            if (context.argIs(index, "NOMKSTREAM")) {
+                noMkStream = true;
+                index++;
+            } else if (context.argIs(index, "MAXLEN") || context.argIs(index, "MINID")) {
+                trim = Trim.parse(context, index);
+                index = trim.nextIndex();
+            } else {
+                break;
+            }
+        }
+        if (index >= context.argc() || (context.argc() - index - 1) % 2 != 0 || context.argc() - index - 1 == 0) {
+            throw new CommandException("ERR wrong number of arguments for 'xadd' command");
+        }
+        String key = context.arg(1);
+        StreamValue stream = context.db().get(key, StreamValue.class);
+        if (stream == null && noMkStream) {
+            return Reply.NULL;
+        }
+        StreamId id = nextId(stream == null ? StreamId.MIN : stream.lastId, context.arg(index));
+        if (stream == null) {
+            stream = context.db().getOrCreate(key, StreamValue.class, StreamValue::new);
+        }
+        stream.entries.put(id, context.args(index + 1, context.argc()));
+        stream.lastId = id;
+        stream.entriesAdded++;
+        if (trim != null) {
+            trim.apply(stream);
+        }
+        context.signalReady(key);
+        return Reply.bulk(id.toString());
+    }
+
+    static StreamId nextId(StreamId last, String requested) {
+        long now = System.currentTimeMillis();
+        StreamId id;
+        if (requested.equals("*")) {
+            id = Long.compareUnsigned(now, last.millis()) > 0 ? new StreamId(now, 0) : last.next();
+        } else if (requested.endsWith("-*")) {
+            long millis = StreamId.parse(requested.substring(0, requested.length() - 2), 0).millis();
+            id = millis == last.millis() ? last.next() : new StreamId(millis, 0);
+        } else {
+            id = StreamId.parse(requested, 0);
+        }
+        if (id.compareTo(StreamId.MIN) == 0) {
+            throw new CommandException("ERR The ID specified in XADD must be greater than 0-0");
+        }
+        if (id.compareTo(last) <= 0) {
+            throw new CommandException("ERR The ID specified in XADD is equal or smaller than the target stream top item");
+        }
+        return id;
+    }
+
+    private static Reply range(CommandContext context, boolean reverse) {
+        StreamValue stream = context.db().get(context.arg(1), StreamValue.class);
+        StreamId start = parseBound(context.arg(reverse ? 3 : 2), 0);
+        StreamId end = parseBound(context.arg(reverse ? 2 : 3), Long.MAX_VALUE);
+        long count = Long.MAX_VALUE;
+        if (context.argc() == 6 && context.argIs(4, "COUNT")) {
+            count = context.longArg(5);
+        } else if (context.argc() != 4) {
+            throw CommandException.syntax();
+        }
+        if (stream == null || start.compareTo(end) > 0) {
+            return Reply.EMPTY_ARRAY;
+        }
+        NavigableMap<StreamId, List<String>> range = stream.entries.subMap(start, true, end, true);
+        return entries(reverse ? range.descendingMap() : range, count);
+    }
+
+    static StreamId parseBound(String raw, long defaultSequence) {
+        if (raw.startsWith("(")) {
+            StreamId id = StreamId.parse(raw.substring(1), defaultSequence);
+            return defaultSequence == 0 ? id.next() : new StreamId(id.millis(), id.sequence() - 1);
+        }
+        return StreamId.parse(raw, defaultSequence);
+    }
+
+    static Reply entries(Map<StreamId, List<String>> entries, long count) {
+        List<Reply> items = new ArrayList<>();
+        for (Map.Entry<StreamId, List<String>> entry : entries.entrySet()) {
+            if (items.size() >= count) {
+                break;
+            }
+            items.add(entry(entry.getKey(), entry.getValue()));
+        }
+        return Reply.array(items);
+    }
+
+    static Reply entry(StreamId id, List<String> fields) {
+        return Reply.array(Reply.bulk(id.toString()), fields == null ? Reply.NULL_ARRAY : Reply.bulks(fields));
+    }
+
+    private static Reply xread(CommandContext context) {
+        ReadOptions options = ReadOptions.parse(context, 1, "xread");
+        List<StreamId> after = new ArrayList<>(options.keys().size());
+        for (int i = 0; i < options.keys().size(); i++) {
+            String id = options.ids().get(i);
+            if (id.equals("$")) {
+                StreamValue stream = context.db().get(options.keys().get(i), StreamValue.class);
+                after.add(stream == null ? StreamId.MIN : stream.lastId);
+            } else {
+                after.add(StreamId.parse(id, 0));
+            }
+        }
+        Reply immediate = readAfter(context, options, after);
+        if (immediate != null || options.blockMillis() < 0) {
+            return immediate == null ? Reply.NULL_ARRAY : immediate;
+        }
+        return context.server().block(context, options.keys(), options.blockMillis() / 1000.0,
+                () -> readAfter(context, options, after), Reply.NULL_ARRAY);
+    }
+
+    /**
+     * @return 새 항목이 있는 stream 만 담은 응답. 하나도 없으면 null
+     */
+    private static Reply readAfter(CommandContext context, ReadOptions options, List<StreamId> after) {
+        List<Reply> streams = new ArrayList<>();
+        for (int i = 0; i < options.keys().size(); i++) {
+            String key = options.keys().get(i);
+            StreamValue stream = context.db().get(key, StreamValue.class);
+            if (stream == null) {
+                continue;
+            }
+            Map<StreamId, List<String>> entries = stream.entries.tailMap(after.get(i), false);
+            if (!entries.isEmpty()) {
+                streams.add(Reply.array(Reply.bulk(key), entries(entries, options.count())));
+            }
+        }
+        return streams.isEmpty() ? null : Reply.array(streams);
+    }
+
+    private static Reply xdel(CommandContext context) {
+        StreamValue stream = context.db().get(context.arg(1), StreamValue.class);
+        if (stream == null) {
+            return Reply.ZERO;
+        }
+        long removed = 0;
+        for (int i = 2; i < context.argc(); i++) {
+            if (stream.entries.remove(StreamId.parse(context.arg(i), 0)) != null) {
+                removed++;
+            }
+        }
+        return Reply.integer(removed);
+    }
+
+    private static Reply xtrim(CommandContext context) {
+        StreamValue stream = context.db().get(context.arg(1), StreamValue.class);
+        Trim trim = Trim.parse(context, 2);
+        if (trim.nextIndex() != context.argc()) {
+            throw CommandException.syntax();
+        }
+        return Reply.integer(stream == null ? 0 : trim.apply(stream));
+    }
+
+    /**
+     * XREAD/XREADGROUP 의 공통 옵션. blockMillis 가 음수 이면 BLOCK 을 지정 하지 않은 것이다.
+     */
+    record ReadOptions(long count, long blockMillis, boolean noAck, List<String> keys, List<String> ids) {
+
+        static ReadOptions parse(CommandContext context, int index, String command) {
+            long count = Long.MAX_VALUE;
+            long blockMillis = -1;
+            boolean noAck = false;
+            while (index < context.argc() && !context.argIs(index, "STREAMS")) {
+                if (context.argIs(index, "COUNT") && index + 1 < context.argc()) {
+                    count = context.longArg(index + 1);
+                    count = count <= 0 ? Long.MAX_VALUE : count;
+                    index += 2;
+                } else if (context.argIs(index, "BLOCK") && index + 1 < context.argc()) {
+                    blockMillis = context.longArg(index + 1);
+                    if (blockMillis < 0) {
+                        throw new CommandException("ERR timeout is negative");
+                    }
+                    index += 2;
+                } else if (context.argIs(index, "NOACK") && command.equals("xreadgroup")) {
+                    noAck = true;
+                    index++;
+                } else {
+                    throw CommandException.syntax();
+                }
+            }
+            int streams = context.argc() - index - 1;
+            if (index >= context.argc() || streams <= 0 || streams % 2 != 0) {
+                throw new CommandException("ERR Unbalanced '" + command
+                        + "' list of streams: for each stream key an ID or '$' must be specified.");
+            }
+            int first = index + 1;
+            int middle = first + streams / 2;
+            return new ReadOptions(count, blockMillis, noAck,
+                    context.args(first, middle), context.args(middle, context.argc()));
+        }
+    }
+
+    /**
+     * MAXLEN/MINID 트리밍 옵션. 근사(~) 트리밍은 정확한 트리밍과 같게 처리 하되 LIMIT 만큼만 지운다.
+     */
+    record Trim(boolean maxLen, String threshold, boolean approximate, long limit, int nextIndex) {
+
+        static Trim parse(CommandContext context, int index) {
+            boolean maxLen = context.argIs(index, "MAXLEN");
+            if (!maxLen && !context.argIs(index, "MINID")) {
+                throw CommandException.syntax();
+            }
+            int next = index + 1;
+            boolean approximate = false;
+            if (next < context.argc() && (context.arg(next).equals("~") || context.arg(next).equals("="))) {
+                approximate = context.arg(next).equals("~");
+                next++;
+            }
+            if (next >= context.argc()) {
+                throw CommandException.syntax();
+            }
+            String threshold = context.arg(next++);
+            long limit = Long.MAX_VALUE;
+            if (next + 1 < context.argc() && context.argIs(next, "LIMIT")) {
+                if (!approximate) {
+                    throw new CommandException("ERR syntax error, LIMIT cannot be used without the special ~ option");
+                }
+                limit = context.longArg(next + 1);
+                next += 2;
+            }
+            if (maxLen && Numbers.parseLong(threshold) < 0) {
+                throw new CommandException("ERR The MAXLEN argument must be >= 0.");
+            }
+            return new Trim(maxLen, threshold, approximate, limit == 0 ? Long.MAX_VALUE : limit, next);
+        }
+
+        long apply(StreamValue stream) {
+            long removed = 0;
+            Iterator<StreamId> ids = stream.entries.keySet().iterator();
+            if (maxLen) {
+                long max = Long.parseLong(threshold);
+                while (stream.entries.size() > max && removed < limit && ids.hasNext()) {
+                    ids.next();
+                    ids.remove();
+                    removed++;
+                }
+            } else {
+                StreamId min = StreamId.parse(threshold, 0);
+                while (ids.hasNext() && removed < limit) {
+                    if (ids.next().compareTo(min) >= 0) {
+                        break;
+                    }
+                    ids.remove();
+                    removed++;
+                }
+            }
+            return removed;
+        }
+    }
+}
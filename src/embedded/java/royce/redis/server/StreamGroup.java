@@ -0,0 +1,104 @@
+package royce.redis.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Stream 의 consumer group.
+ * 전달 했지만 아직 XACK 되지 않은 항목은 그룹 전체의 PEL(pending entries list)과 소비자 별 PEL 에 함께 기록 된다.
+ */
+final class StreamGroup {
+
+    final String name;
+    final NavigableMap<StreamId, Pending> pending = new TreeMap<>();
+    final Map<String, Consumer> consumers = new LinkedHashMap<>();
+    StreamId lastDeliveredId;
+    long entriesRead;
+
+    StreamGroup(String name, StreamId lastDeliveredId, long entriesRead) {
+        this.name = name;
+        this.lastDeliveredId = lastDeliveredId;
+        this.entriesRead = entriesRead;
+    }
+
+    Consumer consumer(String consumerName, long now) {
+        Consumer consumer = consumers.computeIfAbsent(consumerName, Consumer::new);
+        consumer.seenTime = now;
+        return consumer;
+    }
+
+    /**
+     * 항목을 consumer 에게 전달 한 것으로 기록 한다. 이미 다른 소비자의 PEL 에 있으면 소유자를 옮긴다.
+     */
+    void deliver(StreamId id, Consumer consumer, long now, boolean incrementCount) {
+        Pending entry = pending.get(id);
+        if (entry == null) {
+            pending.put(id, new Pending(consumer.name, now, 1));
+        } else {
+            Consumer previous = consumers.get(entry.consumer);
+            if (previous != null) {
+                previous.pending.remove(id);
+            }
+            entry.consumer = consumer.name;
+            entry.deliveryTime = now;
+            if (incrementCount) {
+                entry.deliveryCount++;
+            }
+        }
+        consumer.pending.add(id);
+    }
+
+    boolean ack(StreamId id) {
+        Pending entry = pending.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        Consumer consumer = consumers.get(entry.consumer);
+        if (consumer != null) {
+            consumer.pending.remove(id);
+        }
+        return true;
+    }
+
+    /**
+     * @return 소비자와 함께 지워진 pending 항목 수
+     */
+    long removeConsumer(String consumerName) {
+        Consumer consumer = consumers.remove(consumerName);
+        if (consumer == null) {
+            return 0;
+        }
+        for (StreamId id : consumer.pending) {
+            pending.remove(id);
+        }
+        return consumer.pending.size();
+    }
+
+    static final class Pending {
+
+        String consumer;
+        long deliveryTime;
+        long deliveryCount;
+
+        Pending(String consumer, long deliveryTime, long deliveryCount) {
+            this.consumer = consumer;
+            this.deliveryTime = deliveryTime;
+            this.deliveryCount = deliveryCount;
+        }
+    }
+
+    static final class Consumer {
+
+        final String name;
+        final NavigableSet<StreamId> pending = new TreeSet<>();
+        long seenTime;
+
+        Consumer(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package royce.redis.server;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import royce.redis.server.StreamCommands.ReadOptions;
+
+/**
+ * Stream consumer group 명령. XGROUP, XREADGROUP, XACK, XPENDING, XAUTOCLAIM, XINFO GROUPS/CONSUMERS 를 지원 한다.
+ */
+final class StreamGroupCommands {
+
+    private static final String NEW_ENTRIES = ">";
+
+    private StreamGroupCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.registerWrite("xgroup", -2, StreamGroupCommands::xgroup);
+        table.registerWrite("xreadgroup", -7, StreamGroupCommands::xreadgroup);
+        table.registerWrite("xack", -4, StreamGroupCommands::xack);
+        table.register("xpending", -3, StreamGroupCommands::xpending);
+        table.registerWrite("xautoclaim", -6, StreamGroupCommands::xautoclaim);
+        table.register("xinfo", -2, StreamGroupCommands::xinfo);
+    }
+
+    private static Reply xgroup(CommandContext context) {
+        String subcommand = context.arg(1).toUpperCase(Locale.ROOT);
+        if (context.argc() < 4) {
+            throw new CommandException("ERR unknown subcommand or wrong number of arguments for '"
+                    + context.arg(1) + "'.");
+        }
+        String key = context.arg(2);
+        String groupName = context.arg(3);
+        if (!subcommand.equals("CREATE") && !subcommand.equals("DESTROY") && context.argc() != 5) {
+            throw new CommandException("ERR wrong number of arguments for 'xgroup|"
+                    + subcommand.toLowerCase(Locale.ROOT) + "' command");
+        }
+        return switch (subcommand) {
+            case "CREATE" -> create(context, key, groupName);
+            case "SETID" -> {
+                StreamValue stream = existingStream(context, key);
+                group(stream, key, groupName).lastDeliveredId = startId(stream, context.arg(4));
+                yield Reply.OK;
+            }
+            case "DESTROY" -> {
+                StreamValue stream = existingStream(context, key);
+                yield Reply.bool(stream.groups.remove(groupName) != null);
+            }
+            case "CREATECONSUMER" -> {
+                StreamGroup group = group(existingStream(context, key), key, groupName);
+                boolean created = !group.consumers.containsKey(context.arg(4));
+                group.consumer(context.arg(4), System.currentTimeMillis());
+                yield Reply.bool(created);
+            }
+            case "DELCONSUMER" -> Reply.integer(
+                    group(existingStream(context, key), key, groupName).removeConsumer(context.arg(4)));
+            default -> throw new CommandException("ERR unknown subcommand '" + context.arg(1) + "'.");
+        };
+    }
+
+    private static Reply create(CommandContext context, String key, String groupName) {
+        if (context.argc() < 5) {
+            throw new CommandException("ERR wrong number of arguments for 'xgroup|create' command");
+        }
+        boolean mkStream = false;
+        long entriesRead = -1;
+        for (int i = 5; i < context.argc(); i++) {
+            if (context.argIs(i, "MKSTREAM")) {
+                mkStream = true;
+            } else if (context.argIs(i, "ENTRIESREAD") && i + 1 < context.argc()) {
+                entriesRead = context.longArg(++i);
+            } else {
+                throw CommandException.syntax();
+            }
+        }
+        StreamValue stream = context.db().get(key, StreamValue.class);
+        if (stream == null && !mkStream) {
+            throw new CommandException("ERR The XGROUP subcommand requires the key to exist. Note that for CREATE "
+                    + "you may want to use the MKSTREAM option to create an empty stream automatically.");
+        }
+        if (stream == null) {
+            stream = context.db().getOrCreate(key, StreamValue.class, StreamValue::new);
+        }
+        if (stream.groups.containsKey(groupName)) {
+            throw new CommandException("BUSYGROUP Consumer Group name already exists");
+        }
+        StreamId start = startId(stream, context.arg(4));
+        if (entriesRead < 0) {
+            entriesRead = start.equals(stream.lastId) ? stream.entriesAdded : stream.entries.headMap(start, true).size();
+        }
+        stream.groups.put(groupName, new StreamGroup(groupName, start, entriesRead));
+        return Reply.OK;
+    }
+
+    private static Reply xreadgroup(CommandContext context) {
+        if (!context.argIs(1, "GROUP")) {
+            throw CommandException.syntax();
+        }
+        String groupName = context.arg(2);
+        String consumerName = context.arg(3);
+        ReadOptions options = ReadOptions.parse(context, 4, "xreadgroup");
+        boolean onlyNew = true;
+        for (int i = 0; i < options.keys().size(); i++) {
+            String key = options.keys().get(i);
+            StreamValue stream = context.db().get(key, StreamValue.class);
+            if (stream == null || !stream.groups.containsKey(groupName)) {
+                throw new CommandException("NOGROUP No such key '" + key + "' or consumer group '" + groupName
+                        + "' in XREADGROUP with GROUP option");
+            }
+            onlyNew &= options.ids().get(i).equals(NEW_ENTRIES);
+        }
+        Reply immediate = readGroup(context, groupName, consumerName, options);
+        if (immediate != null || !onlyNew || options.blockMillis() < 0) {
+            return immediate == null ? Reply.NULL_ARRAY : immediate;
+        }
+        return context.server().block(context, options.keys(), options.blockMillis() / 1000.0,
+                () -> readGroup(context, groupName, consumerName, options), Reply.NULL_ARRAY);
+    }
+
+    /**
+     * ">" 이면 그룹이 아직 전달 하지 않은 항목을, 아니면 consumer 의 PEL 에서 지정한 ID 이후의 항목을 읽는다.
+     *
+     * @return 읽은 항목이 없으면 null. PEL 을 읽는 stream 은 비어 있어도 응답에 포함 된다
+     */
+    private static Reply readGroup(CommandContext context, String groupName, String consumerName,
+                                   ReadOptions options) {
+        long now = System.currentTimeMillis();
+        List<Reply> streams = new ArrayList<>();
+        boolean any = false;
+        for (int i = 0; i < options.keys().size(); i++) {
+            String key = options.keys().get(i);
+            StreamValue stream = context.db().get(key, StreamValue.class);
+            StreamGroup group = stream == null ? null : stream.groups.get(groupName);
+            if (group == null) {
+                continue;
+            }
+            StreamGroup.Consumer consumer = group.consumer(consumerName, now);
+            List<Reply> entries = new ArrayList<>();
+            String id = options.ids().get(i);
+            if (id.equals(NEW_ENTRIES)) {
+                for (Map.Entry<StreamId, List<String>> entry
+                        : stream.entries.tailMap(group.lastDeliveredId, false).entrySet()) {
+                    if (entries.size() >= options.count()) {
+                        break;
+                    }
+                    group.lastDeliveredId = entry.getKey();
+                    group.entriesRead++;
+                    if (!options.noAck()) {
+                        group.deliver(entry.getKey(), consumer, now, true);
+                    }
+                    entries.add(StreamCommands.entry(entry.getKey(), entry.getValue()));
+                }
+                if (entries.isEmpty()) {
+                    continue;
+                }
+            } else {
+                for (StreamId pendingId : consumer.pending.tailSet(StreamId.parse(id, 0), false)) {
+                    if (entries.size() >= options.count()) {
+                        break;
+                    }
+                    entries.add(StreamCommands.entry(pendingId, stream.entries.get(pendingId)));
+                }
+            }
+            any = true;
+            streams.add(Reply.array(Reply.bulk(key), Reply.array(entries)));
+        }
+        return any ? Reply.array(streams) : null;
+    }
+
+    private static Reply xack(CommandContext context) {
+        StreamValue stream = context.db().get(context.arg(1), StreamValue.class);
+        StreamGroup group = stream == null ? null : stream.groups.get(context.arg(2));
+        if (group == null) {
+            return Reply.ZERO;
+        }
+        long acked = 0;
+        for (int i = 3; i < context.argc(); i++) {
+            if (group.ack(StreamId.parse(context.arg(i), 0))) {
+                acked++;
+            }
+        }
+        return Reply.integer(acked);
+    }
+
+    private static Reply xpending(CommandContext context) {
+        String key = context.arg(1);
+        StreamGroup group = group(context.db().get(key, StreamValue.class), key, context.arg(2));
+        if (context.argc() == 3) {
+            return pendingSummary(group);
+        }
+        int index = 3;
+        long minIdle = 0;
+        if (context.argIs(index, "IDLE")) {
+            minIdle = context.longArg(index + 1);
+            index += 2;
+        }
+        if (context.argc() != index + 3 && context.argc() != index + 4) {
+            throw CommandException.syntax();
+        }
+        StreamId start = StreamCommands.parseBound(context.arg(index), 0);
+        StreamId end = StreamCommands.parseBound(context.arg(index + 1), Long.MAX_VALUE);
+        long count = context.longArg(index + 2);
+        String consumer = context.argc() == index + 4 ? context.arg(index + 3) : null;
+        long now = System.currentTimeMillis();
+        List<Reply> items = new ArrayList<>();
+        if (start.compareTo(end) > 0) {
+            return Reply.EMPTY_ARRAY;
+        }
+        for (Map.Entry<StreamId, StreamGroup.Pending> entry : group.pending.subMap(start, true, end, true).entrySet()) {
+            if (items.size() >= count) {
+                break;
+            }
+            StreamGroup.Pending pending = entry.getValue();
+            long idle = now - pending.deliveryTime;
+            if (idle < minIdle || (consumer != null && !consumer.equals(pending.consumer))) {
+                continue;
+            }
+            items.add(Reply.array(Reply.bulk(entry.getKey().toString()), Reply.bulk(pending.consumer),
+                    Reply.integer(idle), Reply.integer(pending.deliveryCount)));
+        }
+        return Reply.array(items);
+    }
+
+    private static Reply pendingSummary(StreamGroup group) {
+        if (group.pending.isEmpty()) {
+            return Reply.array(Reply.ZERO, Reply.NULL, Reply.NULL, Reply.NULL_ARRAY);
+        }
+        List<Reply> consumers = new ArrayList<>();
+        for (StreamGroup.Consumer consumer : group.consumers.values()) {
+            if (!consumer.pending.isEmpty()) {
+                consumers.add(Reply.array(Reply.bulk(consumer.name),
+                        Reply.bulk(Long.toString(consumer.pending.size()))));
+            }
+        }
+        return Reply.array(Reply.integer(group.pending.size()),
+                Reply.bulk(group.pending.firstKey().toString()),
+                Reply.bulk(group.pending.lastKey().toString()),
+                Reply.array(consumers));
+    }
+
+    /**
+     * start 부터 PEL 을 훑으며 minIdle 이상 ack 되지 않은 항목을 consumer 에게 넘긴다.
+     * 이미 stream 에서 지워진 항목은 PEL 에서 빼고 세 번째 응답으로 알려 준다.
+     */
+    private static Reply xautoclaim(CommandContext context) {
+        String key = context.arg(1);
+        StreamValue stream = context.db().get(key, StreamValue.class);
+        StreamGroup group = group(stream, key, context.arg(2));
+        long minIdle = context.longArg(4);
+        StreamId start = StreamCommands.parseBound(context.arg(5), 0);
+        long count = 100;
+        boolean justId = false;
+        for (int i = 6; i < context.argc(); i++) {
+            if (context.argIs(i, "COUNT") && i + 1 < context.argc()) {
+                count = context.longArg(++i);
+                if (count < 1) {
+                    throw new CommandException("ERR COUNT must be > 0");
+                }
+            } else if (context.argIs(i, "JUSTID")) {
+                justId = true;
+            } else {
+                throw CommandException.syntax();
+            }
+        }
+        long now = System.currentTimeMillis();
+        StreamGroup.Consumer consumer = group.consumer(context.arg(3), now);
+        List<Reply> claimed = new ArrayList<>();
+        List<Reply> deleted = new ArrayList<>();
+        StreamId next = StreamId.MIN;
+        Iterator<Map.Entry<StreamId, StreamGroup.Pending>> scan = group.pending.tailMap(start, true).entrySet().iterator();
+        long attempts = count * 10;
+        while (scan.hasNext() && attempts-- > 0) {
+            Map.Entry<StreamId, StreamGroup.Pending> entry = scan.next();
+            if (claimed.size() + deleted.size() >= count) {
+                next = entry.getKey();
+                break;
+            }
+            StreamId id = entry.getKey();
+            List<String> fields = stream.entries.get(id);
+            if (fields == null) {
+                StreamGroup.Consumer owner = group.consumers.get(entry.getValue().consumer);
+                if (owner != null) {
+                    owner.pending.remove(id);
+                }
+                scan.remove();
+                deleted.add(Reply.bulk(id.toString()));
+                continue;
+            }
+            if (now - entry.getValue().deliveryTime < minIdle) {
+                continue;
+            }
+            group.deliver(id, consumer, now, !justId);
+            claimed.add(justId ? Reply.bulk(id.toString()) : StreamCommands.entry(id, fields));
+        }
+        if (next.equals(StreamId.MIN) && scan.hasNext()) {
+            next = scan.next().getKey();
+        }
+        return Reply.array(Reply.bulk(next.toString()), Reply.array(claimed), Reply.array(deleted));
+    }
+
+    private static Reply xinfo(CommandContext context) {
+        String subcommand = context.arg(1).toUpperCase(Locale.ROOT);
+        return switch (subcommand) {
+            case "GROUPS" -> {
+                if (context.argc() != 3) {
+                    throw CommandException.syntax();
+                }
+                StreamValue stream = existingStream(context, context.arg(2));
+                List<Reply> groups = new ArrayList<>();
+                for (StreamGroup group : stream.groups.values()) {
+                    groups.add(new Reply.MapReply(List.of(
+                            Reply.bulk("name"), Reply.bulk(group.name),
+                            Reply.bulk("consumers"), Reply.integer(group.consumers.size()),
+                            Reply.bulk("pending"), Reply.integer(group.pending.size()),
+                            Reply.bulk("last-delivered-id"), Reply.bulk(group.lastDeliveredId.toString()),
+                            Reply.bulk("entries-read"), Reply.integer(group.entriesRead),
+                            Reply.bulk("lag"), Reply.integer(stream.lag(group)))));
+                }
+                yield Reply.array(groups);
+            }
+            case "CONSUMERS" -> {
+                if (context.argc() != 4) {
+                    throw CommandException.syntax();
+                }
+                String key = context.arg(2);
+                StreamGroup group = group(existingStream(context, key), key, context.arg(3));
+                long now = System.currentTimeMillis();
+                List<Reply> consumers = new ArrayList<>();
+                for (StreamGroup.Consumer consumer : group.consumers.values()) {
+                    consumers.add(new Reply.MapReply(List.of(
+                            Reply.bulk("name"), Reply.bulk(consumer.name),
+                            Reply.bulk("pending"), Reply.integer(consumer.pending.size()),
+                            Reply.bulk("idle"), Reply.integer(now - consumer.seenTime))));
+                }
+                yield Reply.array(consumers);
+            }
+            default -> throw new CommandException("ERR unknown subcommand '" + context.arg(1) + "'.");
+        };
+    }
+
+    private static StreamValue existingStream(CommandContext context, String key) {
+        StreamValue stream = context.db().get(key, StreamValue.class);
+        if (stream == null) {
+            throw new CommandException("ERR no such key");
+        }
+        return stream;
+    }
+
+    private static StreamGroup group(StreamValue stream, String key, String groupName) {
+        StreamGroup group = stream == null ? null : stream.groups.get(groupName);
+        if (group == null) {
+            throw new CommandException("NOGROUP No such key '" + key + "' or consumer group '" + groupName + "'");
+        }
+        return group;
+    }
+
+    /**
+     * "$" 는 stream 의 마지막 ID 이다.
+     */
+    private static StreamId startId(StreamValue stream, String raw) {
+        return raw.equals("$") ? stream.lastId : StreamId.parse(raw, 0);
+    }
+}
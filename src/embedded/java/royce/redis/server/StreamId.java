@@ -0,0 +1,44 @@
+package royce.redis.server;
+
+record StreamId(long millis, long sequence) implements Comparable<StreamId> {
+
+    static final StreamId MIN = new StreamId(0, 0);
+    static final StreamId MAX = new StreamId(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    /**
+     * "-", "+", "ms", "ms-seq" 형식을 해석 한다. 시퀀스가 생략 되면 defaultSequence 를 사용 한다.
+     */
+    static StreamId parse(String value, long defaultSequence) {
+        if (value.equals("-")) {
+            return MIN;
+        }
+        if (value.equals("+")) {
+            return MAX;
+        }
+        try {
+            int dash = value.indexOf('-');
+            if (dash < 0) {
+                return new StreamId(Long.parseUnsignedLong(value), defaultSequence);
+            }
+            return new StreamId(Long.parseUnsignedLong(value.substring(0, dash)),
+                    Long.parseUnsignedLong(value.substring(dash + 1)));
+        } catch (NumberFormatException e) {
+            throw new CommandException("ERR Invalid stream ID specified as stream command argument");
+        }
+    }
+
+    StreamId next() {
+        return sequence == Long.MAX_VALUE ? new StreamId(millis + 1, 0) : new StreamId(millis, sequence + 1);
+    }
+
+    @Override
+    public int compareTo(StreamId other) {
+        int byMillis = Long.compareUnsigned(millis, other.millis);
+        return byMillis != 0 ? byMillis : Long.compareUnsigned(sequence, other.sequence);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toUnsignedString(millis) + "-" + Long.toUnsignedString(sequence);
+    }
+}
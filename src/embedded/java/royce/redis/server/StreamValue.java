@@ -0,0 +1,44 @@
+package royce.redis.server;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+final class StreamValue implements RedisValue {
+
+    final NavigableMap<StreamId, List<String>> entries = new TreeMap<>();
+    final Map<String, StreamGroup> groups = new LinkedHashMap<>();
+    StreamId lastId = StreamId.MIN;
+    long entriesAdded;
+
+    /**
+     * 그룹이 아직 전달 하지 않은 항목 수.
+     */
+    long lag(StreamGroup group) {
+        return entries.tailMap(group.lastDeliveredId, false).size();
+    }
+
+    @Override
+    public String type() {
+        return "stream";
+    }
+
+    @Override
+    public String encoding() {
+        return "stream";
+    }
+
+    @Override
+    public long memoryUsage() {
+        long total = 600;
+        for (Map.Entry<StreamId, List<String>> entry : entries.entrySet()) {
+            total += 16;
+            for (String fieldOrValue : entry.getValue()) {
+                total += fieldOrValue.length() + 2;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,222 @@
+package royce.redis.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * String 타입 명령.
+ */
+final class StringCommands {
+
+    private StringCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.register("get", 2, StringCommands::get);
+        table.registerWrite("set", -3, StringCommands::set);
+        table.registerWrite("setnx", 3, StringCommands::setnx);
+        table.registerWrite("setex", 4, context -> setWithExpire(context, 1000));
+        table.registerWrite("psetex", 4, context -> setWithExpire(context, 1));
+        table.registerWrite("getset", 3, StringCommands::getSet);
+        table.registerWrite("getdel", 2, StringCommands::getDel);
+        table.register("mget", -2, StringCommands::mget);
+        table.registerWrite("mset", -3, StringCommands::mset);
+        table.registerWrite("msetnx", -3, StringCommands::msetnx);
+        table.registerWrite("incr", 2, context -> incrBy(context, 1));
+        table.registerWrite("decr", 2, context -> incrBy(context, -1));
+        table.registerWrite("incrby", 3, context -> incrBy(context, context.longArg(2)));
+        table.registerWrite("decrby", 3, context -> incrBy(context, Math.negateExact(context.longArg(2))));
+        table.registerWrite("incrbyfloat", 3, StringCommands::incrByFloat);
+        table.registerWrite("append", 3, StringCommands::append);
+        table.register("strlen", 2, context -> {
+            StringValue value = context.db().get(context.arg(1), StringValue.class);
+            return Reply.integer(value == null ? 0 : value.bytes.length);
+        });
+        table.register("getrange", 4, StringCommands::getRange);
+    }
+
+    private static Reply get(CommandContext context) {
+        StringValue value = context.db().get(context.arg(1), StringValue.class);
+        return value == null ? Reply.NULL : Reply.bulk(value.bytes);
+    }
+
+    private static Reply set(CommandContext context) {
+        Database db = context.db();
+        String key = context.arg(1);
+        boolean nx = false;
+        boolean xx = false;
+        boolean get = false;
+        boolean keepTtl = false;
+        Long expireAt = null;
+        for (int i = 3; i < context.argc(); i++) {
+            String option = context.arg(i).toUpperCase();
+            switch (option) {
+                case "NX" -> nx = true;
+                case "XX" -> xx = true;
+                case "GET" -> get = true;
+                case "KEEPTTL" -> keepTtl = true;
+                case "EX", "PX", "EXAT", "PXAT" -> {
+                    if (i + 1 >= context.argc() || expireAt != null) {
+                        throw CommandException.syntax();
+                    }
+                    long amount = context.longArg(++i);
+                    if (amount <= 0) {
+                        throw new CommandException("ERR invalid expire time in 'set' command");
+                    }
+                    long now = System.currentTimeMillis();
+                    expireAt = switch (option) {
+                        case "EX" -> now + amount * 1000;
+                        case "PX" -> now + amount;
+                        case "EXAT" -> amount * 1000;
+                        default -> amount;
+                    };
+                }
+                default -> throw CommandException.syntax();
+            }
+        }
+        if ((nx && xx) || (keepTtl && expireAt != null)) {
+            throw CommandException.syntax();
+        }
+        Reply previous = null;
+        if (get) {
+            StringValue old = db.get(key, StringValue.class);
+            previous = old == null ? Reply.NULL : Reply.bulk(old.bytes);
+        }
+        boolean exists = db.exists(key);
+        if ((nx && exists) || (xx && !exists)) {
+            return get ? previous : Reply.NULL;
+        }
+        StringValue value = new StringValue(context.rawArg(2));
+        if (keepTtl) {
+            db.replace(key, value);
+        } else {
+            db.put(key, value);
+        }
+        if (expireAt != null) {
+            db.expireAt(key, expireAt);
+        }
+        return get ? previous : Reply.OK;
+    }
+
+    private static Reply setnx(CommandContext context) {
+        String key = context.arg(1);
+        if (context.db().exists(key)) {
+            return Reply.ZERO;
+        }
+        context.db().put(key, new StringValue(context.rawArg(2)));
+        return Reply.ONE;
+    }
+
+    private static Reply setWithExpire(CommandContext context, long unitMillis) {
+        long amount = context.longArg(2);
+        if (amount <= 0) {
+            throw new CommandException("ERR invalid expire time in '" + context.arg(0).toLowerCase() + "' command");
+        }
+        String key = context.arg(1);
+        context.db().put(key, new StringValue(context.rawArg(3)));
+        context.db().expireAt(key, System.currentTimeMillis() + amount * unitMillis);
+        return Reply.OK;
+    }
+
+    private static Reply getSet(CommandContext context) {
+        Reply previous = get(context);
+        context.db().put(context.arg(1), new StringValue(context.rawArg(2)));
+        return previous;
+    }
+
+    private static Reply getDel(CommandContext context) {
+        Reply previous = get(context);
+        context.db().remove(context.arg(1));
+        return previous;
+    }
+
+    private static Reply mget(CommandContext context) {
+        List<Reply> values = new ArrayList<>(context.argc() - 1);
+        for (int i = 1; i < context.argc(); i++) {
+            RedisValue value = context.db().get(context.arg(i));
+            values.add(value instanceof StringValue string ? Reply.bulk(string.bytes) : Reply.NULL);
+        }
+        return Reply.array(values);
+    }
+
+    private static Reply mset(CommandContext context) {
+        if (context.argc() % 2 == 0) {
+            throw new CommandException("ERR wrong number of arguments for 'mset' command");
+        }
+        for (int i = 1; i < context.argc(); i += 2) {
+            context.db().put(context.arg(i), new StringValue(context.rawArg(i + 1)));
+        }
+        return Reply.OK;
+    }
+
+    private static Reply msetnx(CommandContext context) {
+        if (context.argc() % 2 == 0) {
+            throw new CommandException("ERR wrong number of arguments for 'msetnx' command");
+        }
+        for (int i = 1; i < context.argc(); i += 2) {
+            if (context.db().exists(context.arg(i))) {
+                return Reply.ZERO;
+            }
+        }
+        return mset(context) == Reply.OK ? Reply.ONE : Reply.ZERO;
+    }
+
+    private static Reply incrBy(CommandContext context, long delta) {
+        Database db = context.db();
+        String key = context.arg(1);
+        StringValue value = db.get(key, StringValue.class);
+        long current = value == null ? 0 : Numbers.parseLong(value.asString());
+        long next;
+        try {
+            next = Math.addExact(current, delta);
+        } catch (ArithmeticException e) {
+            throw new CommandException("ERR increment or decrement would overflow");
+        }
+        db.replace(key, StringValue.of(Long.toString(next)));
+        return Reply.integer(next);
+    }
+
+    private static Reply incrByFloat(CommandContext context) {
+        Database db = context.db();
+        String key = context.arg(1);
+        StringValue value = db.get(key, StringValue.class);
+        double current = value == null ? 0 : Numbers.parseDouble(value.asString());
+        double next = current + context.doubleArg(2);
+        if (Double.isInfinite(next) || Double.isNaN(next)) {
+            throw new CommandException("ERR increment would produce NaN or Infinity");
+        }
+        String formatted = Numbers.format(next);
+        db.replace(key, StringValue.of(formatted));
+        return Reply.bulk(formatted);
+    }
+
+    private static Reply append(CommandContext context) {
+        Database db = context.db();
+        String key = context.arg(1);
+        StringValue value = db.get(key, StringValue.class);
+        byte[] suffix = context.rawArg(2);
+        if (value == null) {
+            db.put(key, new StringValue(suffix));
+            return Reply.integer(suffix.length);
+        }
+        byte[] joined = new byte[value.bytes.length + suffix.length];
+        System.arraycopy(value.bytes, 0, joined, 0, value.bytes.length);
+        System.arraycopy(suffix, 0, joined, value.bytes.length, suffix.length);
+        value.bytes = joined;
+        return Reply.integer(joined.length);
+    }
+
+    private static Reply getRange(CommandContext context) {
+        StringValue value = context.db().get(context.arg(1), StringValue.class);
+        if (value == null) {
+            return Reply.bulk(new byte[0]);
+        }
+        long[] range = Numbers.clampRange(context.longArg(2), context.longArg(3), value.bytes.length);
+        if (range == null) {
+            return Reply.bulk(new byte[0]);
+        }
+        byte[] slice = new byte[(int) (range[1] - range[0] + 1)];
+        System.arraycopy(value.bytes, (int) range[0], slice, 0, slice.length);
+        return Reply.bulk(slice);
+    }
+}
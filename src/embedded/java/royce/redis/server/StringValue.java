@@ -0,0 +1,45 @@
+package royce.redis.server;
+
+import java.nio.charset.StandardCharsets;
+
+final class StringValue implements RedisValue {
+
+    private static final int EMBSTR_LIMIT = 44;
+
+    byte[] bytes;
+
+    StringValue(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    static StringValue of(String value) {
+        return new StringValue(value.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    String asString() {
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String type() {
+        return "string";
+    }
+
+    @Override
+    public String encoding() {
+        if (bytes.length <= 20) {
+            try {
+                Long.parseLong(asString());
+                return "int";
+            } catch (NumberFormatException ignored) {
+                // fall through
+            }
+        }
+        return bytes.length <= EMBSTR_LIMIT ? "embstr" : "raw";
+    }
+
+    @Override
+    public long memoryUsage() {
+        return "int".equals(encoding()) ? 16 : 16 + bytes.length + 3;
+    }
+}
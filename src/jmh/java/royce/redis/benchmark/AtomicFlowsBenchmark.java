@@ -0,0 +1,117 @@
+package royce.redis.benchmark;
+
+import io.lettuce.core.LMoveArgs;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import royce.redis.connection.RedisConnectionPool;
+import royce.redis.script.AtomicFlows;
+import royce.redis.script.AtomicFlows.FieldUpdate;
+
+/**
+ * 여러 단계 흐름 하나의 지연 시간. ROUND_TRIPS 는 같은 명령을 하나씩 보내는 방식(HGET 후 HSET, LMOVE 후 INCR)으로
+ * 원자적 이지 않은 하한선 이고, WATCH/MULTI/EXEC 로 원자성을 얻으려면 왕복이 더 늘어난다.
+ * SCRIPT 는 EVALSHA, FUNCTION 은 FCALL 로 한 번에 보낸다. compareAndSetAll 은 BATCH 개를 한 파이프라인으로 보낸다.
+ * 모든 해시의 caller 를 admin 으로 채워 두고 admin 을 admin 으로 바꾸므로 비교는 항상 성공 하고 매번 쓴다.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class AtomicFlowsBenchmark {
+
+    private static final int BATCH = 100;
+    private static final int ENDPOINTS = 1_000;
+
+    public enum Strategy {
+        ROUND_TRIPS, SCRIPT, FUNCTION
+    }
+
+    @Param({"ROUND_TRIPS", "SCRIPT", "FUNCTION"})
+    public Strategy strategy;
+
+    private RedisConnectionPool pool;
+    private AtomicFlows flows;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkRedis redis) {
+        pool = RedisConnectionPool.builder(redis.settings()).client(redis.client()).build();
+        flows = AtomicFlows.builder(pool)
+                .engine(strategy == Strategy.FUNCTION ? AtomicFlows.Engine.FUNCTION : AtomicFlows.Engine.SCRIPT)
+                .build();
+        pool.execute(commands -> {
+            for (int i = 0; i < ENDPOINTS; i++) {
+                commands.hset("endpoint:/admin/" + i, "caller", "admin");
+            }
+            return commands.rpush("jobs", "job1", "job2", "job3");
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        pool.close();
+    }
+
+    @Benchmark
+    public boolean compareAndSet() {
+        String key = "endpoint:/admin/" + ThreadLocalRandom.current().nextInt(ENDPOINTS);
+        if (strategy != Strategy.ROUND_TRIPS) {
+            return flows.compareAndSet(key, "caller", "admin", "admin");
+        }
+        String current = pool.execute(commands -> commands.hget(key, "caller"));
+        if (!"admin".equals(current)) {
+            return false;
+        }
+        pool.execute(commands -> commands.hset(key, "caller", "admin"));
+        return true;
+    }
+
+    /**
+     * 같은 리스트 안 에서 원소를 돌린다. 리스트가 비지 않으므로 매번 옮기고 카운터를 올린다.
+     */
+    @Benchmark
+    public String moveAndCount() {
+        if (strategy != Strategy.ROUND_TRIPS) {
+            return flows.moveAndCount("jobs", "jobs", "moved");
+        }
+        String element = pool.execute(commands -> commands.lmove("jobs", "jobs", LMoveArgs.Builder.leftRight()));
+        if (element != null) {
+            pool.execute(commands -> commands.incr("moved"));
+        }
+        return element;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Boolean> compareAndSetAll() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<FieldUpdate> updates = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            updates.add(new FieldUpdate("endpoint:/admin/" + random.nextInt(ENDPOINTS), "caller", "admin", "admin"));
+        }
+        if (strategy != Strategy.ROUND_TRIPS) {
+            return flows.compareAndSetAll(updates);
+        }
+        List<Boolean> results = new ArrayList<>(BATCH);
+        for (FieldUpdate update : updates) {
+            String current = pool.execute(commands -> commands.hget(update.key(), update.field()));
+            boolean matched = update.expected().equals(current);
+            if (matched) {
+                pool.execute(commands -> commands.hset(update.key(), update.field(), update.value()));
+            }
+            results.add(matched);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,98 @@
+package royce.redis.benchmark;
+
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntFunction;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * 벤치마크 스레드 마다 하나씩 갖는 커넥션.
+ * 한 번의 벤치마크 호출은 batchSize 개의 명령을 mode 방식으로 실행 한다.
+ */
+@State(Scope.Thread)
+public class BenchmarkConnection {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Param({"SYNC", "ASYNC", "PIPELINED"})
+    public ExecutionMode mode;
+
+    @Param({"100"})
+    public int batchSize;
+
+    private StatefulRedisConnection<String, String> connection;
+    private RedisAsyncCommands<String, String> async;
+
+    @Setup(Level.Trial)
+    public void connect(BenchmarkRedis redis) {
+        connection = redis.client().connect();
+        async = connection.async();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        connection.close();
+    }
+
+    public RedisAsyncCommands<String, String> async() {
+        return async;
+    }
+
+    /**
+     * command 를 batchSize 번 실행 한다. SYNC 는 매번 응답을 기다리므로 sync() API 와 같은 왕복 횟수를 갖는다.
+     */
+    public void run(IntFunction<RedisFuture<?>> command) {
+        switch (mode) {
+            case SYNC -> {
+                for (int i = 0; i < batchSize; i++) {
+                    await(command.apply(i));
+                }
+            }
+            case ASYNC -> awaitAll(issue(command));
+            case PIPELINED -> {
+                connection.setAutoFlushCommands(false);
+                try {
+                    RedisFuture<?>[] futures = issue(command);
+                    connection.flushCommands();
+                    awaitAll(futures);
+                } finally {
+                    connection.setAutoFlushCommands(true);
+                }
+            }
+        }
+    }
+
+    private RedisFuture<?>[] issue(IntFunction<RedisFuture<?>> command) {
+        RedisFuture<?>[] futures = new RedisFuture<?>[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            futures[i] = command.apply(i);
+        }
+        return futures;
+    }
+
+    private static void awaitAll(RedisFuture<?>[] futures) {
+        if (!LettuceFutures.awaitAll(TIMEOUT, futures)) {
+            throw new IllegalStateException("commands did not complete within " + TIMEOUT);
+        }
+    }
+
+    private static void await(RedisFuture<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
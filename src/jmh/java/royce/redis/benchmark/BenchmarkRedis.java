@@ -0,0 +1,56 @@
+package royce.redis.benchmark;
+
+import io.lettuce.core.RedisClient;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import royce.redis.connection.RedisConnectionSettings;
+import royce.redis.connection.SharedClientResources;
+import royce.redis.server.RespServer;
+
+/**
+ * 벤치마크 대상 Redis.
+ * 기본은 프로세스 내 RespServer 를 띄우고, -Dredis.external=true 이면 redis.host/redis.port/redis.password 의 실제 Redis 를 사용 한다.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkRedis {
+
+    private RespServer server;
+    private RedisClient client;
+    private RedisConnectionSettings settings;
+
+    @Setup(Level.Trial)
+    public void start() {
+        if (Boolean.getBoolean("redis.external")) {
+            settings = RedisConnectionSettings.of(
+                    System.getProperty("redis.host", "localhost"),
+                    Integer.getInteger("redis.port", 6379),
+                    System.getProperty("redis.password", "royceredis"));
+        } else {
+            server = RespServer.builder().port(0).password("royceredis").build().start();
+            settings = RedisConnectionSettings.of(server.host(), server.port(), "royceredis");
+        }
+        client = RedisClient.create(SharedClientResources.get(), settings.toRedisURI());
+        try (var connection = client.connect()) {
+            connection.sync().flushall();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        client.shutdown();
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    public RedisClient client() {
+        return client;
+    }
+
+    public RedisConnectionSettings settings() {
+        return settings;
+    }
+}
@@ -0,0 +1,145 @@
+package royce.redis.benchmark;
+
+import io.lettuce.core.RedisFuture;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import royce.redis.bitmap.BitmapAnalytics;
+import royce.redis.connection.PipelinedConnection;
+import royce.redis.connection.RedisConnectionPool;
+
+/**
+ * 일별 활동 사용자를 비트맵(SETBIT/BITFIELD, BITCOUNT, BITOP AND)으로 둔 경우와 Set(SADD, SCARD, SINTERSTORE)으로 둔 경우.
+ * users 명 중 activeRatio 만큼이 이틀 동안 각각 활동 했다고 채워 두고, Trial 시작 시 두 방식의 하루 키 MEMORY USAGE 를 출력 한다.
+ * 비트맵은 활동 사용자 수와 무관 하게 users / 8 바이트 이고, Set 은 활동 사용자 수에 비례 한다.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class BitmapAnalyticsBenchmark {
+
+    private static final int BATCH = 1_000;
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    public enum Strategy {
+        BITMAP, SET
+    }
+
+    @Param({"BITMAP", "SET"})
+    public Strategy strategy;
+
+    @Param({"10000000"})
+    public int users;
+
+    @Param({"0.1"})
+    public double activeRatio;
+
+    private RedisConnectionPool pool;
+    private BitmapAnalytics analytics;
+
+    @Setup(Level.Trial)
+    public void load(BenchmarkRedis redis) {
+        pool = RedisConnectionPool.builder(redis.settings()).client(redis.client()).build();
+        analytics = BitmapAnalytics.builder(pool, "dau").build();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (LocalDate day : List.of(DAY, DAY.plusDays(1))) {
+            List<Integer> active = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                if (random.nextDouble() < activeRatio) {
+                    active.add(i);
+                }
+            }
+            if (strategy == Strategy.BITMAP) {
+                analytics.markActiveAll(day, active);
+            } else {
+                sadd(setKey(day), active);
+            }
+        }
+        String key = strategy == Strategy.BITMAP ? analytics.key(DAY) : setKey(DAY);
+        System.out.printf("%n%s: %d bytes for %d of %d users%n", strategy, pool.execute(commands -> commands.memoryUsage(key)),
+                pool.execute(commands -> strategy == Strategy.BITMAP ? commands.bitcount(key) : commands.scard(key)), users);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        pool.close();
+    }
+
+    @Benchmark
+    public boolean markActive() {
+        int userId = ThreadLocalRandom.current().nextInt(users);
+        if (strategy == Strategy.BITMAP) {
+            return analytics.markActive(userId, DAY);
+        }
+        return pool.execute(commands -> commands.sadd(setKey(DAY), String.valueOf(userId))) == 1;
+    }
+
+    /**
+     * BATCH 명을 BITFIELD 한 번, 또는 SADD 한 번으로 보낸다.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long markActiveAll() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Integer> userIds = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            userIds.add(random.nextInt(users));
+        }
+        if (strategy == Strategy.BITMAP) {
+            return analytics.markActiveAll(DAY, userIds);
+        }
+        String[] members = userIds.stream().map(String::valueOf).toArray(String[]::new);
+        return pool.execute(commands -> commands.sadd(setKey(DAY), members));
+    }
+
+    @Benchmark
+    public long dailyActiveUsers() {
+        if (strategy == Strategy.BITMAP) {
+            return analytics.activeUsers(DAY);
+        }
+        return pool.execute(commands -> commands.scard(setKey(DAY)));
+    }
+
+    @Benchmark
+    public long retention() {
+        if (strategy == Strategy.BITMAP) {
+            return analytics.retention(DAY, List.of(DAY.plusDays(1))).retained().get(DAY.plusDays(1));
+        }
+        String temporary = "set:dau:tmp:" + Thread.currentThread().getId();
+        return pool.execute(commands -> {
+            commands.sinterstore(temporary, setKey(DAY), setKey(DAY.plusDays(1)));
+            long retained = commands.scard(temporary);
+            commands.del(temporary);
+            return retained;
+        });
+    }
+
+    private void sadd(String key, List<Integer> members) {
+        List<RedisFuture<Long>> futures = new ArrayList<>();
+        try (PipelinedConnection pipeline = pool.pipelined(100)) {
+            for (int from = 0; from < members.size(); from += BATCH) {
+                String[] chunk = members.subList(from, Math.min(from + BATCH, members.size())).stream()
+                        .map(String::valueOf).toArray(String[]::new);
+                futures.add(pipeline.submit(commands -> commands.sadd(key, chunk)));
+            }
+        }
+        futures.forEach(future -> future.toCompletableFuture().join());
+    }
+
+    private static String setKey(LocalDate day) {
+        return "set:dau:" + day;
+    }
+}
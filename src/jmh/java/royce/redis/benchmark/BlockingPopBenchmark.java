@@ -0,0 +1,94 @@
+package royce.redis.benchmark;
+
+import io.lettuce.core.api.StatefulRedisConnection;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import royce.redis.connection.BlockingPopDispatcher;
+import royce.redis.connection.VirtualThreads;
+
+/**
+ * consumers 개의 소비자가 BRPOP 으로 대기 하는 상태에서 같은 수의 원소를 넣고 모두 받을 때 까지 걸리는 시간.
+ * 소비자는 VirtualThreads 로 띄우고 BlockingPopDispatcher 의 worker 커넥션만 서버에 붙으므로,
+ * JDK 21 에서는 OS 스레드와 소켓이 소비자 수와 상관 없이 몇 개로 유지 된다. 반복이 끝날 때 최대 스레드 수와 커넥션 수를 출력 한다.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class BlockingPopBenchmark {
+
+    private static final int QUEUES = 100;
+
+    @Param({"10000"})
+    public int consumers;
+
+    @Param({"4"})
+    public int connections;
+
+    private BlockingPopDispatcher dispatcher;
+    private ExecutorService executor;
+    private StatefulRedisConnection<String, String> producer;
+    private CountDownLatch received;
+
+    @Setup(Level.Trial)
+    public void prepare(BenchmarkRedis redis) {
+        dispatcher = BlockingPopDispatcher.builder(redis.client())
+                .connections(connections)
+                .build();
+        executor = VirtualThreads.newPerTaskExecutor("blocking-consumer");
+        producer = redis.client().connect();
+    }
+
+    @Setup(Level.Invocation)
+    public void block() throws InterruptedException {
+        received = new CountDownLatch(consumers);
+        for (int i = 0; i < consumers; i++) {
+            String queue = "queue:" + (i % QUEUES);
+            executor.execute(() -> {
+                if (dispatcher.brpop(queue, Duration.ofSeconds(30)) != null) {
+                    received.countDown();
+                }
+            });
+        }
+        while (dispatcher.waitingCount() < consumers) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Benchmark
+    public void serveBlockedConsumers() throws InterruptedException {
+        producer.setAutoFlushCommands(false);
+        for (int i = 0; i < consumers; i++) {
+            producer.async().lpush("queue:" + (i % QUEUES), "job:" + i);
+        }
+        producer.flushCommands();
+        producer.setAutoFlushCommands(true);
+        received.await();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        System.out.printf("%nvirtual threads: %s, peak threads: %d, dispatcher connections: %d%n",
+                VirtualThreads.isSupported(), ManagementFactory.getThreadMXBean().getPeakThreadCount(),
+                dispatcher.connectionCount() + 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        executor.shutdownNow();
+        dispatcher.close();
+        producer.close();
+    }
+}
@@ -0,0 +1,103 @@
+package royce.redis.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import royce.redis.bucket.BucketedMap;
+import royce.redis.connection.RedisConnectionPool;
+import royce.redis.memory.MemoryAnalyzer;
+import royce.redis.memory.MemoryReport;
+
+/**
+ * 같은 키를 문자열 키(flat:*)로 둔 경우와 BucketedMap(bucket:*)으로 묶은 경우의 조회 지연 시간.
+ * Trial 시작 시 두 배치의 MEMORY USAGE 합계와 키 당 바이트를 출력 한다.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class BucketedMapBenchmark {
+
+    private static final int LOAD_BATCH = 1_000;
+
+    @Param({"100000"})
+    public int keyCount;
+
+    @Param({"100"})
+    public int lookupSize;
+
+    private RedisConnectionPool pool;
+    private BucketedMap map;
+
+    @Setup(Level.Trial)
+    public void load(BenchmarkRedis redis) {
+        pool = RedisConnectionPool.builder(redis.settings()).client(redis.client()).build();
+        map = BucketedMap.builder(pool, "bucket").expectedSize(keyCount).build();
+        Map<String, String> flat = new HashMap<>();
+        Map<String, String> bucketed = new HashMap<>();
+        for (int i = 0; i < keyCount; i++) {
+            flat.put("flat:" + i, "token-" + i);
+            bucketed.put("user:" + i, "token-" + i);
+            if (flat.size() == LOAD_BATCH || i == keyCount - 1) {
+                pool.execute(commands -> commands.mset(flat));
+                map.putAll(bucketed);
+                flat.clear();
+                bucketed.clear();
+            }
+        }
+        MemoryReport report = MemoryAnalyzer.builder(redis.client()).maxSampledKeys(Long.MAX_VALUE).build().analyze();
+        MemoryReport.PatternSummary flatSummary = report.pattern("flat:*");
+        MemoryReport.PatternSummary bucketSummary = report.pattern("bucket:*");
+        System.out.printf("%nflat: %d bytes (%d per key), bucketed: %d bytes in %d buckets (%d per key)%n",
+                flatSummary.sampledBytes(), flatSummary.sampledBytes() / keyCount,
+                bucketSummary.sampledBytes(), bucketSummary.sampledKeys(), bucketSummary.sampledBytes() / keyCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        pool.close();
+    }
+
+    @Benchmark
+    public String flatGet() {
+        int i = ThreadLocalRandom.current().nextInt(keyCount);
+        return pool.execute(commands -> commands.get("flat:" + i));
+    }
+
+    @Benchmark
+    public String bucketedGet() {
+        return map.get("user:" + ThreadLocalRandom.current().nextInt(keyCount));
+    }
+
+    @Benchmark
+    public Object flatMget() {
+        String[] keys = randomKeys("flat:").toArray(String[]::new);
+        return pool.execute(commands -> commands.mget(keys));
+    }
+
+    @Benchmark
+    public Map<String, String> bucketedGetAll() {
+        return map.getAll(randomKeys("user:"));
+    }
+
+    private List<String> randomKeys(String prefix) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<String> keys = new ArrayList<>(lookupSize);
+        for (int i = 0; i < lookupSize; i++) {
+            keys.add(prefix + random.nextInt(keyCount));
+        }
+        return keys;
+    }
+}
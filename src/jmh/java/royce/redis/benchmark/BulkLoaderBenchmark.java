@@ -0,0 +1,76 @@
+package royce.redis.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import royce.redis.connection.RedisConnectionPool;
+import royce.redis.load.BulkLoadReport;
+import royce.redis.load.BulkLoader;
+import royce.redis.load.BulkRecord;
+
+/**
+ * records 개의 문자열 키를 적재 하는 시간. MSET 은 전체를 Map 으로 만들어 명령 하나로 보내고(KeyCommandTest 의 방식),
+ * BULK_LOADER 는 레코드를 만드는 대로 흘려 보낸다. gc 프로파일러의 할당량 으로 힙 사용량을 비교 한다.
+ * BULK_LOADER 는 매 적재 후 처리량과 마지막 batch 크기를 출력 한다.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class BulkLoaderBenchmark {
+
+    public enum Strategy {
+        MSET, BULK_LOADER
+    }
+
+    @Param({"MSET", "BULK_LOADER"})
+    public Strategy strategy;
+
+    @Param({"1000000"})
+    public int records;
+
+    private RedisConnectionPool pool;
+    private BulkLoader loader;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkRedis redis) {
+        pool = RedisConnectionPool.builder(redis.settings()).client(redis.client()).build();
+        loader = BulkLoader.builder(pool).build();
+    }
+
+    @Setup(Level.Invocation)
+    public void flush() {
+        pool.execute(commands -> commands.flushall());
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        pool.close();
+    }
+
+    @Benchmark
+    public Object load() {
+        if (strategy == Strategy.MSET) {
+            Map<String, String> values = new LinkedHashMap<>();
+            for (int i = 0; i < records; i++) {
+                values.put("key" + i, "value" + i);
+            }
+            return pool.execute(commands -> commands.mset(values));
+        }
+        BulkLoadReport report = loader.load(IntStream.range(0, records)
+                .<BulkRecord>mapToObj(i -> new BulkRecord.StringRecord("key" + i, "value" + i))
+                .iterator());
+        System.out.println(report);
+        return report;
+    }
+}
@@ -0,0 +1,114 @@
+package royce.redis.benchmark;
+
+import io.lettuce.core.SetArgs;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import royce.redis.cache.CacheAsideLoader;
+import royce.redis.connection.RedisConnectionPool;
+
+/**
+ * 모든 hot key 가 같은 순간에 만료 되는 상황(mass expiry)에서 원본 호출 수와 조회 지연 시간의 꼬리.
+ * 키는 한 번에 적재 되므로 TTL 마다 같이 만료 된다. NAIVE 는 GET 이 비면 원본을 읽어 SET EX 하는 흔한 방식이고,
+ * 만료 순간 마다 조회 스레드 수 만큼 원본을 호출 한다. CACHE_ASIDE 는 CacheAsideLoader 를 거친다.
+ * 반복이 끝날 때 원본의 초당 호출 수(backend QPS)를 출력 하고, 지연 시간의 꼬리는 SampleTime 의 p0.99 이상에서 본다.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class CacheAsideBenchmark {
+
+    private static final int KEYS = 100;
+    private static final Duration TTL = Duration.ofSeconds(1);
+    private static final Duration BACKEND_LATENCY = Duration.ofMillis(20);
+
+    public enum Strategy {
+        NAIVE, CACHE_ASIDE
+    }
+
+    @Param({"NAIVE", "CACHE_ASIDE"})
+    public Strategy strategy;
+
+    private final LongAdder backendCalls = new LongAdder();
+    private RedisConnectionPool pool;
+    private CacheAsideLoader loader;
+    private long iterationStart;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkRedis redis) {
+        pool = RedisConnectionPool.builder(redis.settings()).client(redis.client()).size(16).build();
+        loader = CacheAsideLoader.builder(pool, "cache", this::backend).ttl(TTL).build();
+        List<String> keys = new ArrayList<>(KEYS);
+        for (int i = 0; i < KEYS; i++) {
+            keys.add("item:" + i);
+        }
+        if (strategy == Strategy.CACHE_ASIDE) {
+            loader.getAll(keys);
+        } else {
+            keys.forEach(this::naive);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        backendCalls.reset();
+        iterationStart = System.nanoTime();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        double seconds = (System.nanoTime() - iterationStart) / 1e9;
+        System.out.printf("%nbackend QPS: %.1f%n", backendCalls.sum() / seconds);
+        if (strategy == Strategy.CACHE_ASIDE) {
+            System.out.println(loader.metrics().snapshot());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        loader.close();
+        pool.close();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public String get() {
+        String key = "item:" + ThreadLocalRandom.current().nextInt(KEYS);
+        return strategy == Strategy.CACHE_ASIDE ? loader.get(key) : naive(key);
+    }
+
+    private String naive(String key) {
+        String redisKey = "naive:" + key;
+        String value = pool.execute(commands -> commands.get(redisKey));
+        if (value == null) {
+            String loaded = backend(key);
+            pool.execute(commands -> commands.set(redisKey, loaded, SetArgs.Builder.ex(TTL.getSeconds())));
+            value = loaded;
+        }
+        return value;
+    }
+
+    private String backend(String key) {
+        backendCalls.increment();
+        try {
+            Thread.sleep(BACKEND_LATENCY.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "value-of-" + key;
+    }
+}
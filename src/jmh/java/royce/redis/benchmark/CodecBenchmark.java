@@ -0,0 +1,66 @@
+package royce.redis.benchmark;
+
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.netty.buffer.ByteBuf;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import royce.redis.codec.PooledByteBufCodec;
+
+/**
+ * 큰 값을 GET 해서 그대로 다른 채널로 넘기는 경로의 지연 시간과 할당량.
+ * String codec 은 수신 버퍼 -> String -> byte[] 로 두 번 복사 하고, PooledByteBufCodec 은 풀 버퍼로 한 번만 복사 한다.
+ * gc 프로파일러의 gc.alloc.rate.norm 으로 호출 당 할당량을 비교 한다.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+    private static final String KEY = "payload";
+
+    @Param({"1024", "65536"})
+    public int valueSize;
+
+    private StatefulRedisConnection<String, String> stringConnection;
+    private StatefulRedisConnection<String, ByteBuf> bufferConnection;
+    private final WritableByteChannel sink = Channels.newChannel(OutputStream.nullOutputStream());
+
+    @Setup(Level.Trial)
+    public void prepare(BenchmarkRedis redis) {
+        stringConnection = redis.client().connect();
+        bufferConnection = redis.client().connect(PooledByteBufCodec.INSTANCE);
+        stringConnection.sync().set(KEY, "x".repeat(valueSize));
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        stringConnection.close();
+        bufferConnection.close();
+    }
+
+    @Benchmark
+    public void stringCodec() throws IOException {
+        String value = stringConnection.sync().get(KEY);
+        sink.write(ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public void pooledByteBufCodec() throws IOException {
+        PooledByteBufCodec.transferTo(bufferConnection.sync().get(KEY), sink);
+    }
+}
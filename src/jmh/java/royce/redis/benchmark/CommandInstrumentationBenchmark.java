@@ -0,0 +1,82 @@
+package royce.redis.benchmark;
+
+import io.lettuce.core.RedisFuture;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import royce.redis.connection.PipelinedConnection;
+import royce.redis.connection.RedisConnectionPool;
+import royce.redis.metrics.CommandInstrumentation;
+
+/**
+ * 명령 계측을 켰을 때의 처리량 손실. 왕복 하나 마다 명령을 보내는 경우와 BATCH 개를 파이프라인으로 보내는 경우를 비교 한다.
+ * 파이프라인은 명령 당 네트워크 비용이 작으므로 기록 비용이 더 크게 드러난다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class CommandInstrumentationBenchmark {
+
+    private static final int BATCH = 100;
+    private static final int KEYS = 10_000;
+
+    @Param({"false", "true"})
+    public boolean instrumented;
+
+    private CommandInstrumentation instrumentation;
+    private RedisConnectionPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkRedis redis) {
+        RedisConnectionPool.Builder builder = RedisConnectionPool.builder(redis.settings());
+        if (instrumented) {
+            instrumentation = CommandInstrumentation.builder(redis.settings()).build().start();
+            builder.client(instrumentation.client());
+        } else {
+            builder.client(redis.client());
+        }
+        pool = builder.build();
+        pool.execute(commands -> commands.set("key", "value"));
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        pool.close();
+        if (instrumentation != null) {
+            instrumentation.close();
+        }
+    }
+
+    @Benchmark
+    public String get() {
+        return pool.execute(commands -> commands.get("key:" + ThreadLocalRandom.current().nextInt(KEYS)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void pipelinedGet() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<CompletableFuture<String>> futures = new ArrayList<>(BATCH);
+        try (PipelinedConnection pipeline = pool.pipelined(BATCH)) {
+            for (int i = 0; i < BATCH; i++) {
+                String key = "key:" + random.nextInt(KEYS);
+                RedisFuture<String> future = pipeline.submit(commands -> commands.get(key));
+                futures.add(future.toCompletableFuture());
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).join();
+    }
+}
@@ -0,0 +1,9 @@
+package royce.redis.benchmark;
+
+/**
+ * 같은 명령 묶음을 보내는 방식.
+ * SYNC 는 명령 마다 응답을 기다리고, ASYNC 는 모두 보낸 뒤 기다리며, PIPELINED 는 auto-flush 를 끄고 한 번에 flush 한다.
+ */
+public enum ExecutionMode {
+    SYNC, ASYNC, PIPELINED
+}
@@ -0,0 +1,35 @@
+package royce.redis.benchmark;
+
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+/**
+ * HSET/HMGET/HSCAN 지연 시간.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HashBenchmark {
+
+    private static final String KEY = "endpoint:/admin/{id}";
+    private static final String[] FIELDS = {"caller", "initAccessIp", "lastAccessTime", "count"};
+
+    @Benchmark
+    public void hset(BenchmarkConnection connection) {
+        connection.run(i -> connection.async().hset(KEY, FIELDS[i % FIELDS.length], "value" + i));
+    }
+
+    @Benchmark
+    public void hmget(BenchmarkConnection connection) {
+        connection.run(i -> connection.async().hmget(KEY, FIELDS));
+    }
+
+    @Benchmark
+    public void hscan(BenchmarkConnection connection) {
+        connection.run(i -> connection.async().hscan(KEY, ScanCursor.INITIAL, ScanArgs.Builder.limit(10)));
+    }
+}
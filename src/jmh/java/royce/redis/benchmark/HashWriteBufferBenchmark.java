@@ -0,0 +1,76 @@
+package royce.redis.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import royce.redis.connection.RedisConnectionPool;
+import royce.redis.hash.HashWriteBuffer;
+
+/**
+ * 접근 기록(HSETNX initAccessIp, HSET caller, HINCRBY count) 처리량.
+ * DIRECT 는 호출 마다 명령 세 개를 보내고, BUFFERED 는 HashWriteBuffer 로 키 마다 합쳐서 보낸다.
+ * 반복이 끝날 때 BUFFERED 가 실제로 보낸 명령 수를 출력 한다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class HashWriteBufferBenchmark {
+
+    private static final int ENDPOINTS = 100;
+
+    public enum Strategy {
+        DIRECT, BUFFERED
+    }
+
+    @Param({"DIRECT", "BUFFERED"})
+    public Strategy strategy;
+
+    private RedisConnectionPool pool;
+    private HashWriteBuffer buffer;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkRedis redis) {
+        pool = RedisConnectionPool.builder(redis.settings()).client(redis.client()).size(16).build();
+        buffer = HashWriteBuffer.builder(pool).build();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        if (strategy == Strategy.BUFFERED) {
+            System.out.println(buffer.metrics().snapshot());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        buffer.close();
+        pool.close();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void access() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String key = "endpoint:/admin/" + random.nextInt(ENDPOINTS);
+        String ip = "10.0.0." + random.nextInt(256);
+        if (strategy == Strategy.BUFFERED) {
+            buffer.hsetnx(key, "initAccessIp", ip);
+            buffer.hset(key, "caller", "admin");
+            buffer.hincrby(key, "count", 1);
+        } else {
+            pool.execute(commands -> commands.hsetnx(key, "initAccessIp", ip));
+            pool.execute(commands -> commands.hset(key, "caller", "admin"));
+            pool.execute(commands -> commands.hincrby(key, "count", 1));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package royce.redis.benchmark;
+
+import io.lettuce.core.api.StatefulRedisConnection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import royce.redis.hll.HyperLogLog;
+import royce.redis.hll.HyperLogLogs;
+
+/**
+ * PFADD/PFCOUNT 지연 시간과, 같은 원소를 로컬 HLL 로 모아 한 번에 PFMERGE 하는 경우의 지연 시간.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HyperLogLogBenchmark {
+
+    private static final String KEY = "user:online:hll";
+
+    @State(Scope.Thread)
+    public static class SketchConnection {
+
+        @Param({"100"})
+        public int sketchSize;
+
+        private StatefulRedisConnection<String, byte[]> connection;
+
+        @Setup(Level.Trial)
+        public void connect(BenchmarkRedis redis) {
+            connection = redis.client().connect(HyperLogLogs.CODEC);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public void pfadd(BenchmarkConnection connection) {
+        connection.run(i -> connection.async().pfadd(KEY, "user:" + i));
+    }
+
+    @Benchmark
+    public void pfcount(BenchmarkConnection connection) {
+        connection.run(i -> connection.async().pfcount(KEY));
+    }
+
+    @Benchmark
+    public void localSketchMerge(SketchConnection sketch) {
+        HyperLogLog hll = new HyperLogLog();
+        for (int i = 0; i < sketch.sketchSize; i++) {
+            hll.add("user:" + i);
+        }
+        HyperLogLogs.mergeInto(sketch.connection.sync(), KEY, hll);
+    }
+}
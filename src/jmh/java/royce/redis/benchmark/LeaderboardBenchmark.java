@@ -0,0 +1,85 @@
+package royce.redis.benchmark;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import royce.redis.connection.RedisConnectionPool;
+import royce.redis.leaderboard.Leaderboard;
+
+/**
+ * members 명이 있는 리더보드의 점수 갱신 처리량과 상위 목록, 주변 순위 조회 지연 시간.
+ * 갱신은 로컬에서 합쳐지므로 처리량은 flush 주기 동안 모인 갱신 수에 비례 한다.
+ * 10M 멤버는 프로세스 내 서버의 힙을 많이 쓰므로 -Dredis.external=true 로 실제 Redis 에 대해 측정 하는 것을 권장 한다.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class LeaderboardBenchmark {
+
+    private static final int LOAD_BATCH = 100_000;
+
+    @Param({"10000000"})
+    public int members;
+
+    @Param({"1", "8"})
+    public int shards;
+
+    private RedisConnectionPool pool;
+    private Leaderboard cached;
+    private Leaderboard uncached;
+
+    @Setup(Level.Trial)
+    public void load(BenchmarkRedis redis) {
+        pool = RedisConnectionPool.builder(redis.settings()).client(redis.client()).build();
+        cached = Leaderboard.builder(pool, "ranking").shards(shards).maxPendingUpdates(LOAD_BATCH).build();
+        uncached = Leaderboard.builder(pool, "ranking").shards(shards).cacheTtl(Duration.ZERO).build();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < members; i++) {
+            cached.setScore("player:" + i, random.nextInt(1_000_000));
+            if ((i + 1) % LOAD_BATCH == 0) {
+                cached.flush();
+            }
+        }
+        cached.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        cached.close();
+        uncached.close();
+        pool.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void incrementScore() {
+        cached.incrementScore("player:" + ThreadLocalRandom.current().nextInt(members), 1);
+    }
+
+    @Benchmark
+    public List<Leaderboard.Entry> cachedTop10() {
+        return cached.top(10);
+    }
+
+    @Benchmark
+    public List<Leaderboard.Entry> top10() {
+        return uncached.top(10);
+    }
+
+    @Benchmark
+    public List<Leaderboard.Entry> around5() {
+        return uncached.around("player:" + ThreadLocalRandom.current().nextInt(members), 5);
+    }
+}
@@ -0,0 +1,24 @@
+package royce.redis.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+/**
+ * LPUSH/BRPOP 지연 시간. BRPOP 은 직전에 넣은 요소를 꺼내므로 블로킹 없이 바로 응답 한다.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ListBenchmark {
+
+    private static final String KEY = "playlists";
+
+    @Benchmark
+    public void lpushThenBrpop(BenchmarkConnection connection) {
+        connection.run(i -> i % 2 == 0
+                ? connection.async().lpush(KEY, "playlist:" + i)
+                : connection.async().brpop(1, KEY));
+    }
+}
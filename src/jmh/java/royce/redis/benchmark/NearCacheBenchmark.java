@@ -0,0 +1,59 @@
+package royce.redis.benchmark;
+
+import io.lettuce.core.api.StatefulRedisConnection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import royce.redis.cache.NearCache;
+
+/**
+ * 같은 hot key 를 HGET 할 때 매번 왕복 하는 경우와 near cache 를 거치는 경우의 지연 시간.
+ * TearDown 에서 hit/miss/eviction 지표를 출력 한다.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NearCacheBenchmark {
+
+    private static final String KEY = "endpoint:/admin/{id}";
+    private static final String[] FIELDS = {"caller", "initAccessIp", "lastAccessTime", "count"};
+
+    @State(Scope.Benchmark)
+    public static class Cache {
+
+        private StatefulRedisConnection<String, String> connection;
+        private NearCache cache;
+
+        @Setup(Level.Trial)
+        public void prepare(BenchmarkRedis redis) {
+            connection = redis.client().connect();
+            for (String field : FIELDS) {
+                connection.sync().hset(KEY, field, "value");
+            }
+            cache = NearCache.builder(redis.client()).maximumSize(1_000).build();
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            System.out.println(cache.metrics().snapshot());
+            cache.close();
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public String hgetRoundTrip(Cache cache) {
+        return cache.connection.sync().hget(KEY, FIELDS[0]);
+    }
+
+    @Benchmark
+    public String hgetNearCache(Cache cache) {
+        return cache.cache.hget(KEY, FIELDS[0]);
+    }
+}
@@ -0,0 +1,68 @@
+package royce.redis.benchmark;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import royce.redis.connection.RedisConnectionPool;
+import royce.redis.ratelimit.RateLimiter;
+
+/**
+ * 알고리즘 별 초당 판정 수. 판정 하나 마다 EVALSHA 를 보내는 경우와 BATCH 개를 한 파이프라인으로 보내는 경우를 비교 한다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    private static final int BATCH = 100;
+    private static final int USERS = 10_000;
+
+    @Param({"FIXED_WINDOW", "SLIDING_LOG", "GCRA"})
+    public RateLimiter.Algorithm algorithm;
+
+    private RedisConnectionPool pool;
+    private RateLimiter limiter;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkRedis redis) {
+        pool = RedisConnectionPool.builder(redis.settings()).client(redis.client()).build();
+        limiter = RateLimiter.builder(pool, "limit")
+                .algorithm(algorithm)
+                .limit(100, Duration.ofSeconds(1))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        pool.close();
+    }
+
+    @Benchmark
+    public RateLimiter.Decision tryAcquire() {
+        return limiter.tryAcquire("user:" + ThreadLocalRandom.current().nextInt(USERS));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<RateLimiter.Decision> tryAcquireAll() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<String> ids = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            ids.add("user:" + random.nextInt(USERS));
+        }
+        return limiter.tryAcquireAll(ids);
+    }
+}
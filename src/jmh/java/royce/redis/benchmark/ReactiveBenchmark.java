@@ -0,0 +1,76 @@
+package royce.redis.benchmark;
+
+import io.lettuce.core.api.StatefulRedisConnection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import reactor.core.publisher.Flux;
+import royce.redis.connection.RedisConnectionPool;
+import royce.redis.reactive.ReactiveCommandExecutor;
+
+/**
+ * 같은 GET 묶음을 블로킹 RedisCommands(풀) 로 처리 할 때와 ReactiveCommandExecutor 로 처리 할 때의 처리량.
+ * 모든 코어 만큼의 스레드로 실행 해서 스레드 수에 따라 처리량이 늘어나는 지 비교 한다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(Threads.MAX)
+public class ReactiveBenchmark {
+
+    private static final int BATCH = 100;
+
+    @State(Scope.Benchmark)
+    public static class Executors {
+
+        private RedisConnectionPool pool;
+        private StatefulRedisConnection<String, String> connection;
+        private ReactiveCommandExecutor executor;
+
+        @Setup(Level.Trial)
+        public void prepare(BenchmarkRedis redis) {
+            pool = RedisConnectionPool.builder(redis.settings())
+                    .client(redis.client())
+                    .build();
+            connection = redis.client().connect();
+            executor = ReactiveCommandExecutor.builder(connection)
+                    .maxInFlight(BATCH)
+                    .build();
+            for (int i = 0; i < BATCH; i++) {
+                connection.sync().set("key" + i, "value" + i);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            connection.close();
+            pool.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void blockingPool(Executors executors) {
+        executors.pool.execute(commands -> {
+            for (int i = 0; i < BATCH; i++) {
+                commands.get("key" + i);
+            }
+            return null;
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void reactiveFlatMap(Executors executors) {
+        executors.executor.executeAll(Flux.range(0, BATCH), (commands, i) -> commands.get("key" + i))
+                .blockLast();
+    }
+}
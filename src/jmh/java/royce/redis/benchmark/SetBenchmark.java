@@ -0,0 +1,27 @@
+package royce.redis.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+/**
+ * SADD/SMEMBERS 지연 시간.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SetBenchmark {
+
+    private static final String KEY = "user:online";
+
+    @Benchmark
+    public void sadd(BenchmarkConnection connection) {
+        connection.run(i -> connection.async().sadd(KEY, "user:" + (i % 1000)));
+    }
+
+    @Benchmark
+    public void smembers(BenchmarkConnection connection) {
+        connection.run(i -> connection.async().smembers(KEY));
+    }
+}
@@ -0,0 +1,27 @@
+package royce.redis.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+/**
+ * ZADD/ZRANGE 지연 시간.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SortedSetBenchmark {
+
+    private static final String KEY = "user:rank";
+
+    @Benchmark
+    public void zadd(BenchmarkConnection connection) {
+        connection.run(i -> connection.async().zadd(KEY, i, "user:" + (i % 1000)));
+    }
+
+    @Benchmark
+    public void zrange(BenchmarkConnection connection) {
+        connection.run(i -> connection.async().zrange(KEY, 0, 9));
+    }
+}
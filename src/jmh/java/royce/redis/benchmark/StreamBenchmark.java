@@ -0,0 +1,24 @@
+package royce.redis.benchmark;
+
+import io.lettuce.core.XAddArgs;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+/**
+ * XADD 지연 시간. 스트림이 끝없이 커지지 않도록 근사 MAXLEN 으로 자른다.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StreamBenchmark {
+
+    private static final String KEY = "user:stream";
+    private static final XAddArgs TRIMMED = XAddArgs.Builder.maxlen(10_000).approximateTrimming();
+
+    @Benchmark
+    public void xadd(BenchmarkConnection connection) {
+        connection.run(i -> connection.async().xadd(KEY, TRIMMED, "user:" + i, "royce"));
+    }
+}
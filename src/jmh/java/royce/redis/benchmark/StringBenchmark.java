@@ -0,0 +1,66 @@
+package royce.redis.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * SET/GET, MSET/MGET 지연 시간.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StringBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Keys {
+
+        @Param({"10"})
+        public int multiKeyWidth;
+
+        private final List<Map<String, String>> msetBatches = new ArrayList<>();
+        private final List<String[]> mgetBatches = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void prepare() {
+            for (int batch = 0; batch < 100; batch++) {
+                Map<String, String> values = new LinkedHashMap<>();
+                for (int i = 0; i < multiKeyWidth; i++) {
+                    values.put("mkey:" + batch + ":" + i, "value" + i);
+                }
+                msetBatches.add(values);
+                mgetBatches.add(values.keySet().toArray(String[]::new));
+            }
+        }
+    }
+
+    @Benchmark
+    public void set(BenchmarkConnection connection) {
+        connection.run(i -> connection.async().set("key:" + i, "value" + i));
+    }
+
+    @Benchmark
+    public void get(BenchmarkConnection connection) {
+        connection.run(i -> connection.async().get("key:" + i));
+    }
+
+    @Benchmark
+    public void mset(BenchmarkConnection connection, Keys keys) {
+        connection.run(i -> connection.async().mset(keys.msetBatches.get(i % keys.msetBatches.size())));
+    }
+
+    @Benchmark
+    public void mget(BenchmarkConnection connection, Keys keys) {
+        connection.run(i -> connection.async().mget(keys.mgetBatches.get(i % keys.mgetBatches.size())));
+    }
+}
@@ -0,0 +1,73 @@
+package royce.redis.benchmark;
+
+import io.lettuce.core.api.StatefulRedisConnection;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import royce.redis.queue.QueueConsumer;
+import royce.redis.queue.ReliableQueue;
+
+/**
+ * 작업 하나 마다 BRPOP 을 보내는 소비 루프와 ReliableQueue 의 묶음 poll + 묶음 ack 의 처리량.
+ * 두 경우 모두 매 호출 마다 BATCH 개의 작업을 한 번에 넣고 모두 꺼낸다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class WorkQueueBenchmark {
+
+    private static final int BATCH = 100;
+    private static final String NAIVE_KEY = "naive-jobs";
+    private static final String[] JOBS = new String[BATCH];
+
+    static {
+        for (int i = 0; i < BATCH; i++) {
+            JOBS[i] = "job:" + i;
+        }
+    }
+
+    private StatefulRedisConnection<String, String> connection;
+    private ReliableQueue queue;
+    private QueueConsumer consumer;
+
+    @Setup(Level.Trial)
+    public void prepare(BenchmarkRedis redis) {
+        connection = redis.client().connect();
+        queue = ReliableQueue.builder(redis.client(), "jobs").build();
+        consumer = queue.consumer("benchmark-" + Thread.currentThread().getId());
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        queue.close();
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void naiveBrpop() {
+        connection.sync().lpush(NAIVE_KEY, JOBS);
+        for (int i = 0; i < BATCH; i++) {
+            connection.sync().brpop(1, NAIVE_KEY);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<String> reliableBatch() {
+        queue.push(JOBS);
+        List<String> items = consumer.poll(BATCH, Duration.ofSeconds(1));
+        consumer.ack(items);
+        return items;
+    }
+}
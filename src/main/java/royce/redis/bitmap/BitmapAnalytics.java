@@ -0,0 +1,247 @@
+package royce.redis.bitmap;
+
+import io.lettuce.core.BitFieldArgs;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.output.ByteArrayOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.CommandType;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import royce.redis.connection.PipelinedConnection;
+import royce.redis.connection.RedisConnectionPool;
+
+/**
+ * 정수 사용자 id 를 비트 위치로 쓰는 일별 활동 비트맵. HLL 과 달리 정확 하고 누가 활동 했는지 알 수 있다.
+ * 하루 마다 키 하나를 두고 활동한 사용자의 비트를 켠다. 사용자 1000 만 명 이면 하루 키는 약 1.2MB 이다.
+ * 기간 합산(WAU/MAU)과 리텐션은 서버 에서 BITOP OR/AND 와 BITCOUNT 로 계산 하고, 임의의 조회는 fetch 로 가져와 로컬 에서 한다.
+ * 모든 일별 키는 같은 hash tag 를 쓰므로 클러스터 에서도 한 슬롯에 모여 BITOP 을 할 수 있다.
+ * 사용자 id 는 Lettuce BitFieldArgs 의 offset 이 int 이므로 0 ~ Integer.MAX_VALUE 이다.
+ */
+public class BitmapAnalytics {
+
+    private static final long TEMPORARY_TTL_MILLIS = 60_000;
+
+    private final RedisConnectionPool pool;
+    private final String name;
+    private final int batchSize;
+    private final int pipelineSize;
+    private final Duration commandTimeout;
+
+    /**
+     * @param retained 날짜 별로 cohort 중 그 날 다시 활동한 사용자 수
+     */
+    public record Retention(LocalDate cohort, long cohortSize, Map<LocalDate, Long> retained) {
+
+        public double rate(LocalDate day) {
+            Long count = retained.get(day);
+            if (count == null) {
+                throw new IllegalArgumentException("retention was not computed for " + day);
+            }
+            return cohortSize == 0 ? 0 : (double) count / cohortSize;
+        }
+    }
+
+    private BitmapAnalytics(Builder builder) {
+        this.pool = builder.pool;
+        this.name = builder.name;
+        this.batchSize = builder.batchSize;
+        this.pipelineSize = builder.pipelineSize;
+        this.commandTimeout = builder.commandTimeout;
+    }
+
+    public static Builder builder(RedisConnectionPool pool, String name) {
+        return new Builder(pool, name);
+    }
+
+    public String key(LocalDate day) {
+        return "{" + name + "}:" + day;
+    }
+
+    /**
+     * @return 그 날 처음 활동한 사용자면 true
+     */
+    public boolean markActive(int userId, LocalDate day) {
+        checkUserId(userId);
+        return pool.execute(commands -> commands.setbit(key(day), userId, 1)) == 0;
+    }
+
+    /**
+     * 사용자들을 batchSize 개씩 BITFIELD SET u1 명령 하나로 묶어 파이프라인 으로 보낸다.
+     *
+     * @return 그 날 처음 활동한 사용자 수
+     */
+    public long markActiveAll(LocalDate day, Iterable<Integer> userIds) {
+        String key = key(day);
+        List<RedisFuture<List<Long>>> futures = new ArrayList<>();
+        try (PipelinedConnection pipeline = pool.pipelined(pipelineSize)) {
+            BitFieldArgs args = new BitFieldArgs();
+            int pending = 0;
+            for (int userId : userIds) {
+                checkUserId(userId);
+                args.set(BitFieldArgs.unsigned(1), userId, 1);
+                if (++pending == batchSize) {
+                    BitFieldArgs batch = args;
+                    futures.add(pipeline.submit(commands -> commands.bitfield(key, batch)));
+                    args = new BitFieldArgs();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                BitFieldArgs batch = args;
+                futures.add(pipeline.submit(commands -> commands.bitfield(key, batch)));
+            }
+        }
+        await(futures);
+        long added = 0;
+        for (RedisFuture<List<Long>> future : futures) {
+            for (Long previous : future.toCompletableFuture().join()) {
+                if (previous == 0) {
+                    added++;
+                }
+            }
+        }
+        return added;
+    }
+
+    public boolean isActive(int userId, LocalDate day) {
+        checkUserId(userId);
+        return pool.execute(commands -> commands.getbit(key(day), userId)) == 1;
+    }
+
+    /**
+     * 하루 활동 사용자 수(DAU).
+     */
+    public long activeUsers(LocalDate day) {
+        return pool.execute(commands -> commands.bitcount(key(day)));
+    }
+
+    /**
+     * from ~ to(포함) 사이에 한 번 이라도 활동한 사용자 수(WAU/MAU). 서버 에서 BITOP OR 한 임시 키를 센다.
+     */
+    public long activeUsers(LocalDate from, LocalDate to) {
+        List<String> keys = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            keys.add(key(day));
+        }
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        String temporary = temporaryKey();
+        List<RedisFuture<?>> futures = new ArrayList<>();
+        RedisFuture<Long> count;
+        try (PipelinedConnection pipeline = pool.pipelined(pipelineSize)) {
+            futures.add(pipeline.submit(commands -> commands.bitopOr(temporary, keys.toArray(String[]::new))));
+            futures.add(pipeline.submit(commands -> commands.pexpire(temporary, TEMPORARY_TTL_MILLIS)));
+            count = pipeline.submit(commands -> commands.bitcount(temporary));
+            futures.add(count);
+            futures.add(pipeline.submit(commands -> commands.del(temporary)));
+        }
+        await(futures);
+        return count.toCompletableFuture().join();
+    }
+
+    /**
+     * cohort 날 활동한 사용자 중 laterDays 각 날에 다시 활동한 사용자 수.
+     * 날 마다 BITOP AND 와 BITCOUNT 를 보내지만 전부 한 파이프라인 이므로 한 번의 왕복 으로 끝난다.
+     */
+    public Retention retention(LocalDate cohort, List<LocalDate> laterDays) {
+        String cohortKey = key(cohort);
+        List<RedisFuture<?>> futures = new ArrayList<>();
+        Map<LocalDate, RedisFuture<Long>> counts = new LinkedHashMap<>();
+        RedisFuture<Long> cohortSize;
+        try (PipelinedConnection pipeline = pool.pipelined(pipelineSize)) {
+            cohortSize = pipeline.submit(commands -> commands.bitcount(cohortKey));
+            futures.add(cohortSize);
+            for (LocalDate day : laterDays) {
+                String temporary = temporaryKey();
+                futures.add(pipeline.submit(commands -> commands.bitopAnd(temporary, cohortKey, key(day))));
+                futures.add(pipeline.submit(commands -> commands.pexpire(temporary, TEMPORARY_TTL_MILLIS)));
+                RedisFuture<Long> count = pipeline.submit(commands -> commands.bitcount(temporary));
+                futures.add(count);
+                futures.add(pipeline.submit(commands -> commands.del(temporary)));
+                counts.put(day, count);
+            }
+        }
+        await(futures);
+        Map<LocalDate, Long> retained = new LinkedHashMap<>();
+        counts.forEach((day, count) -> retained.put(day, count.toCompletableFuture().join()));
+        return new Retention(cohort, cohortSize.toCompletableFuture().join(), Collections.unmodifiableMap(retained));
+    }
+
+    /**
+     * 하루 비트맵을 가져와 로컬 에서 조회 할 수 있게 푼다. 키가 없으면 빈 비트맵 이다.
+     * 비트맵은 바이너리 이므로 String 코덱을 거치지 않고 바이트 그대로 받는다.
+     */
+    public CompressedBitmap fetch(LocalDate day) {
+        byte[] bytes = pool.execute(commands -> commands.dispatch(CommandType.GET,
+                new ByteArrayOutput<>(StringCodec.UTF8), new CommandArgs<>(StringCodec.UTF8).addKey(key(day))));
+        return bytes == null ? new CompressedBitmap() : CompressedBitmap.fromRedisBitmap(bytes);
+    }
+
+    private void await(List<? extends RedisFuture<?>> futures) {
+        if (!LettuceFutures.awaitAll(commandTimeout, futures.toArray(RedisFuture<?>[]::new))) {
+            throw new RedisCommandTimeoutException("bitmap commands did not complete within " + commandTimeout);
+        }
+    }
+
+    private String temporaryKey() {
+        return "{" + name + "}:tmp:" + UUID.randomUUID();
+    }
+
+    private static void checkUserId(int userId) {
+        if (userId < 0) {
+            throw new IllegalArgumentException("userId must not be negative: " + userId);
+        }
+    }
+
+    public static class Builder {
+
+        private final RedisConnectionPool pool;
+        private final String name;
+        private int batchSize = 1_000;
+        private int pipelineSize = 100;
+        private Duration commandTimeout = Duration.ofSeconds(5);
+
+        private Builder(RedisConnectionPool pool, String name) {
+            this.pool = pool;
+            this.name = name;
+        }
+
+        /**
+         * BITFIELD 명령 하나에 담는 SET 연산 수.
+         */
+        public Builder batchSize(int batchSize) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * 한 번에 전송 하는 BITFIELD 명령 수.
+         */
+        public Builder pipelineSize(int pipelineSize) {
+            this.pipelineSize = pipelineSize;
+            return this;
+        }
+
+        public Builder commandTimeout(Duration commandTimeout) {
+            this.commandTimeout = commandTimeout;
+            return this;
+        }
+
+        public BitmapAnalytics build() {
+            return new BitmapAnalytics(this);
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package royce.redis.bitmap;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * 음이 아닌 int 집합을 roaring bitmap 방식으로 압축해 담는다.
+ * 값의 상위 16 비트로 65536 개 단위의 칸(container)을 나누고, 칸 안의 원소가 4096 개 이하면 정렬된 char 배열로,
+ * 그 보다 많으면 65536 비트의 비트맵으로 저장 한다. 드문드문한 구간은 원소 당 2 바이트, 빽빽한 구간은 칸 당 8KB 를 넘지 않는다.
+ * Redis 에서 GET 으로 가져온 비트맵을 fromRedisBitmap 으로 풀어 로컬에서 교집합, 합집합, 차집합을 계산 하는 용도 이다.
+ * 스레드 안전 하지 않다.
+ */
+public final class CompressedBitmap {
+
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int CHUNK_BITS = 1 << 16;
+    private static final int CHUNK_BYTES = CHUNK_BITS / 8;
+    private static final int MAX_BITMAP_BYTES = 1 << 28;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    public CompressedBitmap() {
+    }
+
+    public static CompressedBitmap of(int... values) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Redis 비트맵(0 번 비트가 첫 바이트의 최상위 비트)을 푼다. 켜진 비트의 위치가 원소가 된다.
+     *
+     * @throws IllegalArgumentException int 로 나타낼 수 없는 2^31 번 이후의 비트 까지 담을 수 있는 길이면
+     */
+    public static CompressedBitmap fromRedisBitmap(byte[] bytes) {
+        if (bytes.length > MAX_BITMAP_BYTES) {
+            throw new IllegalArgumentException("bitmap is longer than 2^31 bits: " + bytes.length + " bytes");
+        }
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int from = 0; from < bytes.length; from += CHUNK_BYTES) {
+            int to = Math.min(bytes.length, from + CHUNK_BYTES);
+            int cardinality = 0;
+            for (int i = from; i < to; i++) {
+                cardinality += Integer.bitCount(bytes[i] & 0xff);
+            }
+            if (cardinality == 0) {
+                continue;
+            }
+            Container container;
+            if (cardinality > ARRAY_LIMIT) {
+                long[] words = new long[CHUNK_BITS / 64];
+                for (int i = from; i < to; i++) {
+                    // 바이트 안의 비트 순서를 뒤집어 낮은 비트가 작은 값이 되게 한다
+                    long reversed = Integer.reverse(bytes[i] & 0xff) >>> 24;
+                    int bit = (i - from) * 8;
+                    words[bit >>> 6] |= reversed << (bit & 63);
+                }
+                container = new BitmapContainer(words, cardinality);
+            } else {
+                char[] values = new char[cardinality];
+                int count = 0;
+                for (int i = from; i < to; i++) {
+                    int b = bytes[i] & 0xff;
+                    while (b != 0) {
+                        int highest = Integer.numberOfLeadingZeros(b) - 24;
+                        values[count++] = (char) ((i - from) * 8 + highest);
+                        b &= ~(0x80 >>> highest);
+                    }
+                }
+                container = new ArrayContainer(values, count);
+            }
+            bitmap.append((char) (from / CHUNK_BYTES), container);
+        }
+        return bitmap;
+    }
+
+    public void add(int value) {
+        checkValue(value);
+        char high = (char) (value >>> 16);
+        int index = indexOf(high);
+        if (index >= 0) {
+            containers[index] = containers[index].add((char) value);
+        } else {
+            insert(-index - 1, high, new ArrayContainer(new char[]{(char) value}, 1));
+        }
+    }
+
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int index = indexOf((char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    public long cardinality() {
+        long cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.appendIfNotEmpty(keys[i], containers[i].and(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j >= other.size || (i < size && keys[i] < other.keys[j])) {
+                result.append(keys[i], containers[i].copy());
+                i++;
+            } else if (i >= size || keys[i] > other.keys[j]) {
+                result.append(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.append(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 이 집합 에는 있고 other 에는 없는 원소. 어제 활동 했지만 오늘은 활동 하지 않은 사용자 같은 이탈 집합에 쓴다.
+     */
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.size && other.keys[j] == keys[i]) {
+                result.appendIfNotEmpty(keys[i], containers[i].andNot(other.containers[j]));
+            } else {
+                result.append(keys[i], containers[i].copy());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 원소를 오름차순 으로 돌려 준다.
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    public int[] toArray() {
+        int[] values = new int[Math.toIntExact(cardinality())];
+        int[] count = {0};
+        forEach(value -> values[count[0]++] = value);
+        return values;
+    }
+
+    /**
+     * 원소를 담는데 쓰는 대략적인 바이트 수.
+     */
+    public long sizeInBytes() {
+        long bytes = size * 3L;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CompressedBitmap other) || cardinality() != other.cardinality()) {
+            return false;
+        }
+        return Arrays.equals(toArray(), other.toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    @Override
+    public String toString() {
+        return "CompressedBitmap(cardinality=" + cardinality() + ", containers=" + size + ")";
+    }
+
+    private static void checkValue(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value must not be negative: " + value);
+        }
+    }
+
+    private int indexOf(char high) {
+        return Arrays.binarySearch(keys, 0, size, high);
+    }
+
+    private void insert(int index, char high, Container container) {
+        ensureCapacity();
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = high;
+        containers[index] = container;
+        size++;
+    }
+
+    /**
+     * high 가 지금 까지의 칸 보다 클 때만 쓴다.
+     */
+    private void append(char high, Container container) {
+        ensureCapacity();
+        keys[size] = high;
+        containers[size] = container;
+        size++;
+    }
+
+    private void appendIfNotEmpty(char high, Container container) {
+        if (container.cardinality() > 0) {
+            append(high, container);
+        }
+    }
+
+    private void ensureCapacity() {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+    }
+
+    private abstract static sealed class Container permits ArrayContainer, BitmapContainer {
+
+        abstract Container add(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        abstract void forEach(int base, IntConsumer action);
+
+        abstract long sizeInBytes();
+
+        abstract Container copy();
+
+        abstract long[] words();
+
+        Container and(Container other) {
+            if (this instanceof ArrayContainer array) {
+                return array.filter(other, true);
+            }
+            if (other instanceof ArrayContainer array) {
+                return array.filter(this, true);
+            }
+            long[] words = words();
+            long[] others = other.words();
+            for (int i = 0; i < words.length; i++) {
+                words[i] &= others[i];
+            }
+            return BitmapContainer.of(words);
+        }
+
+        Container or(Container other) {
+            long[] words = words();
+            long[] others = other.words();
+            for (int i = 0; i < words.length; i++) {
+                words[i] |= others[i];
+            }
+            return BitmapContainer.of(words);
+        }
+
+        Container andNot(Container other) {
+            if (this instanceof ArrayContainer array) {
+                return array.filter(other, false);
+            }
+            long[] words = words();
+            long[] others = other.words();
+            for (int i = 0; i < words.length; i++) {
+                words[i] &= ~others[i];
+            }
+            return BitmapContainer.of(words);
+        }
+    }
+
+    private static final class ArrayContainer extends Container {
+
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                return new BitmapContainer(words(), cardinality).add(value);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (int i = 0; i < cardinality; i++) {
+                action.accept(base | values[i]);
+            }
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 2L * cardinality;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, cardinality), cardinality);
+        }
+
+        @Override
+        long[] words() {
+            long[] words = new long[CHUNK_BITS / 64];
+            for (int i = 0; i < cardinality; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return words;
+        }
+
+        /**
+         * other 에 있는(keep 이면) 또는 없는 원소만 남긴다.
+         */
+        ArrayContainer filter(Container other, boolean keep) {
+            char[] filtered = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i]) == keep) {
+                    filtered[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(filtered, count);
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        /**
+         * 원소가 ARRAY_LIMIT 개 이하면 배열 칸으로 바꾼다.
+         */
+        static Container of(long[] words) {
+            int cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            if (cardinality > ARRAY_LIMIT) {
+                return new BitmapContainer(words, cardinality);
+            }
+            char[] values = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                for (long word = words[i]; word != 0; word &= word - 1) {
+                    values[count++] = (char) (i * 64 + Long.numberOfTrailingZeros(word));
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+
+        @Override
+        Container add(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) == 0) {
+                words[value >>> 6] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (int i = 0; i < words.length; i++) {
+                for (long word = words[i]; word != 0; word &= word - 1) {
+                    action.accept(base | (i * 64 + Long.numberOfTrailingZeros(word)));
+                }
+            }
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 8L * words.length;
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        long[] words() {
+            return words.clone();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package royce.redis.bucket;
+
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import royce.redis.connection.RedisConnectionPool;
+
+/**
+ * match 에 맞는 문자열 키들을 BucketedMap 으로 옮긴다. 논리 키는 원래 키 이름 그대로 이다.
+ * SCAN 한 페이지 마다 MGET 으로 값을 읽고, BucketedMap.putAll 로 적재 한 뒤 원본을 UNLINK 한다.
+ * 문자열이 아닌 키와 그 사이 지워진 키는 MGET 이 nil 을 돌려 주므로 건너 뛴다.
+ * MGET 과 UNLINK 사이에 원본에 쓰인 값은 잃어 버리므로, 이전 중에는 쓰기를 멈추거나 양쪽에 같이 쓰도록 해야 한다.
+ */
+public class BucketMigration {
+
+    private final RedisConnectionPool pool;
+    private final BucketedMap target;
+    private final String match;
+    private final int scanCount;
+    private final boolean deleteSource;
+
+    /**
+     * @param scannedKeys  SCAN 이 돌려 준 키 수
+     * @param migratedKeys BucketedMap 으로 옮긴 키 수
+     */
+    public record Result(long scannedKeys, long migratedKeys) {
+    }
+
+    private BucketMigration(Builder builder) {
+        this.pool = builder.pool;
+        this.target = builder.target;
+        this.match = builder.match;
+        this.scanCount = builder.scanCount;
+        this.deleteSource = builder.deleteSource;
+    }
+
+    public static Builder builder(RedisConnectionPool pool, BucketedMap target, String match) {
+        return new Builder(pool, target, match);
+    }
+
+    public Result run() {
+        ScanArgs args = ScanArgs.Builder.limit(scanCount).match(match);
+        long scanned = 0;
+        long migrated = 0;
+        ScanCursor cursor = ScanCursor.INITIAL;
+        while (!cursor.isFinished()) {
+            ScanCursor current = cursor;
+            KeyScanCursor<String> page = pool.execute(commands -> commands.scan(current, args));
+            List<String> keys = page.getKeys();
+            scanned += keys.size();
+            if (!keys.isEmpty()) {
+                migrated += migrate(keys);
+            }
+            cursor = page;
+        }
+        return new Result(scanned, migrated);
+    }
+
+    private long migrate(List<String> keys) {
+        List<KeyValue<String, String>> values = pool.execute(commands -> commands.mget(keys.toArray(String[]::new)));
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (KeyValue<String, String> value : values) {
+            if (value.hasValue()) {
+                entries.put(value.getKey(), value.getValue());
+            }
+        }
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        target.putAll(entries);
+        if (deleteSource) {
+            pool.execute(commands -> commands.unlink(entries.keySet().toArray(String[]::new)));
+        }
+        return entries.size();
+    }
+
+    public static class Builder {
+
+        private final RedisConnectionPool pool;
+        private final BucketedMap target;
+        private final String match;
+        private int scanCount = 1_000;
+        private boolean deleteSource = true;
+
+        private Builder(RedisConnectionPool pool, BucketedMap target, String match) {
+            this.pool = pool;
+            this.target = target;
+            this.match = match;
+        }
+
+        /**
+         * SCAN 한 번에 요청 하는 키 수. 한 페이지의 키를 MGET 하나로 읽는다.
+         */
+        public Builder scanCount(int scanCount) {
+            if (scanCount < 1) {
+                throw new IllegalArgumentException("scanCount must be positive: " + scanCount);
+            }
+            this.scanCount = scanCount;
+            return this;
+        }
+
+        /**
+         * false 이면 원본 키를 남겨 둔다. 옮긴 결과를 확인 한 뒤 지우려는 경우에 사용 한다.
+         */
+        public Builder deleteSource(boolean deleteSource) {
+            this.deleteSource = deleteSource;
+            return this;
+        }
+
+        public BucketMigration build() {
+            return new BucketMigration(this);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package royce.redis.bucket;
+
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisFuture;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import royce.redis.connection.PipelinedConnection;
+import royce.redis.connection.RedisConnectionPool;
+
+/**
+ * 많은 수의 작은 문자열 키를 해시 버킷으로 묶어 저장 하는 맵.
+ * 논리 키 k 는 {name}:{crc32c(k) % buckets} 해시의 필드 k 에 저장 된다. 키 마다 드는 dictEntry, redisObject, 만료 정보 등의
+ * 오버헤드가 버킷 하나로 합쳐지고, 버킷이 listpack 인코딩을 유지 하는 동안은 필드가 연속된 메모리에 들어가므로 메모리가 크게 줄어든다.
+ * 버킷 당 필드 수가 hash-max-listpack-entries(기본 128), 필드나 값의 길이가 hash-max-listpack-value(기본 64 바이트)를 넘으면
+ * 버킷이 hashtable 로 바뀌어 이점이 사라진다. 그래서 버킷 수는 예상 키 수 / entriesPerBucket 으로 잡고, 큰 값은 이 맵에 넣지 않는다.
+ * 버킷 안의 조회는 listpack 을 선형으로 훑으므로 버킷이 작을 수록 지연 시간이 짧다.
+ * 키 별 TTL 은 지원 하지 않는다. 스레드 안전 하다.
+ */
+public class BucketedMap {
+
+    private final RedisConnectionPool pool;
+    private final String name;
+    private final int buckets;
+    private final int pipelineSize;
+    private final Duration commandTimeout;
+
+    private BucketedMap(Builder builder) {
+        this.pool = builder.pool;
+        this.name = builder.name;
+        this.buckets = builder.buckets();
+        this.pipelineSize = builder.pipelineSize;
+        this.commandTimeout = builder.commandTimeout;
+    }
+
+    public static Builder builder(RedisConnectionPool pool, String name) {
+        return new Builder(pool, name);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int buckets() {
+        return buckets;
+    }
+
+    /**
+     * 논리 키가 저장 되는 버킷(해시) 키.
+     */
+    public String bucketKey(String key) {
+        return bucketKey(bucketOf(key));
+    }
+
+    public String bucketKey(int bucket) {
+        return name + ":" + bucket;
+    }
+
+    public String get(String key) {
+        return pool.execute(commands -> commands.hget(bucketKey(key), key));
+    }
+
+    /**
+     * @return 새로 추가된 키 이면 true, 기존 값을 덮어 썼으면 false
+     */
+    public boolean put(String key, String value) {
+        return pool.execute(commands -> commands.hset(bucketKey(key), key, value));
+    }
+
+    /**
+     * @return 키가 있어서 지웠으면 true
+     */
+    public boolean remove(String key) {
+        return pool.execute(commands -> commands.hdel(bucketKey(key), key)) > 0;
+    }
+
+    /**
+     * 키를 버킷 별로 묶어 버킷 마다 HMGET 하나를 파이프라인으로 보낸다.
+     * 키가 N 개, 버킷이 B 개면 명령은 min(N, B) 개만 나간다.
+     *
+     * @return 값이 있는 키만 담은 맵. 순서는 keys 의 순서를 따른다.
+     */
+    public Map<String, String> getAll(Collection<String> keys) {
+        Map<Integer, List<String>> grouped = groupByBucket(keys);
+        List<RedisFuture<List<KeyValue<String, String>>>> futures = new ArrayList<>(grouped.size());
+        try (PipelinedConnection pipeline = pool.pipelined(pipelineSize)) {
+            grouped.forEach((bucket, fields) -> futures.add(pipeline.submit(commands ->
+                    commands.hmget(bucketKey(bucket), fields.toArray(String[]::new)))));
+        }
+        await(futures);
+        Map<String, String> found = new HashMap<>();
+        for (RedisFuture<List<KeyValue<String, String>>> future : futures) {
+            for (KeyValue<String, String> entry : future.toCompletableFuture().join()) {
+                if (entry.hasValue()) {
+                    found.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        Map<String, String> result = new LinkedHashMap<>();
+        for (String key : keys) {
+            String value = found.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 엔트리를 버킷 별로 묶어 버킷 마다 여러 필드를 가진 HSET 하나를 파이프라인으로 보낸다. 대량 적재에 사용 한다.
+     *
+     * @return 새로 추가된 키 수
+     */
+    public long putAll(Map<String, String> entries) {
+        Map<Integer, Map<String, String>> grouped = new HashMap<>();
+        entries.forEach((key, value) ->
+                grouped.computeIfAbsent(bucketOf(key), bucket -> new HashMap<>()).put(key, value));
+        List<RedisFuture<Long>> futures = new ArrayList<>(grouped.size());
+        try (PipelinedConnection pipeline = pool.pipelined(pipelineSize)) {
+            grouped.forEach((bucket, fields) -> futures.add(pipeline.submit(commands ->
+                    commands.hset(bucketKey(bucket), fields))));
+        }
+        await(futures);
+        long added = 0;
+        for (RedisFuture<Long> future : futures) {
+            added += future.toCompletableFuture().join();
+        }
+        return added;
+    }
+
+    int bucketOf(String key) {
+        CRC32C crc = new CRC32C();
+        crc.update(key.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % buckets);
+    }
+
+    private Map<Integer, List<String>> groupByBucket(Collection<String> keys) {
+        Map<Integer, List<String>> grouped = new HashMap<>();
+        for (String key : keys) {
+            grouped.computeIfAbsent(bucketOf(key), bucket -> new ArrayList<>()).add(key);
+        }
+        return grouped;
+    }
+
+    private void await(List<? extends RedisFuture<?>> futures) {
+        if (!LettuceFutures.awaitAll(commandTimeout, futures.toArray(RedisFuture<?>[]::new))) {
+            throw new RedisCommandTimeoutException("bucket commands did not complete within " + commandTimeout);
+        }
+    }
+
+    public static class Builder {
+
+        private final RedisConnectionPool pool;
+        private final String name;
+        private int buckets;
+        private long expectedSize = 1_000_000;
+        private int entriesPerBucket = 64;
+        private int pipelineSize = 1_000;
+        private Duration commandTimeout = Duration.ofSeconds(5);
+
+        private Builder(RedisConnectionPool pool, String name) {
+            this.pool = pool;
+            this.name = name;
+        }
+
+        /**
+         * 버킷 수를 직접 지정 한다. 이미 데이터가 있는 맵의 버킷 수를 바꾸면 키가 다른 버킷을 가리키게 되므로 다시 적재 해야 한다.
+         */
+        public Builder buckets(int buckets) {
+            if (buckets < 1) {
+                throw new IllegalArgumentException("buckets must be positive: " + buckets);
+            }
+            this.buckets = buckets;
+            return this;
+        }
+
+        /**
+         * buckets 를 지정 하지 않으면 expectedSize / entriesPerBucket 개의 버킷을 사용 한다.
+         */
+        public Builder expectedSize(long expectedSize) {
+            if (expectedSize < 1) {
+                throw new IllegalArgumentException("expectedSize must be positive: " + expectedSize);
+            }
+            this.expectedSize = expectedSize;
+            return this;
+        }
+
+        /**
+         * 버킷 당 평균 필드 수. 버킷 크기는 평균을 중심으로 퍼지므로 hash-max-listpack-entries(128) 보다 여유 있게 잡는다.
+         */
+        public Builder entriesPerBucket(int entriesPerBucket) {
+            if (entriesPerBucket < 1) {
+                throw new IllegalArgumentException("entriesPerBucket must be positive: " + entriesPerBucket);
+            }
+            this.entriesPerBucket = entriesPerBucket;
+            return this;
+        }
+
+        /**
+         * getAll, putAll 에서 한 번에 전송 하는 명령 수.
+         */
+        public Builder pipelineSize(int pipelineSize) {
+            this.pipelineSize = pipelineSize;
+            return this;
+        }
+
+        public Builder commandTimeout(Duration commandTimeout) {
+            this.commandTimeout = commandTimeout;
+            return this;
+        }
+
+        public BucketedMap build() {
+            return new BucketedMap(this);
+        }
+
+        private int buckets() {
+            if (buckets > 0) {
+                return buckets;
+            }
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(1, (expectedSize + entriesPerBucket - 1) / entriesPerBucket));
+        }
+    }
+}
@@ -0,0 +1,572 @@
+package royce.redis.cache;
+
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisCommandInterruptedException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import royce.redis.connection.CommandFutures;
+import royce.redis.connection.PipelinedConnection;
+import royce.redis.connection.RedisConnectionPool;
+import royce.redis.connection.VirtualThreads;
+import royce.redis.script.LuaScript;
+
+/**
+ * 느린 원본 앞에 두는 cache-aside 로더. hot key 가 만료 되는 순간 여러 요청이 동시에 원본을 호출 하는 stampede 를 세 단계로 막는다.
+ * <ul>
+ *     <li>같은 JVM 에서 같은 키의 로드는 하나만 실행 하고 나머지는 그 결과를 기다린다(single-flight).</li>
+ *     <li>인스턴스 사이 에서는 SET NX PX 잠금을 잡은 쪽만 원본을 호출 하고, 나머지는 값이 채워질 때 까지 기다린다.</li>
+ *     <li>만료 전에 XFetch 확률로 미리 갱신 하고, 만료 후 staleWhileRefresh 동안은 이전 값을 돌려 주며 백그라운드에서 갱신 한다.</li>
+ * </ul>
+ * 값은 논리적 만료 시각과 원본 로드에 걸린 시간(delta)을 앞에 붙여 저장 하고, 키의 TTL 은 ttl + staleWhileRefresh 로 둔다.
+ * 원본에 없는 값(null)도 같은 ttl 로 저장 해서 없는 키에 대한 반복 조회가 원본으로 가지 않게 한다.
+ */
+public class CacheAsideLoader implements AutoCloseable {
+
+    private static final LuaScript RELEASE_LOCKS = LuaScript.fromResource("royce/redis/cache/release_locks.lua");
+
+    private final RedisConnectionPool pool;
+    private final String name;
+    private final Function<String, String> loader;
+    private final Function<Set<String>, Map<String, String>> batchLoader;
+    private final long ttlMillis;
+    private final long staleMillis;
+    private final double beta;
+    private final Duration lockTimeout;
+    private final Duration lockPollInterval;
+    private final int pipelineSize;
+    private final Duration commandTimeout;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final Map<String, CompletableFuture<String>> loads = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final CacheAsideMetrics metrics = new CacheAsideMetrics();
+
+    /**
+     * Redis 에 저장 하는 값. "expiresAt:delta:=value" 또는 원본에 값이 없으면 "expiresAt:delta:!" 이다.
+     *
+     * @param expiresAt 논리적 만료 시각(epoch ms). 인스턴스 사이 에서 비교 하므로 wall clock 을 사용 한다
+     * @param delta     원본 로드에 걸린 시간(ms). 오래 걸리는 값 일 수록 일찍 갱신 한다
+     */
+    record Entry(String value, long expiresAt, long delta) {
+
+        String encode() {
+            return expiresAt + ":" + delta + ":" + (value == null ? "!" : "=" + value);
+        }
+
+        /**
+         * @return 형식이 맞지 않으면 없는 값으로 본다
+         */
+        static Entry decode(String raw) {
+            if (raw == null) {
+                return null;
+            }
+            int first = raw.indexOf(':');
+            int second = raw.indexOf(':', first + 1);
+            if (first < 0 || second < 0 || second + 1 >= raw.length()) {
+                return null;
+            }
+            try {
+                long expiresAt = Long.parseLong(raw, 0, first, 10);
+                long delta = Long.parseLong(raw, first + 1, second, 10);
+                String value = raw.charAt(second + 1) == '=' ? raw.substring(second + 2) : null;
+                return new Entry(value, expiresAt, delta);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        boolean expired(long now) {
+            return now >= expiresAt;
+        }
+
+        /**
+         * XFetch. now - delta * beta * ln(random) 가 만료 시각을 넘으면 갱신 한다.
+         * 만료가 가까울 수록, 로드가 오래 걸릴 수록 확률이 높아 지므로 한 순간에 몰리지 않고 흩어져서 갱신 된다.
+         */
+        boolean refreshEarly(long now, double beta) {
+            double random = 1 - ThreadLocalRandom.current().nextDouble();
+            return now - delta * beta * Math.log(random) >= expiresAt;
+        }
+    }
+
+    private CacheAsideLoader(Builder builder) {
+        this.pool = builder.pool;
+        this.name = builder.name;
+        this.loader = builder.loader;
+        this.batchLoader = builder.batchLoader != null ? builder.batchLoader : keys -> {
+            Map<String, String> values = new HashMap<>();
+            for (String key : keys) {
+                values.put(key, builder.loader.apply(key));
+            }
+            return values;
+        };
+        this.ttlMillis = builder.ttl.toMillis();
+        this.staleMillis = (builder.staleWhileRefresh != null ? builder.staleWhileRefresh : builder.ttl).toMillis();
+        this.beta = builder.beta;
+        this.lockTimeout = builder.lockTimeout;
+        this.lockPollInterval = builder.lockPollInterval;
+        this.pipelineSize = builder.pipelineSize;
+        this.commandTimeout = builder.commandTimeout;
+        this.ownsExecutor = builder.executor == null;
+        this.executor = ownsExecutor ? VirtualThreads.newPerTaskExecutor("cache-refresh") : builder.executor;
+    }
+
+    /**
+     * @param loader 키 하나를 원본에서 읽는다. 원본에 없으면 null
+     */
+    public static Builder builder(RedisConnectionPool pool, String name, Function<String, String> loader) {
+        return new Builder(pool, name, loader);
+    }
+
+    public String key(String key) {
+        return name + ":" + key;
+    }
+
+    String lockKey(String key) {
+        return name + ":" + key + ":lock";
+    }
+
+    public String get(String key) {
+        String raw = pool.execute(commands -> commands.get(key(key)));
+        Entry entry = Entry.decode(raw);
+        if (entry == null) {
+            metrics.miss();
+            return load(key);
+        }
+        if (classify(entry, System.currentTimeMillis())) {
+            refreshInBackground(Map.of(key, raw));
+        }
+        return entry.value();
+    }
+
+    /**
+     * MGET 한 번으로 읽고, 없는 키는 batchLoader 한 번으로 읽어 파이프라인 SET 으로 저장 한다.
+     * 결과는 keys 순서를 따르고 원본에 없는 키는 빠진다.
+     */
+    public Map<String, String> getAll(Collection<String> keys) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+        if (distinct.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, String> values = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        List<String> raws = read(distinct);
+        long now = System.currentTimeMillis();
+        Map<String, String> refresh = new LinkedHashMap<>();
+        for (int i = 0; i < distinct.size(); i++) {
+            String key = distinct.get(i);
+            Entry entry = Entry.decode(raws.get(i));
+            if (entry == null) {
+                metrics.miss();
+                missing.add(key);
+                continue;
+            }
+            if (classify(entry, now)) {
+                refresh.put(key, raws.get(i));
+            }
+            values.put(key, entry.value());
+        }
+        refreshInBackground(refresh);
+        if (!missing.isEmpty()) {
+            values.putAll(loadAll(missing));
+        }
+        Map<String, String> result = new LinkedHashMap<>();
+        for (String key : distinct) {
+            String value = values.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 저장된 값을 지운다. 다음 조회는 원본에서 다시 읽는다.
+     */
+    public void invalidate(String key) {
+        pool.execute(commands -> commands.del(key(key)));
+    }
+
+    public CacheAsideMetrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return 백그라운드 갱신이 필요 하면 true
+     */
+    private boolean classify(Entry entry, long now) {
+        if (entry.expired(now)) {
+            metrics.staleHit();
+            return true;
+        }
+        metrics.hit();
+        if (entry.refreshEarly(now, beta)) {
+            metrics.earlyRefresh();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 같은 키를 로드 중인 스레드가 있으면 그 결과를 기다린다.
+     */
+    private String load(String key) {
+        CompletableFuture<String> load = new CompletableFuture<>();
+        CompletableFuture<String> inFlight = loads.putIfAbsent(key, load);
+        if (inFlight != null) {
+            metrics.coalesced();
+            return join(inFlight);
+        }
+        try {
+            String value = loadExclusively(singletonSeen(key), true).get(key);
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    private Map<String, String> loadAll(List<String> keys) {
+        Map<String, CompletableFuture<String>> leading = new LinkedHashMap<>();
+        Map<String, CompletableFuture<String>> following = new LinkedHashMap<>();
+        for (String key : keys) {
+            CompletableFuture<String> load = new CompletableFuture<>();
+            CompletableFuture<String> inFlight = loads.putIfAbsent(key, load);
+            if (inFlight == null) {
+                leading.put(key, load);
+            } else {
+                metrics.coalesced();
+                following.put(key, inFlight);
+            }
+        }
+        Map<String, String> values = new HashMap<>();
+        if (!leading.isEmpty()) {
+            Map<String, String> seen = new HashMap<>();
+            leading.keySet().forEach(key -> seen.put(key, null));
+            try {
+                values.putAll(loadExclusively(seen, true));
+                leading.forEach((key, load) -> load.complete(values.get(key)));
+            } catch (RuntimeException | Error e) {
+                leading.values().forEach(load -> load.completeExceptionally(e));
+                throw e;
+            } finally {
+                leading.forEach(loads::remove);
+            }
+        }
+        following.forEach((key, load) -> values.put(key, join(load)));
+        return values;
+    }
+
+    private static Map<String, String> singletonSeen(String key) {
+        Map<String, String> seen = new HashMap<>();
+        seen.put(key, null);
+        return seen;
+    }
+
+    /**
+     * 잠금을 잡은 키만 원본에서 읽는다. 잠금을 잡는 사이 다른 인스턴스가 값을 바꿔 두었으면 그 값을 쓴다.
+     *
+     * @param seen 키 별로 마지막에 읽은 Redis 값. 없었으면 null
+     * @param wait 잠금을 못 잡은 키의 값이 채워질 때 까지 기다릴지. 기다려도 채워지지 않으면 직접 읽는다.
+     *             false 이면 그 키는 결과에서 빠진다
+     */
+    private Map<String, String> loadExclusively(Map<String, String> seen, boolean wait) {
+        String token = UUID.randomUUID().toString();
+        List<String> keys = new ArrayList<>(seen.keySet());
+        List<String> locked = lock(keys, token);
+        Map<String, String> values = new HashMap<>();
+        try {
+            if (!locked.isEmpty()) {
+                List<String> raws = read(locked);
+                List<String> stale = new ArrayList<>();
+                for (int i = 0; i < locked.size(); i++) {
+                    String key = locked.get(i);
+                    String raw = raws.get(i);
+                    Entry entry = Entry.decode(raw);
+                    if (entry != null && !raw.equals(seen.get(key))) {
+                        values.put(key, entry.value());
+                    } else {
+                        stale.add(key);
+                    }
+                }
+                values.putAll(loadAndStore(stale));
+            }
+            if (wait && locked.size() < keys.size()) {
+                List<String> contended = new ArrayList<>(keys);
+                contended.removeAll(locked);
+                metrics.lockWaited(contended.size());
+                Map<String, String> filled = awaitOthers(contended);
+                values.putAll(filled);
+                contended.removeAll(filled.keySet());
+                values.putAll(loadAndStore(contended));
+            }
+        } finally {
+            unlock(locked, token);
+        }
+        return values;
+    }
+
+    /**
+     * 원본에서 읽어 파이프라인 SET PX 로 저장 한다.
+     */
+    private Map<String, String> loadAndStore(List<String> keys) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        long start = System.nanoTime();
+        Map<String, String> values;
+        if (keys.size() == 1) {
+            values = new HashMap<>();
+            values.put(keys.get(0), loader.apply(keys.get(0)));
+        } else {
+            values = new HashMap<>(batchLoader.apply(new LinkedHashSet<>(keys)));
+        }
+        long elapsed = System.nanoTime() - start;
+        metrics.loaded(keys.size(), elapsed);
+        long delta = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        SetArgs expiry = SetArgs.Builder.px(ttlMillis + staleMillis);
+        List<CompletableFuture<String>> futures = new ArrayList<>(keys.size());
+        try (PipelinedConnection pipeline = pool.pipelined(pipelineSize)) {
+            for (String key : keys) {
+                String encoded = new Entry(values.get(key), expiresAt, delta).encode();
+                RedisFuture<String> future = pipeline.submit(commands -> commands.set(key(key), encoded, expiry));
+                futures.add(future.toCompletableFuture());
+            }
+        }
+        CommandFutures.await(futures, commandTimeout, "cache commands");
+        futures.forEach(CompletableFuture::join);
+        return values;
+    }
+
+    /**
+     * @return 잠금을 잡은 키
+     */
+    private List<String> lock(List<String> keys, String token) {
+        SetArgs args = SetArgs.Builder.nx().px(lockTimeout.toMillis());
+        List<CompletableFuture<String>> futures = new ArrayList<>(keys.size());
+        try (PipelinedConnection pipeline = pool.pipelined(pipelineSize)) {
+            for (String key : keys) {
+                RedisFuture<String> future = pipeline.submit(commands -> commands.set(lockKey(key), token, args));
+                futures.add(future.toCompletableFuture());
+            }
+        }
+        CommandFutures.await(futures, commandTimeout, "cache commands");
+        List<String> locked = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if ("OK".equals(futures.get(i).join())) {
+                locked.add(keys.get(i));
+            }
+        }
+        return locked;
+    }
+
+    private void unlock(List<String> locked, String token) {
+        if (locked.isEmpty()) {
+            return;
+        }
+        String[] lockKeys = locked.stream().map(this::lockKey).toArray(String[]::new);
+        pool.execute(commands -> RELEASE_LOCKS.<Long>execute(commands, ScriptOutputType.INTEGER, lockKeys, token));
+    }
+
+    /**
+     * 잠금을 잡은 인스턴스가 값을 채울 때 까지 lockPollInterval 마다 다시 읽는다. lockTimeout 이 지나면 채워진 것 까지만 돌려 준다.
+     */
+    private Map<String, String> awaitOthers(List<String> keys) {
+        Map<String, String> filled = new HashMap<>();
+        List<String> pending = new ArrayList<>(keys);
+        long deadline = System.nanoTime() + lockTimeout.toNanos();
+        while (!pending.isEmpty() && System.nanoTime() - deadline < 0) {
+            try {
+                Thread.sleep(lockPollInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RedisCommandInterruptedException(e);
+            }
+            List<String> raws = read(pending);
+            List<String> stillPending = new ArrayList<>();
+            for (int i = 0; i < pending.size(); i++) {
+                Entry entry = Entry.decode(raws.get(i));
+                if (entry == null) {
+                    stillPending.add(pending.get(i));
+                } else {
+                    filled.put(pending.get(i), entry.value());
+                }
+            }
+            pending = stillPending;
+        }
+        return filled;
+    }
+
+    /**
+     * 이미 갱신 중인 키는 건너 뛴다. 다른 인스턴스가 잠금을 잡고 있는 키는 그 쪽 갱신에 맡긴다.
+     */
+    private void refreshInBackground(Map<String, String> seen) {
+        Map<String, String> claimed = new HashMap<>();
+        seen.forEach((key, raw) -> {
+            if (refreshing.add(key)) {
+                claimed.put(key, raw);
+            }
+        });
+        if (claimed.isEmpty()) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    loadExclusively(claimed, false);
+                } catch (RuntimeException e) {
+                    // 갱신에 실패 해도 stale 값이 남아 있으므로 다음 조회가 다시 시도 한다
+                    metrics.refreshFailed();
+                } finally {
+                    refreshing.removeAll(claimed.keySet());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.removeAll(claimed.keySet());
+        }
+    }
+
+    private List<String> read(List<String> keys) {
+        String[] redisKeys = keys.stream().map(this::key).toArray(String[]::new);
+        List<KeyValue<String, String>> values = pool.execute(commands -> commands.mget(redisKeys));
+        List<String> raws = new ArrayList<>(values.size());
+        for (KeyValue<String, String> value : values) {
+            raws.add(value.getValueOrElse(null));
+        }
+        return raws;
+    }
+
+    private static String join(CompletableFuture<String> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    public static class Builder {
+
+        private final RedisConnectionPool pool;
+        private final String name;
+        private final Function<String, String> loader;
+        private Function<Set<String>, Map<String, String>> batchLoader;
+        private Duration ttl = Duration.ofMinutes(1);
+        private Duration staleWhileRefresh;
+        private double beta = 1.0;
+        private Duration lockTimeout = Duration.ofSeconds(5);
+        private Duration lockPollInterval = Duration.ofMillis(20);
+        private int pipelineSize = 1_000;
+        private Duration commandTimeout = Duration.ofSeconds(5);
+        private ExecutorService executor;
+
+        private Builder(RedisConnectionPool pool, String name, Function<String, String> loader) {
+            this.pool = pool;
+            this.name = name;
+            this.loader = loader;
+        }
+
+        /**
+         * getAll 에서 없는 키를 한 번에 읽는다. 결과에 없는 키는 원본에 없는 것으로 본다.
+         * 지정 하지 않으면 loader 를 키 마다 호출 한다.
+         */
+        public Builder batchLoader(Function<Set<String>, Map<String, String>> batchLoader) {
+            this.batchLoader = batchLoader;
+            return this;
+        }
+
+        public Builder ttl(Duration ttl) {
+            if (ttl.toMillis() < 1) {
+                throw new IllegalArgumentException("ttl must be at least 1ms: " + ttl);
+            }
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * 만료 후 이전 값을 돌려 주면서 백그라운드에서 갱신 하는 기간. 지정 하지 않으면 ttl 과 같고, 0 이면 만료 즉시 miss 가 된다.
+         */
+        public Builder staleWhileRefresh(Duration staleWhileRefresh) {
+            if (staleWhileRefresh.isNegative()) {
+                throw new IllegalArgumentException("staleWhileRefresh must not be negative: " + staleWhileRefresh);
+            }
+            this.staleWhileRefresh = staleWhileRefresh;
+            return this;
+        }
+
+        /**
+         * XFetch 의 beta. 클 수록 일찍 갱신 하고, 0 이면 만료 전에 갱신 하지 않는다.
+         */
+        public Builder beta(double beta) {
+            if (beta < 0) {
+                throw new IllegalArgumentException("beta must not be negative: " + beta);
+            }
+            this.beta = beta;
+            return this;
+        }
+
+        /**
+         * 로드 잠금의 TTL 이자 다른 인스턴스의 로드를 기다리는 최대 시간. 원본 로드 시간 보다 길어야 한다.
+         */
+        public Builder lockTimeout(Duration lockTimeout) {
+            this.lockTimeout = lockTimeout;
+            return this;
+        }
+
+        public Builder lockPollInterval(Duration lockPollInterval) {
+            this.lockPollInterval = lockPollInterval;
+            return this;
+        }
+
+        public Builder pipelineSize(int pipelineSize) {
+            this.pipelineSize = pipelineSize;
+            return this;
+        }
+
+        public Builder commandTimeout(Duration commandTimeout) {
+            this.commandTimeout = commandTimeout;
+            return this;
+        }
+
+        /**
+         * 백그라운드 갱신을 실행 할 executor. 지정 하지 않으면 전용 executor 를 만들고 close 시 종료 한다.
+         */
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public CacheAsideLoader build() {
+            return new CacheAsideLoader(this);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package royce.redis.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * cache-aside 지표.
+ * 만료 전 hit, 만료 되었지만 갱신 중 이라 돌려 준 stale hit, miss 와 함께, miss 중 같은 JVM 의 로드에 합류한 수(coalesced),
+ * 다른 인스턴스의 로드를 기다린 수(lock wait), 실제로 원본을 호출한 수(load)를 집계 한다.
+ * 만료 구간에 load 가 miss 보다 훨씬 작다면 stampede 가 막히고 있는 것 이다.
+ */
+public class CacheAsideMetrics {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder lockWaits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadedKeys = new LongAdder();
+    private final LongAdder totalLoadNanos = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    void hit() {
+        hits.increment();
+    }
+
+    void staleHit() {
+        staleHits.increment();
+    }
+
+    void miss() {
+        misses.increment();
+    }
+
+    void coalesced() {
+        coalesced.increment();
+    }
+
+    void lockWaited(int keys) {
+        lockWaits.add(keys);
+    }
+
+    void loaded(int keys, long elapsedNanos) {
+        loads.increment();
+        loadedKeys.add(keys);
+        totalLoadNanos.add(elapsedNanos);
+    }
+
+    void earlyRefresh() {
+        earlyRefreshes.increment();
+    }
+
+    void refreshFailed() {
+        refreshFailures.increment();
+    }
+
+    public Snapshot snapshot() {
+        long loadCount = loads.sum();
+        return new Snapshot(
+                hits.sum(),
+                staleHits.sum(),
+                misses.sum(),
+                coalesced.sum(),
+                lockWaits.sum(),
+                loadCount,
+                loadedKeys.sum(),
+                loadCount == 0 ? 0 : totalLoadNanos.sum() / loadCount,
+                earlyRefreshes.sum(),
+                refreshFailures.sum()
+        );
+    }
+
+    /**
+     * @param loadCount          원본 호출 수. getAll 의 batch 로드는 한 번 이다
+     * @param loadedKeyCount     원본에서 읽은 키 수
+     * @param averageLoadNanos   원본 호출 한 번의 평균 시간
+     * @param earlyRefreshCount  만료 전에 XFetch 로 갱신을 시작한 수
+     */
+    public record Snapshot(
+            long hitCount,
+            long staleHitCount,
+            long missCount,
+            long coalescedCount,
+            long lockWaitCount,
+            long loadCount,
+            long loadedKeyCount,
+            long averageLoadNanos,
+            long earlyRefreshCount,
+            long refreshFailureCount
+    ) {
+    }
+}
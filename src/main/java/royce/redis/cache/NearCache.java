@@ -0,0 +1,290 @@
+package royce.redis.cache;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushListener;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.protocol.ProtocolVersion;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * GET/HGET 결과를 로컬에 보관 하는 near cache. 크기를 넘으면 가장 오래 사용 하지 않은 항목(LRU)을 밀어 낸다.
+ * RESP3 커넥션에서는 CLIENT TRACKING 을 켜고 서버가 보내는 invalidate push 로 키 단위 무효화를 한다.
+ * RESP2 커넥션은 push 를 받을 수 없으므로 ttl 이 지나면 다시 읽는 방식(TTL-only)으로 동작 한다.
+ * 추적은 커넥션 단위 이므로 캐시 마다 전용 커넥션을 하나 연결 하며, close 시 함께 닫는다.
+ */
+public class NearCache implements AutoCloseable {
+
+    private final StatefulRedisConnection<String, String> connection;
+    private final RedisCommands<String, String> commands;
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final boolean tracking;
+    private final List<String> prefixes;
+    private final PushListener listener = this::onPush;
+    private final NearCacheMetrics metrics = new NearCacheMetrics();
+    private final LinkedHashMap<Slot, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<Slot>> slotsByKey = new HashMap<>();
+    private final Map<String, Loading> loading = new HashMap<>();
+
+    /**
+     * 캐시 항목의 위치. GET 은 field 가 null 이다.
+     */
+    private record Slot(String key, String field) {
+    }
+
+    /**
+     * @param value     Redis 에 값이 없었으면 null (negative cache)
+     * @param expiresAt System.nanoTime 기준 만료 시각. 0 이면 무효화 될 때 까지 유지
+     */
+    private record Entry(String value, long expiresAt) {
+
+        boolean expired(long now) {
+            return expiresAt != 0 && expiresAt - now <= 0;
+        }
+    }
+
+    /**
+     * 키를 읽고 있는 중에 무효화 알림이 오면 loading 에서 빠지므로, 읽은 값이 오래된 값 이면 저장 하지 않는다.
+     */
+    private static final class Loading {
+        int readers;
+    }
+
+    private NearCache(Builder builder) {
+        this.connection = builder.client.connect();
+        this.commands = connection.sync();
+        this.maximumSize = builder.maximumSize;
+        this.ttlNanos = builder.ttl == null ? 0 : builder.ttl.toNanos();
+        this.tracking = builder.client.getOptions().getProtocolVersion() != ProtocolVersion.RESP2;
+        this.prefixes = builder.prefixes;
+        if (!tracking && ttlNanos == 0) {
+            connection.close();
+            throw new IllegalStateException("RESP2 connection cannot receive invalidation, ttl is required");
+        }
+        if (tracking) {
+            connection.addListener(listener);
+            TrackingArgs args = TrackingArgs.Builder.enabled();
+            if (builder.broadcast) {
+                args.bcast();
+                if (!prefixes.isEmpty()) {
+                    args.prefixes(prefixes.toArray(String[]::new));
+                }
+            }
+            commands.clientTracking(args);
+        }
+    }
+
+    public static Builder builder(RedisClient client) {
+        return new Builder(client);
+    }
+
+    public String get(String key) {
+        return read(new Slot(key, null), () -> commands.get(key));
+    }
+
+    public String hget(String key, String field) {
+        return read(new Slot(key, field), () -> commands.hget(key, field));
+    }
+
+    /**
+     * 캐시가 사용 하는 커넥션의 명령. 이 커넥션으로 쓴 키도 서버가 무효화 알림을 보낸다.
+     */
+    public RedisCommands<String, String> commands() {
+        return commands;
+    }
+
+    /**
+     * 키의 모든 항목을 지운다. TTL-only 모드에서 다른 경로로 쓴 값을 바로 반영 할 때 사용 한다.
+     */
+    public synchronized void invalidate(String key) {
+        loading.remove(key);
+        Set<Slot> slots = slotsByKey.remove(key);
+        if (slots != null) {
+            slots.forEach(entries::remove);
+            metrics.invalidated(slots.size());
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        metrics.invalidated(entries.size());
+        entries.clear();
+        slotsByKey.clear();
+        loading.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public boolean isTracking() {
+        return tracking;
+    }
+
+    public NearCacheMetrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        if (tracking) {
+            connection.removeListener(listener);
+        }
+        connection.close();
+        invalidateAll();
+    }
+
+    private String read(Slot slot, Supplier<String> loader) {
+        if (!cacheable(slot.key())) {
+            metrics.miss();
+            return loader.get();
+        }
+        Loading token;
+        synchronized (this) {
+            Entry entry = entries.get(slot);
+            if (entry != null && !entry.expired(System.nanoTime())) {
+                metrics.hit();
+                return entry.value();
+            }
+            if (entry != null) {
+                remove(slot);
+            }
+            token = loading.computeIfAbsent(slot.key(), key -> new Loading());
+            token.readers++;
+        }
+        metrics.miss();
+        String value = null;
+        boolean loaded = false;
+        try {
+            value = loader.get();
+            loaded = true;
+            return value;
+        } finally {
+            complete(slot, token, value, loaded);
+        }
+    }
+
+    private synchronized void complete(Slot slot, Loading token, String value, boolean loaded) {
+        token.readers--;
+        if (loading.get(slot.key()) != token) {
+            return;
+        }
+        if (loaded) {
+            store(slot, value);
+        }
+        if (token.readers == 0) {
+            loading.remove(slot.key());
+        }
+    }
+
+    /**
+     * broadcast 모드는 prefix 에 맞는 키의 변경만 알려 주므로 그 외의 키는 캐시 하지 않는다.
+     */
+    private boolean cacheable(String key) {
+        if (prefixes.isEmpty()) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void store(Slot slot, String value) {
+        long expiresAt = ttlNanos == 0 ? 0 : System.nanoTime() + ttlNanos;
+        entries.put(slot, new Entry(value, expiresAt));
+        slotsByKey.computeIfAbsent(slot.key(), key -> new HashSet<>()).add(slot);
+        if (entries.size() > maximumSize) {
+            Iterator<Slot> eldest = entries.keySet().iterator();
+            Slot evicted = eldest.next();
+            eldest.remove();
+            unindex(evicted);
+            metrics.evicted();
+        }
+    }
+
+    private void remove(Slot slot) {
+        entries.remove(slot);
+        unindex(slot);
+    }
+
+    private void unindex(Slot slot) {
+        Set<Slot> slots = slotsByKey.get(slot.key());
+        if (slots != null) {
+            slots.remove(slot);
+            if (slots.isEmpty()) {
+                slotsByKey.remove(slot.key());
+            }
+        }
+    }
+
+    private void onPush(PushMessage message) {
+        if (!message.getType().equals("invalidate")) {
+            return;
+        }
+        Object keys = message.getContent(StringCodec.UTF8::decodeKey).get(1);
+        if (keys == null) {
+            invalidateAll();
+            return;
+        }
+        for (Object key : (List<?>) keys) {
+            invalidate((String) key);
+        }
+    }
+
+    public static class Builder {
+
+        private final RedisClient client;
+        private int maximumSize = 10_000;
+        private Duration ttl;
+        private boolean broadcast;
+        private List<String> prefixes = List.of();
+
+        private Builder(RedisClient client) {
+            this.client = client;
+        }
+
+        public Builder maximumSize(int maximumSize) {
+            if (maximumSize < 1) {
+                throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * 항목의 최대 보관 시간. RESP3 에서는 생략 할 수 있지만 RESP2 에서는 유일한 갱신 수단 이므로 반드시 지정 해야 한다.
+         */
+        public Builder ttl(Duration ttl) {
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * 읽은 키를 서버가 기억 하는 대신 prefixes 로 시작 하는 모든 키의 변경을 받는다(BCAST).
+         * 서버의 추적 메모리를 쓰지 않는 대신 prefix 밖의 키는 캐시 하지 않는다.
+         */
+        public Builder broadcast(String... prefixes) {
+            this.broadcast = true;
+            this.prefixes = List.of(prefixes);
+            return this;
+        }
+
+        public NearCache build() {
+            return new NearCache(this);
+        }
+    }
+}
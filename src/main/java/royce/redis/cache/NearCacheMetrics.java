@@ -0,0 +1,53 @@
+package royce.redis.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * near cache 지표.
+ * 로컬에서 응답한 hit, Redis 까지 다녀온 miss, 크기 제한으로 밀려난 eviction, 서버 알림(또는 직접 호출)으로 지운 invalidation 을 집계 한다.
+ */
+public class NearCacheMetrics {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    void hit() {
+        hits.increment();
+    }
+
+    void miss() {
+        misses.increment();
+    }
+
+    void evicted() {
+        evictions.increment();
+    }
+
+    void invalidated(int count) {
+        invalidations.add(count);
+    }
+
+    public Snapshot snapshot() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        return new Snapshot(
+                hitCount,
+                missCount,
+                evictions.sum(),
+                invalidations.sum(),
+                requests == 0 ? 0 : (double) hitCount / requests
+        );
+    }
+
+    public record Snapshot(
+            long hitCount,
+            long missCount,
+            long evictionCount,
+            long invalidationCount,
+            double hitRate
+    ) {
+    }
+}
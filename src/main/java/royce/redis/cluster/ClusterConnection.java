@@ -0,0 +1,416 @@
+package royce.redis.cluster;
+
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.sync.RedisAdvancedClusterCommands;
+import io.lettuce.core.cluster.models.partitions.Partitions;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.models.role.RedisNodeDescription;
+import io.lettuce.core.output.IntegerOutput;
+import io.lettuce.core.output.StatusOutput;
+import io.lettuce.core.output.ValueListOutput;
+import io.lettuce.core.protocol.AsyncCommand;
+import io.lettuce.core.protocol.Command;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.CommandType;
+import io.lettuce.core.resource.ClientResources;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import royce.redis.connection.CommandFutures;
+import royce.redis.connection.RedisConnectionSettings;
+import royce.redis.connection.SharedClientResources;
+
+/**
+ * Redis Cluster 에 대한 커넥션. RedisClusterClient 가 slot -> 노드 토폴로지를 주기적으로, 그리고 MOVED/ASK 와 재연결이 있을 때
+ * 마다 갱신 한다.
+ * MGET/MSET/DEL 은 키를 slot 별로 나누어 slot 마다 명령을 만들고, 같은 노드로 가는 명령을 한 번의 write 로 묶어 모든 노드에
+ * 동시에 보낸 뒤 결과를 요청한 키 순서대로 다시 모은다. {id} 처럼 hash tag 가 같은 키는 같은 slot 이므로 명령 하나로 처리 된다.
+ * 읽기 명령은 readFrom 이 고른 노드로 보내므로 replica 에서 읽을 수 있다.
+ */
+public class ClusterConnection implements AutoCloseable {
+
+    private static final StringCodec CODEC = StringCodec.UTF8;
+
+    private final RedisClusterClient client;
+    private final boolean ownsClient;
+    private final StatefulRedisClusterConnection<String, String> connection;
+    private final ReadFrom readFrom;
+    private final int maxKeysPerCommand;
+    private final Duration commandTimeout;
+    private final Set<String> readOnlyNodes = ConcurrentHashMap.newKeySet();
+    private final ClusterMetrics metrics = new ClusterMetrics();
+
+    /**
+     * slot 하나로 가는 명령 하나. result 는 노드에 직접 보낸 명령이거나, redirect 된 경우 RedisClusterClient 로 다시 보낸 명령 이다.
+     */
+    private static final class Part<T> {
+
+        final List<Integer> indexes;
+        final RedisClusterNode node;
+        final AsyncCommand<String, String, T> command;
+        CompletableFuture<T> result;
+
+        Part(List<Integer> indexes, RedisClusterNode node, AsyncCommand<String, String, T> command) {
+            this.indexes = indexes;
+            this.node = node;
+            this.command = command;
+            this.result = command;
+        }
+    }
+
+    private ClusterConnection(Builder builder) {
+        this.ownsClient = builder.client == null;
+        this.client = ownsClient ? createClient(builder) : builder.client;
+        this.readFrom = builder.readFrom;
+        this.maxKeysPerCommand = builder.maxKeysPerCommand;
+        this.commandTimeout = builder.commandTimeout;
+        this.connection = client.connect();
+        connection.setReadFrom(readFrom);
+    }
+
+    public static Builder builder(List<RedisConnectionSettings> seeds) {
+        return new Builder(seeds);
+    }
+
+    public static Builder builder(RedisClusterClient client) {
+        return new Builder(List.of()).client(client);
+    }
+
+    /**
+     * 주기적 갱신과 함께 MOVED, ASK, 재연결, 알 수 없는 노드 같은 모든 adaptive trigger 로 토폴로지를 갱신 하는 옵션.
+     */
+    public static ClusterClientOptions clientOptions(Duration refreshPeriod) {
+        return ClusterClientOptions.builder()
+                .topologyRefreshOptions(ClusterTopologyRefreshOptions.builder()
+                        .enablePeriodicRefresh(refreshPeriod)
+                        .enableAllAdaptiveRefreshTriggers()
+                        .build())
+                .build();
+    }
+
+    public static int slot(String key) {
+        return SlotHash.getSlot(key);
+    }
+
+    /**
+     * 단일 키 명령 처럼 RedisClusterClient 의 라우팅을 그대로 사용 하는 명령을 실행 한다.
+     */
+    public <T> T execute(Function<RedisAdvancedClusterCommands<String, String>, T> action) {
+        return action.apply(connection.sync());
+    }
+
+    /**
+     * 값이 없는 키는 null. 결과는 keys 순서를 따른다.
+     */
+    public List<String> mget(List<String> keys) {
+        List<Part<List<String>>> parts = dispatch(keys, true,
+                indexes -> new Command<>(CommandType.MGET, new ValueListOutput<>(CODEC),
+                        new CommandArgs<>(CODEC).addKeys(select(keys, indexes))),
+                indexes -> connection.async().mget(select(keys, indexes).toArray(String[]::new))
+                        .thenApply(ClusterConnection::values).toCompletableFuture());
+        String[] values = new String[keys.size()];
+        for (Part<List<String>> part : parts) {
+            List<String> result = part.result.join();
+            for (int i = 0; i < part.indexes.size(); i++) {
+                values[part.indexes.get(i)] = result.get(i);
+            }
+        }
+        return Arrays.asList(values);
+    }
+
+    public void mset(Map<String, String> values) {
+        List<String> keys = new ArrayList<>(values.keySet());
+        dispatch(keys, false,
+                indexes -> {
+                    CommandArgs<String, String> args = new CommandArgs<>(CODEC);
+                    for (int index : indexes) {
+                        args.addKey(keys.get(index)).addValue(values.get(keys.get(index)));
+                    }
+                    return new Command<>(CommandType.MSET, new StatusOutput<>(CODEC), args);
+                },
+                indexes -> {
+                    Map<String, String> part = new LinkedHashMap<>();
+                    for (int index : indexes) {
+                        part.put(keys.get(index), values.get(keys.get(index)));
+                    }
+                    return connection.async().mset(part).toCompletableFuture();
+                });
+    }
+
+    /**
+     * @return 삭제된 키 수
+     */
+    public long del(Collection<String> keys) {
+        List<String> ordered = List.copyOf(keys);
+        List<Part<Long>> parts = dispatch(ordered, false,
+                indexes -> new Command<>(CommandType.DEL, new IntegerOutput<>(CODEC),
+                        new CommandArgs<>(CODEC).addKeys(select(ordered, indexes))),
+                indexes -> connection.async().del(select(ordered, indexes).toArray(String[]::new))
+                        .toCompletableFuture());
+        long deleted = 0;
+        for (Part<Long> part : parts) {
+            deleted += part.result.join();
+        }
+        return deleted;
+    }
+
+    public ClusterMetrics metrics() {
+        return metrics;
+    }
+
+    public StatefulRedisClusterConnection<String, String> connection() {
+        return connection;
+    }
+
+    public RedisClusterClient client() {
+        return client;
+    }
+
+    @Override
+    public void close() {
+        connection.close();
+        if (ownsClient) {
+            client.shutdown();
+        }
+    }
+
+    /**
+     * 키를 slot 별로 나누어 노드 마다 한 번의 write 로 보내고 모든 응답을 기다린다.
+     * 노드가 MOVED/ASK 로 거절 하거나 slot 의 노드를 모르면 그 명령만 redirected 로 RedisClusterClient 를 통해 다시 보낸다.
+     */
+    private <T> List<Part<T>> dispatch(List<String> keys, boolean read,
+                                       Function<List<Integer>, Command<String, String, T>> command,
+                                       Function<List<Integer>, CompletableFuture<T>> redirected) {
+        metrics.requested(keys.size());
+        Map<Integer, List<Integer>> slots = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            slots.computeIfAbsent(slot(keys.get(i)), slot -> new ArrayList<>()).add(i);
+        }
+        Partitions partitions = connection.getPartitions();
+        Map<RedisClusterNode, List<Part<T>>> byNode = new LinkedHashMap<>();
+        List<Part<T>> parts = new ArrayList<>();
+        for (Map.Entry<Integer, List<Integer>> entry : slots.entrySet()) {
+            RedisClusterNode node = route(partitions, entry.getKey(), read);
+            List<Integer> indexes = entry.getValue();
+            for (int from = 0; from < indexes.size(); from += maxKeysPerCommand) {
+                List<Integer> chunk = indexes.subList(from, Math.min(indexes.size(), from + maxKeysPerCommand));
+                Part<T> part = new Part<>(chunk, node, new AsyncCommand<>(command.apply(chunk)));
+                parts.add(part);
+                if (node == null) {
+                    redirect(part, redirected);
+                } else {
+                    byNode.computeIfAbsent(node, k -> new ArrayList<>()).add(part);
+                }
+            }
+        }
+        byNode.forEach((node, nodeParts) -> send(node, nodeParts, redirected));
+        CommandFutures.await(parts.stream().map(part -> part.result).toList(), commandTimeout, "cluster commands");
+        boolean retried = false;
+        for (Part<T> part : parts) {
+            if (part.result == part.command && isRedirect(part.command)) {
+                readOnlyNodes.remove(part.node.getNodeId());
+                redirect(part, redirected);
+                retried = true;
+            }
+        }
+        if (retried) {
+            CommandFutures.await(parts.stream().map(part -> part.result).toList(), commandTimeout, "cluster commands");
+        }
+        for (Part<T> part : parts) {
+            if (part.result.isCompletedExceptionally()) {
+                throw failure(part.result);
+            }
+        }
+        return parts;
+    }
+
+    private <T> void send(RedisClusterNode node, List<Part<T>> parts,
+                          Function<List<Integer>, CompletableFuture<T>> redirected) {
+        boolean replica = isReplica(node);
+        StatefulRedisConnection<String, String> nodeConnection;
+        try {
+            nodeConnection = connection.getConnection(node.getNodeId());
+        } catch (RedisException e) {
+            // 토폴로지가 바뀌어 더 이상 없는 노드
+            parts.forEach(part -> redirect(part, redirected));
+            return;
+        }
+        if (replica && readOnlyNodes.add(node.getNodeId())) {
+            // 같은 커넥션 에서는 명령이 순서대로 처리 되므로 응답을 기다릴 필요가 없다
+            nodeConnection.async().readOnly();
+        }
+        List<AsyncCommand<String, String, T>> commands = new ArrayList<>(parts.size());
+        for (Part<T> part : parts) {
+            commands.add(part.command);
+        }
+        nodeConnection.dispatch(commands);
+        metrics.batchSent(commands.size(), replica);
+    }
+
+    private <T> void redirect(Part<T> part, Function<List<Integer>, CompletableFuture<T>> redirected) {
+        metrics.redirected();
+        part.result = redirected.apply(part.indexes);
+    }
+
+    /**
+     * 쓰기와 UPSTREAM 읽기는 slot 의 primary, 그 외의 읽기는 primary 와 replica 중 readFrom 이 가장 먼저 고른 노드.
+     */
+    private RedisClusterNode route(Partitions partitions, int slot, boolean read) {
+        RedisClusterNode primary = partitions.getPartitionBySlot(slot);
+        if (primary == null || !read || readFrom == ReadFrom.UPSTREAM) {
+            return primary;
+        }
+        List<RedisNodeDescription> candidates = new ArrayList<>();
+        candidates.add(primary);
+        for (RedisClusterNode node : partitions) {
+            if (primary.getNodeId().equals(node.getSlaveOf())) {
+                candidates.add(node);
+            }
+        }
+        List<RedisNodeDescription> selected = readFrom.select(new ReadFrom.Nodes() {
+            @Override
+            public List<RedisNodeDescription> getNodes() {
+                return candidates;
+            }
+
+            @Override
+            public Iterator<RedisNodeDescription> iterator() {
+                return candidates.iterator();
+            }
+        });
+        return selected.isEmpty() ? primary : (RedisClusterNode) selected.get(0);
+    }
+
+    private static boolean isReplica(RedisClusterNode node) {
+        return node.getSlaveOf() != null;
+    }
+
+    private static boolean isRedirect(CompletableFuture<?> result) {
+        if (!result.isCompletedExceptionally()) {
+            return false;
+        }
+        try {
+            result.join();
+            return false;
+        } catch (RuntimeException e) {
+            String message = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+            return message != null && (message.startsWith("MOVED") || message.startsWith("ASK"));
+        }
+    }
+
+    private static RuntimeException failure(CompletableFuture<?> result) {
+        try {
+            result.join();
+            return new IllegalStateException("command did not fail");
+        } catch (RuntimeException e) {
+            return e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private static List<String> select(List<String> keys, List<Integer> indexes) {
+        List<String> selected = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            selected.add(keys.get(index));
+        }
+        return selected;
+    }
+
+    private static List<String> values(List<KeyValue<String, String>> keyValues) {
+        List<String> values = new ArrayList<>(keyValues.size());
+        for (KeyValue<String, String> keyValue : keyValues) {
+            values.add(keyValue.getValueOrElse(null));
+        }
+        return values;
+    }
+
+    private static RedisClusterClient createClient(Builder builder) {
+        List<RedisURI> seeds = new ArrayList<>(builder.seeds.size());
+        for (RedisConnectionSettings seed : builder.seeds) {
+            seeds.add(seed.toRedisURI());
+        }
+        RedisClusterClient client = RedisClusterClient.create(builder.resources, seeds);
+        client.setOptions(clientOptions(builder.topologyRefreshPeriod));
+        return client;
+    }
+
+    public static class Builder {
+
+        private final List<RedisConnectionSettings> seeds;
+        private ClientResources resources = SharedClientResources.get();
+        private RedisClusterClient client;
+        private ReadFrom readFrom = ReadFrom.UPSTREAM;
+        private Duration topologyRefreshPeriod = Duration.ofSeconds(30);
+        private int maxKeysPerCommand = 512;
+        private Duration commandTimeout = Duration.ofSeconds(5);
+
+        private Builder(List<RedisConnectionSettings> seeds) {
+            this.seeds = List.copyOf(seeds);
+        }
+
+        public Builder resources(ClientResources resources) {
+            this.resources = resources;
+            return this;
+        }
+
+        /**
+         * 이미 만들어 둔 RedisClusterClient 를 사용 한다. 이 경우 client 의 옵션을 그대로 쓰고 종료 하지 않는다.
+         */
+        public Builder client(RedisClusterClient client) {
+            this.client = client;
+            return this;
+        }
+
+        /**
+         * 읽기 명령을 보낼 노드. 기본값 UPSTREAM 은 항상 primary 에서 읽는다.
+         * REPLICA_PREFERRED 같은 replica 읽기는 primary 의 부하를 나누지만 복제 지연 만큼 오래된 값을 읽을 수 있다.
+         */
+        public Builder readFrom(ReadFrom readFrom) {
+            this.readFrom = readFrom;
+            return this;
+        }
+
+        public Builder topologyRefreshPeriod(Duration topologyRefreshPeriod) {
+            this.topologyRefreshPeriod = topologyRefreshPeriod;
+            return this;
+        }
+
+        /**
+         * 같은 slot 의 키가 많을 때 명령 하나에 담을 최대 키 수. 큰 명령 하나가 노드를 오래 붙잡지 않도록 나눈다.
+         */
+        public Builder maxKeysPerCommand(int maxKeysPerCommand) {
+            if (maxKeysPerCommand < 1) {
+                throw new IllegalArgumentException("maxKeysPerCommand must be positive: " + maxKeysPerCommand);
+            }
+            this.maxKeysPerCommand = maxKeysPerCommand;
+            return this;
+        }
+
+        public Builder commandTimeout(Duration commandTimeout) {
+            this.commandTimeout = commandTimeout;
+            return this;
+        }
+
+        public ClusterConnection build() {
+            return new ClusterConnection(this);
+        }
+    }
+}
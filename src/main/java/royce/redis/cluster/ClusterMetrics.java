@@ -0,0 +1,46 @@
+package royce.redis.cluster;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ClusterConnection 의 여러 키 명령 지표.
+ * 키 수 대비 명령 수로 slot 별로 얼마나 나뉘었는지, 노드 batch 수로 write 를 얼마나 묶었는지 확인 한다.
+ * redirect 는 토폴로지가 바뀌어 MOVED/ASK 를 받고 RedisClusterClient 의 라우팅으로 다시 보낸 명령 수 이다.
+ */
+public class ClusterMetrics {
+
+    private final LongAdder keys = new LongAdder();
+    private final LongAdder commands = new LongAdder();
+    private final LongAdder nodeBatches = new LongAdder();
+    private final LongAdder replicaCommands = new LongAdder();
+    private final LongAdder redirects = new LongAdder();
+
+    void requested(int keyCount) {
+        keys.add(keyCount);
+    }
+
+    void batchSent(int commandCount, boolean replica) {
+        nodeBatches.increment();
+        commands.add(commandCount);
+        if (replica) {
+            replicaCommands.add(commandCount);
+        }
+    }
+
+    void redirected() {
+        redirects.increment();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(keys.sum(), commands.sum(), nodeBatches.sum(), replicaCommands.sum(), redirects.sum());
+    }
+
+    public record Snapshot(
+            long keyCount,
+            long commandCount,
+            long nodeBatchCount,
+            long replicaCommandCount,
+            long redirectCount
+    ) {
+    }
+}
@@ -0,0 +1,63 @@
+package royce.redis.codec;
+
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.ToByteBufEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import java.nio.ByteBuffer;
+
+/**
+ * 키와 값 모두 ByteBuf 인 codec. 키가 UTF-8 문자열이 아닌(해시, 직렬화한 id 등) 경우에 쓴다.
+ * 값은 PooledByteBufCodec 과 같이 풀에서 빌린 direct ByteBuf 로 받으며 받은 쪽이 release 해야 한다.
+ * 키는 짧고 SCAN/KEYS 응답 처럼 한 번에 많이 받을 수 있으므로 release 할 필요 없는 heap 버퍼로 복사 한다.
+ * 보낼 때는 키와 값의 readerIndex 를 움직이지 않으므로 같은 ByteBuf 를 여러 번 보낼 수 있다.
+ */
+public class ByteBufCodec implements RedisCodec<ByteBuf, ByteBuf>, ToByteBufEncoder<ByteBuf, ByteBuf> {
+
+    public static final ByteBufCodec INSTANCE = new ByteBufCodec(PooledByteBufAllocator.DEFAULT);
+
+    private final ByteBufAllocator allocator;
+
+    public ByteBufCodec(ByteBufAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    @Override
+    public ByteBuf decodeKey(ByteBuffer bytes) {
+        return Unpooled.copiedBuffer(bytes);
+    }
+
+    @Override
+    public ByteBuf decodeValue(ByteBuffer bytes) {
+        ByteBuf value = allocator.directBuffer(bytes.remaining());
+        value.writeBytes(bytes);
+        return value;
+    }
+
+    @Override
+    public ByteBuffer encodeKey(ByteBuf key) {
+        return key.nioBuffer();
+    }
+
+    @Override
+    public ByteBuffer encodeValue(ByteBuf value) {
+        return value.nioBuffer();
+    }
+
+    @Override
+    public void encodeKey(ByteBuf key, ByteBuf target) {
+        target.writeBytes(key, key.readerIndex(), key.readableBytes());
+    }
+
+    @Override
+    public void encodeValue(ByteBuf value, ByteBuf target) {
+        target.writeBytes(value, value.readerIndex(), value.readableBytes());
+    }
+
+    @Override
+    public int estimateSize(Object keyOrValue) {
+        return keyOrValue instanceof ByteBuf buffer ? buffer.readableBytes() : 0;
+    }
+}
@@ -0,0 +1,212 @@
+package royce.redis.codec;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdDictTrainer;
+import io.lettuce.core.codec.RedisCodec;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 다른 codec 이 만든 값 바이트를 threshold 이상일 때만 Zstd 로 압축 하는 codec.
+ * 압축한 값은 앞에 3 바이트 magic(0xFF 'R' 'Z')과 형식 태그(1: Zstd, 2: 사전을 사용한 Zstd) 한 바이트를 붙인다.
+ * threshold 보다 작은 값은 그대로 저장 하므로 압축을 모르는 클라이언트도 작은 값은 읽을 수 있고, 도입 전에 저장된 값도 그대로 읽힌다.
+ * 원본이 magic 으로 시작 하는 경우에만 0 태그를 붙여 구분 한다.
+ * <p>
+ * 전제 조건: 이 codec 을 거치지 않고 저장된 값(도입 전의 값, 다른 클라이언트가 쓴 값)은 magic 으로 시작 하지 않아야 한다.
+ * 0xFF 는 UTF-8 에 나오지 않는 바이트 이므로 텍스트, JSON, 숫자 문자열은 항상 그대로 읽힌다.
+ * 임의의 바이너리 값이 0xFF 'R' 'Z' 로 시작 하면 압축된 값으로 잘못 읽히므로 그런 값이 섞인 키 공간 에는 쓰지 않는다.
+ * 작고 비슷한 값(짧은 JSON 등)은 trainDictionary 로 만든 사전을 쓰면 압축률이 크게 오른다.
+ * 사전을 바꿔도 이전 사전을 previousDictionaries 로 등록 하면 예전 값을 계속 읽을 수 있다.
+ */
+public class CompressingCodec<K, V> implements RedisCodec<K, V> {
+
+    static final byte[] MAGIC = {(byte) 0xFF, 'R', 'Z'};
+    static final int HEADER_SIZE = MAGIC.length + 1;
+    static final byte RAW = 0;
+    static final byte ZSTD = 1;
+    static final byte ZSTD_DICTIONARY = 2;
+
+    private final RedisCodec<K, V> delegate;
+    private final int threshold;
+    private final int level;
+    private final ZstdDictCompress dictionary;
+    private final Map<Long, ZstdDictDecompress> decompressDictionaries = new HashMap<>();
+
+    private CompressingCodec(Builder<K, V> builder) {
+        this.delegate = builder.delegate;
+        this.threshold = builder.threshold;
+        this.level = builder.level;
+        this.dictionary = builder.dictionary == null ? null : new ZstdDictCompress(builder.dictionary, level);
+        if (builder.dictionary != null) {
+            register(builder.dictionary);
+        }
+        for (byte[] previous : builder.previousDictionaries) {
+            register(previous);
+        }
+    }
+
+    public static <K, V> Builder<K, V> builder(RedisCodec<K, V> delegate) {
+        return new Builder<>(delegate);
+    }
+
+    /**
+     * 비슷한 값 표본으로 Zstd 사전을 학습 한다. 표본은 보통 수천 개, 사전 크기는 수 KB ~ 100KB 정도가 적당 하다.
+     */
+    public static byte[] trainDictionary(List<byte[]> samples, int dictionarySize) {
+        int totalSize = 0;
+        for (byte[] sample : samples) {
+            totalSize += sample.length;
+        }
+        ZstdDictTrainer trainer = new ZstdDictTrainer(totalSize, dictionarySize);
+        for (byte[] sample : samples) {
+            trainer.addSample(sample);
+        }
+        return trainer.trainSamples();
+    }
+
+    @Override
+    public K decodeKey(ByteBuffer bytes) {
+        return delegate.decodeKey(bytes);
+    }
+
+    @Override
+    public V decodeValue(ByteBuffer bytes) {
+        if (bytes.remaining() < HEADER_SIZE || !startsWithMagic(bytes)) {
+            return delegate.decodeValue(bytes);
+        }
+        byte tag = bytes.get(bytes.position() + MAGIC.length);
+        return switch (tag) {
+            case RAW -> delegate.decodeValue(bytes.position(bytes.position() + HEADER_SIZE));
+            case ZSTD -> {
+                byte[] frame = payload(bytes);
+                yield delegate.decodeValue(ByteBuffer.wrap(Zstd.decompress(frame, contentSize(frame))));
+            }
+            case ZSTD_DICTIONARY -> {
+                byte[] frame = payload(bytes);
+                long id = Zstd.getDictIdFromFrame(frame);
+                ZstdDictDecompress decompress = decompressDictionaries.get(id);
+                if (decompress == null) {
+                    throw new IllegalStateException("unknown zstd dictionary id: " + id);
+                }
+                yield delegate.decodeValue(ByteBuffer.wrap(Zstd.decompress(frame, decompress, contentSize(frame))));
+            }
+            default -> delegate.decodeValue(bytes);
+        };
+    }
+
+    @Override
+    public ByteBuffer encodeKey(K key) {
+        return delegate.encodeKey(key);
+    }
+
+    @Override
+    public ByteBuffer encodeValue(V value) {
+        ByteBuffer raw = delegate.encodeValue(value);
+        int size = raw.remaining();
+        if (size >= threshold) {
+            byte[] source = new byte[size];
+            raw.duplicate().get(source);
+            byte[] compressed = dictionary != null ? Zstd.compress(source, dictionary) : Zstd.compress(source, level);
+            if (compressed.length + HEADER_SIZE < size) {
+                return ByteBuffer.allocate(compressed.length + HEADER_SIZE)
+                        .put(MAGIC)
+                        .put(dictionary != null ? ZSTD_DICTIONARY : ZSTD)
+                        .put(compressed)
+                        .flip();
+            }
+        }
+        if (size < MAGIC.length || !startsWithMagic(raw)) {
+            return raw;
+        }
+        return ByteBuffer.allocate(size + HEADER_SIZE).put(MAGIC).put(RAW).put(raw).flip();
+    }
+
+    static boolean isCompressed(byte[] stored) {
+        ByteBuffer bytes = ByteBuffer.wrap(stored);
+        return stored.length >= HEADER_SIZE && startsWithMagic(bytes)
+                && (stored[MAGIC.length] == ZSTD || stored[MAGIC.length] == ZSTD_DICTIONARY);
+    }
+
+    private static boolean startsWithMagic(ByteBuffer bytes) {
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (bytes.get(bytes.position() + i) != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void register(byte[] dictionary) {
+        decompressDictionaries.put(Zstd.getDictIdFromDict(dictionary), new ZstdDictDecompress(dictionary));
+    }
+
+    private static byte[] payload(ByteBuffer bytes) {
+        byte[] frame = new byte[bytes.remaining() - HEADER_SIZE];
+        bytes.position(bytes.position() + HEADER_SIZE).get(frame);
+        return frame;
+    }
+
+    private static int contentSize(byte[] frame) {
+        long size = Zstd.decompressedSize(frame);
+        if (size <= 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("zstd frame has no valid content size: " + size);
+        }
+        return (int) size;
+    }
+
+    public static class Builder<K, V> {
+
+        private final RedisCodec<K, V> delegate;
+        private int threshold = 512;
+        private int level = 3;
+        private byte[] dictionary;
+        private List<byte[]> previousDictionaries = List.of();
+
+        private Builder(RedisCodec<K, V> delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * 이 크기(바이트) 이상인 값만 압축 한다. 작은 값은 압축해도 줄지 않고 CPU 만 쓴다.
+         */
+        public Builder<K, V> threshold(int threshold) {
+            if (threshold < 1) {
+                throw new IllegalArgumentException("threshold must be positive: " + threshold);
+            }
+            this.threshold = threshold;
+            return this;
+        }
+
+        /**
+         * Zstd 압축 레벨. 기본 3 이며 값이 클 수록 느리고 더 작아진다.
+         */
+        public Builder<K, V> level(int level) {
+            this.level = level;
+            return this;
+        }
+
+        /**
+         * 새로 저장 하는 값을 압축 할 사전. 읽을 때도 사용 한다.
+         */
+        public Builder<K, V> dictionary(byte[] dictionary) {
+            this.dictionary = dictionary;
+            return this;
+        }
+
+        /**
+         * 읽기 에만 사용 하는 예전 사전. 사전을 교체 한 뒤에도 이전 사전으로 압축된 값을 읽을 수 있다.
+         */
+        public Builder<K, V> previousDictionaries(byte[]... dictionaries) {
+            this.previousDictionaries = List.of(dictionaries);
+            return this;
+        }
+
+        public CompressingCodec<K, V> build() {
+            return new CompressingCodec<>(this);
+        }
+    }
+}
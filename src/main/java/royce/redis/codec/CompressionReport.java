@@ -0,0 +1,106 @@
+package royce.redis.codec;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanIterator;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * 문자열 키를 표본으로 뽑아 CompressingCodec 을 적용 했을 때 줄어드는 메모리를 추정 한다.
+ * 표본 키 마다 MEMORY USAGE 를 재고, 같은 값을 압축 해서 임시 키에 저장 한 뒤 다시 MEMORY USAGE 를 잰다.
+ * 원래 키는 바꾸지 않으며, 임시 키는 바로 지우고 혹시 남더라도 짧은 TTL 로 사라진다.
+ */
+public final class CompressionReport {
+
+    private static final RedisCodec<String, byte[]> CODEC = RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE);
+    private static final long TEMP_TTL_MILLIS = 10_000;
+
+    private CompressionReport() {
+    }
+
+    /**
+     * pattern 에 맞는 키를 SCAN 하며 문자열 키를 최대 sampleSize 개 측정 한다.
+     *
+     * @param codec 측정할 압축 설정. delegate 는 ByteArrayCodec 이어야 값 바이트가 그대로 압축 된다
+     */
+    public static Result sample(RedisClient client, String pattern, int sampleSize,
+                                CompressingCodec<byte[], byte[]> codec) {
+        try (StatefulRedisConnection<String, byte[]> connection = client.connect(CODEC)) {
+            RedisCommands<String, byte[]> commands = connection.sync();
+            String tempKey = "compression-report:" + UUID.randomUUID();
+            long sampled = 0;
+            long compressed = 0;
+            long valueBytesBefore = 0;
+            long valueBytesAfter = 0;
+            long memoryBefore = 0;
+            long memoryAfter = 0;
+            Iterator<String> keys = ScanIterator.scan(commands, ScanArgs.Builder.matches(pattern).limit(1_000));
+            while (keys.hasNext() && sampled < sampleSize) {
+                String key = keys.next();
+                if (!"string".equals(commands.type(key))) {
+                    continue;
+                }
+                byte[] value = commands.get(key);
+                Long usage = commands.memoryUsage(key);
+                if (value == null || usage == null) {
+                    continue;
+                }
+                ByteBuffer encoded = codec.encodeValue(value);
+                byte[] after = new byte[encoded.remaining()];
+                encoded.get(after);
+                commands.set(tempKey, after, SetArgs.Builder.px(TEMP_TTL_MILLIS));
+                Long usageAfter = commands.memoryUsage(tempKey);
+                sampled++;
+                if (CompressingCodec.isCompressed(after)) {
+                    compressed++;
+                }
+                valueBytesBefore += value.length;
+                valueBytesAfter += after.length;
+                memoryBefore += usage;
+                memoryAfter += usageAfter == null ? usage : usageAfter;
+            }
+            commands.del(tempKey);
+            return new Result(pattern, sampled, compressed, valueBytesBefore, valueBytesAfter, memoryBefore,
+                    memoryAfter);
+        }
+    }
+
+    /**
+     * @param memoryBefore 표본 키의 MEMORY USAGE 합
+     * @param memoryAfter  압축한 값을 저장 했을 때의 MEMORY USAGE 합
+     */
+    public record Result(
+            String pattern,
+            long sampledKeys,
+            long compressedKeys,
+            long valueBytesBefore,
+            long valueBytesAfter,
+            long memoryBefore,
+            long memoryAfter
+    ) {
+
+        /**
+         * 줄어드는 메모리 비율(0 ~ 1).
+         */
+        public double savingRatio() {
+            return memoryBefore == 0 ? 0 : 1 - (double) memoryAfter / memoryBefore;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%s: %d keys sampled, %d compressed, value %d -> %d bytes, memory %d -> %d bytes (%.1f%% saved)",
+                    pattern, sampledKeys, compressedKeys, valueBytesBefore, valueBytesAfter, memoryBefore,
+                    memoryAfter, savingRatio() * 100);
+        }
+    }
+}
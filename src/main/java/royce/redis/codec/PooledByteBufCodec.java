@@ -0,0 +1,85 @@
+package royce.redis.codec;
+
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.codec.ToByteBufEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 키는 UTF-8 문자열, 값은 풀에서 빌린 direct ByteBuf 인 codec.
+ * 받은 값은 Lettuce 의 수신 버퍼에서 풀 버퍼로 한 번만 복사 되고, 그대로 Netty 채널이나 NIO 채널에 쓸 수 있다.
+ * 값을 전달 받은 쪽이 release 해야 한다. Netty 채널의 writeAndFlush 는 전송 후 스스로 release 한다.
+ * 보낼 때는 값의 readerIndex 를 움직이지 않으므로 같은 ByteBuf 를 여러 번 보낼 수 있다.
+ */
+public class PooledByteBufCodec implements RedisCodec<String, ByteBuf>, ToByteBufEncoder<String, ByteBuf> {
+
+    public static final PooledByteBufCodec INSTANCE = new PooledByteBufCodec(PooledByteBufAllocator.DEFAULT);
+
+    private static final StringCodec KEYS = StringCodec.UTF8;
+
+    private final ByteBufAllocator allocator;
+
+    public PooledByteBufCodec(ByteBufAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    /**
+     * value 를 channel 에 모두 쓰고 release 한다. direct 버퍼는 중간 복사 없이 바로 커널로 넘어 간다.
+     */
+    public static void transferTo(ByteBuf value, WritableByteChannel channel) throws IOException {
+        try {
+            for (ByteBuffer buffer : value.nioBuffers()) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        } finally {
+            value.release();
+        }
+    }
+
+    @Override
+    public String decodeKey(ByteBuffer bytes) {
+        return KEYS.decodeKey(bytes);
+    }
+
+    @Override
+    public ByteBuf decodeValue(ByteBuffer bytes) {
+        ByteBuf value = allocator.directBuffer(bytes.remaining());
+        value.writeBytes(bytes);
+        return value;
+    }
+
+    @Override
+    public ByteBuffer encodeKey(String key) {
+        return KEYS.encodeKey(key);
+    }
+
+    @Override
+    public ByteBuffer encodeValue(ByteBuf value) {
+        return value.nioBuffer();
+    }
+
+    @Override
+    public void encodeKey(String key, ByteBuf target) {
+        KEYS.encodeKey(key, target);
+    }
+
+    @Override
+    public void encodeValue(ByteBuf value, ByteBuf target) {
+        target.writeBytes(value, value.readerIndex(), value.readableBytes());
+    }
+
+    @Override
+    public int estimateSize(Object keyOrValue) {
+        if (keyOrValue instanceof ByteBuf value) {
+            return value.readableBytes();
+        }
+        return KEYS.estimateSize(keyOrValue);
+    }
+}
@@ -0,0 +1,30 @@
+package royce.redis.codec;
+
+import io.netty.buffer.ByteBuf;
+import java.nio.ByteBuffer;
+
+/**
+ * 값 하나를 Redis 에 저장 할 바이트로 바꾸는 방법. SerializerCodec 에 끼워 사용 한다.
+ * write 는 Lettuce 가 명령을 전송 할 Netty 버퍼에 바로 쓰므로, 중간 byte[] 를 만들지 않는다.
+ * 기본 구현은 ValueSerializers 에 있다.
+ */
+public interface ValueSerializer<T> {
+
+    /**
+     * value 를 target 의 writerIndex 부터 쓴다.
+     */
+    void write(T value, ByteBuf target);
+
+    /**
+     * source 의 position 부터 limit 까지를 읽는다. source 는 Lettuce 의 수신 버퍼 이므로 호출이 끝나면 재사용 된다.
+     * 반환 값이 source 를 참조 해서는 안 된다.
+     */
+    T read(ByteBuffer source);
+
+    /**
+     * write 가 쓸 바이트 수의 추정치. 버퍼를 미리 잡는 데만 사용 하므로 정확 하지 않아도 된다.
+     */
+    default int estimateSize(T value) {
+        return 64;
+    }
+}
@@ -0,0 +1,174 @@
+package royce.redis.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 기본 ValueSerializer 구현.
+ */
+public final class ValueSerializers {
+
+    private static final ValueSerializer<byte[]> BYTES = new ValueSerializer<>() {
+
+        @Override
+        public void write(byte[] value, ByteBuf target) {
+            target.writeBytes(value);
+        }
+
+        @Override
+        public byte[] read(ByteBuffer source) {
+            byte[] bytes = new byte[source.remaining()];
+            source.get(bytes);
+            return bytes;
+        }
+
+        @Override
+        public int estimateSize(byte[] value) {
+            return value.length;
+        }
+    };
+
+    private static final ValueSerializer<Map<String, String>> STRING_MAP = new ValueSerializer<>() {
+
+        @Override
+        public void write(Map<String, String> value, ByteBuf target) {
+            writeVarInt(target, value.size());
+            for (Map.Entry<String, String> entry : value.entrySet()) {
+                writeString(target, entry.getKey());
+                writeString(target, entry.getValue());
+            }
+        }
+
+        @Override
+        public Map<String, String> read(ByteBuffer source) {
+            int size = readVarInt(source);
+            Map<String, String> map = new LinkedHashMap<>(Math.max(16, size * 2));
+            for (int i = 0; i < size; i++) {
+                map.put(readString(source), readString(source));
+            }
+            return map;
+        }
+
+        @Override
+        public int estimateSize(Map<String, String> value) {
+            int size = 5;
+            for (Map.Entry<String, String> entry : value.entrySet()) {
+                size += 10 + entry.getKey().length() + entry.getValue().length();
+            }
+            return size;
+        }
+    };
+
+    private ValueSerializers() {
+    }
+
+    /**
+     * 바이트를 그대로 저장 한다.
+     */
+    public static ValueSerializer<byte[]> bytes() {
+        return BYTES;
+    }
+
+    /**
+     * 문자열 map 을 varint 길이 접두어 + UTF-8 로 저장 한다. 같은 내용의 JSON 보다 작고 따옴표, 이스케이프 처리가 없다.
+     */
+    public static ValueSerializer<Map<String, String>> stringMap() {
+        return STRING_MAP;
+    }
+
+    /**
+     * delegate 가 만든 바이트를 Deflate 로 압축 한다. 앞에 원본 길이를 varint 로 기록 해서 한 번에 풀 버퍼를 잡는다.
+     */
+    public static <T> ValueSerializer<T> deflate(ValueSerializer<T> delegate, int level) {
+        return new ValueSerializer<>() {
+
+            @Override
+            public void write(T value, ByteBuf target) {
+                ByteBuf raw = ByteBufAllocator.DEFAULT.heapBuffer(delegate.estimateSize(value));
+                try {
+                    delegate.write(value, raw);
+                    writeVarInt(target, raw.readableBytes());
+                    Deflater deflater = new Deflater(level);
+                    try {
+                        deflater.setInput(raw.nioBuffer());
+                        deflater.finish();
+                        while (!deflater.finished()) {
+                            target.ensureWritable(Math.max(64, raw.readableBytes() / 4));
+                            ByteBuffer out = target.nioBuffer(target.writerIndex(), target.writableBytes());
+                            target.writerIndex(target.writerIndex() + deflater.deflate(out));
+                        }
+                    } finally {
+                        deflater.end();
+                    }
+                } finally {
+                    raw.release();
+                }
+            }
+
+            @Override
+            public T read(ByteBuffer source) {
+                int length = readVarInt(source);
+                ByteBuffer raw = ByteBuffer.allocate(length);
+                Inflater inflater = new Inflater();
+                try {
+                    inflater.setInput(source);
+                    while (raw.hasRemaining() && !inflater.finished()) {
+                        if (inflater.inflate(raw) == 0 && inflater.needsInput()) {
+                            throw new IllegalArgumentException("truncated deflate value");
+                        }
+                    }
+                } catch (DataFormatException e) {
+                    throw new IllegalArgumentException("invalid deflate value", e);
+                } finally {
+                    inflater.end();
+                }
+                return delegate.read(raw.flip());
+            }
+
+            @Override
+            public int estimateSize(T value) {
+                return delegate.estimateSize(value) / 2 + 16;
+            }
+        };
+    }
+
+    static void writeVarInt(ByteBuf target, int value) {
+        while ((value & ~0x7f) != 0) {
+            target.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        target.writeByte(value);
+    }
+
+    static int readVarInt(ByteBuffer source) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = source.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    private static void writeString(ByteBuf target, String value) {
+        writeVarInt(target, ByteBufUtil.utf8Bytes(value));
+        target.writeCharSequence(value, StandardCharsets.UTF_8);
+    }
+
+    private static String readString(ByteBuffer source) {
+        int length = readVarInt(source);
+        String value = StandardCharsets.UTF_8.decode(source.slice().limit(length)).toString();
+        source.position(source.position() + length);
+        return value;
+    }
+}
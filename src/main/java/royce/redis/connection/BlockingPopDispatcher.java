@@ -0,0 +1,337 @@
+package royce.redis.connection;
+
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisCommandInterruptedException;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.UnblockType;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 많은 호출자의 BLPOP/BRPOP 을 소수의 전용 블로킹 커넥션으로 다중화 하는 dispatcher.
+ * 호출자 마다 커넥션을 잡고 서버에서 대기 하는 대신, 키를 해시 해서 정한 worker 커넥션 하나가 대기 중인 키 전체로 BLPOP 을 보내고
+ * 꺼낸 원소를 그 키를 가장 먼저 기다린 호출자에게 넘긴다. 호출자는 로컬 future 에서 기다리므로 VirtualThreads 의 가상 스레드로
+ * 수천 개의 소비자를 띄워도 OS 스레드와 소켓은 worker 수 만큼만 쓴다.
+ * 새 키가 추가 되면 CLIENT UNBLOCK 으로 worker 의 BLPOP 을 끊어 키 목록을 다시 보낸다.
+ * 원소를 꺼냈는데 기다리던 호출자가 그 사이 타임아웃 되었다면 꺼낸 쪽 끝에 다시 넣어 원소를 잃지 않는다.
+ */
+public class BlockingPopDispatcher implements AutoCloseable {
+
+    private final RedisClient client;
+    private final int connections;
+    private final long pollTimeoutSeconds;
+    private final Worker[] leftWorkers;
+    private final Worker[] rightWorkers;
+    private final StatefulRedisConnection<String, String> control;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private volatile boolean closed;
+
+    private BlockingPopDispatcher(Builder builder) {
+        this.client = builder.client;
+        this.connections = builder.connections;
+        this.pollTimeoutSeconds = builder.pollTimeout.toSeconds();
+        this.leftWorkers = new Worker[connections];
+        this.rightWorkers = new Worker[connections];
+        this.control = client.connect();
+    }
+
+    public static Builder builder(RedisClient client) {
+        return new Builder(client);
+    }
+
+    /**
+     * BLPOP key timeout 과 같다.
+     *
+     * @param timeout 0 이면 원소가 들어올 때 까지 기다린다
+     * @return 꺼낸 값, 타임아웃 되면 null
+     */
+    public String blpop(String key, Duration timeout) {
+        return await(worker(leftWorkers, true, key), key, timeout);
+    }
+
+    /**
+     * BRPOP key timeout 과 같다.
+     *
+     * @param timeout 0 이면 원소가 들어올 때 까지 기다린다
+     * @return 꺼낸 값, 타임아웃 되면 null
+     */
+    public String brpop(String key, Duration timeout) {
+        return await(worker(rightWorkers, false, key), key, timeout);
+    }
+
+    /**
+     * 지금 원소를 기다리고 있는 호출자 수.
+     */
+    public int waitingCount() {
+        return waiting.get();
+    }
+
+    /**
+     * 지금 까지 연결된 worker 커넥션 수. 제어용 커넥션 하나는 포함 하지 않는다.
+     */
+    public synchronized int connectionCount() {
+        int count = 0;
+        for (int i = 0; i < connections; i++) {
+            count += (leftWorkers[i] != null ? 1 : 0) + (rightWorkers[i] != null ? 1 : 0);
+        }
+        return count;
+    }
+
+    @Override
+    public void close() {
+        List<Worker> started = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (int i = 0; i < connections; i++) {
+                if (leftWorkers[i] != null) {
+                    started.add(leftWorkers[i]);
+                }
+                if (rightWorkers[i] != null) {
+                    started.add(rightWorkers[i]);
+                }
+            }
+        }
+        for (Worker worker : started) {
+            worker.stop();
+        }
+        control.close();
+    }
+
+    private String await(Worker worker, String key, Duration timeout) {
+        CompletableFuture<String> waiter = new CompletableFuture<>();
+        worker.register(key, waiter);
+        waiting.incrementAndGet();
+        try {
+            return timeout.isZero()
+                    ? waiter.get()
+                    : waiter.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return worker.abandon(key, waiter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            String value = worker.abandon(key, waiter);
+            if (value != null) {
+                return value;
+            }
+            throw new RedisCommandInterruptedException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RedisException(e.getCause());
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private synchronized Worker worker(Worker[] workers, boolean left, String key) {
+        if (closed) {
+            throw new IllegalStateException("dispatcher is closed");
+        }
+        int index = Math.floorMod(key.hashCode(), connections);
+        if (workers[index] == null) {
+            workers[index] = new Worker(left, (left ? "blpop" : "brpop") + "-dispatcher-" + index);
+        }
+        return workers[index];
+    }
+
+    /**
+     * 전용 커넥션 하나로 자신에게 배정된 키 들을 한 번의 BLPOP(또는 BRPOP)으로 기다린다.
+     */
+    private final class Worker implements Runnable {
+
+        private final boolean left;
+        private final StatefulRedisConnection<String, String> connection;
+        private final long clientId;
+        private final Map<String, Deque<CompletableFuture<String>>> waiters = new LinkedHashMap<>();
+        private final AtomicBoolean keysChanged = new AtomicBoolean();
+        private final Thread thread;
+        private int rotation;
+        private volatile boolean running = true;
+
+        private Worker(boolean left, String name) {
+            this.left = left;
+            this.connection = client.connect();
+            this.clientId = connection.sync().clientId();
+            this.thread = VirtualThreads.daemonThreads(name).newThread(this);
+            thread.start();
+        }
+
+        private void register(String key, CompletableFuture<String> waiter) {
+            boolean newKey;
+            synchronized (this) {
+                Deque<CompletableFuture<String>> queue = waiters.computeIfAbsent(key, k -> new ArrayDeque<>());
+                newKey = queue.isEmpty();
+                queue.add(waiter);
+                notifyAll();
+            }
+            if (newKey && keysChanged.compareAndSet(false, true)) {
+                control.sync().clientUnblock(clientId, UnblockType.TIMEOUT);
+            }
+        }
+
+        /**
+         * 타임아웃 된 호출자를 목록에서 뺀다. 그 사이 worker 가 값을 넘겼다면 그 값을 돌려 준다.
+         */
+        private String abandon(String key, CompletableFuture<String> waiter) {
+            synchronized (this) {
+                Deque<CompletableFuture<String>> queue = waiters.get(key);
+                if (queue != null && queue.remove(waiter) && queue.isEmpty()) {
+                    waiters.remove(key);
+                }
+            }
+            return waiter.cancel(false) ? null : waiter.getNow(null);
+        }
+
+        @Override
+        public void run() {
+            RedisCommands<String, String> commands = connection.sync();
+            while (running) {
+                String[] keys = awaitKeys();
+                if (keys == null) {
+                    break;
+                }
+                try {
+                    KeyValue<String, String> popped = left
+                            ? commands.blpop(pollTimeoutSeconds, keys)
+                            : commands.brpop(pollTimeoutSeconds, keys);
+                    if (popped != null && popped.hasValue()) {
+                        deliver(commands, popped.getKey(), popped.getValue());
+                    }
+                } catch (RedisException e) {
+                    if (running) {
+                        backoff();
+                    }
+                }
+            }
+            failWaiters(new IllegalStateException("dispatcher is closed"));
+            connection.close();
+        }
+
+        /**
+         * 기다리는 키가 생길 때 까지 대기 한 뒤, 앞쪽 키만 먼저 꺼내지지 않도록 시작 위치를 돌려 가며 키 목록을 만든다.
+         */
+        private synchronized String[] awaitKeys() {
+            while (running && waiters.isEmpty()) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    return null;
+                }
+            }
+            if (!running) {
+                return null;
+            }
+            keysChanged.set(false);
+            String[] ordered = waiters.keySet().toArray(String[]::new);
+            int start = Math.floorMod(rotation++, ordered.length);
+            String[] keys = new String[ordered.length];
+            for (int i = 0; i < ordered.length; i++) {
+                keys[i] = ordered[(start + i) % ordered.length];
+            }
+            return keys;
+        }
+
+        private void deliver(RedisCommands<String, String> commands, String key, String value) {
+            synchronized (this) {
+                Deque<CompletableFuture<String>> queue = waiters.get(key);
+                while (queue != null && !queue.isEmpty()) {
+                    CompletableFuture<String> waiter = queue.poll();
+                    if (queue.isEmpty()) {
+                        waiters.remove(key);
+                    }
+                    if (waiter.complete(value)) {
+                        return;
+                    }
+                }
+            }
+            if (left) {
+                commands.lpush(key, value);
+            } else {
+                commands.rpush(key, value);
+            }
+        }
+
+        private void failWaiters(RuntimeException error) {
+            synchronized (this) {
+                waiters.values().forEach(queue -> queue.forEach(waiter -> waiter.completeExceptionally(error)));
+                waiters.clear();
+            }
+        }
+
+        private void backoff() {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+        }
+
+        private void stop() {
+            synchronized (this) {
+                running = false;
+                notifyAll();
+            }
+            control.sync().clientUnblock(clientId, UnblockType.TIMEOUT);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(pollTimeoutSeconds + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public static class Builder {
+
+        private final RedisClient client;
+        private int connections = 2;
+        private Duration pollTimeout = Duration.ofSeconds(1);
+
+        private Builder(RedisClient client) {
+            this.client = client;
+        }
+
+        /**
+         * 방향(BLPOP, BRPOP) 마다 만들 수 있는 최대 worker 커넥션 수. 키는 해시로 worker 에 나뉜다.
+         */
+        public Builder connections(int connections) {
+            if (connections < 1) {
+                throw new IllegalArgumentException("connections must be positive: " + connections);
+            }
+            this.connections = connections;
+            return this;
+        }
+
+        /**
+         * worker 가 한 번의 BLPOP 으로 기다리는 시간. 새 키를 CLIENT UNBLOCK 보다 먼저 보내 놓친 경우에도 이 시간 안에 반영 된다.
+         */
+        public Builder pollTimeout(Duration pollTimeout) {
+            if (pollTimeout.toSeconds() < 1) {
+                throw new IllegalArgumentException("pollTimeout must be at least 1 second: " + pollTimeout);
+            }
+            this.pollTimeout = pollTimeout;
+            return this;
+        }
+
+        public BlockingPopDispatcher build() {
+            return new BlockingPopDispatcher(this);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package royce.redis.connection;
+
+import io.lettuce.core.RedisCommandInterruptedException;
+import io.lettuce.core.RedisCommandTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 파이프라인으로 보낸 명령들의 응답을 기다린다.
+ * LettuceFutures.awaitAll 은 처음 실패한 명령에서 예외를 던지고 나머지 응답을 기다리지 않으므로,
+ * 명령 마다 결과를 따로 확인 해야 하는 쪽(NOSCRIPT 재전송, redirect 등)은 이것을 사용 한다.
+ */
+public final class CommandFutures {
+
+    private CommandFutures() {
+    }
+
+    /**
+     * 실패한 명령이 있어도 모든 응답이 도착 할 때 까지 기다린다. 명령 별 오류는 호출 한 쪽에서 future 마다 확인 한다.
+     *
+     * @param commands 타임아웃 메시지에 쓸 명령 이름. "cache commands"
+     * @throws RedisCommandTimeoutException timeout 안에 응답이 모두 오지 않은 경우
+     */
+    public static void await(List<? extends CompletableFuture<?>> futures, Duration timeout, String commands) {
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new))
+                    .get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ignored) {
+            // 명령 별 오류는 호출 한 쪽에서 future 마다 확인 한다
+        } catch (TimeoutException e) {
+            throw new RedisCommandTimeoutException(commands + " did not complete within " + timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisCommandInterruptedException(e);
+        }
+    }
+}
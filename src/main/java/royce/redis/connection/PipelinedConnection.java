@@ -0,0 +1,61 @@
+package royce.redis.connection;
+
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import java.util.function.Function;
+
+/**
+ * auto-flush 를 끈 상태로 명령을 모았다가 flushEvery 개 마다 한 번에 전송 하는 커넥션.
+ * 하나의 스레드에서 사용 하는 것을 전제로 한다.
+ */
+public class PipelinedConnection implements AutoCloseable {
+
+    private final RedisConnectionPool pool;
+    private final StatefulRedisConnection<String, String> connection;
+    private final RedisAsyncCommands<String, String> commands;
+    private final int flushEvery;
+    private final PoolMetrics metrics;
+    private int pending;
+
+    PipelinedConnection(RedisConnectionPool pool, StatefulRedisConnection<String, String> connection,
+                        int flushEvery, PoolMetrics metrics) {
+        if (flushEvery < 1) {
+            throw new IllegalArgumentException("flushEvery must be positive: " + flushEvery);
+        }
+        this.pool = pool;
+        this.connection = connection;
+        this.commands = connection.async();
+        this.flushEvery = flushEvery;
+        this.metrics = metrics;
+        connection.setAutoFlushCommands(false);
+    }
+
+    public <T> RedisFuture<T> submit(Function<RedisAsyncCommands<String, String>, RedisFuture<T>> command) {
+        RedisFuture<T> future = command.apply(commands);
+        metrics.commandStarted();
+        future.whenComplete((result, error) -> metrics.commandCompleted());
+        if (++pending >= flushEvery) {
+            flush();
+        }
+        return future;
+    }
+
+    public void flush() {
+        if (pending > 0) {
+            connection.flushCommands();
+            pending = 0;
+        }
+    }
+
+    public RedisAsyncCommands<String, String> async() {
+        return commands;
+    }
+
+    @Override
+    public void close() {
+        flush();
+        connection.setAutoFlushCommands(true);
+        pool.release(connection);
+    }
+}
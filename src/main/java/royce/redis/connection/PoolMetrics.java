@@ -0,0 +1,68 @@
+package royce.redis.connection;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 커넥션 풀 지표.
+ * 대기 중인 borrower 수, borrow 지연 시간, 처리 중인(in-flight) 명령 수를 집계 한다.
+ */
+public class PoolMetrics {
+
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final AtomicInteger inFlightCommands = new AtomicInteger();
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowTimeoutCount = new LongAdder();
+    private final LongAdder totalBorrowNanos = new LongAdder();
+    private final AtomicLong maxBorrowNanos = new AtomicLong();
+
+    void waiterEntered() {
+        waiters.incrementAndGet();
+    }
+
+    void waiterLeft() {
+        waiters.decrementAndGet();
+    }
+
+    void borrowed(long elapsedNanos) {
+        borrowCount.increment();
+        totalBorrowNanos.add(elapsedNanos);
+        maxBorrowNanos.accumulateAndGet(elapsedNanos, Math::max);
+    }
+
+    void borrowTimedOut() {
+        borrowTimeoutCount.increment();
+    }
+
+    void commandStarted() {
+        inFlightCommands.incrementAndGet();
+    }
+
+    void commandCompleted() {
+        inFlightCommands.decrementAndGet();
+    }
+
+    public Snapshot snapshot() {
+        long borrows = borrowCount.sum();
+        long totalNanos = totalBorrowNanos.sum();
+        return new Snapshot(
+                waiters.get(),
+                inFlightCommands.get(),
+                borrows,
+                borrowTimeoutCount.sum(),
+                borrows == 0 ? 0 : totalNanos / borrows,
+                maxBorrowNanos.get()
+        );
+    }
+
+    public record Snapshot(
+            int waiters,
+            int inFlightCommands,
+            long borrowCount,
+            long borrowTimeoutCount,
+            long averageBorrowNanos,
+            long maxBorrowNanos
+    ) {
+    }
+}
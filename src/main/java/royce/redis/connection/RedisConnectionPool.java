@@ -0,0 +1,197 @@
+package royce.redis.connection;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionException;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.resource.ClientResources;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 미리 연결 해 둔(pre-warmed) 커넥션을 고정된 개수만큼 보관 하는 풀.
+ * 모든 커넥션은 하나의 RedisClient 와 공유 ClientResources(event loop) 위에서 만들어 진다.
+ * 풀이 비어 있으면 borrowTimeout 만큼 기다린 뒤 예외를 던진다.
+ */
+public class RedisConnectionPool implements AutoCloseable {
+
+    private final RedisClient client;
+    private final boolean ownsClient;
+    private final int size;
+    private final Duration borrowTimeout;
+    private final BlockingQueue<StatefulRedisConnection<String, String>> idle;
+    private final List<StatefulRedisConnection<String, String>> all;
+    private final PoolMetrics metrics = new PoolMetrics();
+    private volatile boolean closed;
+
+    private RedisConnectionPool(Builder builder) {
+        this.ownsClient = builder.client == null;
+        this.client = ownsClient
+                ? RedisClient.create(builder.resources, builder.settings.toRedisURI())
+                : builder.client;
+        this.size = builder.size;
+        this.borrowTimeout = builder.borrowTimeout;
+        this.idle = new ArrayBlockingQueue<>(size);
+        this.all = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            StatefulRedisConnection<String, String> connection = client.connect();
+            all.add(connection);
+            idle.add(connection);
+        }
+    }
+
+    public static Builder builder(RedisConnectionSettings settings) {
+        return new Builder(settings);
+    }
+
+    public StatefulRedisConnection<String, String> borrow() {
+        if (closed) {
+            throw new IllegalStateException("connection pool is closed");
+        }
+        long start = System.nanoTime();
+        StatefulRedisConnection<String, String> connection = idle.poll();
+        if (connection == null) {
+            connection = awaitIdle();
+        }
+        metrics.borrowed(System.nanoTime() - start);
+        return connection.isOpen() ? connection : replace(connection);
+    }
+
+    public void release(StatefulRedisConnection<String, String> connection) {
+        if (closed) {
+            connection.close();
+            return;
+        }
+        if (!connection.isOpen()) {
+            connection = replace(connection);
+        }
+        idle.offer(connection);
+    }
+
+    /**
+     * 커넥션을 빌려 동기 명령을 실행 하고 반납 한다.
+     */
+    public <T> T execute(Function<RedisCommands<String, String>, T> action) {
+        StatefulRedisConnection<String, String> connection = borrow();
+        metrics.commandStarted();
+        try {
+            return action.apply(connection.sync());
+        } finally {
+            metrics.commandCompleted();
+            release(connection);
+        }
+    }
+
+    /**
+     * 커넥션 하나를 파이프라인 모드(auto-flush off)로 빌린다.
+     * flushEvery 개의 명령이 쌓일 때 마다 한 번에 전송 하며, close 시 남은 명령을 flush 하고 반납 한다.
+     */
+    public PipelinedConnection pipelined(int flushEvery) {
+        return new PipelinedConnection(this, borrow(), flushEvery, metrics);
+    }
+
+    public PoolMetrics metrics() {
+        return metrics;
+    }
+
+    public RedisClient client() {
+        return client;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int idleCount() {
+        return idle.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (all) {
+            all.forEach(StatefulRedisConnection::close);
+            all.clear();
+        }
+        idle.clear();
+        if (ownsClient) {
+            client.shutdown();
+        }
+    }
+
+    private StatefulRedisConnection<String, String> awaitIdle() {
+        metrics.waiterEntered();
+        try {
+            StatefulRedisConnection<String, String> connection =
+                    idle.poll(borrowTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            if (connection == null) {
+                metrics.borrowTimedOut();
+                throw new RedisConnectionException("no idle connection within " + borrowTimeout);
+            }
+            return connection;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisConnectionException("interrupted while waiting for connection", e);
+        } finally {
+            metrics.waiterLeft();
+        }
+    }
+
+    private StatefulRedisConnection<String, String> replace(StatefulRedisConnection<String, String> broken) {
+        StatefulRedisConnection<String, String> fresh = client.connect();
+        synchronized (all) {
+            all.remove(broken);
+            all.add(fresh);
+        }
+        broken.close();
+        return fresh;
+    }
+
+    public static class Builder {
+
+        private final RedisConnectionSettings settings;
+        private ClientResources resources = SharedClientResources.get();
+        private RedisClient client;
+        private int size = Runtime.getRuntime().availableProcessors();
+        private Duration borrowTimeout = Duration.ofSeconds(5);
+
+        private Builder(RedisConnectionSettings settings) {
+            this.settings = settings;
+        }
+
+        public Builder resources(ClientResources resources) {
+            this.resources = resources;
+            return this;
+        }
+
+        /**
+         * 이미 만들어 둔 RedisClient 를 사용 한다. 이 경우 풀은 client 를 종료 하지 않는다.
+         */
+        public Builder client(RedisClient client) {
+            this.client = client;
+            return this;
+        }
+
+        public Builder size(int size) {
+            if (size < 1) {
+                throw new IllegalArgumentException("size must be positive: " + size);
+            }
+            this.size = size;
+            return this;
+        }
+
+        public Builder borrowTimeout(Duration borrowTimeout) {
+            this.borrowTimeout = borrowTimeout;
+            return this;
+        }
+
+        public RedisConnectionPool build() {
+            return new RedisConnectionPool(this);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package royce.redis.connection;
+
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.RedisURI.Builder;
+
+/**
+ * Redis 접속 정보.
+ * 테스트와 애플리케이션 코드가 같은 접속 정보를 공유 하도록 한 곳에서 RedisURI 를 만든다.
+ */
+public record RedisConnectionSettings(String host, int port, String password, int database) {
+
+    public static RedisConnectionSettings of(String host, int port, String password) {
+        return new RedisConnectionSettings(host, port, password, 0);
+    }
+
+    public RedisURI toRedisURI() {
+        Builder builder = Builder.redis(host)
+                .withPort(port)
+                .withDatabase(database);
+        if (password != null && !password.isEmpty()) {
+            builder.withPassword(password.toCharArray());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,75 @@
+package royce.redis.connection;
+
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JVM 전역에서 공유 하는 ClientResources.
+ * RedisClient 마다 Netty event loop 와 computation thread 를 새로 만들지 않도록 하나의 인스턴스를 재사용 한다.
+ * JVM 종료 시 hook 하나가 beforeShutdown 으로 등록된 작업을 먼저 모두 실행 하고 나서 리소스를 내린다.
+ * shutdown hook 들은 순서 없이 동시에 실행 되므로, 로컬에 모아 둔 쓰기를 보내는 버퍼는 자기 hook 을 따로 두지 않고 여기에 등록 한다.
+ */
+public final class SharedClientResources {
+
+    private static final Set<Runnable> beforeShutdown = ConcurrentHashMap.newKeySet();
+
+    private static volatile ClientResources resources;
+    private static boolean hookInstalled;
+
+    private SharedClientResources() {
+    }
+
+    public static ClientResources get() {
+        ClientResources current = resources;
+        if (current == null) {
+            synchronized (SharedClientResources.class) {
+                current = resources;
+                if (current == null) {
+                    current = DefaultClientResources.create();
+                    resources = current;
+                    installShutdownHook();
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * JVM 종료 시 공유 리소스를 내리기 전에 task 를 실행 한다. task 가 던진 예외는 무시 하고 다음 task 를 실행 한다.
+     */
+    public static void beforeShutdown(Runnable task) {
+        synchronized (SharedClientResources.class) {
+            installShutdownHook();
+        }
+        beforeShutdown.add(task);
+    }
+
+    public static void removeBeforeShutdown(Runnable task) {
+        beforeShutdown.remove(task);
+    }
+
+    private static void installShutdownHook() {
+        if (!hookInstalled) {
+            Runtime.getRuntime().addShutdownHook(new Thread(SharedClientResources::shutdown, "shared-client-resources-shutdown"));
+            hookInstalled = true;
+        }
+    }
+
+    private static void shutdown() {
+        for (Runnable task : beforeShutdown) {
+            try {
+                task.run();
+            } catch (RuntimeException ignored) {
+                // 한 버퍼의 실패가 다른 버퍼의 flush 를 막지 않도록 한다
+            }
+        }
+        synchronized (SharedClientResources.class) {
+            if (resources != null) {
+                resources.shutdown();
+                resources = null;
+            }
+        }
+    }
+}
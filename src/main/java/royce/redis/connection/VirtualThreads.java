@@ -0,0 +1,58 @@
+package royce.redis.connection;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 블로킹 명령을 호출 하는 작업 마다 스레드 하나를 주는 executor.
+ * JDK 21 이상에서는 가상 스레드(virtual thread)를 사용 해서 수천 개의 대기 작업도 OS 스레드를 거의 차지 하지 않는다.
+ * 프로젝트는 JDK 17 로도 빌드 되어야 하므로 가상 스레드 API 는 실행 시점에 찾고, 없으면 daemon 플랫폼 스레드로 대신 한다.
+ */
+public final class VirtualThreads {
+
+    private static final MethodHandle NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = lookup();
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * @param fallbackName 가상 스레드를 쓸 수 없을 때 만드는 플랫폼 스레드의 이름 prefix
+     */
+    public static ExecutorService newPerTaskExecutor(String fallbackName) {
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invokeExact();
+            } catch (Throwable e) {
+                throw new IllegalStateException("failed to create virtual thread executor", e);
+            }
+        }
+        return Executors.newCachedThreadPool(daemonThreads(fallbackName));
+    }
+
+    static ThreadFactory daemonThreads(String name) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static MethodHandle lookup() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package royce.redis.counter;
+
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisFuture;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import royce.redis.connection.PipelinedConnection;
+import royce.redis.connection.RedisConnectionPool;
+import royce.redis.connection.SharedClientResources;
+
+/**
+ * 키 마다 증감량을 로컬 LongAdder 에 모았다가 INCRBY/HINCRBY 묶음으로 한 번에 보내는 카운터.
+ * maxPendingUpdates 개의 증감이 쌓이거나 maxStaleness 가 지나면 flush 하며, close 나 JVM 종료 시 남은 값을 모두 보낸다.
+ * 서버가 오류로 응답 했거나 보내기 전에 실패한 증감량은 적용 되지 않은 것이 확실 하므로 다시 로컬에 더해 다음 flush 에서 보낸다.
+ * timeout 이나 연결 끊김 으로 응답을 받지 못한 명령은 서버에 적용 되었을 수 있으므로 다시 보내지 않고
+ * CounterMetrics 의 unconfirmedCommandCount 로 센다. 다시 보내면 두 번 더해질 수 있기 때문 이다.
+ * 정수가 아닌 값이 있는 키 처럼 계속 거절 되는 증감량은 값이 고쳐질 때 까지 매 flush 마다 다시 보낸다.
+ * Redis 의 값은 최대 maxStaleness 만큼 늦다.
+ */
+public class BatchedCounter implements AutoCloseable {
+
+    private final RedisConnectionPool pool;
+    private final long maxPendingUpdates;
+    private final Duration commandTimeout;
+    private final int pipelineSize;
+    private final Map<Target, LongAdder> deltas = new ConcurrentHashMap<>();
+    private final AtomicLong pendingUpdates = new AtomicLong();
+    private final CounterMetrics metrics = new CounterMetrics();
+    private final ScheduledExecutorService scheduler;
+    private final Runnable shutdownFlush = this::flush;
+    private volatile boolean closed;
+
+    /**
+     * 증감 대상. field 가 null 이면 문자열 키(INCRBY), 아니면 해시 필드(HINCRBY) 이다.
+     */
+    private record Target(String key, String field) {
+    }
+
+    private BatchedCounter(Builder builder) {
+        this.pool = builder.pool;
+        this.maxPendingUpdates = builder.maxPendingUpdates;
+        this.commandTimeout = builder.commandTimeout;
+        this.pipelineSize = builder.pipelineSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "batched-counter-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long stalenessNanos = builder.maxStaleness.toNanos();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, stalenessNanos, stalenessNanos, TimeUnit.NANOSECONDS);
+        SharedClientResources.beforeShutdown(shutdownFlush);
+    }
+
+    public static Builder builder(RedisConnectionPool pool) {
+        return new Builder(pool);
+    }
+
+    public void increment(String key) {
+        add(new Target(key, null), 1);
+    }
+
+    public void incrementBy(String key, long delta) {
+        add(new Target(key, null), delta);
+    }
+
+    public void hincrementBy(String key, String field, long delta) {
+        add(new Target(key, field), delta);
+    }
+
+    public CounterMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * 지금 까지 모인 증감량을 파이프라인으로 보내고 응답을 기다린다. 동시에 하나의 flush 만 실행 된다.
+     */
+    public synchronized void flush() {
+        pendingUpdates.set(0);
+        List<Target> targets = new ArrayList<>();
+        List<Long> amounts = new ArrayList<>();
+        deltas.forEach((target, adder) -> {
+            long amount = adder.sumThenReset();
+            if (amount != 0) {
+                targets.add(target);
+                amounts.add(amount);
+            } else if (deltas.remove(target, adder)) {
+                // 지우기 직전에 더해진 값은 새 adder 로 옮긴다
+                move(target, adder);
+            }
+        });
+        if (targets.isEmpty()) {
+            return;
+        }
+        // 되돌리기가 끝난 뒤에 돌아오도록 명령 대신 콜백 까지 기다린다
+        List<Future<?>> futures = new ArrayList<>(targets.size());
+        RuntimeException failure = null;
+        try (PipelinedConnection pipeline = pool.pipelined(pipelineSize)) {
+            for (int i = 0; i < targets.size(); i++) {
+                Target target = targets.get(i);
+                long amount = amounts.get(i);
+                RedisFuture<Long> future = target.field() == null
+                        ? pipeline.submit(commands -> commands.incrby(target.key(), amount))
+                        : pipeline.submit(commands -> commands.hincrby(target.key(), target.field(), amount));
+                futures.add(future.whenComplete((result, error) -> {
+                    if (error instanceof RedisCommandExecutionException) {
+                        restore(target, amount);
+                    } else if (error != null) {
+                        metrics.commandUnconfirmed();
+                    }
+                }).toCompletableFuture());
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (int i = futures.size(); i < targets.size(); i++) {
+            restore(targets.get(i), amounts.get(i));
+        }
+        metrics.flushed(futures.size());
+        if (!LettuceFutures.awaitAll(commandTimeout, futures.toArray(Future<?>[]::new))) {
+            throw new RedisCommandTimeoutException("counter flush did not complete within " + commandTimeout);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(commandTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        SharedClientResources.removeBeforeShutdown(shutdownFlush);
+    }
+
+    private void add(Target target, long delta) {
+        if (closed) {
+            throw new IllegalStateException("counter is closed");
+        }
+        addTo(target, delta);
+        metrics.updated();
+        if (pendingUpdates.incrementAndGet() == maxPendingUpdates) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ignored) {
+            // 보내지 못한 증감량은 로컬에 남아 있으므로 다음 flush 에서 다시 시도 한다
+        }
+    }
+
+    /**
+     * flush 는 한 번 비어 있던 adder 를 지우므로 시간 단위 키 처럼 계속 바뀌는 키도 맵에 쌓이지 않는다.
+     * 가져온 adder 가 더한 직후 지워졌다면 더한 값을 새 adder 로 옮긴다.
+     */
+    private void addTo(Target target, long delta) {
+        LongAdder adder = deltas.computeIfAbsent(target, key -> new LongAdder());
+        adder.add(delta);
+        if (deltas.get(target) != adder) {
+            move(target, adder);
+        }
+    }
+
+    /**
+     * 맵 에서 지워진 adder 에 남은 값을 옮긴다. flush 와 add 가 동시에 옮겨도 sumThenReset 이 값을 한 번만 돌려 준다.
+     */
+    private void move(Target target, LongAdder removed) {
+        long late = removed.sumThenReset();
+        if (late != 0) {
+            addTo(target, late);
+        }
+    }
+
+    /**
+     * 적용 되지 않은 증감량을 되돌려 다음 flush 에서 다시 보낸다. 그 사이 flush 가 빈 adder 를 지웠을 수 있으므로 새로 만든다.
+     */
+    private void restore(Target target, long amount) {
+        addTo(target, amount);
+        metrics.commandFailed();
+    }
+
+    int trackedTargets() {
+        return deltas.size();
+    }
+
+    public static class Builder {
+
+        private final RedisConnectionPool pool;
+        private long maxPendingUpdates = 10_000;
+        private Duration maxStaleness = Duration.ofMillis(100);
+        private Duration commandTimeout = Duration.ofSeconds(5);
+        private int pipelineSize = 1_000;
+
+        private Builder(RedisConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        /**
+         * 이 만큼의 증감이 쌓이면 주기를 기다리지 않고 flush 한다.
+         */
+        public Builder maxPendingUpdates(long maxPendingUpdates) {
+            if (maxPendingUpdates < 1) {
+                throw new IllegalArgumentException("maxPendingUpdates must be positive: " + maxPendingUpdates);
+            }
+            this.maxPendingUpdates = maxPendingUpdates;
+            return this;
+        }
+
+        /**
+         * 증감이 로컬에 머무를 수 있는 최대 시간. 이 주기로 flush 한다.
+         */
+        public Builder maxStaleness(Duration maxStaleness) {
+            if (maxStaleness.isZero() || maxStaleness.isNegative()) {
+                throw new IllegalArgumentException("maxStaleness must be positive: " + maxStaleness);
+            }
+            this.maxStaleness = maxStaleness;
+            return this;
+        }
+
+        public Builder commandTimeout(Duration commandTimeout) {
+            this.commandTimeout = commandTimeout;
+            return this;
+        }
+
+        /**
+         * flush 할 때 한 번에 전송 하는 명령 수.
+         */
+        public Builder pipelineSize(int pipelineSize) {
+            this.pipelineSize = pipelineSize;
+            return this;
+        }
+
+        public BatchedCounter build() {
+            return new BatchedCounter(this);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package royce.redis.counter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BatchedCounter 지표.
+ * 호출된 증감 횟수와 실제로 Redis 에 보낸 INCRBY/HINCRBY 명령 수, flush 횟수를 비교해 왕복이 얼마나 줄었는지 확인 한다.
+ */
+public class CounterMetrics {
+
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder commandsSent = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failedCommands = new LongAdder();
+    private final LongAdder unconfirmedCommands = new LongAdder();
+
+    void updated() {
+        updates.increment();
+    }
+
+    void flushed(int commands) {
+        flushes.increment();
+        commandsSent.add(commands);
+    }
+
+    void commandFailed() {
+        failedCommands.increment();
+    }
+
+    void commandUnconfirmed() {
+        unconfirmedCommands.increment();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(updates.sum(), commandsSent.sum(), flushes.sum(), failedCommands.sum(),
+                unconfirmedCommands.sum());
+    }
+
+    /**
+     * @param failedCommandCount      적용 되지 않은 것이 확실 해서 다시 보낸 명령 수
+     * @param unconfirmedCommandCount timeout 이나 연결 끊김 으로 적용 여부를 모르는 명령 수. 두 번 더하지 않도록 다시 보내지 않는다
+     */
+    public record Snapshot(
+            long updateCount,
+            long commandCount,
+            long flushCount,
+            long failedCommandCount,
+            long unconfirmedCommandCount
+    ) {
+    }
+}
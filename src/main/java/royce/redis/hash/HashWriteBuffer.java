@@ -0,0 +1,403 @@
+package royce.redis.hash;
+
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisCommandInterruptedException;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import royce.redis.connection.PipelinedConnection;
+import royce.redis.connection.RedisConnectionPool;
+import royce.redis.connection.SharedClientResources;
+
+/**
+ * 해시 필드 쓰기를 키 마다 로컬에 합쳐 두었다가 파이프라인으로 한 번에 보내는 write-behind 버퍼.
+ * HSET 은 마지막 값만, HINCRBY 는 증감량의 합만 남기고, HSETNX 는 같은 필드에 앞선 쓰기가 있으면 버린다.
+ * 키 하나는 HSET 한 번, 필드 별 HSETNX, 필드 별 HINCRBY 순서로 보내며, 이 순서로 보내면 호출 순서대로 보낸 것과 결과가 같다.
+ * maxPendingFields 개의 필드가 쌓이거나 maxStaleness 가 지나면 flush 한다. 보내는 중인 필드를 포함해 capacity 개가 차면
+ * Redis 가 따라 올 때 까지 쓰기를 막으므로(backpressure) 메모리는 capacity 로 제한 된다.
+ * 커넥션을 얻지 못하는 등 보내지 못한 명령은 batch 단위로 원래 순서를 지켜 버퍼에 되돌리고, 그 뒤에 쌓인 쓰기를 그 위에 다시 적용 한다.
+ * timeout 이나 연결 끊김 으로 응답을 받지 못한 명령은 서버에 적용 되었을 수 있으므로 다시 보내지 않고 unconfirmed 로 센다.
+ * HINCRBY 를 다시 보내면 두 번 더해질 수 있고, HSET 을 다시 보내면 늦게 도착한 원래 명령과 순서가 뒤바뀔 수 있기 때문 이다.
+ */
+public class HashWriteBuffer implements AutoCloseable {
+
+    private final RedisConnectionPool pool;
+    private final long maxPendingFields;
+    private final long capacity;
+    private final Duration backpressureTimeout;
+    private final Duration commandTimeout;
+    private final int pipelineSize;
+    private final Object flushLock = new Object();
+    private final HashWriteMetrics metrics = new HashWriteMetrics();
+    private final ScheduledExecutorService scheduler;
+    private final Runnable shutdownFlush = this::flush;
+    private Map<String, Pending> pending = new LinkedHashMap<>();
+    private long bufferedFields;
+    private long inFlightFields;
+    private boolean flushRequested;
+    private volatile boolean closed;
+
+    /**
+     * 키 하나에 쌓인 쓰기. 같은 필드가 sets 와 setnx 에 함께 있지 않고, increments 는 항상 sets/setnx 보다 나중의 쓰기 이다.
+     */
+    private static final class Pending {
+
+        final Map<String, String> sets = new LinkedHashMap<>();
+        final Map<String, String> setnx = new LinkedHashMap<>();
+        final Map<String, Long> increments = new LinkedHashMap<>();
+
+        void hset(String field, String value) {
+            setnx.remove(field);
+            increments.remove(field);
+            sets.put(field, value);
+        }
+
+        /**
+         * 앞선 HSET/HINCRBY 가 필드를 만들거나 앞선 HSETNX 가 먼저 적용 되므로 버린다.
+         */
+        void hsetnx(String field, String value) {
+            if (!sets.containsKey(field) && !setnx.containsKey(field) && !increments.containsKey(field)) {
+                setnx.put(field, value);
+            }
+        }
+
+        void hincrby(String field, long delta) {
+            increments.merge(field, delta, Long::sum);
+        }
+
+        /**
+         * later 의 쓰기를 이 쓰기 다음에 일어난 것 으로 적용 한다.
+         */
+        void replay(Pending later) {
+            later.sets.forEach(this::hset);
+            later.setnx.forEach(this::hsetnx);
+            later.increments.forEach(this::hincrby);
+        }
+
+        int size() {
+            return sets.size() + setnx.size() + increments.size();
+        }
+    }
+
+    /**
+     * 보낸 명령 하나와, 실패 했을 때 버퍼에 되돌릴 쓰기.
+     */
+    private record Command(String key, int fields, Pending writes,
+                           Function<RedisAsyncCommands<String, String>, RedisFuture<?>> send) {
+    }
+
+    private HashWriteBuffer(Builder builder) {
+        this.pool = builder.pool;
+        this.maxPendingFields = builder.maxPendingFields;
+        this.capacity = Math.max(builder.capacity, builder.maxPendingFields);
+        this.backpressureTimeout = builder.backpressureTimeout;
+        this.commandTimeout = builder.commandTimeout;
+        this.pipelineSize = builder.pipelineSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hash-write-buffer-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long stalenessNanos = builder.maxStaleness.toNanos();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, stalenessNanos, stalenessNanos, TimeUnit.NANOSECONDS);
+        SharedClientResources.beforeShutdown(shutdownFlush);
+    }
+
+    public static Builder builder(RedisConnectionPool pool) {
+        return new Builder(pool);
+    }
+
+    public void hset(String key, String field, String value) {
+        write(key, writes -> writes.hset(field, value));
+    }
+
+    public void hset(String key, Map<String, String> values) {
+        write(key, writes -> values.forEach(writes::hset));
+    }
+
+    /**
+     * 필드가 없을 때만 쓴다. 결과는 flush 할 때 정해지므로 적용 여부를 돌려 주지 않는다.
+     */
+    public void hsetnx(String key, String field, String value) {
+        write(key, writes -> writes.hsetnx(field, value));
+    }
+
+    public void hincrby(String key, String field, long delta) {
+        write(key, writes -> writes.hincrby(field, delta));
+    }
+
+    /**
+     * 보내지 않은 필드 수. 보내는 중인 필드는 포함 하지 않는다.
+     */
+    public synchronized long pendingFields() {
+        return bufferedFields;
+    }
+
+    public HashWriteMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * 지금 까지 모인 쓰기를 파이프라인으로 보내고 응답을 기다린다. 동시에 하나의 flush 만 실행 된다.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<String, Pending> batch;
+            synchronized (this) {
+                batch = pending;
+                pending = new LinkedHashMap<>();
+                inFlightFields += bufferedFields;
+                bufferedFields = 0;
+                flushRequested = false;
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Command> commands = commands(batch);
+            // 콜백이 끝난 뒤에 돌아오도록 명령 대신 콜백 까지 기다린다
+            List<Future<?>> futures = new ArrayList<>(commands.size());
+            RuntimeException failure = null;
+            try (PipelinedConnection pipeline = pool.pipelined(pipelineSize)) {
+                for (Command command : commands) {
+                    RedisFuture<?> future = pipeline.submit(command.send()::apply);
+                    futures.add(future.whenComplete((result, error) -> completed(command, error)).toCompletableFuture());
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            restore(commands.subList(futures.size(), commands.size()));
+            metrics.flushed(futures.size());
+            if (failure != null) {
+                throw failure;
+            }
+            if (!LettuceFutures.awaitAll(commandTimeout, futures.toArray(Future<?>[]::new))) {
+                throw new RedisCommandTimeoutException("hash writes did not complete within " + commandTimeout);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(commandTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        SharedClientResources.removeBeforeShutdown(shutdownFlush);
+    }
+
+    private void write(String key, Consumer<Pending> write) {
+        if (closed) {
+            throw new IllegalStateException("hash write buffer is closed");
+        }
+        boolean requestFlush;
+        synchronized (this) {
+            awaitCapacity();
+            Pending writes = pending.computeIfAbsent(key, k -> new Pending());
+            int before = writes.size();
+            write.accept(writes);
+            bufferedFields += writes.size() - before;
+            requestFlush = bufferedFields >= maxPendingFields && !flushRequested;
+            if (requestFlush) {
+                flushRequested = true;
+            }
+        }
+        metrics.written();
+        if (requestFlush) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * 보내는 중인 필드를 포함해 capacity 개가 차 있으면 flush 를 요청 하고 자리가 날 때 까지 기다린다.
+     */
+    private void awaitCapacity() {
+        if (bufferedFields + inFlightFields < capacity) {
+            return;
+        }
+        metrics.waited();
+        if (!flushRequested) {
+            flushRequested = true;
+            scheduler.execute(this::flushQuietly);
+        }
+        long deadline = System.nanoTime() + backpressureTimeout.toNanos();
+        while (bufferedFields + inFlightFields >= capacity) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new RedisCommandTimeoutException("hash write buffer did not drain within " + backpressureTimeout);
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RedisCommandInterruptedException(e);
+            }
+        }
+    }
+
+    private static List<Command> commands(Map<String, Pending> batch) {
+        List<Command> commands = new ArrayList<>();
+        batch.forEach((key, writes) -> {
+            if (!writes.sets.isEmpty()) {
+                Map<String, String> values = new LinkedHashMap<>(writes.sets);
+                Pending retry = new Pending();
+                values.forEach(retry::hset);
+                commands.add(new Command(key, values.size(), retry, async -> async.hset(key, values)));
+            }
+            writes.setnx.forEach((field, value) -> {
+                Pending retry = new Pending();
+                retry.hsetnx(field, value);
+                commands.add(new Command(key, 1, retry, async -> async.hsetnx(key, field, value)));
+            });
+            writes.increments.forEach((field, delta) -> {
+                Pending retry = new Pending();
+                retry.hincrby(field, delta);
+                commands.add(new Command(key, 1, retry, async -> async.hincrby(key, field, delta)));
+            });
+        });
+        return commands;
+    }
+
+    /**
+     * 명령 하나가 끝났다. 서버 오류는 다시 보내도 같으므로 버리고, 응답을 받지 못한 명령은 적용 여부를 모르므로 세기만 한다.
+     */
+    private synchronized void completed(Command command, Throwable error) {
+        inFlightFields -= command.fields();
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RedisCommandExecutionException) {
+            metrics.dropped();
+        } else if (cause != null) {
+            metrics.unconfirmed();
+        }
+        notifyAll();
+    }
+
+    /**
+     * 보내지 못한 명령들을 한 번에 되돌린다. 키 마다 명령 순서 대로 다시 쌓은 뒤 그 사이 새로 쌓인 쓰기를 그 위에 적용 하므로,
+     * 같은 필드의 HSET 과 HINCRBY 가 함께 되돌아 와도 HINCRBY 가 사라지지 않는다.
+     */
+    private synchronized void restore(List<Command> unsent) {
+        if (unsent.isEmpty()) {
+            return;
+        }
+        Map<String, Pending> retries = new LinkedHashMap<>();
+        for (Command command : unsent) {
+            inFlightFields -= command.fields();
+            retries.computeIfAbsent(command.key(), key -> new Pending()).replay(command.writes());
+            metrics.retried();
+        }
+        retries.forEach((key, retry) -> {
+            Pending later = pending.remove(key);
+            int before = later == null ? 0 : later.size();
+            if (later != null) {
+                retry.replay(later);
+            }
+            bufferedFields += retry.size() - before;
+        });
+        // 되돌린 키를 앞에 두어 다음 flush 에서도 먼저 보낸다
+        retries.putAll(pending);
+        pending = retries;
+        notifyAll();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ignored) {
+            // 보내지 못한 쓰기는 버퍼에 남아 있으므로 다음 flush 에서 다시 시도 한다
+        }
+    }
+
+    public static class Builder {
+
+        private final RedisConnectionPool pool;
+        private long maxPendingFields = 10_000;
+        private long capacity = 100_000;
+        private Duration maxStaleness = Duration.ofMillis(100);
+        private Duration backpressureTimeout = Duration.ofSeconds(5);
+        private Duration commandTimeout = Duration.ofSeconds(5);
+        private int pipelineSize = 1_000;
+
+        private Builder(RedisConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        /**
+         * 이 만큼의 필드가 쌓이면 주기를 기다리지 않고 flush 한다.
+         */
+        public Builder maxPendingFields(long maxPendingFields) {
+            if (maxPendingFields < 1) {
+                throw new IllegalArgumentException("maxPendingFields must be positive: " + maxPendingFields);
+            }
+            this.maxPendingFields = maxPendingFields;
+            return this;
+        }
+
+        /**
+         * 보내는 중인 필드를 포함해 버퍼가 가질 수 있는 최대 필드 수. 가득 차면 쓰기가 기다린다.
+         * maxPendingFields 보다 작으면 maxPendingFields 를 사용 한다.
+         */
+        public Builder capacity(long capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("capacity must be positive: " + capacity);
+            }
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * 쓰기가 로컬에 머무를 수 있는 최대 시간. 이 주기로 flush 한다.
+         */
+        public Builder maxStaleness(Duration maxStaleness) {
+            if (maxStaleness.isZero() || maxStaleness.isNegative()) {
+                throw new IllegalArgumentException("maxStaleness must be positive: " + maxStaleness);
+            }
+            this.maxStaleness = maxStaleness;
+            return this;
+        }
+
+        /**
+         * 버퍼가 가득 찼을 때 쓰기가 기다리는 최대 시간. 지나면 RedisCommandTimeoutException 을 던진다.
+         */
+        public Builder backpressureTimeout(Duration backpressureTimeout) {
+            this.backpressureTimeout = backpressureTimeout;
+            return this;
+        }
+
+        public Builder commandTimeout(Duration commandTimeout) {
+            this.commandTimeout = commandTimeout;
+            return this;
+        }
+
+        /**
+         * flush 할 때 한 번에 전송 하는 명령 수.
+         */
+        public Builder pipelineSize(int pipelineSize) {
+            this.pipelineSize = pipelineSize;
+            return this;
+        }
+
+        public HashWriteBuffer build() {
+            return new HashWriteBuffer(this);
+        }
+    }
+}
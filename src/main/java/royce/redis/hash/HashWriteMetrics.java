@@ -0,0 +1,65 @@
+package royce.redis.hash;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HashWriteBuffer 지표.
+ * 호출된 쓰기 수와 실제로 보낸 HSET/HSETNX/HINCRBY 명령 수를 비교해 얼마나 합쳐 졌는지 보고,
+ * 버퍼가 가득 차서 쓰기가 기다린 횟수로 Redis 가 느려진 구간을 찾는다.
+ */
+public class HashWriteMetrics {
+
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder commandsSent = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder retriedCommands = new LongAdder();
+    private final LongAdder droppedCommands = new LongAdder();
+    private final LongAdder unconfirmedCommands = new LongAdder();
+    private final LongAdder backpressureWaits = new LongAdder();
+
+    void written() {
+        writes.increment();
+    }
+
+    void flushed(int commands) {
+        flushes.increment();
+        commandsSent.add(commands);
+    }
+
+    void retried() {
+        retriedCommands.increment();
+    }
+
+    void dropped() {
+        droppedCommands.increment();
+    }
+
+    void unconfirmed() {
+        unconfirmedCommands.increment();
+    }
+
+    void waited() {
+        backpressureWaits.increment();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(writes.sum(), commandsSent.sum(), flushes.sum(), retriedCommands.sum(),
+                droppedCommands.sum(), unconfirmedCommands.sum(), backpressureWaits.sum());
+    }
+
+    /**
+     * @param retriedCommandCount     커넥션을 얻지 못하는 등 보내지 못해서 다음 flush 로 미룬 명령 수
+     * @param droppedCommandCount     서버가 오류로 응답 해서 버린 명령 수. 다시 보내도 같은 오류가 나므로 재시도 하지 않는다
+     * @param unconfirmedCommandCount timeout 이나 연결 끊김 으로 적용 여부를 모르는 명령 수. 두 번 적용 하지 않도록 재시도 하지 않는다
+     */
+    public record Snapshot(
+            long writeCount,
+            long commandCount,
+            long flushCount,
+            long retriedCommandCount,
+            long droppedCommandCount,
+            long unconfirmedCommandCount,
+            long backpressureWaitCount
+    ) {
+    }
+}
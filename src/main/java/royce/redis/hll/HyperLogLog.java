@@ -0,0 +1,311 @@
+package royce.redis.hll;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Redis 와 같은 방식으로 동작 하는 HyperLogLog.
+ * 레지스터 16384 개(P=14), 6 bit 레지스터, MurmurHash64A(seed 0xadc83b19) 를 사용 하므로
+ * 같은 원소를 넣으면 Redis 의 PFADD 와 같은 레지스터 값이 되고, toBytes 결과는 Redis 가 HLL 로 인식 하는 문자열(HYLL)이다.
+ * 로컬에서 원소를 모은 뒤 SET 하고 서버에서 PFMERGE 하면 원소 마다 PFADD 를 보내지 않아도 된다.
+ * 스레드 안전 하지 않다.
+ */
+public final class HyperLogLog {
+
+    static final int P = 14;
+    static final int Q = 64 - P;
+    static final int REGISTERS = 1 << P;
+    static final int BITS = 6;
+    static final int REGISTER_MAX = (1 << BITS) - 1;
+    static final int HEADER_SIZE = 16;
+    static final int DENSE_SIZE = HEADER_SIZE + (REGISTERS * BITS + 7) / 8;
+    static final int SPARSE_MAX_BYTES = 3000;
+
+    private static final byte[] MAGIC = {'H', 'Y', 'L', 'L'};
+    private static final byte DENSE = 0;
+    private static final byte SPARSE = 1;
+    private static final long SEED = 0xadc83b19L;
+    private static final int SPARSE_VAL_MAX_VALUE = 32;
+    private static final int SPARSE_VAL_MAX_LEN = 4;
+    private static final int SPARSE_ZERO_MAX_LEN = 64;
+    private static final int SPARSE_XZERO_MAX_LEN = 16384;
+    private static final double ALPHA_INF = 0.721347520444481703680;
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    /**
+     * 원소를 추가 한다.
+     *
+     * @return 레지스터 값이 바뀌었으면 true
+     */
+    public boolean add(byte[] element) {
+        long hash = murmurHash64A(element, SEED);
+        int index = (int) (hash & (REGISTERS - 1));
+        int count = Long.numberOfTrailingZeros((hash >>> P) | (1L << Q)) + 1;
+        if (registers[index] >= count) {
+            return false;
+        }
+        registers[index] = (byte) count;
+        return true;
+    }
+
+    /**
+     * 원소를 UTF-8 로 인코딩 해서 추가 한다. Lettuce 의 기본 String 코덱과 같은 바이트가 된다.
+     */
+    public boolean add(String element) {
+        return add(element.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 두 HLL 의 합집합. 레지스터 마다 큰 값을 취한다.
+     *
+     * @return 레지스터 값이 바뀌었으면 true
+     */
+    public boolean merge(HyperLogLog other) {
+        boolean changed = false;
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Redis 5 이후 PFCOUNT 가 사용 하는 추정식(Otmar Ertl 의 개선된 추정)으로 카디널리티를 계산 한다.
+     */
+    public long cardinality() {
+        int[] histogram = new int[Q + 2];
+        for (byte register : registers) {
+            histogram[register]++;
+        }
+        double m = REGISTERS;
+        double z = m * tau((m - histogram[Q + 1]) / m);
+        for (int j = Q; j >= 1; --j) {
+            z += histogram[j];
+            z *= 0.5;
+        }
+        z += m * sigma(histogram[0] / m);
+        return Math.round(ALPHA_INF * m * m / z);
+    }
+
+    /**
+     * sparse 로 표현 할 수 있으면 sparse, 아니면 dense 인코딩 바이트. Redis 가 그대로 HLL 로 읽을 수 있다.
+     */
+    public byte[] toBytes() {
+        byte[] sparse = toSparseBytes();
+        return sparse != null ? sparse : toDenseBytes();
+    }
+
+    public byte[] toDenseBytes() {
+        byte[] bytes = header(DENSE_SIZE, DENSE);
+        for (int i = 0; i < REGISTERS; i++) {
+            setDenseRegister(bytes, i, registers[i]);
+        }
+        return bytes;
+    }
+
+    /**
+     * @return 레지스터 값이 sparse 로 표현 할 수 있는 범위(32)를 넘거나 hll-sparse-max-bytes(3000) 보다 커지면 null
+     */
+    public byte[] toSparseBytes() {
+        byte[] buffer = new byte[SPARSE_MAX_BYTES];
+        int length = HEADER_SIZE;
+        int index = 0;
+        while (index < REGISTERS) {
+            int value = registers[index];
+            int run = 1;
+            while (index + run < REGISTERS && registers[index + run] == value) {
+                run++;
+            }
+            index += run;
+            if (value > SPARSE_VAL_MAX_VALUE) {
+                return null;
+            }
+            while (run > 0) {
+                int needed = value == 0 && run > SPARSE_ZERO_MAX_LEN ? 2 : 1;
+                if (length + needed > SPARSE_MAX_BYTES) {
+                    return null;
+                }
+                if (value == 0 && run > SPARSE_ZERO_MAX_LEN) {
+                    int len = Math.min(run, SPARSE_XZERO_MAX_LEN);
+                    buffer[length++] = (byte) (0x40 | ((len - 1) >>> 8));
+                    buffer[length++] = (byte) (len - 1);
+                    run -= len;
+                } else if (value == 0) {
+                    buffer[length++] = (byte) (run - 1);
+                    run = 0;
+                } else {
+                    int len = Math.min(run, SPARSE_VAL_MAX_LEN);
+                    buffer[length++] = (byte) (0x80 | ((value - 1) << 2) | (len - 1));
+                    run -= len;
+                }
+            }
+        }
+        byte[] bytes = header(length, SPARSE);
+        System.arraycopy(buffer, HEADER_SIZE, bytes, HEADER_SIZE, length - HEADER_SIZE);
+        return bytes;
+    }
+
+    /**
+     * Redis 의 HLL 문자열(dense 또는 sparse)을 읽는다.
+     *
+     * @throws IllegalArgumentException HLL 형식이 아닌 경우
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (!hasHeader(bytes)) {
+            throw new IllegalArgumentException("not a valid HyperLogLog string value");
+        }
+        HyperLogLog hll = new HyperLogLog();
+        if (bytes[4] == DENSE) {
+            if (bytes.length != DENSE_SIZE) {
+                throw new IllegalArgumentException("invalid dense HyperLogLog length: " + bytes.length);
+            }
+            for (int i = 0; i < REGISTERS; i++) {
+                hll.registers[i] = (byte) denseRegister(bytes, i);
+            }
+            return hll;
+        }
+        int index = 0;
+        int position = HEADER_SIZE;
+        while (position < bytes.length) {
+            int opcode = bytes[position] & 0xff;
+            if ((opcode & 0xc0) == 0) {
+                index += (opcode & 0x3f) + 1;
+                position++;
+            } else if ((opcode & 0xc0) == 0x40) {
+                if (position + 1 >= bytes.length) {
+                    throw new IllegalArgumentException("truncated sparse HyperLogLog");
+                }
+                index += (((opcode & 0x3f) << 8) | (bytes[position + 1] & 0xff)) + 1;
+                position += 2;
+            } else {
+                int value = ((opcode >>> 2) & 0x1f) + 1;
+                int len = (opcode & 0x03) + 1;
+                if (index + len > REGISTERS) {
+                    throw new IllegalArgumentException("sparse HyperLogLog overflows registers");
+                }
+                for (int i = 0; i < len; i++) {
+                    hll.registers[index++] = (byte) value;
+                }
+                position++;
+            }
+            if (index > REGISTERS) {
+                throw new IllegalArgumentException("sparse HyperLogLog overflows registers");
+            }
+        }
+        if (index != REGISTERS) {
+            throw new IllegalArgumentException("sparse HyperLogLog does not cover all registers");
+        }
+        return hll;
+    }
+
+    /**
+     * HYLL 헤더와 알려진 인코딩을 가진 문자열 인지 확인 한다. 레지스터 내용은 검사 하지 않는다.
+     */
+    public static boolean hasHeader(byte[] bytes) {
+        return bytes.length >= HEADER_SIZE
+                && bytes[0] == MAGIC[0] && bytes[1] == MAGIC[1] && bytes[2] == MAGIC[2] && bytes[3] == MAGIC[3]
+                && (bytes[4] == DENSE || bytes[4] == SPARSE);
+    }
+
+    /**
+     * Redis 의 MurmurHash64A. 8 바이트 블록을 little-endian 으로 읽는다.
+     */
+    static long murmurHash64A(byte[] data, long seed) {
+        final long m = 0xc6a4a7935bd1e995L;
+        final int r = 47;
+        int length = data.length;
+        long h = seed ^ (length * m);
+        int blocks = length - (length & 7);
+        for (int i = 0; i < blocks; i += 8) {
+            long k = (data[i] & 0xffL)
+                    | (data[i + 1] & 0xffL) << 8
+                    | (data[i + 2] & 0xffL) << 16
+                    | (data[i + 3] & 0xffL) << 24
+                    | (data[i + 4] & 0xffL) << 32
+                    | (data[i + 5] & 0xffL) << 40
+                    | (data[i + 6] & 0xffL) << 48
+                    | (data[i + 7] & 0xffL) << 56;
+            k *= m;
+            k ^= k >>> r;
+            k *= m;
+            h ^= k;
+            h *= m;
+        }
+        int tail = length & 7;
+        if (tail > 0) {
+            for (int i = tail - 1; i >= 0; i--) {
+                h ^= (data[blocks + i] & 0xffL) << (8 * i);
+            }
+            h *= m;
+        }
+        h ^= h >>> r;
+        h *= m;
+        h ^= h >>> r;
+        return h;
+    }
+
+    /**
+     * 헤더의 캐시된 카디널리티는 무효(card[7] 의 최상위 bit)로 표시 해서 Redis 가 처음 PFCOUNT 할 때 다시 계산 하게 한다.
+     */
+    private static byte[] header(int length, byte encoding) {
+        byte[] bytes = new byte[length];
+        System.arraycopy(MAGIC, 0, bytes, 0, MAGIC.length);
+        bytes[4] = encoding;
+        bytes[15] = (byte) 0x80;
+        return bytes;
+    }
+
+    private static int denseRegister(byte[] bytes, int index) {
+        int bit = index * BITS;
+        int position = HEADER_SIZE + bit / 8;
+        int shift = bit & 7;
+        int b0 = bytes[position] & 0xff;
+        int b1 = position + 1 < bytes.length ? bytes[position + 1] & 0xff : 0;
+        return ((b0 >>> shift) | (b1 << (8 - shift))) & REGISTER_MAX;
+    }
+
+    private static void setDenseRegister(byte[] bytes, int index, int value) {
+        int bit = index * BITS;
+        int position = HEADER_SIZE + bit / 8;
+        int shift = bit & 7;
+        bytes[position] = (byte) ((bytes[position] & ~(REGISTER_MAX << shift)) | (value << shift));
+        if (position + 1 < bytes.length) {
+            int shift8 = 8 - shift;
+            bytes[position + 1] = (byte) ((bytes[position + 1] & ~(REGISTER_MAX >>> shift8)) | (value >>> shift8));
+        }
+    }
+
+    private static double sigma(double x) {
+        if (x == 1.0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double zPrime;
+        double y = 1;
+        double z = x;
+        do {
+            x *= x;
+            zPrime = z;
+            z += x * y;
+            y += y;
+        } while (zPrime != z);
+        return z;
+    }
+
+    private static double tau(double x) {
+        if (x == 0.0 || x == 1.0) {
+            return 0.0;
+        }
+        double zPrime;
+        double y = 1.0;
+        double z = 1 - x;
+        do {
+            x = Math.sqrt(x);
+            zPrime = z;
+            y *= 0.5;
+            z -= Math.pow(1 - x, 2) * y;
+        } while (zPrime != z);
+        return z / 3;
+    }
+}
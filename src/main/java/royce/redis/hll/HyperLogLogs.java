@@ -0,0 +1,46 @@
+package royce.redis.hll;
+
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import java.util.UUID;
+
+/**
+ * 로컬에서 모은 HyperLogLog 를 Redis 로 옮기거나 읽어 오는 도구.
+ * HLL 문자열은 바이너리 이므로 값은 byte[] 로 주고 받는 CODEC 커넥션(client.connect(CODEC))을 사용 해야 한다.
+ */
+public final class HyperLogLogs {
+
+    public static final RedisCodec<String, byte[]> CODEC = RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE);
+
+    private static final long UPLOAD_TTL_MILLIS = 60_000;
+
+    private HyperLogLogs() {
+    }
+
+    /**
+     * sketch 를 임시 키에 SET 한 뒤 서버에서 destination 으로 PFMERGE 한다. 원소 수와 상관 없이 3 번의 왕복으로 끝난다.
+     * 임시 키는 중간에 실패 하더라도 남지 않도록 만료 시간을 두고 만든다.
+     */
+    public static void mergeInto(RedisCommands<String, byte[]> commands, String destination, HyperLogLog sketch) {
+        String uploadKey = destination + ":hll-upload:" + UUID.randomUUID();
+        commands.set(uploadKey, sketch.toBytes(), SetArgs.Builder.px(UPLOAD_TTL_MILLIS));
+        try {
+            commands.pfmerge(destination, uploadKey);
+        } finally {
+            commands.del(uploadKey);
+        }
+    }
+
+    /**
+     * 키가 없으면 빈 HLL 을 반환 한다.
+     *
+     * @throws IllegalArgumentException 키의 값이 HLL 이 아닌 경우
+     */
+    public static HyperLogLog load(RedisCommands<String, byte[]> commands, String key) {
+        byte[] bytes = commands.get(key);
+        return bytes == null ? new HyperLogLog() : HyperLogLog.fromBytes(bytes);
+    }
+}
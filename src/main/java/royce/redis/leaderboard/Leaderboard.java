@@ -0,0 +1,573 @@
+package royce.redis.leaderboard;
+
+import io.lettuce.core.Limit;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.LettuceStrings;
+import io.lettuce.core.Range;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScoredValue;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
+import royce.redis.connection.PipelinedConnection;
+import royce.redis.connection.RedisConnectionPool;
+import royce.redis.connection.SharedClientResources;
+import royce.redis.script.LuaScript;
+
+/**
+ * sorted set 기반 리더보드.
+ * 점수 갱신은 멤버 마다 로컬에 합쳐 두었다가(절대 점수는 마지막 값, 증감은 합계) maxPendingUpdates 개가 쌓이거나 maxStaleness 가 지나면
+ * 샤드 마다 여러 멤버를 담은 ZADD 와 멤버 별 ZINCRBY 를 파이프라인으로 보낸다. 오류 응답을 받았거나 보내지 못한 갱신은 다시 로컬에 합쳐 두고
+ * 다음 flush 에서 보낸다. timeout 이나 연결 끊김 으로 적용 여부를 모르는 갱신은 두 번 더하지 않도록 다시 보내지 않는다.
+ * 상위 topCacheSize 명과 멤버 주변 순위는 cacheTtl 동안 로컬에 보관 해서 같은 조회가 서버를 거치지 않게 한다.
+ * 따라서 조회 결과는 최대 maxStaleness + cacheTtl 만큼 늦을 수 있다.
+ * <p>
+ * shards 가 1 보다 크면 멤버를 {name}:{crc32c(member) % shards} 로 나눠 하나의 sorted set 이 너무 커지지 않게 한다.
+ * 샤드가 서로 다른 노드(슬롯)에 있어도 되도록 ZUNIONSTORE 대신 샤드 별 ZREVRANGE 결과를 클라이언트에서 k-way merge 한다.
+ * 같은 점수의 멤버 끼리는 Redis 처럼 멤버 이름 역순으로 정렬 하지만, 다른 샤드의 동점자는 순위를 계산 할 때 뒤에 있는 것으로 본다.
+ */
+public class Leaderboard implements AutoCloseable {
+
+    private static final LuaScript AROUND = LuaScript.fromResource("royce/redis/leaderboard/around.lua");
+    private static final int ZADD_BATCH = 512;
+    private static final int MAX_CACHED_WINDOWS = 10_000;
+    private static final Comparator<ScoredValue<String>> DESCENDING =
+            Comparator.<ScoredValue<String>>comparingDouble(ScoredValue::getScore).reversed()
+                    .thenComparing(ScoredValue::getValue, Comparator.reverseOrder());
+
+    private final RedisConnectionPool pool;
+    private final String name;
+    private final int shards;
+    private final long maxPendingUpdates;
+    private final Duration commandTimeout;
+    private final int pipelineSize;
+    private final int topCacheSize;
+    private final long cacheTtlNanos;
+    private final Map<String, Update> pending = new ConcurrentHashMap<>();
+    private final AtomicLong pendingUpdates = new AtomicLong();
+    private final Map<Window, Cached> windows = new ConcurrentHashMap<>();
+    private final LeaderboardMetrics metrics = new LeaderboardMetrics();
+    private final ScheduledExecutorService scheduler;
+    private final Runnable shutdownFlush = this::flush;
+    private volatile Cached top;
+    private volatile boolean closed;
+
+    /**
+     * @param rank 0 부터 시작 하는 순위. 점수가 높을 수록 앞선다.
+     */
+    public record Entry(long rank, String member, double score) {
+    }
+
+    /**
+     * 멤버 하나에 쌓인 갱신. absolute 이면 ZADD 할 점수, 아니면 ZINCRBY 할 증감량 이다.
+     */
+    private record Update(boolean absolute, double value) {
+
+        /**
+         * 이 갱신 뒤에 next 가 온 것과 같은 효과의 갱신 하나.
+         */
+        Update then(Update next) {
+            return next.absolute ? next : new Update(absolute, value + next.value);
+        }
+    }
+
+    /**
+     * flush 에서 보내는 명령 하나와, 적용 되지 않았을 때 로컬에 되돌릴 갱신.
+     */
+    private record Write(Function<RedisAsyncCommands<String, String>, RedisFuture<?>> send, Runnable restore) {
+    }
+
+    private record Window(String member, int radius) {
+    }
+
+    /**
+     * 주변 순위를 합칠 때의 후보. 다른 샤드의 동점자는 자기 샤드의 멤버 뒤에 둔다.
+     */
+    private record Candidate(ScoredValue<String> value, boolean own) {
+
+        static final Comparator<Candidate> ORDER =
+                Comparator.comparing((Candidate c) -> c.value().getScore(), Comparator.reverseOrder())
+                        .thenComparing(c -> !c.own())
+                        .thenComparing(c -> c.value().getValue(), Comparator.reverseOrder());
+    }
+
+    private record Cached(List<Entry> entries, long expiresAt) {
+
+        boolean expired(long now) {
+            return expiresAt - now <= 0;
+        }
+    }
+
+    private Leaderboard(Builder builder) {
+        this.pool = builder.pool;
+        this.name = builder.name;
+        this.shards = builder.shards;
+        this.maxPendingUpdates = builder.maxPendingUpdates;
+        this.commandTimeout = builder.commandTimeout;
+        this.pipelineSize = builder.pipelineSize;
+        this.topCacheSize = builder.topCacheSize;
+        this.cacheTtlNanos = builder.cacheTtl.toNanos();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leaderboard-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long stalenessNanos = builder.maxStaleness.toNanos();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, stalenessNanos, stalenessNanos, TimeUnit.NANOSECONDS);
+        SharedClientResources.beforeShutdown(shutdownFlush);
+    }
+
+    public static Builder builder(RedisConnectionPool pool, String name) {
+        return new Builder(pool, name);
+    }
+
+    /**
+     * 멤버의 점수를 score 로 정한다. 아직 보내지 않은 증감은 버려진다.
+     */
+    public void setScore(String member, double score) {
+        update(member, new Update(true, score));
+    }
+
+    public void incrementScore(String member, double delta) {
+        update(member, new Update(false, delta));
+    }
+
+    public String shardKey(int shard) {
+        return shards == 1 ? name : name + ":" + shard;
+    }
+
+    public String shardKeyOf(String member) {
+        return shardKey(shardOf(member));
+    }
+
+    public LeaderboardMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * @return 멤버가 없으면 null
+     */
+    public Double score(String member) {
+        return pool.execute(commands -> commands.zscore(shardKeyOf(member), member));
+    }
+
+    /**
+     * 모든 샤드를 합친 순위. 자기 샤드의 ZREVRANK 에 다른 샤드에서 점수가 더 높은 멤버 수(ZCOUNT)를 더한다.
+     *
+     * @return 멤버가 없으면 null
+     */
+    public Long rank(String member) {
+        Double score = score(member);
+        return score == null ? null : rank(member, score);
+    }
+
+    /**
+     * 상위 n 명. n 이 topCacheSize 이하 이면 로컬에 보관 한 상위 목록을 잘라서 돌려 준다.
+     */
+    public List<Entry> top(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be positive: " + n);
+        }
+        if (n > topCacheSize || cacheTtlNanos == 0) {
+            return mergedTop(n);
+        }
+        long now = System.nanoTime();
+        Cached cached = top;
+        if (cached == null || cached.expired(now)) {
+            metrics.cacheMissed();
+            cached = new Cached(List.copyOf(mergedTop(topCacheSize)), now + cacheTtlNanos);
+            top = cached;
+        } else {
+            metrics.cacheHit();
+        }
+        List<Entry> entries = cached.entries();
+        return entries.subList(0, Math.min(n, entries.size()));
+    }
+
+    /**
+     * 멤버의 앞뒤 radius 명 씩을 포함한 순위 구간. cacheTtl 동안 같은 (member, radius) 조회는 로컬 결과를 사용 한다.
+     *
+     * @return 멤버가 없으면 빈 목록
+     */
+    public List<Entry> around(String member, int radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("radius must not be negative: " + radius);
+        }
+        if (cacheTtlNanos == 0) {
+            return loadAround(member, radius);
+        }
+        long now = System.nanoTime();
+        Window window = new Window(member, radius);
+        Cached cached = windows.get(window);
+        if (cached != null && !cached.expired(now)) {
+            metrics.cacheHit();
+            return cached.entries();
+        }
+        metrics.cacheMissed();
+        List<Entry> entries = List.copyOf(loadAround(member, radius));
+        if (windows.size() >= MAX_CACHED_WINDOWS) {
+            windows.values().removeIf(entry -> entry.expired(now));
+            if (windows.size() >= MAX_CACHED_WINDOWS) {
+                windows.clear();
+            }
+        }
+        windows.put(window, new Cached(entries, now + cacheTtlNanos));
+        return entries;
+    }
+
+    /**
+     * 지금 까지 모인 갱신을 파이프라인으로 보내고 응답을 기다린다. 동시에 하나의 flush 만 실행 된다.
+     */
+    public synchronized void flush() {
+        pendingUpdates.set(0);
+        Map<Integer, List<ScoredValue<String>>> absolutes = new HashMap<>();
+        List<ScoredValue<String>> deltas = new ArrayList<>();
+        for (String member : pending.keySet()) {
+            Update update = pending.remove(member);
+            if (update == null) {
+                continue;
+            }
+            if (update.absolute()) {
+                absolutes.computeIfAbsent(shardOf(member), shard -> new ArrayList<>())
+                        .add(ScoredValue.just(update.value(), member));
+            } else if (update.value() != 0) {
+                deltas.add(ScoredValue.just(update.value(), member));
+            }
+        }
+        if (absolutes.isEmpty() && deltas.isEmpty()) {
+            return;
+        }
+        List<Write> writes = new ArrayList<>();
+        absolutes.forEach((shard, values) -> {
+            for (int from = 0; from < values.size(); from += ZADD_BATCH) {
+                List<ScoredValue<String>> batch = values.subList(from, Math.min(values.size(), from + ZADD_BATCH));
+                @SuppressWarnings("unchecked")
+                ScoredValue<String>[] array = batch.toArray(ScoredValue[]::new);
+                writes.add(new Write(commands -> commands.zadd(shardKey(shard), array),
+                        () -> batch.forEach(value -> restore(value.getValue(), new Update(true, value.getScore())))));
+            }
+        });
+        for (ScoredValue<String> delta : deltas) {
+            String member = delta.getValue();
+            writes.add(new Write(commands -> commands.zincrby(shardKeyOf(member), delta.getScore(), member),
+                    () -> restore(member, new Update(false, delta.getScore()))));
+        }
+        // 되돌리기가 끝난 뒤에 돌아오도록 명령 대신 콜백 까지 기다린다
+        List<Future<?>> futures = new ArrayList<>(writes.size());
+        RuntimeException failure = null;
+        try (PipelinedConnection pipeline = pool.pipelined(pipelineSize)) {
+            for (Write write : writes) {
+                RedisFuture<?> future = pipeline.submit(write.send()::apply);
+                futures.add(future.whenComplete((result, error) -> completed(write, error)).toCompletableFuture());
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (Write unsent : writes.subList(futures.size(), writes.size())) {
+            unsent.restore().run();
+        }
+        metrics.flushed(futures.size());
+        if (!LettuceFutures.awaitAll(commandTimeout, futures.toArray(Future<?>[]::new))) {
+            throw new RedisCommandTimeoutException("leaderboard flush did not complete within " + commandTimeout);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(commandTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        SharedClientResources.removeBeforeShutdown(shutdownFlush);
+    }
+
+    int shardOf(String member) {
+        if (shards == 1) {
+            return 0;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(member.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % shards);
+    }
+
+    private void update(String member, Update update) {
+        if (closed) {
+            throw new IllegalStateException("leaderboard is closed");
+        }
+        pending.merge(member, update, Update::then);
+        metrics.updated();
+        if (pendingUpdates.incrementAndGet() == maxPendingUpdates) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * 오류 응답은 서버에 적용 되지 않은 것 이므로 되돌려 다음 flush 에서 보낸다.
+     * timeout 이나 연결 끊김은 적용 되었을 수 있으므로 ZINCRBY 가 두 번 더해지지 않도록 되돌리지 않는다.
+     */
+    private void completed(Write write, Throwable error) {
+        if (error instanceof RedisCommandExecutionException) {
+            write.restore().run();
+            metrics.commandFailed();
+        } else if (error != null) {
+            metrics.commandUnconfirmed();
+        }
+    }
+
+    /**
+     * 실패한 갱신을 그 뒤에 들어온 갱신 앞에 다시 끼워 넣는다.
+     */
+    private void restore(String member, Update failed) {
+        pending.merge(member, failed, (current, restored) -> restored.then(current));
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ignored) {
+            // 보내지 못한 갱신은 로컬에 남아 있으므로 다음 flush 에서 다시 시도 한다
+        }
+    }
+
+    private long rank(String member, double score) {
+        int own = shardOf(member);
+        List<RedisFuture<Long>> futures = new ArrayList<>(shards);
+        try (PipelinedConnection pipeline = pool.pipelined(pipelineSize)) {
+            for (int shard = 0; shard < shards; shard++) {
+                String key = shardKey(shard);
+                futures.add(shard == own
+                        ? pipeline.submit(commands -> commands.zrevrank(key, member))
+                        : pipeline.submit(commands -> commands.zcount(key, above(score))));
+            }
+        }
+        long rank = 0;
+        for (RedisFuture<Long> future : await(futures)) {
+            Long count = future.toCompletableFuture().join();
+            rank += count == null ? 0 : count;
+        }
+        return rank;
+    }
+
+    /**
+     * 샤드 마다 상위 n 명을 가져와 점수 내림차순으로 k-way merge 한다.
+     */
+    private List<Entry> mergedTop(int n) {
+        List<RedisFuture<List<ScoredValue<String>>>> futures = new ArrayList<>(shards);
+        try (PipelinedConnection pipeline = pool.pipelined(pipelineSize)) {
+            for (int shard = 0; shard < shards; shard++) {
+                String key = shardKey(shard);
+                futures.add(pipeline.submit(commands -> commands.zrevrangeWithScores(key, 0, n - 1)));
+            }
+        }
+        List<List<ScoredValue<String>>> lists = new ArrayList<>(shards);
+        for (RedisFuture<List<ScoredValue<String>>> future : await(futures)) {
+            lists.add(future.toCompletableFuture().join());
+        }
+        PriorityQueue<int[]> heads = new PriorityQueue<>(
+                (a, b) -> DESCENDING.compare(lists.get(a[0]).get(a[1]), lists.get(b[0]).get(b[1])));
+        for (int shard = 0; shard < lists.size(); shard++) {
+            if (!lists.get(shard).isEmpty()) {
+                heads.add(new int[]{shard, 0});
+            }
+        }
+        List<Entry> entries = new ArrayList<>(n);
+        while (entries.size() < n && !heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<ScoredValue<String>> list = lists.get(head[0]);
+            ScoredValue<String> value = list.get(head[1]);
+            entries.add(new Entry(entries.size(), value.getValue(), value.getScore()));
+            if (++head[1] < list.size()) {
+                heads.add(head);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 자기 샤드는 순위로 앞뒤 radius 명을, 다른 샤드는 점수로 바로 위 radius 명과 바로 아래 radius 명을 가져와 합친다.
+     * 합친 목록에서 멤버 앞뒤 radius 명은 모든 샤드를 합친 순서와 같다.
+     * 자기 샤드의 순위와 구간은 스크립트 하나로 읽으므로, 그 사이에 flush 가 멤버를 옮겨도 멤버는 항상 구간 안에 있다.
+     * 다른 샤드는 그 뒤에 읽으므로 다른 샤드의 멤버는 조금 늦거나 이른 점수로 섞일 수 있다.
+     */
+    private List<Entry> loadAround(String member, int radius) {
+        String ownKey = shardKeyOf(member);
+        List<Object> result = pool.execute(commands -> AROUND.<List<Object>>execute(commands, ScriptOutputType.MULTI,
+                new String[]{ownKey}, member, String.valueOf(radius)));
+        if (result.isEmpty()) {
+            return List.of();
+        }
+        long ownRank = (Long) result.get(0);
+        List<ScoredValue<String>> ownWindow = new ArrayList<>((result.size() - 1) / 2);
+        for (int i = 1; i < result.size(); i += 2) {
+            ownWindow.add(ScoredValue.just(LettuceStrings.toDouble((String) result.get(i + 1)), (String) result.get(i)));
+        }
+        double score = ownWindow.get((int) (ownRank - Math.max(0, ownRank - radius))).getScore();
+        List<RedisFuture<Long>> counts = new ArrayList<>(shards);
+        List<RedisFuture<List<ScoredValue<String>>>> others = new ArrayList<>();
+        try (PipelinedConnection pipeline = pool.pipelined(pipelineSize)) {
+            for (int shard = 0; shard < shards; shard++) {
+                String key = shardKey(shard);
+                if (key.equals(ownKey)) {
+                    continue;
+                }
+                counts.add(pipeline.submit(commands -> commands.zcount(key, above(score))));
+                if (radius > 0) {
+                    Limit limit = Limit.create(0, radius);
+                    others.add(pipeline.submit(commands -> commands.zrangebyscoreWithScores(key, above(score), limit)));
+                    others.add(pipeline.submit(commands -> commands.zrevrangebyscoreWithScores(key,
+                            Range.from(Range.Boundary.unbounded(), Range.Boundary.including(score)), limit)));
+                }
+            }
+        }
+        List<RedisFuture<?>> all = new ArrayList<>(counts);
+        all.addAll(others);
+        await(all);
+        long rank = ownRank;
+        for (RedisFuture<Long> count : counts) {
+            rank += count.toCompletableFuture().join();
+        }
+        List<Candidate> candidates = new ArrayList<>();
+        ownWindow.forEach(value -> candidates.add(new Candidate(value, true)));
+        others.forEach(future -> future.toCompletableFuture().join()
+                .forEach(value -> candidates.add(new Candidate(value, false))));
+        candidates.sort(Candidate.ORDER);
+        int index = 0;
+        while (!(candidates.get(index).own() && candidates.get(index).value().getValue().equals(member))) {
+            index++;
+        }
+        List<Entry> entries = new ArrayList<>(2 * radius + 1);
+        for (int i = Math.max(0, index - radius); i < Math.min(candidates.size(), index + radius + 1); i++) {
+            ScoredValue<String> value = candidates.get(i).value();
+            entries.add(new Entry(rank + i - index, value.getValue(), value.getScore()));
+        }
+        return entries;
+    }
+
+    private Range<Double> above(double score) {
+        return Range.from(Range.Boundary.excluding(score), Range.Boundary.unbounded());
+    }
+
+    private <T extends RedisFuture<?>> List<T> await(List<T> futures) {
+        if (!LettuceFutures.awaitAll(commandTimeout, futures.toArray(RedisFuture<?>[]::new))) {
+            throw new RedisCommandTimeoutException("leaderboard commands did not complete within " + commandTimeout);
+        }
+        return futures;
+    }
+
+    public static class Builder {
+
+        private final RedisConnectionPool pool;
+        private final String name;
+        private int shards = 1;
+        private long maxPendingUpdates = 10_000;
+        private Duration maxStaleness = Duration.ofMillis(100);
+        private Duration commandTimeout = Duration.ofSeconds(5);
+        private int pipelineSize = 1_000;
+        private int topCacheSize = 100;
+        private Duration cacheTtl = Duration.ofSeconds(1);
+
+        private Builder(RedisConnectionPool pool, String name) {
+            this.pool = pool;
+            this.name = name;
+        }
+
+        /**
+         * 멤버를 나눠 담을 sorted set 수. 이미 데이터가 있는 리더보드의 샤드 수를 바꾸면 멤버가 다른 샤드를 가리키게 된다.
+         */
+        public Builder shards(int shards) {
+            if (shards < 1) {
+                throw new IllegalArgumentException("shards must be positive: " + shards);
+            }
+            this.shards = shards;
+            return this;
+        }
+
+        /**
+         * 이 만큼의 갱신이 쌓이면 주기를 기다리지 않고 flush 한다.
+         */
+        public Builder maxPendingUpdates(long maxPendingUpdates) {
+            if (maxPendingUpdates < 1) {
+                throw new IllegalArgumentException("maxPendingUpdates must be positive: " + maxPendingUpdates);
+            }
+            this.maxPendingUpdates = maxPendingUpdates;
+            return this;
+        }
+
+        /**
+         * 갱신이 로컬에 머무를 수 있는 최대 시간. 이 주기로 flush 한다.
+         */
+        public Builder maxStaleness(Duration maxStaleness) {
+            if (maxStaleness.isZero() || maxStaleness.isNegative()) {
+                throw new IllegalArgumentException("maxStaleness must be positive: " + maxStaleness);
+            }
+            this.maxStaleness = maxStaleness;
+            return this;
+        }
+
+        public Builder commandTimeout(Duration commandTimeout) {
+            this.commandTimeout = commandTimeout;
+            return this;
+        }
+
+        /**
+         * flush 할 때 한 번에 전송 하는 명령 수.
+         */
+        public Builder pipelineSize(int pipelineSize) {
+            this.pipelineSize = pipelineSize;
+            return this;
+        }
+
+        /**
+         * 로컬에 보관 할 상위 목록의 크기. 이 보다 큰 top(n) 은 매번 서버에서 읽는다.
+         */
+        public Builder topCacheSize(int topCacheSize) {
+            if (topCacheSize < 1) {
+                throw new IllegalArgumentException("topCacheSize must be positive: " + topCacheSize);
+            }
+            this.topCacheSize = topCacheSize;
+            return this;
+        }
+
+        /**
+         * 상위 목록과 주변 순위를 로컬에 보관 하는 시간. 0 이면 보관 하지 않는다.
+         */
+        public Builder cacheTtl(Duration cacheTtl) {
+            if (cacheTtl.isNegative()) {
+                throw new IllegalArgumentException("cacheTtl must not be negative: " + cacheTtl);
+            }
+            this.cacheTtl = cacheTtl;
+            return this;
+        }
+
+        public Leaderboard build() {
+            return new Leaderboard(this);
+        }
+    }
+}
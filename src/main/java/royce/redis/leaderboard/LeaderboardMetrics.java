@@ -0,0 +1,63 @@
+package royce.redis.leaderboard;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Leaderboard 지표.
+ * 점수 갱신 호출 수와 실제로 보낸 ZADD/ZINCRBY 명령 수로 얼마나 합쳐 졌는지, 캐시 적중 수로 조회가 얼마나 서버를 거치지 않았는지 확인 한다.
+ */
+public class LeaderboardMetrics {
+
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder commandsSent = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failedCommands = new LongAdder();
+    private final LongAdder unconfirmedCommands = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    void updated() {
+        updates.increment();
+    }
+
+    void flushed(int commands) {
+        flushes.increment();
+        commandsSent.add(commands);
+    }
+
+    void commandFailed() {
+        failedCommands.increment();
+    }
+
+    void commandUnconfirmed() {
+        unconfirmedCommands.increment();
+    }
+
+    void cacheHit() {
+        cacheHits.increment();
+    }
+
+    void cacheMissed() {
+        cacheMisses.increment();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(updates.sum(), commandsSent.sum(), flushes.sum(), failedCommands.sum(),
+                unconfirmedCommands.sum(), cacheHits.sum(), cacheMisses.sum());
+    }
+
+    /**
+     * @param failedCommandCount      오류 응답을 받아 갱신을 되돌린 명령 수
+     * @param unconfirmedCommandCount timeout 이나 연결 끊김 으로 적용 여부를 모르는 명령 수. 두 번 더하지 않도록 다시 보내지 않는다
+     */
+    public record Snapshot(
+            long updateCount,
+            long commandCount,
+            long flushCount,
+            long failedCommandCount,
+            long unconfirmedCommandCount,
+            long cacheHitCount,
+            long cacheMissCount
+    ) {
+    }
+}
@@ -0,0 +1,37 @@
+package royce.redis.load;
+
+import java.time.Duration;
+
+/**
+ * BulkLoader 의 진행 상황 또는 결과.
+ *
+ * @param sentRecords   보낸 레코드 수. 응답을 기다리는 레코드를 포함 한다
+ * @param loadedRecords 서버가 성공 으로 응답한 레코드 수
+ * @param failedRecords 서버가 오류로 응답한 레코드 수. 다른 타입의 값이 이미 있는 키 등 이며, 다시 보내도 같은 오류가 나므로 재시도 하지 않는다
+ * @param batchSize     지금 한 번에 flush 하는 명령 수
+ * @param firstError    처음 실패한 레코드의 키와 오류 메시지. 실패가 없으면 null
+ */
+public record BulkLoadReport(
+        long sentRecords,
+        long loadedRecords,
+        long failedRecords,
+        Duration elapsed,
+        int batchSize,
+        String firstError
+) {
+
+    /**
+     * 응답 받은 레코드 기준의 처리량.
+     */
+    public double recordsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : (loadedRecords + failedRecords) * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d records loaded, %,d failed in %d ms (%,.0f records/s, batch %d)%s",
+                loadedRecords, failedRecords, elapsed.toMillis(), recordsPerSecond(), batchSize,
+                firstError == null ? "" : ", first error: " + firstError);
+    }
+}
@@ -0,0 +1,270 @@
+package royce.redis.load;
+
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisCommandInterruptedException;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import royce.redis.connection.PipelinedConnection;
+import royce.redis.connection.RedisConnectionPool;
+
+/**
+ * 레코드를 읽는 대로 파이프라인 으로 흘려 보내는 대량 적재기. redis-cli --pipe 와 같이 레코드 마다 명령 하나를 보내고 응답을 기다리지 않는다.
+ * 응답을 기다리는 명령은 window 개 까지만 두므로 입력이 1억 건 이어도 메모리 사용량은 window 에 비례 한다.
+ * 한 번에 flush 하는 명령 수(batch)는 batch 의 마지막 응답이 올 때 까지 걸린 시간을 보고 조절 한다.
+ * targetBatchLatency 의 절반 보다 빠르면 두 배로 늘리고, targetBatchLatency 보다 느리면 절반 으로 줄인다.
+ * 앞 batch 의 응답을 기다리는 시간도 지연에 들어가므로, 서버나 네트워크가 밀리면 batch 가 줄어든다.
+ * 하나의 커넥션을 쓰므로 레코드는 입력 순서 대로 적용 된다.
+ */
+public class BulkLoader {
+
+    private final RedisConnectionPool pool;
+    private final int window;
+    private final int initialBatchSize;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long targetBatchLatencyNanos;
+    private final Duration commandTimeout;
+    private final Duration progressInterval;
+    private final Consumer<BulkLoadReport> progress;
+
+    private BulkLoader(Builder builder) {
+        this.pool = builder.pool;
+        this.window = builder.window;
+        this.minBatchSize = Math.min(builder.minBatchSize, builder.window);
+        this.maxBatchSize = Math.max(minBatchSize, Math.min(builder.maxBatchSize, builder.window));
+        this.initialBatchSize = Math.max(minBatchSize, Math.min(builder.initialBatchSize, maxBatchSize));
+        this.targetBatchLatencyNanos = builder.targetBatchLatency.toNanos();
+        this.commandTimeout = builder.commandTimeout;
+        this.progressInterval = builder.progressInterval;
+        this.progress = builder.progress;
+    }
+
+    public static Builder builder(RedisConnectionPool pool) {
+        return new Builder(pool);
+    }
+
+    /**
+     * @see RecordReader#open(Path)
+     */
+    public BulkLoadReport load(Path file) throws IOException {
+        try (RecordReader records = RecordReader.open(file)) {
+            return load(records);
+        }
+    }
+
+    /**
+     * 모든 레코드를 보내고 응답을 다 받으면 돌아온다. 서버 오류로 실패한 레코드는 세기만 하고 계속 진행 하며,
+     * 연결 오류 등 다른 실패가 나면 더 보내지 않고 RedisException 을 던진다.
+     */
+    public BulkLoadReport load(Iterator<? extends BulkRecord> records) {
+        Load load = new Load();
+        try (PipelinedConnection pipeline = pool.pipelined(Integer.MAX_VALUE)) {
+            long nextProgress = System.nanoTime() + progressInterval.toNanos();
+            RedisFuture<?> last = null;
+            int pending = 0;
+            while (records.hasNext()) {
+                load.checkFailure();
+                BulkRecord record = records.next();
+                if (!load.inFlight.tryAcquire()) {
+                    load.flush(pipeline, last, pending, false);
+                    pending = 0;
+                    load.acquire(1);
+                }
+                last = pipeline.submit(commands -> command(commands, record));
+                last.whenComplete((result, error) -> load.completed(record, error));
+                load.sent++;
+                if (++pending >= load.batchSize) {
+                    load.flush(pipeline, last, pending, true);
+                    pending = 0;
+                }
+                if (progress != null && System.nanoTime() >= nextProgress) {
+                    progress.accept(load.report());
+                    nextProgress = System.nanoTime() + progressInterval.toNanos();
+                }
+            }
+            load.flush(pipeline, last, pending, false);
+        }
+        load.acquire(window);
+        load.inFlight.release(window);
+        load.checkFailure();
+        return load.report();
+    }
+
+    private static RedisFuture<?> command(RedisAsyncCommands<String, String> commands, BulkRecord record) {
+        if (record instanceof BulkRecord.StringRecord string) {
+            return commands.set(string.key(), string.value());
+        }
+        if (record instanceof BulkRecord.HashRecord hash) {
+            return commands.hset(hash.key(), hash.fields());
+        }
+        if (record instanceof BulkRecord.ListRecord list) {
+            return commands.rpush(list.key(), list.elements().toArray(String[]::new));
+        }
+        if (record instanceof BulkRecord.SetRecord set) {
+            return commands.sadd(set.key(), set.members().toArray(String[]::new));
+        }
+        if (record instanceof BulkRecord.SortedSetRecord sortedSet) {
+            Object[] scoresAndValues = new Object[sortedSet.scores().size() * 2];
+            int i = 0;
+            for (Map.Entry<String, Double> entry : sortedSet.scores().entrySet()) {
+                scoresAndValues[i++] = entry.getValue();
+                scoresAndValues[i++] = entry.getKey();
+            }
+            return commands.zadd(sortedSet.key(), scoresAndValues);
+        }
+        BulkRecord.StreamRecord stream = (BulkRecord.StreamRecord) record;
+        return commands.xadd(stream.key(), stream.fields());
+    }
+
+    /**
+     * load 한 번의 상태. 응답 콜백은 커넥션의 이벤트 루프 스레드 하나 에서만 불린다.
+     */
+    private final class Load {
+
+        private final long started = System.nanoTime();
+        private final Semaphore inFlight = new Semaphore(window);
+        private final LongAdder loaded = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final AtomicReference<String> firstError = new AtomicReference<>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private volatile int batchSize = initialBatchSize;
+        private long sent;
+
+        /**
+         * @param full batchSize 만큼 찬 batch 인지. window 가 차거나 입력이 끝나서 보내는 batch 는 크기 조절에 쓰지 않는다
+         */
+        void flush(PipelinedConnection pipeline, RedisFuture<?> last, int size, boolean full) {
+            if (size == 0) {
+                return;
+            }
+            pipeline.flush();
+            if (full) {
+                long flushed = System.nanoTime();
+                last.whenComplete((result, error) -> adapt(size, System.nanoTime() - flushed));
+            }
+        }
+
+        private void adapt(int size, long latencyNanos) {
+            if (latencyNanos > targetBatchLatencyNanos) {
+                batchSize = Math.max(minBatchSize, size / 2);
+            } else if (latencyNanos < targetBatchLatencyNanos / 2) {
+                batchSize = Math.min(maxBatchSize, size * 2);
+            }
+        }
+
+        void completed(BulkRecord record, Throwable error) {
+            if (error == null) {
+                loaded.increment();
+            } else if (error instanceof RedisCommandExecutionException) {
+                failed.increment();
+                firstError.compareAndSet(null, record.key() + ": " + error.getMessage());
+            } else {
+                failure.compareAndSet(null, error);
+            }
+            inFlight.release();
+        }
+
+        void acquire(int permits) {
+            try {
+                if (!inFlight.tryAcquire(permits, commandTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                    throw new RedisCommandTimeoutException("bulk load got no reply within " + commandTimeout);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RedisCommandInterruptedException(e);
+            }
+        }
+
+        void checkFailure() {
+            Throwable error = failure.get();
+            if (error != null) {
+                throw new RedisException("bulk load aborted: " + report(), error);
+            }
+        }
+
+        BulkLoadReport report() {
+            return new BulkLoadReport(sent, loaded.sum(), failed.sum(), Duration.ofNanos(System.nanoTime() - started),
+                    batchSize, firstError.get());
+        }
+    }
+
+    public static class Builder {
+
+        private final RedisConnectionPool pool;
+        private int window = 10_000;
+        private int initialBatchSize = 100;
+        private int minBatchSize = 10;
+        private int maxBatchSize = 5_000;
+        private Duration targetBatchLatency = Duration.ofMillis(20);
+        private Duration commandTimeout = Duration.ofSeconds(10);
+        private Duration progressInterval = Duration.ofSeconds(5);
+        private Consumer<BulkLoadReport> progress;
+
+        private Builder(RedisConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        /**
+         * 응답을 기다리는 최대 명령 수. 다 차면 응답이 올 때 까지 입력을 읽지 않는다.
+         */
+        public Builder window(int window) {
+            if (window < 1) {
+                throw new IllegalArgumentException("window must be positive: " + window);
+            }
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * batch 크기의 시작 값과 범위. window 보다 클 수 없다.
+         */
+        public Builder batchSize(int initial, int min, int max) {
+            if (min < 1 || min > initial || initial > max) {
+                throw new IllegalArgumentException("batch size must satisfy 1 <= min <= initial <= max: "
+                        + min + ", " + initial + ", " + max);
+            }
+            this.initialBatchSize = initial;
+            this.minBatchSize = min;
+            this.maxBatchSize = max;
+            return this;
+        }
+
+        public Builder targetBatchLatency(Duration targetBatchLatency) {
+            this.targetBatchLatency = targetBatchLatency;
+            return this;
+        }
+
+        /**
+         * window 가 찼을 때와 마지막 응답을 기다리는 최대 시간. 지나면 RedisCommandTimeoutException 을 던진다.
+         */
+        public Builder commandTimeout(Duration commandTimeout) {
+            this.commandTimeout = commandTimeout;
+            return this;
+        }
+
+        /**
+         * 적재 중 interval 마다 진행 상황을 넘긴다. 레코드를 읽는 스레드 에서 불린다.
+         */
+        public Builder progress(Duration interval, Consumer<BulkLoadReport> progress) {
+            this.progressInterval = interval;
+            this.progress = progress;
+            return this;
+        }
+
+        public BulkLoader build() {
+            return new BulkLoader(this);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package royce.redis.load;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BulkLoader 가 명령 하나로 쓰는 레코드. 값 이 여러 개인 타입은 한 레코드의 값 들을 명령 하나에 담는다.
+ */
+public sealed interface BulkRecord {
+
+    String key();
+
+    /**
+     * SET
+     */
+    record StringRecord(String key, String value) implements BulkRecord {
+    }
+
+    /**
+     * HSET
+     */
+    record HashRecord(String key, Map<String, String> fields) implements BulkRecord {
+    }
+
+    /**
+     * RPUSH
+     */
+    record ListRecord(String key, List<String> elements) implements BulkRecord {
+    }
+
+    /**
+     * SADD
+     */
+    record SetRecord(String key, List<String> members) implements BulkRecord {
+    }
+
+    /**
+     * ZADD
+     */
+    record SortedSetRecord(String key, Map<String, Double> scores) implements BulkRecord {
+    }
+
+    /**
+     * XADD key * field value ...
+     */
+    record StreamRecord(String key, Map<String, String> fields) implements BulkRecord {
+    }
+}
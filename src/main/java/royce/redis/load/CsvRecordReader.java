@@ -0,0 +1,166 @@
+package royce.redis.load;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * RFC 4180 CSV. 큰따옴표 안의 줄바꿈은 값 으로 읽으므로 한 레코드가 여러 줄 일 수 있고, 빈 줄은 건너 뛴다.
+ */
+final class CsvRecordReader implements RecordReader {
+
+    private final BufferedReader reader;
+    private int line = 1;
+    private BulkRecord next;
+    private boolean finished;
+
+    CsvRecordReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            next = read();
+            finished = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public BulkRecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        BulkRecord record = next;
+        next = null;
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private BulkRecord read() {
+        try {
+            while (true) {
+                int start = line;
+                List<String> fields = fields();
+                if (fields == null) {
+                    return null;
+                }
+                if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                    continue;
+                }
+                try {
+                    return record(fields);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("line " + start + ": " + e.getMessage(), e);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 한 레코드의 필드들. 파일 끝 이면 null.
+     */
+    private List<String> fields() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("line " + line + ": unterminated quoted value");
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                } else if (c == '\n') {
+                    line++;
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                if (c == '\n') {
+                    line++;
+                }
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    private static BulkRecord record(List<String> fields) {
+        if (fields.size() < 3) {
+            throw new IllegalArgumentException("expected type,key,value but got " + fields.size() + " columns");
+        }
+        String type = fields.get(0);
+        String key = fields.get(1);
+        List<String> values = fields.subList(2, fields.size());
+        return switch (type.toLowerCase()) {
+            case "string" -> {
+                if (values.size() != 1) {
+                    throw new IllegalArgumentException("string record must have exactly one value");
+                }
+                yield new BulkRecord.StringRecord(key, values.get(0));
+            }
+            case "hash" -> new BulkRecord.HashRecord(key, pairs(type, values));
+            case "list" -> new BulkRecord.ListRecord(key, List.copyOf(values));
+            case "set" -> new BulkRecord.SetRecord(key, List.copyOf(values));
+            case "zset" -> {
+                if (values.size() % 2 != 0) {
+                    throw new IllegalArgumentException("zset record must have score,member pairs");
+                }
+                Map<String, Double> scores = new LinkedHashMap<>();
+                for (int i = 0; i < values.size(); i += 2) {
+                    scores.put(values.get(i + 1), score(values.get(i)));
+                }
+                yield new BulkRecord.SortedSetRecord(key, scores);
+            }
+            case "stream" -> new BulkRecord.StreamRecord(key, pairs(type, values));
+            default -> throw new IllegalArgumentException("unknown record type: " + type);
+        };
+    }
+
+    private static Map<String, String> pairs(String type, List<String> values) {
+        if (values.size() % 2 != 0) {
+            throw new IllegalArgumentException(type + " record must have an even number of values");
+        }
+        Map<String, String> pairs = new LinkedHashMap<>();
+        for (int i = 0; i < values.size(); i += 2) {
+            pairs.put(values.get(i), values.get(i + 1));
+        }
+        return pairs;
+    }
+
+    private static double score(String score) {
+        try {
+            return Double.parseDouble(score);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("score is not a number: " + score);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package royce.redis.load;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * NDJSON 한 줄을 읽는 최소한의 JSON 파서. 객체는 순서를 지키는 Map, 배열은 List, 문자열은 String 이 된다.
+ * 숫자는 Redis 에 쓸 때 표기가 바뀌지 않도록 적힌 그대로의 문자열로, true/false 는 Boolean 으로 돌려 준다.
+ */
+final class Json {
+
+    private final String text;
+    private int position;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    static Object parse(String text) {
+        Json json = new Json(text);
+        Object value = json.value();
+        json.whitespace();
+        if (json.position != text.length()) {
+            throw json.error("unexpected character '" + text.charAt(json.position) + "'");
+        }
+        return value;
+    }
+
+    private Object value() {
+        whitespace();
+        if (position >= text.length()) {
+            throw error("unexpected end of input");
+        }
+        return switch (text.charAt(position)) {
+            case '{' -> object();
+            case '[' -> array();
+            case '"' -> string();
+            case 't' -> literal("true", Boolean.TRUE);
+            case 'f' -> literal("false", Boolean.FALSE);
+            case 'n' -> literal("null", null);
+            default -> number();
+        };
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        whitespace();
+        if (consume('}')) {
+            return object;
+        }
+        do {
+            whitespace();
+            if (position >= text.length() || text.charAt(position) != '"') {
+                throw error("expected object key");
+            }
+            String key = string();
+            whitespace();
+            expect(':');
+            object.put(key, value());
+            whitespace();
+        } while (consume(','));
+        expect('}');
+        return object;
+    }
+
+    private List<Object> array() {
+        List<Object> array = new ArrayList<>();
+        position++;
+        whitespace();
+        if (consume(']')) {
+            return array;
+        }
+        do {
+            array.add(value());
+            whitespace();
+        } while (consume(','));
+        expect(']');
+        return array;
+    }
+
+    private String string() {
+        position++;
+        StringBuilder builder = new StringBuilder();
+        while (position < text.length()) {
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return builder.toString();
+            }
+            if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+            if (position >= text.length()) {
+                break;
+            }
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case '"', '\\', '/' -> builder.append(escaped);
+                case 'b' -> builder.append('\b');
+                case 'f' -> builder.append('\f');
+                case 'n' -> builder.append('\n');
+                case 'r' -> builder.append('\r');
+                case 't' -> builder.append('\t');
+                case 'u' -> {
+                    if (position + 4 > text.length()) {
+                        throw error("invalid unicode escape");
+                    }
+                    try {
+                        builder.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("invalid unicode escape");
+                    }
+                    position += 4;
+                }
+                default -> throw error("invalid escape '\\" + escaped + "'");
+            }
+        }
+        throw error("unterminated string");
+    }
+
+    private String number() {
+        int start = position;
+        while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+            position++;
+        }
+        String number = text.substring(start, position);
+        try {
+            Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            position = start;
+            throw error("unexpected character '" + text.charAt(start) + "'");
+        }
+        return number;
+    }
+
+    private Object literal(String literal, Object value) {
+        if (!text.startsWith(literal, position)) {
+            throw error("unexpected character '" + text.charAt(position) + "'");
+        }
+        position += literal.length();
+        return value;
+    }
+
+    private void whitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private boolean consume(char c) {
+        if (position < text.length() && text.charAt(position) == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!consume(c)) {
+            throw error("expected '" + c + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at column " + (position + 1));
+    }
+}
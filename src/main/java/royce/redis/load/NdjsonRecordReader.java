@@ -0,0 +1,127 @@
+package royce.redis.load;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * 한 줄에 JSON 객체 하나. 빈 줄은 건너 뛴다.
+ */
+final class NdjsonRecordReader implements RecordReader {
+
+    private final BufferedReader reader;
+    private int line;
+    private BulkRecord next;
+    private boolean finished;
+
+    NdjsonRecordReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            next = read();
+            finished = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public BulkRecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        BulkRecord record = next;
+        next = null;
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private BulkRecord read() {
+        try {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    return record(Json.parse(text));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("line " + line + ": " + e.getMessage(), e);
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static BulkRecord record(Object json) {
+        if (!(json instanceof Map<?, ?> object)) {
+            throw new IllegalArgumentException("record must be a JSON object");
+        }
+        String type = text(object.get("type"), "type");
+        String key = text(object.get("key"), "key");
+        Object value = object.get("value");
+        return switch (type.toLowerCase()) {
+            case "string" -> new BulkRecord.StringRecord(key, text(value, "value"));
+            case "hash" -> new BulkRecord.HashRecord(key, fields(value));
+            case "list" -> new BulkRecord.ListRecord(key, elements(value));
+            case "set" -> new BulkRecord.SetRecord(key, elements(value));
+            case "zset" -> {
+                Map<String, Double> scores = new LinkedHashMap<>();
+                fields(value).forEach((member, score) -> {
+                    try {
+                        scores.put(member, Double.parseDouble(score));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("score of " + member + " is not a number: " + score);
+                    }
+                });
+                yield new BulkRecord.SortedSetRecord(key, scores);
+            }
+            case "stream" -> new BulkRecord.StreamRecord(key, fields(value));
+            default -> throw new IllegalArgumentException("unknown record type: " + type);
+        };
+    }
+
+    private static Map<String, String> fields(Object value) {
+        if (!(value instanceof Map<?, ?> object) || object.isEmpty()) {
+            throw new IllegalArgumentException("value must be a non-empty JSON object");
+        }
+        Map<String, String> fields = new LinkedHashMap<>();
+        object.forEach((field, each) -> fields.put((String) field, text(each, "value of " + field)));
+        return fields;
+    }
+
+    private static List<String> elements(Object value) {
+        if (!(value instanceof List<?> array) || array.isEmpty()) {
+            throw new IllegalArgumentException("value must be a non-empty JSON array");
+        }
+        List<String> elements = new ArrayList<>(array.size());
+        for (Object each : array) {
+            elements.add(text(each, "element"));
+        }
+        return elements;
+    }
+
+    /**
+     * 문자열, 숫자, true/false 는 Redis 에 쓸 문자열 이 되고, null 과 객체/배열은 거절 한다.
+     */
+    private static String text(Object value, String name) {
+        if (value instanceof String || value instanceof Boolean) {
+            return value.toString();
+        }
+        throw new IllegalArgumentException(name + " must be a string, number or boolean");
+    }
+}
@@ -0,0 +1,55 @@
+package royce.redis.load;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * 파일 에서 레코드를 한 줄 씩 읽는다. 한 번에 한 레코드만 메모리에 두므로 파일 크기와 무관 하게 메모리 사용량이 일정 하다.
+ * 형식이 잘못된 줄을 만나면 줄 번호를 담은 IllegalArgumentException 을, 읽기에 실패 하면 UncheckedIOException 을 던진다.
+ */
+public interface RecordReader extends Iterator<BulkRecord>, Closeable {
+
+    /**
+     * 한 줄에 한 레코드: type,key,values... 값에 쉼표나 줄바꿈이 있으면 큰따옴표로 감싸고, 큰따옴표는 두 번 쓴다.
+     * <pre>
+     * string,user:1:name,alice
+     * hash,user:1,name,alice,age,30
+     * list,jobs,job1,job2
+     * set,tags,redis,java
+     * zset,scores,10,alice,20.5,bob
+     * stream,events,type,login,user,1
+     * </pre>
+     * zset 은 ZADD 와 같이 score,member 순서 이다.
+     */
+    static RecordReader csv(Reader reader) {
+        return new CsvRecordReader(new BufferedReader(reader));
+    }
+
+    /**
+     * 한 줄에 JSON 객체 하나: {"type": ..., "key": ..., "value": ...}.
+     * string 은 문자열, hash/stream 은 field -> value 객체, list/set 은 배열, zset 은 member -> score 객체 이다.
+     */
+    static RecordReader ndjson(Reader reader) {
+        return new NdjsonRecordReader(new BufferedReader(reader));
+    }
+
+    /**
+     * 확장자가 .csv 면 CSV, .ndjson/.jsonl 이면 NDJSON 으로 읽는다.
+     */
+    static RecordReader open(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".csv")) {
+            return csv(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return ndjson(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+        }
+        throw new IllegalArgumentException("unknown record format: " + file);
+    }
+}
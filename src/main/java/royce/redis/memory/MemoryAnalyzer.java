@@ -0,0 +1,185 @@
+package royce.redis.memory;
+
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * SCAN 으로 키를 훑으며 TYPE, OBJECT ENCODING, MEMORY USAGE 를 재서 키 패턴 별 메모리 사용량을 집계 한다.
+ * SCAN 은 해시 테이블 순서로 키를 돌려 주므로 앞에서 부터 maxSampledKeys 개만 재도 키 이름과 무관한 표본이 된다.
+ * 표본의 합계는 DBSIZE / 표본 수 만큼 곱해 전체 추정치로 보여 주므로 1억 개 키가 있는 인스턴스 에서도 표본 크기 만큼만 비용이 든다.
+ * 한 SCAN 페이지의 측정 명령은 파이프라인으로 한 번에 보낸다.
+ */
+public class MemoryAnalyzer {
+
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+    private static final Duration PAGE_TIMEOUT = Duration.ofSeconds(10);
+
+    private final RedisClient client;
+    private final long maxSampledKeys;
+    private final int scanCount;
+    private final String match;
+    private final Function<String, String> patternOf;
+
+    private MemoryAnalyzer(Builder builder) {
+        this.client = builder.client;
+        this.maxSampledKeys = builder.maxSampledKeys;
+        this.scanCount = builder.scanCount;
+        this.match = builder.match;
+        this.patternOf = builder.patternOf;
+    }
+
+    public static Builder builder(RedisClient client) {
+        return new Builder(client);
+    }
+
+    /**
+     * 숫자 부분을 * 로 바꾼 것을 패턴으로 본다. user:42:profile -> user:*:profile, key{7} -> key{*}
+     */
+    public static String digitsAsWildcard(String key) {
+        return DIGITS.matcher(key).replaceAll("*");
+    }
+
+    public MemoryReport analyze() {
+        try (StatefulRedisConnection<String, String> connection = client.connect()) {
+            RedisAsyncCommands<String, String> commands = connection.async();
+            long totalKeys = connection.sync().dbsize();
+            Map<String, MemoryReport.PatternStats> patterns = new LinkedHashMap<>();
+            ScanArgs args = ScanArgs.Builder.limit(scanCount);
+            if (match != null) {
+                args.match(match);
+            }
+            long sampled = 0;
+            ScanCursor cursor = ScanCursor.INITIAL;
+            while (sampled < maxSampledKeys && !cursor.isFinished()) {
+                KeyScanCursor<String> page = connection.sync().scan(cursor, args);
+                List<String> keys = page.getKeys();
+                if (keys.size() > maxSampledKeys - sampled) {
+                    keys = keys.subList(0, (int) (maxSampledKeys - sampled));
+                }
+                sampled += measure(connection, commands, keys, patterns);
+                cursor = page;
+            }
+            double scale = cursor.isFinished() || match != null || sampled == 0 ? 1 : (double) totalKeys / sampled;
+            return new MemoryReport(totalKeys, sampled, scale, patterns.values());
+        }
+    }
+
+    /**
+     * 한 페이지의 키 마다 TYPE, OBJECT ENCODING, MEMORY USAGE 를 한 번에 보낸다. 그 사이 지워진 키는 세지 않는다.
+     * 응답을 다 받지 못한 키를 빼고 세면 표본 수가 줄어 DBSIZE 비례 추정이 부풀려 지므로, 제 시간에 끝나지 않으면 예외를 던진다.
+     */
+    private long measure(StatefulRedisConnection<String, String> connection, RedisAsyncCommands<String, String> commands,
+                         List<String> keys, Map<String, MemoryReport.PatternStats> patterns) {
+        List<RedisFuture<String>> types = new ArrayList<>(keys.size());
+        List<RedisFuture<String>> encodings = new ArrayList<>(keys.size());
+        List<RedisFuture<Long>> usages = new ArrayList<>(keys.size());
+        connection.setAutoFlushCommands(false);
+        try {
+            for (String key : keys) {
+                types.add(commands.type(key));
+                encodings.add(commands.objectEncoding(key));
+                usages.add(commands.memoryUsage(key));
+            }
+            connection.flushCommands();
+        } finally {
+            connection.setAutoFlushCommands(true);
+        }
+        List<RedisFuture<?>> all = new ArrayList<>(types);
+        all.addAll(encodings);
+        all.addAll(usages);
+        if (!LettuceFutures.awaitAll(PAGE_TIMEOUT, all.toArray(RedisFuture<?>[]::new))) {
+            throw new RedisCommandTimeoutException("memory sampling commands did not complete within " + PAGE_TIMEOUT);
+        }
+        long measured = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            Long usage = getOrNull(usages.get(i));
+            String type = getOrNull(types.get(i));
+            if (usage == null || type == null || type.equals("none")) {
+                continue;
+            }
+            String key = keys.get(i);
+            patterns.computeIfAbsent(patternOf.apply(key), MemoryReport.PatternStats::new)
+                    .add(type, getOrNull(encodings.get(i)), usage);
+            measured++;
+        }
+        return measured;
+    }
+
+    private static <T> T getOrNull(RedisFuture<T> future) {
+        try {
+            return future.isDone() ? future.get() : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    public static class Builder {
+
+        private final RedisClient client;
+        private long maxSampledKeys = 100_000;
+        private int scanCount = 1_000;
+        private String match;
+        private Function<String, String> patternOf = MemoryAnalyzer::digitsAsWildcard;
+
+        private Builder(RedisClient client) {
+            this.client = client;
+        }
+
+        /**
+         * 측정할 최대 키 수. 나머지는 DBSIZE 로 비례 추정 한다.
+         */
+        public Builder maxSampledKeys(long maxSampledKeys) {
+            if (maxSampledKeys < 1) {
+                throw new IllegalArgumentException("maxSampledKeys must be positive: " + maxSampledKeys);
+            }
+            this.maxSampledKeys = maxSampledKeys;
+            return this;
+        }
+
+        /**
+         * SCAN 한 번에 요청 하는 키 수(COUNT). 한 번에 파이프라인으로 보내는 측정 명령 수도 이 값의 3 배가 된다.
+         */
+        public Builder scanCount(int scanCount) {
+            this.scanCount = scanCount;
+            return this;
+        }
+
+        /**
+         * SCAN MATCH 패턴. 지정 하면 DBSIZE 로 비례 추정 할 수 없으므로 표본 값을 그대로 보여 준다.
+         */
+        public Builder match(String match) {
+            this.match = match;
+            return this;
+        }
+
+        /**
+         * 키를 집계 단위 패턴으로 바꾸는 함수. 기본은 digitsAsWildcard 이다.
+         */
+        public Builder patternOf(Function<String, String> patternOf) {
+            this.patternOf = patternOf;
+            return this;
+        }
+
+        public MemoryAnalyzer build() {
+            return new MemoryAnalyzer(this);
+        }
+    }
+}
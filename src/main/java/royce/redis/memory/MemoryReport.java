@@ -0,0 +1,176 @@
+package royce.redis.memory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * MemoryAnalyzer 의 결과. 패턴 별 메모리 합계와 크기 분포, 그리고 더 작은 구조로 바꿀 수 있는 후보를 담는다.
+ * estimated 가 붙은 값은 표본 값에 scale(DBSIZE / 표본 수)을 곱한 추정치 이다.
+ */
+public class MemoryReport {
+
+    /**
+     * 히스토그램 구간. i 번째 구간은 2^(i+6) 바이트 미만(마지막은 그 이상)의 키 수 이다. 64B, 128B, ..., 1MB 이상
+     */
+    public static final int HISTOGRAM_BUCKETS = 16;
+
+    static final long SMALL_STRING_BYTES = 128;
+    static final long MANY_KEYS = 1_000;
+    static final long LARGE_STRING_BYTES = 10 * 1024;
+    static final long HYPERLOGLOG_BYTES = 12 * 1024;
+
+    private final long totalKeys;
+    private final long sampledKeys;
+    private final double scale;
+    private final List<PatternSummary> patterns;
+
+    MemoryReport(long totalKeys, long sampledKeys, double scale, Collection<PatternStats> stats) {
+        this.totalKeys = totalKeys;
+        this.sampledKeys = sampledKeys;
+        this.scale = scale;
+        List<PatternSummary> summaries = new ArrayList<>(stats.size());
+        for (PatternStats each : stats) {
+            summaries.add(each.summary(scale));
+        }
+        summaries.sort(Comparator.comparingLong(PatternSummary::estimatedBytes).reversed());
+        this.patterns = List.copyOf(summaries);
+    }
+
+    public long totalKeys() {
+        return totalKeys;
+    }
+
+    public long sampledKeys() {
+        return sampledKeys;
+    }
+
+    public double scale() {
+        return scale;
+    }
+
+    /**
+     * 추정 메모리가 큰 순서로 정렬된 패턴 별 요약.
+     */
+    public List<PatternSummary> patterns() {
+        return patterns;
+    }
+
+    public PatternSummary pattern(String pattern) {
+        return patterns.stream().filter(summary -> summary.pattern().equals(pattern)).findFirst().orElse(null);
+    }
+
+    /**
+     * 패턴 별로 더 작은 인코딩이나 자료구조로 바꿀 수 있는 후보.
+     */
+    public List<Recommendation> recommendations() {
+        List<Recommendation> recommendations = new ArrayList<>();
+        for (PatternSummary summary : patterns) {
+            long hashtables = summary.encodings().getOrDefault("hashtable", 0L);
+            if (summary.types().containsKey("hash") && hashtables > 0) {
+                recommendations.add(new Recommendation(summary.pattern(), Recommendation.Kind.HASH_OUT_OF_LISTPACK,
+                        hashtables + " sampled hashes use hashtable encoding; split them or raise "
+                                + "hash-max-listpack-entries/value to keep them in listpack"));
+            }
+            if (summary.types().containsKey("set") && summary.averageBytes() > 2 * HYPERLOGLOG_BYTES) {
+                recommendations.add(new Recommendation(summary.pattern(), Recommendation.Kind.SET_AS_HYPERLOGLOG,
+                        "sets average " + summary.averageBytes() + " bytes; if only the cardinality is read, "
+                                + "a HyperLogLog uses at most 12KB"));
+            }
+            if (summary.types().containsKey("string") && summary.estimatedKeys() >= MANY_KEYS
+                    && summary.averageBytes() <= SMALL_STRING_BYTES) {
+                recommendations.add(new Recommendation(summary.pattern(), Recommendation.Kind.BUCKET_SMALL_STRINGS,
+                        "~" + summary.estimatedKeys() + " small strings (" + summary.averageBytes()
+                                + " bytes each) pay per-key overhead; bucket them into listpack hashes"));
+            }
+            if (summary.types().containsKey("string") && summary.averageBytes() >= LARGE_STRING_BYTES) {
+                recommendations.add(new Recommendation(summary.pattern(), Recommendation.Kind.COMPRESS_LARGE_STRINGS,
+                        "strings average " + summary.averageBytes() + " bytes; compress values above a threshold"));
+            }
+        }
+        return recommendations;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "%d of %d keys sampled (x%.1f)%n", sampledKeys, totalKeys, scale));
+        for (PatternSummary summary : patterns) {
+            report.append(String.format(Locale.ROOT, "%-40s %10d keys %14d bytes avg %8d %s %s%n",
+                    summary.pattern(), summary.estimatedKeys(), summary.estimatedBytes(), summary.averageBytes(),
+                    summary.types(), summary.encodings()));
+        }
+        for (Recommendation recommendation : recommendations()) {
+            report.append("* ").append(recommendation.pattern()).append(": ")
+                    .append(recommendation.message()).append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+
+    /**
+     * @param histogram HISTOGRAM_BUCKETS 개 구간의 표본 키 수
+     */
+    public record PatternSummary(
+            String pattern,
+            long sampledKeys,
+            long sampledBytes,
+            long estimatedKeys,
+            long estimatedBytes,
+            long averageBytes,
+            Map<String, Long> types,
+            Map<String, Long> encodings,
+            long[] histogram
+    ) {
+    }
+
+    public record Recommendation(String pattern, Kind kind, String message) {
+
+        public enum Kind {
+            HASH_OUT_OF_LISTPACK,
+            SET_AS_HYPERLOGLOG,
+            BUCKET_SMALL_STRINGS,
+            COMPRESS_LARGE_STRINGS
+        }
+    }
+
+    /**
+     * 분석 중 패턴 하나의 표본을 모은다.
+     */
+    static final class PatternStats {
+
+        private final String pattern;
+        private final Map<String, Long> types = new LinkedHashMap<>();
+        private final Map<String, Long> encodings = new LinkedHashMap<>();
+        private final long[] histogram = new long[HISTOGRAM_BUCKETS];
+        private long keys;
+        private long bytes;
+
+        PatternStats(String pattern) {
+            this.pattern = pattern;
+        }
+
+        void add(String type, String encoding, long usage) {
+            keys++;
+            bytes += usage;
+            types.merge(type, 1L, Long::sum);
+            if (encoding != null) {
+                encodings.merge(encoding, 1L, Long::sum);
+            }
+            histogram[bucket(usage)]++;
+        }
+
+        PatternSummary summary(double scale) {
+            return new PatternSummary(pattern, keys, bytes, Math.round(keys * scale), Math.round(bytes * scale),
+                    keys == 0 ? 0 : bytes / keys, Map.copyOf(types), Map.copyOf(encodings), histogram.clone());
+        }
+
+        static int bucket(long usage) {
+            int bit = 64 - Long.numberOfLeadingZeros(Math.max(1, usage) >>> 6);
+            return Math.min(bit, HISTOGRAM_BUCKETS - 1);
+        }
+    }
+}
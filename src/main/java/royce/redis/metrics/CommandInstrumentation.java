@@ -0,0 +1,158 @@
+package royce.redis.metrics;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.event.DefaultEventPublisherOptions;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import royce.redis.connection.RedisConnectionSettings;
+
+/**
+ * 명령 지연 시간을 재는 RedisClient 와, 보고 구간 마다 CommandMetrics 를 비우고 서버의 SLOWLOG/LATENCY 를 읽어
+ * MetricsExporter 들에게 넘기는 보고 스레드. SLOWLOG/LATENCY 는 계측 하지 않는 별도 클라이언트로 읽는다.
+ * 지연 시간 기록은 ClientResources 단위로 켜지므로 공유 ClientResources 가 아닌 전용 ClientResources 를 만든다.
+ * client() 를 RedisConnectionPool.Builder.client 에 넘기면 풀의 모든 커넥션이 계측 된다.
+ */
+public class CommandInstrumentation implements AutoCloseable {
+
+    private final ClientResources resources;
+    private final RedisClient client;
+    private final CommandMetrics metrics = new CommandMetrics();
+    private final ServerLatencySampler sampler;
+    private final boolean pollServer;
+    private final Duration reportInterval;
+    private final List<MetricsExporter> exporters;
+    private ScheduledExecutorService scheduler;
+    private Instant lastReport = Instant.now();
+
+    private CommandInstrumentation(Builder builder) {
+        this.resources = DefaultClientResources.builder()
+                .commandLatencyRecorder(metrics)
+                .commandLatencyPublisherOptions(DefaultEventPublisherOptions.disabled())
+                .build();
+        this.client = RedisClient.create(resources, builder.settings.toRedisURI());
+        // CommandListener 는 연결 시점에 등록 되어 있어야 해당 커넥션에 적용 된다
+        client.addListener(metrics);
+        this.sampler = new ServerLatencySampler(builder.settings.toRedisURI(), builder.slowlogSize);
+        this.pollServer = builder.pollServer;
+        this.reportInterval = builder.reportInterval;
+        this.exporters = List.copyOf(builder.exporters);
+    }
+
+    public static Builder builder(RedisConnectionSettings settings) {
+        return new Builder(settings);
+    }
+
+    /**
+     * reportInterval 마다 report 를 호출 한다.
+     */
+    public synchronized CommandInstrumentation start() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "command-metrics-reporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = reportInterval.toNanos();
+            scheduler.scheduleAtFixedRate(this::report, interval, interval, TimeUnit.NANOSECONDS);
+        }
+        return this;
+    }
+
+    /**
+     * 지난 보고 이후의 지표를 모아 모든 exporter 에게 넘기고 돌려 준다.
+     * exporter 하나가 실패 해도 나머지 exporter 와 다음 보고는 계속 된다.
+     */
+    public synchronized MetricsReport report() {
+        Instant now = Instant.now();
+        int maxInFlight = metrics.maxInFlight();
+        Map<String, CommandMetrics.CommandLatency> commands = metrics.drain();
+        MetricsReport report = new MetricsReport(now, Duration.between(lastReport, now), commands,
+                metrics.inFlight(), maxInFlight,
+                pollServer ? sampler.slowlog() : List.of(),
+                pollServer ? sampler.latencyEvents() : List.of());
+        lastReport = now;
+        for (MetricsExporter exporter : exporters) {
+            try {
+                exporter.export(report);
+            } catch (RuntimeException e) {
+                // 지표 전송 실패가 보고 스레드를 멈추게 하지 않는다
+            }
+        }
+        return report;
+    }
+
+    public RedisClient client() {
+        return client;
+    }
+
+    public CommandMetrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        sampler.close();
+        client.shutdown();
+        resources.shutdown();
+    }
+
+    public static class Builder {
+
+        private final RedisConnectionSettings settings;
+        private final List<MetricsExporter> exporters = new ArrayList<>();
+        private Duration reportInterval = Duration.ofSeconds(10);
+        private int slowlogSize = 128;
+        private boolean pollServer = true;
+
+        private Builder(RedisConnectionSettings settings) {
+            this.settings = settings;
+        }
+
+        public Builder exporter(MetricsExporter exporter) {
+            exporters.add(exporter);
+            return this;
+        }
+
+        public Builder reportInterval(Duration reportInterval) {
+            if (reportInterval.isZero() || reportInterval.isNegative()) {
+                throw new IllegalArgumentException("reportInterval must be positive: " + reportInterval);
+            }
+            this.reportInterval = reportInterval;
+            return this;
+        }
+
+        /**
+         * 보고 마다 SLOWLOG GET 으로 읽을 최대 항목 수. 구간 동안 이 보다 많이 쌓이면 오래된 항목은 빠진다.
+         */
+        public Builder slowlogSize(int slowlogSize) {
+            if (slowlogSize < 1) {
+                throw new IllegalArgumentException("slowlogSize must be positive: " + slowlogSize);
+            }
+            this.slowlogSize = slowlogSize;
+            return this;
+        }
+
+        /**
+         * false 이면 서버의 SLOWLOG/LATENCY 를 읽지 않고 클라이언트 측 지표만 보고 한다.
+         */
+        public Builder pollServer(boolean pollServer) {
+            this.pollServer = pollServer;
+            return this;
+        }
+
+        public CommandInstrumentation build() {
+            return new CommandInstrumentation(this);
+        }
+    }
+}
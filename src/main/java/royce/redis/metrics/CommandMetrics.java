@@ -0,0 +1,139 @@
+package royce.redis.metrics;
+
+import io.lettuce.core.event.command.CommandFailedEvent;
+import io.lettuce.core.event.command.CommandListener;
+import io.lettuce.core.event.command.CommandStartedEvent;
+import io.lettuce.core.event.command.CommandSucceededEvent;
+import io.lettuce.core.metrics.CommandLatencyRecorder;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * 명령 종류 별 지연 시간과 클라이언트 쪽 대기열 깊이.
+ * ClientResources 의 CommandLatencyRecorder 로 등록 하면 Lettuce 가 명령을 소켓에 쓴 시점 부터 첫 응답 바이트가 도착 할 때 까지(first response)와
+ * 응답을 모두 해석 할 때 까지(completion)를 나노초로 넘겨 준다. RedisClient 의 CommandListener 로 등록 하면 dispatch 되었지만
+ * 아직 완료 되지 않은 명령 수를 센다. 여기 에는 auto-flush 를 끈 파이프라인에서 아직 전송 하지 않은 명령도 포함 된다.
+ * 기록은 맵 조회 한 번과 히스토그램 원소 증가 뿐 이므로 운영 환경에서 켜 두어도 된다.
+ */
+public class CommandMetrics implements CommandLatencyRecorder, CommandListener {
+
+    private final Map<String, Command> commands = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAccumulator maxInFlight = new LongAccumulator(Math::max, 0);
+
+    /**
+     * 명령 하나의 기록. 구간(interval) 히스토그램에 기록 하고, drain 할 때 새 구간으로 바꾸면서 전체(total)에 더한다.
+     * 두 히스토그램을 한 객체로 바꾸므로 명령 하나의 first response 와 completion 은 항상 같은 구간에 들어간다.
+     */
+    private static final class Command {
+
+        final Interval total = new Interval();
+        volatile Interval current = new Interval();
+
+        synchronized CommandLatency drain(String name) {
+            Interval drained = current;
+            current = new Interval();
+            total.firstResponse.add(drained.firstResponse);
+            total.completion.add(drained.completion);
+            return drained.latency(name);
+        }
+
+        synchronized CommandLatency total(String name) {
+            return total.latency(name);
+        }
+    }
+
+    private static final class Interval {
+
+        final LatencyHistogram firstResponse = new LatencyHistogram();
+        final LatencyHistogram completion = new LatencyHistogram();
+
+        CommandLatency latency(String name) {
+            return new CommandLatency(name, firstResponse.snapshot(), completion.snapshot());
+        }
+    }
+
+    /**
+     * @param firstResponse 소켓에 쓴 뒤 첫 응답 바이트가 도착 할 때 까지. 응답이 큰 명령은 completion 과 차이가 벌어진다
+     * @param completion    소켓에 쓴 뒤 응답을 모두 해석 할 때 까지
+     */
+    public record CommandLatency(String command, LatencyHistogram.Snapshot firstResponse,
+                                 LatencyHistogram.Snapshot completion) {
+
+        public long count() {
+            return completion.count();
+        }
+
+        @Override
+        public String toString() {
+            return command + " first-response[" + firstResponse + "] completion[" + completion + "]";
+        }
+    }
+
+    @Override
+    public void recordCommandLatency(SocketAddress local, SocketAddress remote, ProtocolKeyword commandType,
+                                     long firstResponseLatency, long completionLatency) {
+        Interval interval = commands.computeIfAbsent(commandType.name(), name -> new Command()).current;
+        interval.firstResponse.record(firstResponseLatency);
+        interval.completion.record(completionLatency);
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        maxInFlight.accumulate(inFlight.incrementAndGet());
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        inFlight.decrementAndGet();
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * 지금 dispatch 되어 응답을 기다리는 명령 수.
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 마지막 drain 이후 가장 깊었던 대기열.
+     */
+    public int maxInFlight() {
+        return (int) maxInFlight.get();
+    }
+
+    /**
+     * 마지막 drain 이후의 명령 별 지연 시간을 돌려 주고 새 구간을 시작 한다. 이 구간에 기록이 없는 명령은 빠진다.
+     */
+    public Map<String, CommandLatency> drain() {
+        Map<String, CommandLatency> drained = new TreeMap<>();
+        commands.forEach((name, command) -> {
+            CommandLatency latency = command.drain(name);
+            if (latency.count() > 0) {
+                drained.put(name, latency);
+            }
+        });
+        maxInFlight.reset();
+        maxInFlight.accumulate(inFlight.get());
+        return drained;
+    }
+
+    /**
+     * 지금 까지 drain 된 모든 구간을 합친 명령 별 지연 시간. 아직 drain 하지 않은 구간은 포함 하지 않는다.
+     */
+    public Map<String, CommandLatency> totals() {
+        Map<String, CommandLatency> totals = new TreeMap<>();
+        commands.forEach((name, command) -> totals.put(name, command.total(name)));
+        return totals;
+    }
+}
@@ -0,0 +1,18 @@
+package royce.redis.metrics;
+
+/**
+ * 보고 구간 마다 MetricsReport 를 받아 외부 지표 시스템으로 내보낸다.
+ * 보고 스레드에서 호출 되므로 오래 걸리는 전송은 다른 스레드로 넘겨야 다음 구간이 밀리지 않는다.
+ */
+@FunctionalInterface
+public interface MetricsExporter {
+
+    void export(MetricsReport report);
+
+    /**
+     * 표준 출력으로 보고서를 출력 한다.
+     */
+    static MetricsExporter console() {
+        return report -> System.out.print(report);
+    }
+}
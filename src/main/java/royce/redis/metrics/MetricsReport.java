@@ -0,0 +1,78 @@
+package royce.redis.metrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 한 보고 구간의 클라이언트 측 명령 지연 시간과, 같은 구간에 서버가 SLOWLOG 와 LATENCY 에 새로 남긴 기록.
+ * 클라이언트 측 p99 가 튄 명령과 서버 측 slowlog 를 명령 이름으로 맞춰 보면 지연이 서버 실행 시간 때문 인지,
+ * 네트워크나 클라이언트 대기열 때문 인지 구분 할 수 있다.
+ *
+ * @param commands    명령 이름(대문자) 별 지연 시간
+ * @param inFlight    보고 시점에 응답을 기다리는 명령 수
+ * @param maxInFlight 구간 중 가장 깊었던 대기열
+ */
+public record MetricsReport(
+        Instant timestamp,
+        Duration interval,
+        Map<String, CommandMetrics.CommandLatency> commands,
+        int inFlight,
+        int maxInFlight,
+        List<SlowlogEntry> slowlog,
+        List<LatencyEvent> latencyEvents
+) {
+
+    /**
+     * @param duration 서버에서 명령을 실행 한 시간. 네트워크와 대기 시간은 포함 하지 않는다
+     * @param args     서버가 잘라 낸 인자. 32 개, 각 128 바이트 까지
+     * @param client   ip:port
+     */
+    public record SlowlogEntry(long id, Instant timestamp, Duration duration, List<String> args, String client,
+                               String clientName) {
+
+        /**
+         * 클라이언트 측 명령 이름과 맞추기 위해 대문자로 바꾼 첫 인자.
+         */
+        public String command() {
+            return args.isEmpty() ? "" : args.get(0).toUpperCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * LATENCY LATEST 의 이벤트 하나. 값은 밀리초.
+     */
+    public record LatencyEvent(String name, Instant timestamp, long latestMillis, long maxMillis) {
+    }
+
+    /**
+     * 서버가 이 구간에 command 를 느린 명령으로 기록한 항목.
+     */
+    public List<SlowlogEntry> slowlog(String command) {
+        List<SlowlogEntry> entries = new ArrayList<>();
+        for (SlowlogEntry entry : slowlog) {
+            if (entry.command().equalsIgnoreCase(command)) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder()
+                .append("[").append(timestamp).append(" interval=").append(interval)
+                .append(" inFlight=").append(inFlight).append(" maxInFlight=").append(maxInFlight).append("]\n");
+        commands.values().forEach(latency -> report.append("  ").append(latency)
+                .append(" slowlog=").append(slowlog(latency.command()).size()).append('\n'));
+        slowlog.forEach(entry -> report.append("  slowlog #").append(entry.id()).append(' ')
+                .append(entry.duration().toNanos() / 1000).append("us ").append(entry.args()).append('\n'));
+        latencyEvents.forEach(event -> report.append("  latency ").append(event.name())
+                .append(" latest=").append(event.latestMillis()).append("ms max=").append(event.maxMillis())
+                .append("ms\n"));
+        return report.toString();
+    }
+}
@@ -0,0 +1,153 @@
+package royce.redis.metrics;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.output.ArrayOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import royce.redis.connection.SharedClientResources;
+
+/**
+ * 서버의 SLOWLOG 와 LATENCY LATEST 를 읽어 지난 poll 이후 새로 생긴 기록만 돌려 준다.
+ * SLOWLOG 는 항목 id 로, LATENCY 는 이벤트 별 마지막 시각과 값으로 이미 본 기록을 거른다.
+ * 계측 하는 클라이언트로 보내면 SLOWLOG/LATENCY 자체가 명령 지연 시간과 대기열 깊이에 섞이므로, 공유 ClientResources 위의 별도 클라이언트로 보낸다.
+ * 관리형 Redis 처럼 명령이 없거나(ERR unknown command) 권한이 없으면(NOPERM) 해당 명령은 더 이상 보내지 않는다.
+ * LOADING, BUSY 처럼 잠시 뒤 다시 될 수 있는 오류는 그 보고 에서만 건너뛴다.
+ */
+class ServerLatencySampler implements AutoCloseable {
+
+    private final RedisClient client;
+    private final int slowlogSize;
+    private final Map<String, MetricsReport.LatencyEvent> lastEvents = new HashMap<>();
+    private StatefulRedisConnection<String, String> connection;
+    private long lastSlowlogId = -1;
+    private boolean slowlogEnabled = true;
+    private boolean latencyEnabled = true;
+
+    private enum Keyword implements ProtocolKeyword {
+        LATENCY;
+
+        private final byte[] bytes = name().getBytes(StandardCharsets.US_ASCII);
+
+        @Override
+        public byte[] getBytes() {
+            return bytes;
+        }
+    }
+
+    ServerLatencySampler(RedisURI uri, int slowlogSize) {
+        this.client = RedisClient.create(SharedClientResources.get(), uri);
+        this.slowlogSize = slowlogSize;
+    }
+
+    synchronized List<MetricsReport.SlowlogEntry> slowlog() {
+        if (!slowlogEnabled) {
+            return List.of();
+        }
+        List<Object> entries;
+        try {
+            entries = commands().slowlogGet(slowlogSize);
+        } catch (RedisCommandExecutionException e) {
+            slowlogEnabled = !isUnsupported(e);
+            return List.of();
+        } catch (RedisException e) {
+            return List.of();
+        }
+        long newestId = entries.isEmpty() ? -1 : id(entries.get(0));
+        if (newestId < lastSlowlogId) {
+            // 서버가 재시작 되어 id 가 다시 0 부터 시작 했다
+            lastSlowlogId = -1;
+        }
+        List<MetricsReport.SlowlogEntry> fresh = new ArrayList<>();
+        for (Object each : entries) {
+            if (id(each) <= lastSlowlogId) {
+                break;
+            }
+            fresh.add(0, entry((List<?>) each));
+        }
+        lastSlowlogId = Math.max(lastSlowlogId, newestId);
+        return fresh;
+    }
+
+    synchronized List<MetricsReport.LatencyEvent> latencyEvents() {
+        if (!latencyEnabled) {
+            return List.of();
+        }
+        List<Object> events;
+        try {
+            events = commands().dispatch(Keyword.LATENCY, new ArrayOutput<>(StringCodec.UTF8),
+                    new CommandArgs<>(StringCodec.UTF8).add("LATEST"));
+        } catch (RedisCommandExecutionException e) {
+            latencyEnabled = !isUnsupported(e);
+            return List.of();
+        } catch (RedisException e) {
+            return List.of();
+        }
+        List<MetricsReport.LatencyEvent> fresh = new ArrayList<>();
+        for (Object each : events) {
+            List<?> event = (List<?>) each;
+            MetricsReport.LatencyEvent latest = new MetricsReport.LatencyEvent((String) event.get(0),
+                    Instant.ofEpochSecond((Long) event.get(1)), (Long) event.get(2), (Long) event.get(3));
+            if (!latest.equals(lastEvents.put(latest.name(), latest))) {
+                fresh.add(latest);
+            }
+        }
+        return fresh;
+    }
+
+    private RedisCommands<String, String> commands() {
+        if (connection == null || !connection.isOpen()) {
+            connection = client.connect();
+        }
+        return connection.sync();
+    }
+
+    /**
+     * 다시 보내도 계속 실패 하는 오류 인지. 명령이 없거나 ACL 로 막힌 경우 이다.
+     */
+    static boolean isUnsupported(RedisCommandExecutionException error) {
+        String message = error.getMessage();
+        return message != null && (message.startsWith("ERR unknown command") || message.startsWith("NOPERM"));
+    }
+
+    private static long id(Object entry) {
+        return (Long) ((List<?>) entry).get(0);
+    }
+
+    /**
+     * [id, timestamp, 마이크로초, [args], ip:port, client name]. 4.0 이전 서버는 마지막 두 필드가 없다.
+     */
+    private static MetricsReport.SlowlogEntry entry(List<?> entry) {
+        List<String> args = new ArrayList<>();
+        for (Object arg : (List<?>) entry.get(3)) {
+            args.add(String.valueOf(arg));
+        }
+        return new MetricsReport.SlowlogEntry(
+                (Long) entry.get(0),
+                Instant.ofEpochSecond((Long) entry.get(1)),
+                Duration.ofNanos((Long) entry.get(2) * 1000),
+                List.copyOf(args),
+                entry.size() > 4 ? String.valueOf(entry.get(4)) : "",
+                entry.size() > 5 ? String.valueOf(entry.get(5)) : "");
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connection != null) {
+            connection.close();
+        }
+        client.shutdown();
+    }
+}
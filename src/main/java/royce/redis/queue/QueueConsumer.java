@@ -0,0 +1,151 @@
+package royce.redis.queue;
+
+import io.lettuce.core.LMoveArgs;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisCommandInterruptedException;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiFunction;
+
+/**
+ * ReliableQueue 의 소비자. 꺼낸 작업은 ack 할 때 까지 소비자의 처리 중 리스트에 남는다.
+ * BLMOVE 로 블로킹 하므로 전용 커넥션을 사용 하며, 스레드 안전 하지 않다. 스레드 마다 소비자를 하나씩 만든다.
+ */
+public class QueueConsumer implements AutoCloseable {
+
+    private static final LMoveArgs RIGHT_LEFT = LMoveArgs.Builder.rightLeft();
+    private static final Duration PIPELINE_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ReliableQueue queue;
+    private final String id;
+    private final String processing;
+    private final StatefulRedisConnection<String, String> connection;
+    private boolean closed;
+
+    QueueConsumer(ReliableQueue queue, String id, StatefulRedisConnection<String, String> connection) {
+        this.queue = queue;
+        this.id = id;
+        this.processing = queue.processingKey(id);
+        this.connection = connection;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    /**
+     * 최대 max 개의 작업을 꺼낸다. 큐에 작업이 있으면 LMOVE max 개를 한 번에 전송 해서 한 번의 왕복으로 가져 오고,
+     * 비어 있으면 BLMOVE 로 timeout 동안 첫 작업을 기다린 뒤 나머지를 같은 방식으로 가져 온다.
+     *
+     * @param timeout 0 이면 작업이 들어올 때 까지 기다린다
+     * @return 꺼낸 작업. 타임아웃 되면 빈 목록
+     */
+    public List<String> poll(int max, Duration timeout) {
+        if (max < 1) {
+            throw new IllegalArgumentException("max must be positive: " + max);
+        }
+        List<String> items = moveBatch(max);
+        if (!items.isEmpty()) {
+            return items;
+        }
+        String first = connection.sync().blmove(queue.name(), processing, RIGHT_LEFT, timeout.toMillis() / 1000.0);
+        if (first == null) {
+            return List.of();
+        }
+        items = new ArrayList<>(max);
+        items.add(first);
+        items.addAll(moveBatch(max - 1));
+        return items;
+    }
+
+    /**
+     * 처리를 끝낸 작업을 처리 중 리스트에서 지운다. LREM 을 한 번에 전송 한다.
+     *
+     * @return 지운 작업 수. 이미 reaper 가 되돌린 작업은 세지 않는다
+     */
+    public long ack(Collection<String> items) {
+        List<String> acks = List.copyOf(items);
+        long acked = 0;
+        for (Long removed : pipeline(acks.size(), (commands, i) -> commands.lrem(processing, -1, acks.get(i)))) {
+            acked += removed;
+        }
+        return acked;
+    }
+
+    /**
+     * ack 하지 않은 작업을 큐로 되돌리고 커넥션을 닫는다.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.unregister(id);
+        } finally {
+            disconnect();
+        }
+    }
+
+    void disconnect() {
+        connection.close();
+    }
+
+    private List<String> moveBatch(int count) {
+        List<String> moved = new ArrayList<>(count);
+        for (String item : pipeline(count, (commands, i) -> commands.lmove(queue.name(), processing, RIGHT_LEFT))) {
+            if (item != null) {
+                moved.add(item);
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * count 개의 명령을 모아 한 번에 전송 하고 결과를 순서대로 돌려 준다.
+     */
+    private <T> List<T> pipeline(int count,
+                                 BiFunction<RedisAsyncCommands<String, String>, Integer, RedisFuture<T>> command) {
+        if (count == 0) {
+            return List.of();
+        }
+        RedisAsyncCommands<String, String> commands = connection.async();
+        List<RedisFuture<T>> futures = new ArrayList<>(count);
+        connection.setAutoFlushCommands(false);
+        try {
+            for (int i = 0; i < count; i++) {
+                futures.add(command.apply(commands, i));
+            }
+            connection.flushCommands();
+        } finally {
+            connection.setAutoFlushCommands(true);
+        }
+        if (!LettuceFutures.awaitAll(PIPELINE_TIMEOUT, futures.toArray(RedisFuture<?>[]::new))) {
+            throw new RedisCommandTimeoutException("pipeline did not complete in " + PIPELINE_TIMEOUT);
+        }
+        List<T> results = new ArrayList<>(count);
+        for (RedisFuture<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RedisCommandInterruptedException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new RedisException(e.getCause());
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,200 @@
+package royce.redis.queue;
+
+import io.lettuce.core.LMoveArgs;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 리스트 위에서 동작 하는 at-least-once 작업 큐.
+ * 소비자는 LMOVE/BLMOVE 로 작업을 큐에서 자신의 처리 중(processing) 리스트로 원자적으로 옮기고, 처리 후 LREM 으로 ack 한다.
+ * 소비자가 ack 하기 전에 죽으면 heartbeat 키가 만료 되고, reaper 가 처리 중 리스트의 작업을 큐로 되돌린다.
+ * 파생 키는 {name} 해시 태그를 사용 하므로 클러스터에서도 큐와 같은 슬롯에 놓인다.
+ */
+public class ReliableQueue implements AutoCloseable {
+
+    private final RedisClient client;
+    private final String name;
+    private final Duration heartbeatTimeout;
+    private final StatefulRedisConnection<String, String> connection;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, QueueConsumer> consumers = new ConcurrentHashMap<>();
+
+    private ReliableQueue(Builder builder) {
+        this.client = builder.client;
+        this.name = builder.name;
+        this.heartbeatTimeout = builder.heartbeatTimeout;
+        this.connection = client.connect();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reliable-queue-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long heartbeatNanos = heartbeatTimeout.toNanos() / 3;
+        scheduler.scheduleWithFixedDelay(this::heartbeatQuietly, heartbeatNanos, heartbeatNanos, TimeUnit.NANOSECONDS);
+        if (builder.reapInterval != null) {
+            long reapNanos = builder.reapInterval.toNanos();
+            scheduler.scheduleWithFixedDelay(this::reapQuietly, reapNanos, reapNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public static Builder builder(RedisClient client, String name) {
+        return new Builder(client, name);
+    }
+
+    /**
+     * 작업을 큐에 넣는다. 소비자는 먼저 넣은 작업 부터 꺼낸다.
+     *
+     * @return 넣은 후 큐의 길이
+     */
+    public long push(String... items) {
+        return connection.sync().lpush(name, items);
+    }
+
+    public long size() {
+        return connection.sync().llen(name);
+    }
+
+    /**
+     * 전용 커넥션을 가진 소비자를 만든다. 같은 id 로 다시 만들면 이전 소비자가 남긴 처리 중 작업을 이어 받는다.
+     */
+    public QueueConsumer consumer(String consumerId) {
+        QueueConsumer consumer = new QueueConsumer(this, consumerId, client.connect());
+        if (consumers.putIfAbsent(consumerId, consumer) != null) {
+            consumer.disconnect();
+            throw new IllegalStateException("consumer already exists: " + consumerId);
+        }
+        // heartbeat 를 먼저 써야 등록과 heartbeat 사이에 reaper 가 이 소비자를 죽은 것으로 보지 않는다
+        RedisCommands<String, String> commands = connection.sync();
+        heartbeat(commands, consumerId);
+        commands.sadd(consumersKey(), consumerId);
+        return consumer;
+    }
+
+    /**
+     * heartbeat 가 만료된 소비자의 처리 중 작업을 큐의 꺼내는 쪽으로 되돌려 먼저 다시 처리 되게 한다.
+     *
+     * @return 되돌린 작업 수
+     */
+    public long reap() {
+        RedisCommands<String, String> commands = connection.sync();
+        long requeued = 0;
+        for (String consumerId : commands.smembers(consumersKey())) {
+            if (consumers.containsKey(consumerId) || commands.exists(heartbeatKey(consumerId)) > 0) {
+                continue;
+            }
+            requeued += requeue(commands, consumerId);
+            commands.srem(consumersKey(), consumerId);
+        }
+        return requeued;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        consumers.values().forEach(QueueConsumer::close);
+        connection.close();
+    }
+
+    String name() {
+        return name;
+    }
+
+    String processingKey(String consumerId) {
+        return "{" + name + "}:processing:" + consumerId;
+    }
+
+    /**
+     * 소비자가 정상 종료 할 때 ack 하지 않은 작업을 되돌리고 등록을 지운다.
+     */
+    void unregister(String consumerId) {
+        RedisCommands<String, String> commands = connection.sync();
+        requeue(commands, consumerId);
+        commands.del(heartbeatKey(consumerId));
+        commands.srem(consumersKey(), consumerId);
+        consumers.remove(consumerId);
+    }
+
+    /**
+     * 처리 중 리스트는 왼쪽이 나중에 꺼낸 작업이다. 왼쪽부터 큐의 꺼내는 쪽(오른쪽)으로 옮기면 가장 먼저 꺼냈던 작업이 맨 끝에 놓여 먼저 처리 된다.
+     */
+    private long requeue(RedisCommands<String, String> commands, String consumerId) {
+        String processing = processingKey(consumerId);
+        long requeued = 0;
+        while (commands.lmove(processing, name, LMoveArgs.Builder.leftRight()) != null) {
+            requeued++;
+        }
+        return requeued;
+    }
+
+    private void heartbeat(RedisCommands<String, String> commands, String consumerId) {
+        commands.psetex(heartbeatKey(consumerId), heartbeatTimeout.toMillis(), "1");
+    }
+
+    private void heartbeatQuietly() {
+        try {
+            RedisCommands<String, String> commands = connection.sync();
+            consumers.keySet().forEach(consumerId -> heartbeat(commands, consumerId));
+        } catch (RuntimeException ignored) {
+            // 다음 주기에 다시 갱신 한다. heartbeatTimeout 이 주기의 3 배 이므로 한 번 실패로 만료 되지 않는다
+        }
+    }
+
+    private void reapQuietly() {
+        try {
+            reap();
+        } catch (RuntimeException ignored) {
+            // 되돌리지 못한 작업은 처리 중 리스트에 그대로 남아 있으므로 다음 주기에 다시 시도 한다
+        }
+    }
+
+    private String consumersKey() {
+        return "{" + name + "}:consumers";
+    }
+
+    private String heartbeatKey(String consumerId) {
+        return "{" + name + "}:heartbeat:" + consumerId;
+    }
+
+    public static class Builder {
+
+        private final RedisClient client;
+        private final String name;
+        private Duration heartbeatTimeout = Duration.ofSeconds(30);
+        private Duration reapInterval;
+
+        private Builder(RedisClient client, String name) {
+            this.client = client;
+            this.name = name;
+        }
+
+        /**
+         * 소비자의 heartbeat 가 이 시간 동안 갱신 되지 않으면 죽은 것으로 본다. 갱신은 이 시간의 1/3 주기로 한다.
+         */
+        public Builder heartbeatTimeout(Duration heartbeatTimeout) {
+            if (heartbeatTimeout.toMillis() < 3) {
+                throw new IllegalArgumentException("heartbeatTimeout is too short: " + heartbeatTimeout);
+            }
+            this.heartbeatTimeout = heartbeatTimeout;
+            return this;
+        }
+
+        /**
+         * 지정 하면 이 주기로 reap 을 실행 한다. 지정 하지 않으면 reap 을 직접 호출 해야 한다.
+         */
+        public Builder reapInterval(Duration reapInterval) {
+            this.reapInterval = reapInterval;
+            return this;
+        }
+
+        public ReliableQueue build() {
+            return new ReliableQueue(this);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package royce.redis.ratelimit;
+
+import io.lettuce.core.ScriptOutputType;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import royce.redis.connection.RedisConnectionPool;
+import royce.redis.script.LuaScript;
+import royce.redis.script.ScriptCall;
+import royce.redis.script.ScriptManager;
+
+/**
+ * Lua 스크립트로 판정 하는 분산 rate limiter.
+ * 읽기, 판정, 갱신을 스크립트 하나로 실행 하므로 여러 인스턴스가 같은 키를 동시에 검사 해도 경쟁 상태가 없고, 판정 하나가 EVALSHA 한 번의 왕복 이다.
+ * 키는 {name}:{id} 하나만 사용 하므로 클러스터에서도 동작 한다. 시각은 스크립트 안 에서 서버의 TIME 으로 읽는다.
+ */
+public class RateLimiter {
+
+    private final String name;
+    private final Algorithm algorithm;
+    private final long limit;
+    private final Duration period;
+    private final long burst;
+    private final ScriptManager scripts;
+
+    public enum Algorithm {
+
+        /**
+         * period 마다 limit 개. 카운터 하나로 가장 싸지만 윈도우 경계에서 최대 2 * limit 개가 몰릴 수 있다.
+         */
+        FIXED_WINDOW("royce/redis/ratelimit/fixed_window.lua"),
+
+        /**
+         * 최근 period 동안 limit 개. 허용한 요청 마다 sorted set 에 기록을 남기므로 정확 하지만 키 당 메모리가 limit 에 비례 한다.
+         */
+        SLIDING_LOG("royce/redis/ratelimit/sliding_log.lua"),
+
+        /**
+         * period / limit 간격으로 하나씩 회복 되고 최대 burst 개 까지 몰아서 쓸 수 있다. 키 당 값 하나만 저장 한다.
+         */
+        GCRA("royce/redis/ratelimit/gcra.lua");
+
+        private final LuaScript script;
+
+        Algorithm(String resource) {
+            this.script = LuaScript.fromResource(resource);
+        }
+
+        public LuaScript script() {
+            return script;
+        }
+    }
+
+    /**
+     * @param remaining  이 판정 후 바로 더 허용 할 수 있는 개수
+     * @param retryAfter 거절 된 경우 같은 요청이 허용 될 때 까지 기다려야 하는 시간. 허용 되면 0
+     * @param resetAfter 허용량이 모두 회복 될 때 까지의 시간
+     */
+    public record Decision(boolean allowed, long remaining, Duration retryAfter, Duration resetAfter) {
+    }
+
+    private RateLimiter(Builder builder) {
+        this.name = builder.name;
+        this.algorithm = builder.algorithm;
+        this.limit = builder.limit;
+        this.period = builder.period;
+        this.burst = builder.burst > 0 ? builder.burst : builder.limit;
+        this.scripts = ScriptManager.builder(builder.pool)
+                .script(algorithm.script())
+                .pipelineSize(builder.pipelineSize)
+                .commandTimeout(builder.commandTimeout)
+                .build();
+    }
+
+    public static Builder builder(RedisConnectionPool pool, String name) {
+        return new Builder(pool, name);
+    }
+
+    public String key(String id) {
+        return name + ":" + id;
+    }
+
+    public Decision tryAcquire(String id) {
+        return tryAcquire(id, 1);
+    }
+
+    public Decision tryAcquire(String id, int permits) {
+        return decision(scripts.execute(call(id, args(permits))));
+    }
+
+    /**
+     * 여러 id 를 하나의 파이프라인으로 판정 한다. 결과는 ids 순서를 따른다.
+     * 서버에 스크립트가 없어 NOSCRIPT 로 실패한 판정은 SCRIPT LOAD 후 한 번 더 보낸다.
+     */
+    public List<Decision> tryAcquireAll(List<String> ids) {
+        String[] args = args(1);
+        List<ScriptCall<List<Object>>> calls = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            calls.add(call(id, args));
+        }
+        List<Decision> decisions = new ArrayList<>(ids.size());
+        for (List<Object> result : scripts.executeAll(calls)) {
+            decisions.add(decision(result));
+        }
+        return decisions;
+    }
+
+    private ScriptCall<List<Object>> call(String id, String[] args) {
+        return algorithm.script().call(ScriptOutputType.MULTI, new String[]{key(id)}, args);
+    }
+
+    private String[] args(int permits) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("permits must be positive: " + permits);
+        }
+        if (algorithm == Algorithm.GCRA) {
+            long intervalMicros = Math.max(1, period.toNanos() / 1000 / limit);
+            return new String[]{String.valueOf(intervalMicros), String.valueOf(burst), String.valueOf(permits)};
+        }
+        return new String[]{String.valueOf(limit), String.valueOf(period.toMillis()), String.valueOf(permits)};
+    }
+
+    private static Decision decision(List<Object> result) {
+        return new Decision(
+                (Long) result.get(0) == 1,
+                (Long) result.get(1),
+                Duration.ofMillis((Long) result.get(2)),
+                Duration.ofMillis((Long) result.get(3)));
+    }
+
+    public static class Builder {
+
+        private final RedisConnectionPool pool;
+        private final String name;
+        private Algorithm algorithm = Algorithm.GCRA;
+        private long limit = 100;
+        private Duration period = Duration.ofSeconds(1);
+        private long burst;
+        private int pipelineSize = 1_000;
+        private Duration commandTimeout = Duration.ofSeconds(5);
+
+        private Builder(RedisConnectionPool pool, String name) {
+            this.pool = pool;
+            this.name = name;
+        }
+
+        public Builder algorithm(Algorithm algorithm) {
+            this.algorithm = algorithm;
+            return this;
+        }
+
+        /**
+         * period 동안 허용 할 요청 수.
+         */
+        public Builder limit(long limit, Duration period) {
+            if (limit < 1) {
+                throw new IllegalArgumentException("limit must be positive: " + limit);
+            }
+            if (period.isZero() || period.isNegative()) {
+                throw new IllegalArgumentException("period must be positive: " + period);
+            }
+            this.limit = limit;
+            this.period = period;
+            return this;
+        }
+
+        /**
+         * GCRA 에서 한 번에 몰아서 허용 할 수 있는 최대 요청 수. 지정 하지 않으면 limit 과 같다.
+         */
+        public Builder burst(long burst) {
+            if (burst < 1) {
+                throw new IllegalArgumentException("burst must be positive: " + burst);
+            }
+            this.burst = burst;
+            return this;
+        }
+
+        /**
+         * tryAcquireAll 에서 한 번에 전송 하는 명령 수.
+         */
+        public Builder pipelineSize(int pipelineSize) {
+            this.pipelineSize = pipelineSize;
+            return this;
+        }
+
+        public Builder commandTimeout(Duration commandTimeout) {
+            this.commandTimeout = commandTimeout;
+            return this;
+        }
+
+        /**
+         * 알고리즘의 스크립트를 서버에 올린 뒤 돌려 준다.
+         */
+        public RateLimiter build() {
+            return new RateLimiter(this);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package royce.redis.reactive;
+
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisConnectionException;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.reactive.RedisReactiveCommands;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+/**
+ * Lettuce reactive() API 위에서 명령을 실행 하는 non-blocking 실행기.
+ * 여러 입력을 처리 할 때 동시에 응답을 기다리는(in-flight) 명령 수를 maxInFlight 로 제한 한다.
+ * 타임아웃과 재시도 대기는 Reactor 의 parallel scheduler 에서 처리 하므로 Netty event loop 를 막지 않는다.
+ * 하나의 커넥션을 여러 구독이 공유 하며, Lettuce 가 명령을 하나의 커넥션에 다중화(multiplexing) 한다.
+ */
+public class ReactiveCommandExecutor {
+
+    private final RedisReactiveCommands<String, String> commands;
+    private final int maxInFlight;
+    private final boolean ordered;
+    private final Duration timeout;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final Scheduler publishOn;
+
+    private ReactiveCommandExecutor(Builder builder) {
+        this.commands = builder.connection.reactive();
+        this.maxInFlight = builder.maxInFlight;
+        this.ordered = builder.ordered;
+        this.timeout = builder.timeout;
+        this.maxRetries = builder.maxRetries;
+        this.retryBackoff = builder.retryBackoff;
+        this.publishOn = builder.publishOn;
+    }
+
+    public static Builder builder(StatefulRedisConnection<String, String> connection) {
+        return new Builder(connection);
+    }
+
+    public RedisReactiveCommands<String, String> commands() {
+        return commands;
+    }
+
+    /**
+     * 명령 하나를 타임아웃, 재시도 정책을 적용 해서 실행 한다.
+     */
+    public <R> Mono<R> execute(Function<RedisReactiveCommands<String, String>, Mono<R>> command) {
+        return Mono.defer(() -> guard(command.apply(commands)).next());
+    }
+
+    /**
+     * 입력 마다 명령을 실행 한다. 최대 maxInFlight 개의 명령만 동시에 보내고, ordered 이면 결과를 입력 순서대로 내보낸다.
+     */
+    public <T, R> Flux<R> executeAll(Publisher<T> inputs,
+                                     BiFunction<RedisReactiveCommands<String, String>, T, Publisher<R>> command) {
+        Function<T, Publisher<R>> mapper = input -> guard(Flux.defer(() -> command.apply(commands, input)));
+        return ordered
+                ? Flux.from(inputs).flatMapSequential(mapper, maxInFlight)
+                : Flux.from(inputs).flatMap(mapper, maxInFlight);
+    }
+
+    /**
+     * 입력을 batchSize 개 씩 묶어 실행 하고 묶음 별 결과 목록을 내보낸다.
+     * 묶음 안의 결과는 항상 입력 순서를 따르며, 묶음 사이의 순서는 ordered 설정을 따른다.
+     * batchSize 가 maxInFlight 보다 크면 한 묶음 안 에서도 maxInFlight 개 까지만 동시에 보낸다.
+     */
+    public <T, R> Flux<List<R>> executeBatches(Publisher<T> inputs, int batchSize,
+                                               BiFunction<RedisReactiveCommands<String, String>, T, Publisher<R>> command) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        int concurrency = Math.max(1, maxInFlight / batchSize);
+        int batchInFlight = Math.min(batchSize, maxInFlight);
+        Function<List<T>, Publisher<List<R>>> mapper = batch -> Flux.fromIterable(batch)
+                .flatMapSequential(input -> guard(Flux.defer(() -> command.apply(commands, input))), batchInFlight)
+                .collectList();
+        return ordered
+                ? Flux.from(inputs).buffer(batchSize).flatMapSequential(mapper, concurrency)
+                : Flux.from(inputs).buffer(batchSize).flatMap(mapper, concurrency);
+    }
+
+    private <R> Flux<R> guard(Publisher<R> command) {
+        Flux<R> guarded = Flux.from(command).timeout(timeout, Schedulers.parallel());
+        if (maxRetries > 0) {
+            guarded = guarded.retryWhen(Retry.backoff(maxRetries, retryBackoff)
+                    .filter(ReactiveCommandExecutor::isTransient));
+        }
+        return publishOn == null ? guarded : guarded.publishOn(publishOn);
+    }
+
+    /**
+     * 서버가 오류로 응답한 경우(WRONGTYPE 등)는 다시 보내도 같은 결과 이므로 재시도 하지 않는다.
+     */
+    private static boolean isTransient(Throwable error) {
+        return error instanceof TimeoutException
+                || error instanceof RedisCommandTimeoutException
+                || error instanceof RedisConnectionException;
+    }
+
+    public static class Builder {
+
+        private final StatefulRedisConnection<String, String> connection;
+        private int maxInFlight = 256;
+        private boolean ordered = true;
+        private Duration timeout = Duration.ofSeconds(5);
+        private int maxRetries;
+        private Duration retryBackoff = Duration.ofMillis(50);
+        private Scheduler publishOn;
+
+        private Builder(StatefulRedisConnection<String, String> connection) {
+            this.connection = connection;
+        }
+
+        public Builder maxInFlight(int maxInFlight) {
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * false 이면 먼저 끝난 명령의 결과를 먼저 내보낸다. 순서를 맞추기 위해 결과를 잡아 두지 않으므로 지연 시간이 짧다.
+         */
+        public Builder ordered(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
+        public Builder timeout(Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * 타임아웃, 연결 오류가 나면 지수 backoff 로 최대 maxRetries 번 다시 보낸다.
+         * INCR 처럼 멱등 하지 않은 명령은 서버에 이미 반영 되었을 수 있으므로 재시도를 켜지 않는다.
+         */
+        public Builder retry(int maxRetries, Duration backoff) {
+            this.maxRetries = maxRetries;
+            this.retryBackoff = backoff;
+            return this;
+        }
+
+        /**
+         * 결과를 받을 scheduler. 구독자가 블로킹 작업을 한다면 event loop 대신 이 scheduler 에서 받도록 지정 한다.
+         */
+        public Builder publishOn(Scheduler publishOn) {
+            this.publishOn = publishOn;
+            return this;
+        }
+
+        public ReactiveCommandExecutor build() {
+            return new ReactiveCommandExecutor(this);
+        }
+    }
+}
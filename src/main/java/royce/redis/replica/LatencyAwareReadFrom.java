@@ -0,0 +1,73 @@
+package royce.redis.replica;
+
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.models.role.RedisNodeDescription;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * RTT 이동 평균이 짧은 순서로 노드를 고르는 ReadFrom. isOrderSensitive 가 true 이므로 Lettuce 는 select 결과 중
+ * 연결 된 첫 번째 노드를 사용 한다. false 이면 목록 에서 아무 노드나 고르므로 순위와 primary 대체가 의미 없어 진다.
+ * RTT 를 모르는 노드는 뒤로 보낸다.
+ */
+final class LatencyAwareReadFrom extends ReadFrom {
+
+    private final NodeLatencyMonitor monitor;
+    private final long maxLagBytes;
+    private final boolean primaryCompetes;
+
+    /**
+     * @param maxLagBytes     이 보다 지연이 큰 replica 는 고르지 않는다. Long.MAX_VALUE 이면 지연을 보지 않는다
+     * @param primaryCompetes true 이면 primary 도 RTT 로 순위를 매기고, false 이면 replica 가 없을 때만 고른다
+     */
+    LatencyAwareReadFrom(NodeLatencyMonitor monitor, long maxLagBytes, boolean primaryCompetes) {
+        this.monitor = monitor;
+        this.maxLagBytes = maxLagBytes;
+        this.primaryCompetes = primaryCompetes;
+    }
+
+    @Override
+    public List<RedisNodeDescription> select(Nodes nodes) {
+        List<RedisNodeDescription> selected = new ArrayList<>();
+        RedisNodeDescription primary = null;
+        for (RedisNodeDescription node : nodes) {
+            if (node.getRole().isUpstream()) {
+                primary = node;
+                if (primaryCompetes) {
+                    selected.add(node);
+                }
+            } else if (withinLag(node)) {
+                selected.add(node);
+            }
+        }
+        selected.sort(Comparator.comparingLong(this::rank));
+        if (!primaryCompetes && primary != null) {
+            selected.add(primary);
+        }
+        return selected;
+    }
+
+    @Override
+    protected boolean isOrderSensitive() {
+        return true;
+    }
+
+    private boolean withinLag(RedisNodeDescription replica) {
+        if (maxLagBytes == Long.MAX_VALUE) {
+            return true;
+        }
+        long lag = monitor.replicationLag(replica.getUri());
+        return lag >= 0 && lag <= maxLagBytes;
+    }
+
+    private long rank(RedisNodeDescription node) {
+        long latency = monitor.latency(node.getUri());
+        return latency < 0 ? Long.MAX_VALUE : latency;
+    }
+
+    @Override
+    public String toString() {
+        return primaryCompetes ? "LowestLatency" : "StaleTolerant(" + maxLagBytes + " bytes)";
+    }
+}
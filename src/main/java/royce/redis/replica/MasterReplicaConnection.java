@@ -0,0 +1,127 @@
+package royce.redis.replica;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.masterreplica.MasterReplica;
+import io.lettuce.core.masterreplica.StatefulRedisMasterReplicaConnection;
+import io.lettuce.core.resource.ClientResources;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import royce.redis.connection.RedisConnectionSettings;
+import royce.redis.connection.SharedClientResources;
+import royce.redis.metrics.LatencyHistogram;
+
+/**
+ * primary 하나와 replica 들에 대한 커넥션. 노드 목록과 각 노드의 역할(ROLE)은 접속 할 때 한 번 확인 한다.
+ * 쓰기는 항상 primary 로 보내고, 읽기는 ReadRouting 이 고른 노드로 보낸다.
+ * 노드 별 PING RTT 분포를 latencies() 로 볼 수 있으므로 피크 때 primary 의 읽기 부하를 옮길 지 판단 할 수 있다.
+ */
+public class MasterReplicaConnection implements AutoCloseable {
+
+    private final RedisClient client;
+    private final boolean ownsClient;
+    private final NodeLatencyMonitor monitor;
+    private final StatefulRedisMasterReplicaConnection<String, String> connection;
+
+    private MasterReplicaConnection(Builder builder) {
+        this.ownsClient = builder.client == null;
+        this.client = ownsClient ? RedisClient.create(builder.resources) : builder.client;
+        List<RedisURI> uris = new ArrayList<>(builder.nodes.size());
+        for (RedisConnectionSettings node : builder.nodes) {
+            uris.add(node.toRedisURI());
+        }
+        this.monitor = new NodeLatencyMonitor(client, uris);
+        this.connection = MasterReplica.connect(client, StringCodec.UTF8, uris);
+        connection.setReadFrom(builder.readRouting.readFrom(monitor));
+        monitor.start(builder.samplingInterval);
+    }
+
+    /**
+     * @param nodes primary 와 replica 의 접속 정보. 순서는 상관 없다
+     */
+    public static Builder builder(List<RedisConnectionSettings> nodes) {
+        return new Builder(nodes);
+    }
+
+    public <T> T execute(Function<RedisCommands<String, String>, T> action) {
+        return action.apply(connection.sync());
+    }
+
+    public StatefulRedisMasterReplicaConnection<String, String> connection() {
+        return connection;
+    }
+
+    public NodeLatencyMonitor monitor() {
+        return monitor;
+    }
+
+    /**
+     * host:port 별 PING RTT 분포.
+     */
+    public Map<String, LatencyHistogram.Snapshot> latencies() {
+        return monitor.snapshot();
+    }
+
+    @Override
+    public void close() {
+        monitor.close();
+        connection.close();
+        if (ownsClient) {
+            client.shutdown();
+        }
+    }
+
+    public static class Builder {
+
+        private final List<RedisConnectionSettings> nodes;
+        private ClientResources resources = SharedClientResources.get();
+        private RedisClient client;
+        private ReadRouting readRouting = ReadRouting.replicaPreferred();
+        private Duration samplingInterval = Duration.ofSeconds(1);
+
+        private Builder(List<RedisConnectionSettings> nodes) {
+            if (nodes.isEmpty()) {
+                throw new IllegalArgumentException("nodes must not be empty");
+            }
+            this.nodes = List.copyOf(nodes);
+        }
+
+        public Builder resources(ClientResources resources) {
+            this.resources = resources;
+            return this;
+        }
+
+        /**
+         * 이미 만들어 둔 RedisClient 를 사용 한다. 이 경우 client 를 종료 하지 않는다.
+         */
+        public Builder client(RedisClient client) {
+            this.client = client;
+            return this;
+        }
+
+        public Builder readRouting(ReadRouting readRouting) {
+            this.readRouting = readRouting;
+            return this;
+        }
+
+        /**
+         * PING RTT 와 복제 offset 을 측정 하는 주기.
+         */
+        public Builder samplingInterval(Duration samplingInterval) {
+            if (samplingInterval.isZero() || samplingInterval.isNegative()) {
+                throw new IllegalArgumentException("samplingInterval must be positive: " + samplingInterval);
+            }
+            this.samplingInterval = samplingInterval;
+            return this;
+        }
+
+        public MasterReplicaConnection build() {
+            return new MasterReplicaConnection(this);
+        }
+    }
+}
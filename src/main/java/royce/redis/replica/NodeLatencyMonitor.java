@@ -0,0 +1,242 @@
+package royce.redis.replica;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import royce.redis.metrics.LatencyHistogram;
+
+/**
+ * 노드 마다 전용 커넥션으로 PING 을 주기적으로 보내 왕복 시간(RTT)을 재고, INFO replication 으로 복제 offset 을 읽는다.
+ * 전용 커넥션을 쓰므로 RTT 에 다른 명령의 대기 시간이 섞이지 않는다.
+ * RTT 는 노드 별 LatencyHistogram 에 누적 하고, 라우팅에는 최근 값에 가중치를 둔 이동 평균(EWMA)을 사용 한다.
+ * 다음 측정 때 까지 PING 응답이 오지 않은 노드는 새 PING 을 보내지 않고, 이동 평균을 그 PING 을 보낸 뒤 지난 시간 이상 으로 올린다.
+ * 그래서 멈추거나 과부하 걸린 노드는 마지막 정상 RTT 에 머물지 않고 측정 할 때 마다 순위가 뒤로 밀린다.
+ */
+public class NodeLatencyMonitor implements AutoCloseable {
+
+    private static final double SMOOTHING = 0.2;
+
+    private final Function<RedisURI, Probe> probes;
+    private final LongSupplier clock;
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 노드 하나에 PING 과 INFO replication 을 보내는 통로. 기본은 노드 마다 연 전용 커넥션 이다.
+     */
+    interface Probe extends AutoCloseable {
+
+        CompletionStage<String> ping();
+
+        CompletionStage<String> replication();
+
+        boolean isOpen();
+
+        @Override
+        void close();
+    }
+
+    private record ConnectionProbe(StatefulRedisConnection<String, String> connection) implements Probe {
+
+        @Override
+        public CompletionStage<String> ping() {
+            return connection.async().ping();
+        }
+
+        @Override
+        public CompletionStage<String> replication() {
+            return connection.async().info("replication");
+        }
+
+        @Override
+        public boolean isOpen() {
+            return connection.isOpen();
+        }
+
+        @Override
+        public void close() {
+            connection.close();
+        }
+    }
+
+    private static final class Node {
+
+        final RedisURI uri;
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Probe probe;
+        volatile long smoothedNanos = -1;
+        /**
+         * 응답을 기다리는 PING 을 보낸 시각. 기다리는 PING 이 없으면 -1
+         */
+        volatile long pingSentNanos = -1;
+        volatile long offset = -1;
+        volatile boolean primary;
+
+        Node(RedisURI uri) {
+            this.uri = uri;
+        }
+    }
+
+    NodeLatencyMonitor(RedisClient client, List<RedisURI> uris) {
+        this(uris, uri -> new ConnectionProbe(client.connect(uri)), System::nanoTime);
+    }
+
+    /**
+     * @param probes 노드 마다 측정 통로를 연다. 열 수 없으면 예외를 던진다
+     * @param clock  RTT 와 PING 대기 시간을 재는 나노초 시계
+     */
+    NodeLatencyMonitor(List<RedisURI> uris, Function<RedisURI, Probe> probes, LongSupplier clock) {
+        this.probes = probes;
+        this.clock = clock;
+        for (RedisURI uri : uris) {
+            nodes.put(key(uri), new Node(uri));
+        }
+    }
+
+    static String key(RedisURI uri) {
+        return uri.getHost() + ":" + uri.getPort();
+    }
+
+    /**
+     * interval 마다 모든 노드를 측정 한다. 첫 측정은 바로 시작 한다.
+     */
+    synchronized void start(Duration interval) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "node-latency-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::sample, 0, interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * PING 과 INFO 를 보내기만 하고 응답은 event loop 에서 기록 한다.
+     */
+    void sample() {
+        for (Node node : nodes.values()) {
+            long sent = node.pingSentNanos;
+            if (sent >= 0) {
+                long waiting = clock.getAsLong() - sent;
+                node.smoothedNanos = Math.max(node.smoothedNanos, waiting);
+                continue;
+            }
+            try {
+                if (node.probe == null || !node.probe.isOpen()) {
+                    node.probe = probes.apply(node.uri);
+                }
+            } catch (RuntimeException e) {
+                // 연결 할 수 없는 노드는 RTT 를 모르는 노드로 남겨 라우팅 순위에서 뒤로 보낸다
+                node.smoothedNanos = -1;
+                continue;
+            }
+            long start = clock.getAsLong();
+            node.pingSentNanos = start;
+            node.probe.ping().whenComplete((pong, error) -> {
+                node.pingSentNanos = -1;
+                if (error == null) {
+                    record(node, clock.getAsLong() - start);
+                } else {
+                    node.smoothedNanos = -1;
+                }
+            });
+            node.probe.replication().thenAccept(info -> replication(node, info));
+        }
+    }
+
+    private static void record(Node node, long nanos) {
+        node.histogram.record(nanos);
+        long previous = node.smoothedNanos;
+        node.smoothedNanos = previous < 0 ? nanos : (long) (SMOOTHING * nanos + (1 - SMOOTHING) * previous);
+    }
+
+    private static void replication(Node node, String info) {
+        boolean primary = false;
+        long offset = -1;
+        for (String line : info.split("\r?\n")) {
+            if (line.equals("role:master")) {
+                primary = true;
+            } else if (line.startsWith("master_repl_offset:") && offset < 0) {
+                offset = Long.parseLong(line.substring("master_repl_offset:".length()).trim());
+            } else if (line.startsWith("slave_repl_offset:")) {
+                offset = Long.parseLong(line.substring("slave_repl_offset:".length()).trim());
+            }
+        }
+        node.primary = primary;
+        node.offset = offset;
+    }
+
+    /**
+     * RTT 이동 평균. 아직 측정 하지 못 했거나 연결 할 수 없으면 -1
+     */
+    public long latency(RedisURI uri) {
+        Node node = nodes.get(key(uri));
+        return node == null ? -1 : node.smoothedNanos;
+    }
+
+    /**
+     * primary 의 offset 에서 replica 의 offset 을 뺀 복제 지연 바이트 수. 모르면 -1, primary 이면 0
+     */
+    public long replicationLag(RedisURI uri) {
+        Node node = nodes.get(key(uri));
+        if (node == null || node.offset < 0) {
+            return -1;
+        }
+        if (node.primary) {
+            return 0;
+        }
+        long primaryOffset = -1;
+        for (Node each : nodes.values()) {
+            if (each.primary) {
+                primaryOffset = Math.max(primaryOffset, each.offset);
+            }
+        }
+        return primaryOffset < 0 ? -1 : Math.max(0, primaryOffset - node.offset);
+    }
+
+    public LatencyHistogram histogram(RedisURI uri) {
+        Node node = nodes.get(key(uri));
+        if (node == null) {
+            throw new IllegalArgumentException("unknown node: " + key(uri));
+        }
+        return node.histogram;
+    }
+
+    /**
+     * host:port 별 PING RTT 분포.
+     */
+    public Map<String, LatencyHistogram.Snapshot> snapshot() {
+        Map<String, LatencyHistogram.Snapshot> snapshot = new LinkedHashMap<>();
+        nodes.forEach((key, node) -> snapshot.put(key, node.histogram.snapshot()));
+        return snapshot;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Node node : nodes.values()) {
+            if (node.probe != null) {
+                node.probe.close();
+            }
+        }
+    }
+}
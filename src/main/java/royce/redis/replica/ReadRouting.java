@@ -0,0 +1,43 @@
+package royce.redis.replica;
+
+import io.lettuce.core.ReadFrom;
+
+/**
+ * 읽기 명령을 보낼 노드를 고르는 방법. NodeLatencyMonitor 가 측정한 RTT 와 복제 offset 으로 Lettuce 의 ReadFrom 을 만든다.
+ * 쓰기 명령은 어떤 ReadFrom 을 쓰든 항상 primary 로 간다.
+ */
+@FunctionalInterface
+public interface ReadRouting {
+
+    ReadFrom readFrom(NodeLatencyMonitor monitor);
+
+    static ReadRouting primary() {
+        return monitor -> ReadFrom.UPSTREAM;
+    }
+
+    /**
+     * replica 중 하나, replica 에 연결 할 수 없으면 primary.
+     */
+    static ReadRouting replicaPreferred() {
+        return monitor -> ReadFrom.REPLICA_PREFERRED;
+    }
+
+    /**
+     * primary 를 포함 한 모든 노드 중 RTT 이동 평균이 가장 짧은 노드.
+     * 피크 때 primary 의 응답이 느려지면 읽기가 자연스럽게 replica 로 옮겨 간다.
+     */
+    static ReadRouting lowestLatency() {
+        return monitor -> new LatencyAwareReadFrom(monitor, Long.MAX_VALUE, true);
+    }
+
+    /**
+     * 복제 지연이 maxLagBytes 이하인 replica 중 RTT 가 가장 짧은 노드, 그런 replica 가 없으면 primary.
+     * offset 을 아직 모르는 replica 는 지연이 큰 것으로 본다.
+     */
+    static ReadRouting staleTolerant(long maxLagBytes) {
+        if (maxLagBytes < 0) {
+            throw new IllegalArgumentException("maxLagBytes must not be negative: " + maxLagBytes);
+        }
+        return monitor -> new LatencyAwareReadFrom(monitor, maxLagBytes, false);
+    }
+}
@@ -0,0 +1,187 @@
+package royce.redis.scan;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import royce.redis.cluster.ClusterConnection;
+import royce.redis.scan.ScanSource.DatabaseKey;
+
+/**
+ * 하나 이상의 ScanSource 를 병렬로 훑어 구독자에게 전달 하는 Flow.Publisher.
+ * 각 source 는 executor 의 스레드 하나를 차지 하고, 원소는 bufferSize 크기의 큐를 거쳐 구독자가 요청한 만큼만 전달 된다.
+ * 큐가 가득 차면 source 가 다음 페이지를 가져 오지 않고 기다리므로, 전체 키 수와 상관 없이 메모리 사용량이 일정 하다.
+ * subscribe 할 때 마다 커서를 처음 부터 다시 훑는다.
+ */
+public class ScanPublisher<T> implements Flow.Publisher<T> {
+
+    private static final long OFFER_TIMEOUT_MILLIS = 10;
+
+    private final List<ScanSource<? extends T>> sources;
+    private final Executor executor;
+    private final int bufferSize;
+
+    private ScanPublisher(List<ScanSource<? extends T>> sources, Executor executor, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+        }
+        this.sources = List.copyOf(sources);
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+    }
+
+    public static <T> ScanPublisher<T> of(ScanSource<? extends T> source, Executor executor, int bufferSize) {
+        return new ScanPublisher<>(List.of(source), executor, bufferSize);
+    }
+
+    /**
+     * sources 를 동시에 훑어 하나의 흐름으로 합친다. 원소 사이의 순서는 보장 하지 않는다.
+     */
+    public static <T> ScanPublisher<T> merge(List<ScanSource<? extends T>> sources, Executor executor, int bufferSize) {
+        return new ScanPublisher<>(sources, executor, bufferSize);
+    }
+
+    /**
+     * 여러 논리 DB 의 키를 DB 마다 전용 커넥션으로 동시에 훑는다.
+     */
+    public static ScanPublisher<DatabaseKey> databases(RedisClient client, ScanArgs args, Executor executor,
+                                                       int bufferSize, int... databases) {
+        List<ScanSource<? extends DatabaseKey>> sources = new ArrayList<>(databases.length);
+        for (int database : databases) {
+            sources.add(ScanSource.keys(client, database, args));
+        }
+        return new ScanPublisher<>(sources, executor, bufferSize);
+    }
+
+    /**
+     * 클러스터의 키를 slot 을 가진 primary 마다 SCAN 하나로 동시에 훑는다. replica 는 primary 와 같은 키를 가지므로 훑지 않는다.
+     * primary 목록은 subscribe 할 때가 아니라 이 메서드를 부른 시점의 토폴로지 이다.
+     * 훑는 동안 slot 이 다른 노드로 옮겨 지면 옮겨진 키는 빠지거나 두 번 나올 수 있다.
+     */
+    public static ScanPublisher<String> cluster(ClusterConnection cluster, ScanArgs args, Executor executor,
+                                                int bufferSize) {
+        List<ScanSource<? extends String>> sources = new ArrayList<>();
+        for (RedisClusterNode node : cluster.connection().getPartitions()) {
+            if (node.getSlaveOf() == null && !node.getSlots().isEmpty()) {
+                sources.add(ScanSource.keys(cluster.connection(), node.getNodeId(), args));
+            }
+        }
+        return new ScanPublisher<>(sources, executor, bufferSize);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        new ScanSubscription(subscriber).start();
+    }
+
+    private final class ScanSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final BlockingQueue<T> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger(sources.size());
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+
+        private ScanSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void start() {
+            subscriber.onSubscribe(this);
+            for (ScanSource<? extends T> source : sources) {
+                executor.execute(() -> produce(source));
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("request must be positive: " + n));
+                return;
+            }
+            demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private void produce(ScanSource<? extends T> source) {
+            try {
+                source.scan(this::put);
+            } catch (CancellationException ignored) {
+                // 구독이 끝났으므로 남은 페이지는 가져 오지 않는다
+            } catch (RuntimeException e) {
+                fail(e);
+            } finally {
+                running.decrementAndGet();
+                drain();
+            }
+        }
+
+        private void put(T item) {
+            try {
+                while (!buffer.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (cancelled || error != null) {
+                        throw new CancellationException();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException();
+            }
+            drain();
+        }
+
+        private void fail(Throwable throwable) {
+            if (error == null) {
+                error = throwable;
+            }
+            drain();
+        }
+
+        /**
+         * 한 번에 하나의 스레드만 구독자에게 신호를 보낸다. 다른 스레드가 전달 중 이면 missed 로 다시 돌게 한다.
+         */
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (!cancelled && error == null && demand.get() > 0) {
+                    T item = buffer.poll();
+                    if (item == null) {
+                        break;
+                    }
+                    demand.decrementAndGet();
+                    subscriber.onNext(item);
+                }
+                if (!cancelled) {
+                    if (error != null) {
+                        cancelled = true;
+                        buffer.clear();
+                        subscriber.onError(error);
+                    } else if (running.get() == 0 && buffer.isEmpty()) {
+                        cancelled = true;
+                        subscriber.onComplete();
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package royce.redis.scan;
+
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanIterator;
+import io.lettuce.core.ScoredValue;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import java.util.function.Consumer;
+
+/**
+ * SCAN 계열 커서 하나를 처음 부터 끝까지 따라가는 작업.
+ * Lettuce ScanIterator 로 한 페이지(COUNT 개) 씩 가져 오므로 클라이언트는 한 페이지 만큼의 메모리만 사용 한다.
+ */
+@FunctionalInterface
+public interface ScanSource<T> {
+
+    /**
+     * 커서를 끝까지 따라가며 원소를 sink 에 넘긴다. sink 는 소비자가 따라 올 때 까지 블로킹 할 수 있다.
+     */
+    void scan(Consumer<? super T> sink);
+
+    static ScanSource<String> keys(RedisCommands<String, String> commands, ScanArgs args) {
+        return sink -> ScanIterator.scan(commands, args).forEachRemaining(sink);
+    }
+
+    static ScanSource<KeyValue<String, String>> hscan(RedisCommands<String, String> commands, String key, ScanArgs args) {
+        return sink -> ScanIterator.hscan(commands, key, args).forEachRemaining(sink);
+    }
+
+    static ScanSource<String> sscan(RedisCommands<String, String> commands, String key, ScanArgs args) {
+        return sink -> ScanIterator.sscan(commands, key, args).forEachRemaining(sink);
+    }
+
+    static ScanSource<ScoredValue<String>> zscan(RedisCommands<String, String> commands, String key, ScanArgs args) {
+        return sink -> ScanIterator.zscan(commands, key, args).forEachRemaining(sink);
+    }
+
+    /**
+     * database 번 논리 DB 의 키를 훑는다. 스캔 하는 동안 전용 커넥션을 하나 사용 한다.
+     */
+    static ScanSource<DatabaseKey> keys(RedisClient client, int database, ScanArgs args) {
+        return sink -> {
+            try (StatefulRedisConnection<String, String> connection = client.connect()) {
+                RedisCommands<String, String> commands = connection.sync();
+                commands.select(database);
+                ScanIterator.scan(commands, args).forEachRemaining(key -> sink.accept(new DatabaseKey(database, key)));
+            }
+        };
+    }
+
+    /**
+     * 클러스터 노드 하나의 키를 훑는다. SCAN 은 키가 없는 명령 이므로 RedisClusterClient 가 라우팅 하지 않고, 노드 커넥션에 직접 보낸다.
+     */
+    static ScanSource<String> keys(StatefulRedisClusterConnection<String, String> connection, String nodeId,
+                                   ScanArgs args) {
+        return sink -> ScanIterator.scan(connection.getConnection(nodeId).sync(), args).forEachRemaining(sink);
+    }
+
+    record DatabaseKey(int database, String key) {
+    }
+}
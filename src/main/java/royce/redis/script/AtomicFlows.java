@@ -0,0 +1,122 @@
+package royce.redis.script;
+
+import io.lettuce.core.ScriptOutputType;
+import java.util.List;
+import royce.redis.connection.RedisConnectionPool;
+
+/**
+ * 여러 단계 명령을 서버 안 에서 한 번에 실행 하는 흐름. MULTI/EXEC 나 WATCH 재시도 없이 한 번의 왕복으로 원자성을 얻는다.
+ * Engine.SCRIPT 는 EVALSHA 로, Engine.FUNCTION 은 Redis 7 의 FCALL 로 호출 하며 결과는 같다.
+ */
+public class AtomicFlows {
+
+    private static final LuaScript COMPARE_AND_SET = LuaScript.fromResource("royce/redis/script/compare_and_set.lua");
+    private static final LuaScript MOVE_AND_COUNT = LuaScript.fromResource("royce/redis/script/move_and_count.lua");
+    private static final FunctionLibrary FLOWS = FunctionLibrary.fromResource("royce/redis/script/flows.lua");
+
+    public enum Engine {
+        /**
+         * SCRIPT LOAD 한 Lua 스크립트를 EVALSHA 로 호출 한다.
+         */
+        SCRIPT,
+        /**
+         * FUNCTION LOAD 한 라이브러리의 함수를 FCALL 로 호출 한다. Redis 7 이상.
+         */
+        FUNCTION
+    }
+
+    /**
+     * @param expected 바꾸기 전에 있어야 하는 값. null 이면 필드가 없어야 한다
+     */
+    public record FieldUpdate(String key, String field, String expected, String value) {
+    }
+
+    private final ScriptManager scripts;
+    private final Engine engine;
+
+    private AtomicFlows(Builder builder) {
+        this.engine = builder.engine;
+        ScriptManager.Builder scripts = ScriptManager.builder(builder.pool).pipelineSize(builder.pipelineSize);
+        if (engine == Engine.SCRIPT) {
+            scripts.script(COMPARE_AND_SET).script(MOVE_AND_COUNT);
+        } else {
+            scripts.library(FLOWS);
+        }
+        this.scripts = scripts.build();
+    }
+
+    public static Builder builder(RedisConnectionPool pool) {
+        return new Builder(pool);
+    }
+
+    /**
+     * 해시 필드가 expected 일 때만 value 로 바꾼다.
+     *
+     * @param expected null 이면 필드가 없을 때만 바꾼다
+     * @return 바꿨으면 true
+     */
+    public boolean compareAndSet(String key, String field, String expected, String value) {
+        return scripts.execute(compareAndSet(new FieldUpdate(key, field, expected, value)));
+    }
+
+    /**
+     * 여러 compareAndSet 을 하나의 파이프라인으로 보낸다. 결과는 updates 순서를 따른다.
+     */
+    public List<Boolean> compareAndSetAll(List<FieldUpdate> updates) {
+        return scripts.executeAll(updates.stream().map(this::compareAndSet).toList());
+    }
+
+    /**
+     * source 의 첫 원소를 destination 의 끝으로 옮기고, 옮겼으면 counter 를 1 올린다.
+     *
+     * @return 옮긴 원소. source 가 비어 있으면 null
+     */
+    public String moveAndCount(String source, String destination, String counter) {
+        String[] keys = {source, destination, counter};
+        return scripts.execute(engine == Engine.SCRIPT
+                ? MOVE_AND_COUNT.call(ScriptOutputType.VALUE, keys)
+                : FLOWS.call("move_and_count", ScriptOutputType.VALUE, keys));
+    }
+
+    public ScriptManager scripts() {
+        return scripts;
+    }
+
+    private ScriptCall<Boolean> compareAndSet(FieldUpdate update) {
+        String[] keys = {update.key()};
+        String[] args = update.expected() == null
+                ? new String[]{update.field(), update.value()}
+                : new String[]{update.field(), update.value(), update.expected()};
+        return engine == Engine.SCRIPT
+                ? COMPARE_AND_SET.call(ScriptOutputType.BOOLEAN, keys, args)
+                : FLOWS.call("compare_and_set", ScriptOutputType.BOOLEAN, keys, args);
+    }
+
+    public static class Builder {
+
+        private final RedisConnectionPool pool;
+        private Engine engine = Engine.SCRIPT;
+        private int pipelineSize = 1_000;
+
+        private Builder(RedisConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        public Builder engine(Engine engine) {
+            this.engine = engine;
+            return this;
+        }
+
+        /**
+         * compareAndSetAll 에서 한 번에 전송 하는 명령 수.
+         */
+        public Builder pipelineSize(int pipelineSize) {
+            this.pipelineSize = pipelineSize;
+            return this;
+        }
+
+        public AtomicFlows build() {
+            return new AtomicFlows(this);
+        }
+    }
+}
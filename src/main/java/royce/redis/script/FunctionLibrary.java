@@ -0,0 +1,153 @@
+package royce.redis.script;
+
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.output.BooleanOutput;
+import io.lettuce.core.output.CommandOutput;
+import io.lettuce.core.output.IntegerOutput;
+import io.lettuce.core.output.NestedMultiOutput;
+import io.lettuce.core.output.StatusOutput;
+import io.lettuce.core.output.ValueOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * FUNCTION LOAD 로 올리고 FCALL 로 호출 하는 Redis 7 함수 라이브러리 하나.
+ * 라이브러리 이름은 소스 첫 줄의 #!lua name=&lt;library&gt; 에서 읽는다.
+ * 함수는 스크립트 캐시와 달리 재시작 후 에도 남지만 FUNCTION FLUSH 나 장애 조치로 없어질 수 있으므로,
+ * FCALL 이 함수가 없다고 실패하면 라이브러리를 다시 올리고 한 번 더 호출 한다.
+ * 이 프로젝트의 Lettuce 버전에는 FCALL/FUNCTION API 가 없어 dispatch 로 보낸다.
+ */
+public final class FunctionLibrary {
+
+    private static final Pattern SHEBANG = Pattern.compile("^#!lua\\s+name=(\\S+)");
+
+    private final String name;
+    private final String source;
+
+    private enum Keyword implements ProtocolKeyword {
+        FCALL, FUNCTION, LOAD, REPLACE;
+
+        private final byte[] bytes = name().getBytes(StandardCharsets.US_ASCII);
+
+        @Override
+        public byte[] getBytes() {
+            return bytes;
+        }
+    }
+
+    private FunctionLibrary(String source) {
+        Matcher shebang = SHEBANG.matcher(source);
+        if (!shebang.find()) {
+            throw new IllegalArgumentException("library source must start with '#!lua name=<library>'");
+        }
+        this.name = shebang.group(1);
+        this.source = source;
+    }
+
+    public static FunctionLibrary of(String source) {
+        return new FunctionLibrary(source);
+    }
+
+    /**
+     * 클래스패스 리소스(UTF-8)에서 라이브러리를 읽는다.
+     *
+     * @param path 선행 / 없이 클래스패스 루트 기준의 경로. royce/redis/script/flows.lua
+     */
+    public static FunctionLibrary fromResource(String path) {
+        try (InputStream input = FunctionLibrary.class.getClassLoader().getResourceAsStream(path)) {
+            if (input == null) {
+                throw new IllegalArgumentException("library resource not found: " + path);
+            }
+            return new FunctionLibrary(new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to read library resource: " + path, e);
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String source() {
+        return source;
+    }
+
+    /**
+     * FCALL 로 호출 하고, 서버에 함수가 없으면 라이브러리를 올린 뒤 다시 호출 한다.
+     */
+    public <T> T fcall(RedisCommands<String, String> commands, String function, ScriptOutputType type,
+                       String[] keys, String... args) {
+        try {
+            return commands.dispatch(Keyword.FCALL, output(type), fcallArgs(function, keys, args));
+        } catch (RedisCommandExecutionException e) {
+            if (!isFunctionNotFound(e)) {
+                throw e;
+            }
+            load(commands);
+            return commands.dispatch(Keyword.FCALL, output(type), fcallArgs(function, keys, args));
+        }
+    }
+
+    /**
+     * FCALL 만 보낸다. 파이프라인 안 에서는 실패한 명령을 모아 load 후 다시 보내야 하므로 함수가 없는 경우를 처리 하지 않는다.
+     */
+    public <T> RedisFuture<T> fcall(RedisAsyncCommands<String, String> commands, String function,
+                                    ScriptOutputType type, String[] keys, String... args) {
+        return commands.dispatch(Keyword.FCALL, output(type), fcallArgs(function, keys, args));
+    }
+
+    public <T> ScriptCall<T> call(String function, ScriptOutputType type, String[] keys, String... args) {
+        return commands -> fcall(commands, function, type, keys, args);
+    }
+
+    /**
+     * FUNCTION LOAD REPLACE 로 올린다. 같은 이름의 라이브러리가 있으면 바꾼다.
+     */
+    public void load(RedisCommands<String, String> commands) {
+        commands.dispatch(Keyword.FUNCTION, new StatusOutput<>(StringCodec.UTF8),
+                new CommandArgs<>(StringCodec.UTF8).add(Keyword.LOAD).add(Keyword.REPLACE).add(source));
+    }
+
+    public static boolean isFunctionNotFound(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof RedisCommandExecutionException
+                && cause.getMessage() != null && cause.getMessage().startsWith("ERR Function not found");
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static CommandArgs<String, String> fcallArgs(String function, String[] keys, String... args) {
+        return new CommandArgs<>(StringCodec.UTF8).add(function).add(keys.length).addKeys(keys).addValues(args);
+    }
+
+    /**
+     * ScriptOutputType 에 맞는 응답 파서. EVAL/EVALSHA 와 같은 규칙을 따른다.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> CommandOutput<String, String, T> output(ScriptOutputType type) {
+        CommandOutput<String, String, ?> output = switch (type) {
+            case BOOLEAN -> new BooleanOutput<>(StringCodec.UTF8);
+            case INTEGER -> new IntegerOutput<>(StringCodec.UTF8);
+            case STATUS -> new StatusOutput<>(StringCodec.UTF8);
+            case MULTI -> new NestedMultiOutput<>(StringCodec.UTF8);
+            case VALUE -> new ValueOutput<>(StringCodec.UTF8);
+            default -> throw new IllegalArgumentException("unsupported output type: " + type);
+        };
+        return (CommandOutput<String, String, T>) output;
+    }
+}
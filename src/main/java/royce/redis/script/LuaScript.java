@@ -0,0 +1,118 @@
+package royce.redis.script;
+
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.api.sync.RedisCommands;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.CompletionException;
+
+/**
+ * SHA1 로 호출 하는 Lua 스크립트 하나.
+ * 서버의 스크립트 캐시는 재시작, 장애 조치, SCRIPT FLUSH 로 비워질 수 있으므로 EVALSHA 가 NOSCRIPT 로 실패하면
+ * 소스를 EVAL 로 한 번 보내 다시 캐시 하게 한다. SHA1 은 로컬에서 계산 하므로 미리 SCRIPT LOAD 하지 않아도 된다.
+ */
+public final class LuaScript {
+
+    private final String name;
+    private final String source;
+    private final String sha;
+
+    private LuaScript(String name, String source) {
+        this.name = name;
+        this.source = source;
+        this.sha = sha1(source);
+    }
+
+    public static LuaScript of(String name, String source) {
+        return new LuaScript(name, source);
+    }
+
+    /**
+     * 클래스패스 리소스(UTF-8)에서 스크립트를 읽는다.
+     *
+     * @param path 선행 / 없이 클래스패스 루트 기준의 경로. royce/redis/ratelimit/gcra.lua
+     */
+    public static LuaScript fromResource(String path) {
+        try (InputStream input = LuaScript.class.getClassLoader().getResourceAsStream(path)) {
+            if (input == null) {
+                throw new IllegalArgumentException("script resource not found: " + path);
+            }
+            return new LuaScript(path, new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to read script resource: " + path, e);
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String source() {
+        return source;
+    }
+
+    public String sha() {
+        return sha;
+    }
+
+    /**
+     * EVALSHA 로 실행 하고, 서버에 스크립트가 없으면 EVAL 로 다시 실행 한다.
+     */
+    public <T> T execute(RedisCommands<String, String> commands, ScriptOutputType type, String[] keys, String... args) {
+        try {
+            return commands.evalsha(sha, type, keys, args);
+        } catch (RedisCommandExecutionException e) {
+            if (!isNoScript(e)) {
+                throw e;
+            }
+            return commands.eval(source, type, keys, args);
+        }
+    }
+
+    /**
+     * EVALSHA 만 보낸다. 파이프라인 안 에서는 실패한 명령을 모아 load 후 다시 보내야 하므로 NOSCRIPT 를 처리 하지 않는다.
+     */
+    public <T> RedisFuture<T> evalsha(RedisAsyncCommands<String, String> commands, ScriptOutputType type,
+                                      String[] keys, String... args) {
+        return commands.evalsha(sha, type, keys, args);
+    }
+
+    public <T> ScriptCall<T> call(ScriptOutputType type, String[] keys, String... args) {
+        return commands -> evalsha(commands, type, keys, args);
+    }
+
+    /**
+     * SCRIPT LOAD 로 서버 캐시에 올린다.
+     */
+    public void load(RedisCommands<String, String> commands) {
+        commands.scriptLoad(source);
+    }
+
+    public static boolean isNoScript(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof RedisCommandExecutionException
+                && cause.getMessage() != null && cause.getMessage().startsWith("NOSCRIPT");
+    }
+
+    @Override
+    public String toString() {
+        return name + "(" + sha + ")";
+    }
+
+    static String sha1(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package royce.redis.script;
+
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+
+/**
+ * 스크립트나 함수 호출 한 번. ScriptManager 가 커넥션이나 파이프라인에 보내고, 서버에 없으면 다시 올린 뒤 한 번 더 보낸다.
+ */
+@FunctionalInterface
+public interface ScriptCall<T> {
+
+    RedisFuture<T> submit(RedisAsyncCommands<String, String> commands);
+}
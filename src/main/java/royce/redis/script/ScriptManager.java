@@ -0,0 +1,156 @@
+package royce.redis.script;
+
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisFuture;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import royce.redis.connection.CommandFutures;
+import royce.redis.connection.PipelinedConnection;
+import royce.redis.connection.RedisConnectionPool;
+
+/**
+ * 클래스패스 리소스로 묶은 Lua 스크립트와 함수 라이브러리를 서버에 올리고 호출 한다.
+ * build 할 때 SCRIPT LOAD/FUNCTION LOAD 로 한 번 올려 두고, 이후 에는 SHA1 이나 함수 이름으로만 호출 한다.
+ * 서버가 NOSCRIPT 나 함수가 없다고 응답 하면 재시작, 장애 조치, FLUSH 로 캐시가 비워진 것 이므로 전부 다시 올리고 한 번 더 보낸다.
+ */
+public class ScriptManager {
+
+    private final RedisConnectionPool pool;
+    private final List<LuaScript> scripts;
+    private final List<FunctionLibrary> libraries;
+    private final int pipelineSize;
+    private final Duration commandTimeout;
+
+    private ScriptManager(Builder builder) {
+        this.pool = builder.pool;
+        this.scripts = List.copyOf(builder.scripts);
+        this.libraries = List.copyOf(builder.libraries);
+        this.pipelineSize = builder.pipelineSize;
+        this.commandTimeout = builder.commandTimeout;
+    }
+
+    public static Builder builder(RedisConnectionPool pool) {
+        return new Builder(pool);
+    }
+
+    /**
+     * 모든 스크립트와 라이브러리를 서버에 올린다. 라이브러리는 같은 이름이 있으면 바꾼다.
+     */
+    public void load() {
+        pool.execute(commands -> {
+            scripts.forEach(script -> script.load(commands));
+            libraries.forEach(library -> library.load(commands));
+            return null;
+        });
+    }
+
+    public <T> T execute(ScriptCall<T> call) {
+        try {
+            return pool.execute(commands -> LettuceFutures.awaitOrCancel(
+                    call.submit(commands.getStatefulConnection().async()),
+                    commandTimeout.toNanos(), TimeUnit.NANOSECONDS));
+        } catch (RedisCommandExecutionException e) {
+            if (!isMissing(e)) {
+                throw e;
+            }
+            load();
+            return pool.execute(commands -> LettuceFutures.awaitOrCancel(
+                    call.submit(commands.getStatefulConnection().async()),
+                    commandTimeout.toNanos(), TimeUnit.NANOSECONDS));
+        }
+    }
+
+    /**
+     * 여러 호출을 하나의 파이프라인으로 보낸다. 결과는 calls 순서를 따른다.
+     * 서버에 스크립트나 함수가 없어 실패한 호출은 다시 올린 뒤 한 번 더 보낸다.
+     */
+    public <T> List<T> executeAll(List<? extends ScriptCall<T>> calls) {
+        Object[] results = new Object[calls.size()];
+        List<Integer> remaining = new ArrayList<>(calls.size());
+        for (int i = 0; i < calls.size(); i++) {
+            remaining.add(i);
+        }
+        for (int attempt = 0; !remaining.isEmpty(); attempt++) {
+            List<CompletableFuture<T>> futures = new ArrayList<>(remaining.size());
+            try (PipelinedConnection pipeline = pool.pipelined(pipelineSize)) {
+                for (int index : remaining) {
+                    RedisFuture<T> future = pipeline.submit(calls.get(index)::submit);
+                    futures.add(future.toCompletableFuture());
+                }
+            }
+            CommandFutures.await(futures, commandTimeout, "script calls");
+            List<Integer> missing = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results[remaining.get(i)] = futures.get(i).join();
+                } catch (RuntimeException e) {
+                    if (attempt > 0 || !isMissing(e)) {
+                        throw e.getCause() instanceof RuntimeException cause ? cause : e;
+                    }
+                    missing.add(remaining.get(i));
+                }
+            }
+            if (!missing.isEmpty()) {
+                load();
+            }
+            remaining = missing;
+        }
+        @SuppressWarnings("unchecked")
+        List<T> values = (List<T>) Arrays.asList(results);
+        return values;
+    }
+
+    public static boolean isMissing(Throwable error) {
+        return LuaScript.isNoScript(error) || FunctionLibrary.isFunctionNotFound(error);
+    }
+
+    public static class Builder {
+
+        private final RedisConnectionPool pool;
+        private final List<LuaScript> scripts = new ArrayList<>();
+        private final List<FunctionLibrary> libraries = new ArrayList<>();
+        private int pipelineSize = 1_000;
+        private Duration commandTimeout = Duration.ofSeconds(5);
+
+        private Builder(RedisConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        public Builder script(LuaScript script) {
+            scripts.add(script);
+            return this;
+        }
+
+        public Builder library(FunctionLibrary library) {
+            libraries.add(library);
+            return this;
+        }
+
+        /**
+         * executeAll 에서 한 번에 전송 하는 명령 수.
+         */
+        public Builder pipelineSize(int pipelineSize) {
+            this.pipelineSize = pipelineSize;
+            return this;
+        }
+
+        public Builder commandTimeout(Duration commandTimeout) {
+            this.commandTimeout = commandTimeout;
+            return this;
+        }
+
+        /**
+         * 스크립트와 라이브러리를 서버에 올린 뒤 돌려 준다.
+         */
+        public ScriptManager build() {
+            ScriptManager manager = new ScriptManager(this);
+            manager.load();
+            return manager;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package royce.redis.stream;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * StreamProcessor 지표.
+ * 처리/실패/재전달(XAUTOCLAIM)/dead letter 건수와 묶음 처리 지연 시간, 주기적으로 조회한 그룹의 lag 와 pending 수를 집계 한다.
+ */
+public class StreamMetrics {
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder claimed = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder totalBatchNanos = new LongAdder();
+    private final AtomicLong maxBatchNanos = new AtomicLong();
+    private volatile long lag;
+    private volatile long pending;
+
+    void batchCompleted(int succeeded, int failures, long elapsedNanos) {
+        batches.increment();
+        processed.add(succeeded);
+        failed.add(failures);
+        totalBatchNanos.add(elapsedNanos);
+        maxBatchNanos.accumulateAndGet(elapsedNanos, Math::max);
+    }
+
+    void claimed(int count) {
+        claimed.add(count);
+    }
+
+    void deadLettered(int count) {
+        deadLettered.add(count);
+    }
+
+    void groupState(long lag, long pending) {
+        this.lag = lag;
+        this.pending = pending;
+    }
+
+    public Snapshot snapshot() {
+        long batchCount = batches.sum();
+        return new Snapshot(
+                batchCount,
+                processed.sum(),
+                failed.sum(),
+                claimed.sum(),
+                deadLettered.sum(),
+                batchCount == 0 ? 0 : totalBatchNanos.sum() / batchCount,
+                maxBatchNanos.get(),
+                lag,
+                pending
+        );
+    }
+
+    /**
+     * @param deadLetteredCount maxDeliveries 를 넘어 처리 하지 않고 ack 한 항목 수
+     * @param lag               그룹이 아직 읽지 않은 항목 수
+     * @param pending           읽었지만 아직 XACK 되지 않은 항목 수
+     */
+    public record Snapshot(
+            long batchCount,
+            long processedCount,
+            long failedCount,
+            long claimedCount,
+            long deadLetteredCount,
+            long averageBatchNanos,
+            long maxBatchNanos,
+            long lag,
+            long pending
+    ) {
+    }
+}
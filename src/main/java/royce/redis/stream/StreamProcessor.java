@@ -0,0 +1,456 @@
+package royce.redis.stream;
+
+import io.lettuce.core.ClaimedMessages;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.Limit;
+import io.lettuce.core.PendingMessage;
+import io.lettuce.core.Range;
+import io.lettuce.core.RedisBusyException;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.UnblockType;
+import io.lettuce.core.XAutoClaimArgs;
+import io.lettuce.core.XGroupCreateArgs;
+import io.lettuce.core.XReadArgs;
+import io.lettuce.core.XReadArgs.StreamOffset;
+import io.lettuce.core.XTrimArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.api.sync.RedisCommands;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Stream consumer group 하나를 소비 하는 런타임.
+ * 전용 커넥션에서 XREADGROUP COUNT batchSize BLOCK 으로 묶음을 읽고, 묶음 안의 항목을 worker pool 에서 동시에 처리 한 뒤
+ * 성공한 항목의 ID 를 XACK 한 번으로 보낸다. XACK 는 응답을 기다리지 않으므로 다음 XREADGROUP 과 겹쳐 전송 된다.
+ * handler 가 예외를 던진 항목은 ack 하지 않으며, claimIdle 이 지나면 XAUTOCLAIM 으로 다시 가져와 처리 한다.
+ * maintenanceInterval 마다 XAUTOCLAIM, 근사(~) 트리밍, lag/pending 지표 갱신을 한다.
+ * XAUTOCLAIM 은 이전 회차가 돌려 준 cursor 부터 이어서 PEL 을 훑고, cursor 가 0-0 으로 돌아오면 처음부터 다시 훑는다.
+ * maxDeliveries 번 넘게 전달된 항목은 더 처리 하지 않고 deadLetter stream 으로 옮긴 뒤(지정 했을 때) ack 한다.
+ */
+public class StreamProcessor implements AutoCloseable {
+
+    private final String key;
+    private final String group;
+    private final io.lettuce.core.Consumer<String> consumer;
+    private final int batchSize;
+    private final Duration block;
+    private final Duration claimIdle;
+    private final long maintenanceIntervalNanos;
+    private final Long trimMaxLen;
+    private final Duration trimMaxAge;
+    private final int maxDeliveries;
+    private final String deadLetterKey;
+    private final Consumer<StreamMessage<String, String>> handler;
+    private final ExecutorService workers;
+    private final boolean ownsWorkers;
+    private final StatefulRedisConnection<String, String> reader;
+    private final StatefulRedisConnection<String, String> control;
+    private final long readerId;
+    private final StreamMetrics metrics = new StreamMetrics();
+    private final Thread poller;
+    private volatile boolean running;
+    private RedisFuture<Long> lastAck;
+    private long nextMaintenance;
+    private String claimCursor = "0-0";
+
+    private StreamProcessor(Builder builder) {
+        if (builder.handler == null) {
+            throw new IllegalArgumentException("handler is required");
+        }
+        this.key = builder.key;
+        this.group = builder.group;
+        this.consumer = io.lettuce.core.Consumer.from(builder.group, builder.consumerName);
+        this.batchSize = builder.batchSize;
+        this.block = builder.block;
+        this.claimIdle = builder.claimIdle;
+        this.maintenanceIntervalNanos = builder.maintenanceInterval.toNanos();
+        this.trimMaxLen = builder.trimMaxLen;
+        this.trimMaxAge = builder.trimMaxAge;
+        this.maxDeliveries = builder.maxDeliveries;
+        this.deadLetterKey = builder.deadLetterKey;
+        this.handler = builder.handler;
+        this.ownsWorkers = builder.executor == null;
+        this.workers = ownsWorkers ? Executors.newFixedThreadPool(builder.workers, daemonThreads()) : builder.executor;
+        this.reader = builder.client.connect();
+        this.control = builder.client.connect();
+        this.readerId = reader.sync().clientId();
+        this.poller = new Thread(this::poll, "stream-processor-" + key + "-" + builder.consumerName);
+        poller.setDaemon(true);
+    }
+
+    public static Builder builder(RedisClient client, String key, String group) {
+        return new Builder(client, key, group);
+    }
+
+    /**
+     * 그룹이 없으면 stream 의 끝에서 시작 하는 그룹을 만들고 소비를 시작 한다. 여러 프로세스가 동시에 호출 해도 된다.
+     */
+    public StreamProcessor start() {
+        createGroup(control.sync(), key, group);
+        running = true;
+        poller.start();
+        return this;
+    }
+
+    /**
+     * XGROUP CREATE key group $ MKSTREAM. 이미 그룹이 있으면(BUSYGROUP) 아무 것도 하지 않는다.
+     *
+     * @return 새로 만들었으면 true
+     */
+    public static boolean createGroup(RedisCommands<String, String> commands, String key, String group) {
+        try {
+            commands.xgroupCreate(StreamOffset.latest(key), group, XGroupCreateArgs.Builder.mkstream());
+            return true;
+        } catch (RedisBusyException e) {
+            return false;
+        }
+    }
+
+    public StreamMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * 읽고 있던 묶음까지 처리 하고 보낸 ack 의 응답을 기다린 뒤 종료 한다.
+     */
+    @Override
+    public void close() {
+        if (running) {
+            running = false;
+            control.sync().clientUnblock(readerId, UnblockType.TIMEOUT);
+            try {
+                poller.join(block.toMillis() + TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (ownsWorkers) {
+            workers.shutdown();
+        }
+        reader.close();
+        control.close();
+    }
+
+    private void poll() {
+        RedisCommands<String, String> commands = reader.sync();
+        boolean recovered = false;
+        nextMaintenance = System.nanoTime() + maintenanceIntervalNanos;
+        while (running) {
+            try {
+                if (!recovered) {
+                    recoverPending(commands);
+                    recovered = true;
+                }
+                if (System.nanoTime() - nextMaintenance >= 0) {
+                    nextMaintenance = System.nanoTime() + maintenanceIntervalNanos;
+                    maintain();
+                }
+                process(commands.xreadgroup(consumer, XReadArgs.Builder.count(batchSize).block(block),
+                        StreamOffset.lastConsumed(key)));
+            } catch (RedisException e) {
+                if (running) {
+                    backoff();
+                }
+            }
+        }
+        awaitLastAck();
+    }
+
+    private void backoff() {
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            running = false;
+        }
+    }
+
+    /**
+     * 재시작 한 소비자는 이전에 받았지만 ack 하지 못한 자신의 PEL 부터 다시 처리 한다.
+     */
+    private void recoverPending(RedisCommands<String, String> commands) {
+        String cursor = "0-0";
+        while (running) {
+            List<StreamMessage<String, String>> messages = commands.xreadgroup(consumer,
+                    XReadArgs.Builder.count(batchSize), StreamOffset.from(key, cursor));
+            if (messages == null || messages.isEmpty()) {
+                return;
+            }
+            process(messages);
+            cursor = messages.get(messages.size() - 1).getId();
+        }
+    }
+
+    private void maintain() {
+        RedisCommands<String, String> commands = control.sync();
+        ClaimedMessages<String, String> claimed = commands.xautoclaim(key,
+                XAutoClaimArgs.Builder.xautoclaim(consumer, claimIdle, claimCursor).count(batchSize));
+        claimCursor = claimed.getId();
+        metrics.claimed(claimed.getMessages().size());
+        process(withinDeliveryLimit(claimed.getMessages()));
+        if (trimMaxLen != null) {
+            commands.xtrim(key, XTrimArgs.Builder.maxlen(trimMaxLen).approximateTrimming());
+        }
+        if (trimMaxAge != null) {
+            long minMillis = System.currentTimeMillis() - trimMaxAge.toMillis();
+            commands.xtrim(key, XTrimArgs.Builder.minId(minMillis + "-0").approximateTrimming());
+        }
+        metrics.groupState(lag(commands.xinfoGroups(key)), commands.xpending(key, group).getCount());
+    }
+
+    /**
+     * 가져온 항목의 전달 횟수를 XPENDING 으로 확인 해 maxDeliveries 를 넘은 항목을 deadLetter stream 에 남기고 ack 한다.
+     * XAUTOCLAIM 응답에는 전달 횟수가 없으므로 항목 마다 XPENDING key group id id 1 consumer 를 파이프라인으로 보낸다.
+     *
+     * @return 아직 처리 해도 되는 항목
+     */
+    private List<StreamMessage<String, String>> withinDeliveryLimit(List<StreamMessage<String, String>> claimed) {
+        if (claimed.isEmpty()) {
+            return claimed;
+        }
+        RedisAsyncCommands<String, String> commands = control.async();
+        List<RedisFuture<List<PendingMessage>>> pending = new ArrayList<>(claimed.size());
+        for (StreamMessage<String, String> message : claimed) {
+            pending.add(commands.xpending(key, consumer, Range.create(message.getId(), message.getId()), Limit.from(1)));
+        }
+        List<StreamMessage<String, String>> deliverable = new ArrayList<>(claimed.size());
+        List<String> exhausted = new ArrayList<>();
+        for (int i = 0; i < claimed.size(); i++) {
+            StreamMessage<String, String> message = claimed.get(i);
+            List<PendingMessage> entry = LettuceFutures.awaitOrCancel(pending.get(i),
+                    control.getTimeout().toNanos(), TimeUnit.NANOSECONDS);
+            if (!entry.isEmpty() && entry.get(0).getRedeliveryCount() > maxDeliveries) {
+                if (deadLetterKey != null) {
+                    control.sync().xadd(deadLetterKey, message.getBody());
+                }
+                exhausted.add(message.getId());
+            } else {
+                deliverable.add(message);
+            }
+        }
+        if (!exhausted.isEmpty()) {
+            control.sync().xack(key, group, exhausted.toArray(String[]::new));
+            metrics.deadLettered(exhausted.size());
+        }
+        return deliverable;
+    }
+
+    /**
+     * 묶음 안의 항목을 worker 에서 동시에 처리 하고, 성공한 항목을 XACK 한 번으로 보낸다.
+     */
+    private void process(List<StreamMessage<String, String>> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<CompletableFuture<String>> results = new ArrayList<>(messages.size());
+        for (StreamMessage<String, String> message : messages) {
+            results.add(CompletableFuture.supplyAsync(() -> {
+                handler.accept(message);
+                return message.getId();
+            }, workers));
+        }
+        List<String> succeeded = new ArrayList<>(messages.size());
+        for (CompletableFuture<String> result : results) {
+            try {
+                succeeded.add(result.join());
+            } catch (RuntimeException ignored) {
+                // ack 하지 않은 항목은 claimIdle 이 지나면 XAUTOCLAIM 으로 다시 처리 된다
+            }
+        }
+        if (!succeeded.isEmpty()) {
+            lastAck = control.async().xack(key, group, succeeded.toArray(String[]::new));
+        }
+        metrics.batchCompleted(succeeded.size(), messages.size() - succeeded.size(), System.nanoTime() - start);
+    }
+
+    private void awaitLastAck() {
+        if (lastAck != null) {
+            try {
+                lastAck.toCompletableFuture().orTimeout(5, TimeUnit.SECONDS).join();
+            } catch (RuntimeException ignored) {
+                // ack 되지 않은 항목은 PEL 에 남아 다음 실행에서 다시 처리 된다
+            }
+        }
+    }
+
+    /**
+     * XINFO GROUPS 응답에서 이 그룹의 lag 를 찾는다. RESP2 는 key, value 가 번갈아 있는 목록, RESP3 는 map 으로 온다.
+     */
+    private long lag(List<Object> groups) {
+        for (Object info : groups) {
+            Object name = field(info, "name");
+            if (group.equals(name)) {
+                Object lag = field(info, "lag");
+                return lag instanceof Number number ? number.longValue() : 0;
+            }
+        }
+        return 0;
+    }
+
+    private static Object field(Object info, String name) {
+        if (info instanceof Map<?, ?> map) {
+            return map.get(name);
+        }
+        if (info instanceof List<?> list) {
+            for (int i = 0; i + 1 < list.size(); i += 2) {
+                if (name.equals(list.get(i))) {
+                    return list.get(i + 1);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "stream-worker-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static class Builder {
+
+        private final RedisClient client;
+        private final String key;
+        private final String group;
+        private String consumerName = "consumer-" + ProcessHandle.current().pid();
+        private int batchSize = 500;
+        private Duration block = Duration.ofSeconds(1);
+        private Duration claimIdle = Duration.ofSeconds(30);
+        private Duration maintenanceInterval = Duration.ofSeconds(5);
+        private Long trimMaxLen;
+        private Duration trimMaxAge;
+        private int maxDeliveries = 10;
+        private String deadLetterKey;
+        private Consumer<StreamMessage<String, String>> handler;
+        private int workers = Runtime.getRuntime().availableProcessors();
+        private ExecutorService executor;
+
+        private Builder(RedisClient client, String key, String group) {
+            this.client = client;
+            this.key = key;
+            this.group = group;
+        }
+
+        /**
+         * 그룹 안에서 이 프로세스를 구분 하는 이름. 재시작 후에도 같은 이름을 쓰면 ack 하지 못한 항목을 이어서 처리 한다.
+         */
+        public Builder consumer(String consumerName) {
+            this.consumerName = consumerName;
+            return this;
+        }
+
+        /**
+         * XREADGROUP 한 번에 읽는 최대 항목 수(COUNT).
+         */
+        public Builder batchSize(int batchSize) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * 새 항목이 없을 때 XREADGROUP 이 기다리는 시간(BLOCK).
+         */
+        public Builder block(Duration block) {
+            this.block = block;
+            return this;
+        }
+
+        /**
+         * 이 시간 동안 ack 되지 않은 항목은 XAUTOCLAIM 으로 이 소비자가 가져 온다.
+         */
+        public Builder claimIdle(Duration claimIdle) {
+            this.claimIdle = claimIdle;
+            return this;
+        }
+
+        /**
+         * XAUTOCLAIM, 트리밍, lag/pending 지표 갱신 주기.
+         */
+        public Builder maintenanceInterval(Duration maintenanceInterval) {
+            this.maintenanceInterval = maintenanceInterval;
+            return this;
+        }
+
+        /**
+         * XTRIM MAXLEN ~ maxLen. 근사 트리밍이므로 Redis 는 노드 단위로만 지우고 길이가 조금 더 길게 남을 수 있다.
+         */
+        public Builder trimMaxLen(long maxLen) {
+            this.trimMaxLen = maxLen;
+            return this;
+        }
+
+        /**
+         * maxAge 보다 오래된 항목을 XTRIM MINID ~ 로 지운다. 자동 생성된 ID(밀리초-시퀀스)를 쓰는 stream 에만 의미가 있다.
+         */
+        public Builder trimMaxAge(Duration maxAge) {
+            this.trimMaxAge = maxAge;
+            return this;
+        }
+
+        /**
+         * 항목 하나를 전달 하는 최대 횟수. XAUTOCLAIM 으로 가져온 항목이 이 횟수를 넘게 전달 되었으면 처리 하지 않고 ack 한다.
+         */
+        public Builder maxDeliveries(int maxDeliveries) {
+            if (maxDeliveries < 1) {
+                throw new IllegalArgumentException("maxDeliveries must be positive: " + maxDeliveries);
+            }
+            this.maxDeliveries = maxDeliveries;
+            return this;
+        }
+
+        /**
+         * maxDeliveries 를 넘은 항목의 body 를 XADD 할 stream. 지정 하지 않으면 ack 만 하고 버린다.
+         */
+        public Builder deadLetter(String deadLetterKey) {
+            this.deadLetterKey = deadLetterKey;
+            return this;
+        }
+
+        /**
+         * 항목 하나를 처리 한다. 예외를 던지면 ack 하지 않는다.
+         */
+        public Builder handler(Consumer<StreamMessage<String, String>> handler) {
+            this.handler = handler;
+            return this;
+        }
+
+        /**
+         * 묶음을 처리 할 worker 스레드 수. executor 를 지정 하면 무시 된다.
+         */
+        public Builder workers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * 묶음을 처리 할 executor. 지정한 executor 는 close 할 때 종료 하지 않는다.
+         */
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public StreamProcessor build() {
+            return new StreamProcessor(this);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+-- 로드 잠금 해제. 잠금이 만료 된 뒤 다른 인스턴스가 잡은 잠금은 지우지 않도록 token 이 같은 키만 지운다.
+-- KEYS 잠금 키 목록, ARGV[1] 잠금을 잡을 때 쓴 token
+-- 반환 지운 잠금 수
+local released = 0
+for _, key in ipairs(KEYS) do
+    if redis.call('GET', key) == ARGV[1] then
+        redis.call('DEL', key)
+        released = released + 1
+    end
+end
+return released
@@ -0,0 +1,11 @@
+-- 멤버의 순위와 앞뒤 radius 명을 한 번에 읽는다. 따로 읽으면 그 사이의 갱신 으로 멤버가 읽은 구간 밖으로 밀려날 수 있다.
+-- KEYS[1] 멤버의 샤드 키, ARGV[1] 멤버, ARGV[2] radius
+-- 반환 멤버가 없으면 빈 배열, 있으면 {순위, 멤버, 점수, 멤버, 점수, ...}
+local rank = redis.call('ZREVRANK', KEYS[1], ARGV[1])
+if not rank then
+    return {}
+end
+local radius = tonumber(ARGV[2])
+local window = redis.call('ZREVRANGE', KEYS[1], math.max(0, rank - radius), rank + radius, 'WITHSCORES')
+table.insert(window, 1, rank)
+return window
@@ -0,0 +1,22 @@
+-- 고정 윈도우. 윈도우의 첫 요청이 카운터를 만들고 window 가 지나면 키가 만료 된다.
+-- KEYS[1] 카운터, ARGV[1] limit, ARGV[2] window(ms), ARGV[3] permits
+-- 반환 {허용 여부(1/0), 남은 허용량, 다시 시도 할 때 까지(ms), 윈도우가 끝날 때 까지(ms)}
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local permits = tonumber(ARGV[3])
+
+local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+if current + permits > limit then
+    local ttl = redis.call('PTTL', KEYS[1])
+    if ttl < 0 then
+        ttl = window
+    end
+    return {0, math.max(0, limit - current), ttl, ttl}
+end
+
+current = redis.call('INCRBY', KEYS[1], permits)
+if current == permits then
+    redis.call('PEXPIRE', KEYS[1], window)
+end
+local ttl = redis.call('PTTL', KEYS[1])
+return {1, math.max(0, limit - current), 0, ttl}
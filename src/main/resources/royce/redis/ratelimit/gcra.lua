@@ -0,0 +1,27 @@
+-- GCRA(Generic Cell Rate Algorithm). 키 마다 이론적 도착 시각(TAT) 하나만 저장 한다.
+-- 요청 하나는 interval 만큼 TAT 를 미루고, TAT 가 지금 보다 burst * interval 이상 앞서면 거절 한다.
+-- 시각은 서버의 TIME 을 마이크로초 단위로 사용 한다.
+-- KEYS[1] TAT, ARGV[1] interval(us), ARGV[2] burst, ARGV[3] permits
+-- 반환 {허용 여부(1/0), 남은 허용량, 다시 시도 할 때 까지(ms), 모두 회복 될 때 까지(ms)}
+local interval = tonumber(ARGV[1])
+local burst = tonumber(ARGV[2])
+local permits = tonumber(ARGV[3])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+local tat = tonumber(redis.call('GET', KEYS[1]) or now)
+if tat < now then
+    tat = now
+end
+
+local tolerance = interval * burst
+local new_tat = tat + interval * permits
+local allow_at = new_tat - tolerance
+if allow_at > now then
+    local remaining = math.floor((tolerance - (tat - now)) / interval)
+    return {0, math.max(0, remaining), math.ceil((allow_at - now) / 1000), math.ceil((tat - now) / 1000)}
+end
+
+local reset = math.ceil((new_tat - now) / 1000)
+redis.call('SET', KEYS[1], string.format('%d', new_tat), 'PX', math.max(1, reset))
+return {1, math.floor((tolerance - (new_tat - now)) / interval), 0, reset}
@@ -0,0 +1,39 @@
+-- 슬라이딩 로그. 허용한 요청의 시각을 sorted set 에 남기고 window 보다 오래된 기록은 지운다.
+-- 시각은 서버의 TIME 을 사용 하므로 클라이언트 사이의 시계 차이에 영향을 받지 않는다.
+-- KEYS[1] 로그, ARGV[1] limit, ARGV[2] window(ms), ARGV[3] permits
+-- 반환 {허용 여부(1/0), 남은 허용량, 다시 시도 할 때 까지(ms), 가장 오래된 기록이 빠질 때 까지(ms)}
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local permits = tonumber(ARGV[3])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window)
+local count = redis.call('ZCARD', KEYS[1])
+
+if count + permits > limit then
+    local retry = window
+    if permits <= limit then
+        -- permits 만큼 자리가 나려면 (count + permits - limit) 번째로 오래된 기록이 빠져야 한다
+        local index = count + permits - limit - 1
+        local entry = redis.call('ZRANGE', KEYS[1], index, index, 'WITHSCORES')
+        if entry[2] then
+            retry = tonumber(entry[2]) + window - now
+        end
+    end
+    local oldest = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+    local reset = window
+    if oldest[2] then
+        reset = tonumber(oldest[2]) + window - now
+    end
+    return {0, math.max(0, limit - count), retry, reset}
+end
+
+-- 같은 마이크로초에 들어온 요청도 서로 다른 멤버가 되도록 개수를 붙인다
+local member = string.format('%d', tonumber(time[1]) * 1000000 + tonumber(time[2]))
+for i = 1, permits do
+    redis.call('ZADD', KEYS[1], now, member .. ':' .. (count + i))
+end
+redis.call('PEXPIRE', KEYS[1], window)
+local oldest = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+return {1, limit - count - permits, 0, tonumber(oldest[2]) + window - now}
@@ -0,0 +1,9 @@
+-- 해시 필드의 현재 값이 기대 값과 같을 때만 새 값으로 바꾼다(check-then-set).
+-- KEYS[1] 해시, ARGV[1] 필드, ARGV[2] 새 값, ARGV[3] 기대 값. ARGV[3] 이 없으면 필드가 없을 때만 바꾼다
+-- 반환 바꿨으면 1, 아니면 0
+local current = redis.call('HGET', KEYS[1], ARGV[1])
+if (current == false and ARGV[3] == nil) or current == ARGV[3] then
+    redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+    return 1
+end
+return 0
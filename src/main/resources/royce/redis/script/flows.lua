@@ -0,0 +1,23 @@
+#!lua name=royce_flows
+-- compare_and_set.lua, move_and_count.lua 와 같은 흐름을 Redis 7 함수로 등록 한다.
+-- 함수는 KEYS/ARGV 전역 대신 (keys, args) 를 인자로 받는다.
+
+local function compare_and_set(keys, args)
+    local current = redis.call('HGET', keys[1], args[1])
+    if (current == false and args[3] == nil) or current == args[3] then
+        redis.call('HSET', keys[1], args[1], args[2])
+        return 1
+    end
+    return 0
+end
+
+local function move_and_count(keys, args)
+    local element = redis.call('LMOVE', keys[1], keys[2], 'LEFT', 'RIGHT')
+    if element then
+        redis.call('INCR', keys[3])
+    end
+    return element
+end
+
+redis.register_function('compare_and_set', compare_and_set)
+redis.register_function('move_and_count', move_and_count)
@@ -0,0 +1,8 @@
+-- 리스트의 첫 원소를 다른 리스트의 끝으로 옮기고, 옮겼으면 카운터를 올린다.
+-- KEYS[1] 원본 리스트, KEYS[2] 대상 리스트, KEYS[3] 카운터
+-- 반환 옮긴 원소. 원본이 비어 있으면 nil
+local element = redis.call('LMOVE', KEYS[1], KEYS[2], 'LEFT', 'RIGHT')
+if element then
+    redis.call('INCR', KEYS[3])
+end
+return element
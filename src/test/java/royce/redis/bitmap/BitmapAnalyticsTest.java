@@ -0,0 +1,105 @@
+package royce.redis.bitmap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class BitmapAnalyticsTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    private BitmapAnalytics analytics;
+
+    @BeforeEach
+    void setUp() {
+        RedisConnectionProvider.getSync().flushall();
+        analytics = BitmapAnalytics.builder(RedisConnectionProvider.pool(), "dau")
+                .batchSize(100)
+                .build();
+    }
+
+    @Test
+    void BITFIELD_로_묶어_보낸_사용자를_처음_활동한_사용자만_센다() {
+        // given
+        analytics.markActive(7, DAY);
+        List<Integer> userIds = new ArrayList<>();
+        IntStream.range(0, 1000).forEach(userIds::add);
+        userIds.add(7);
+
+        // when
+        long added = analytics.markActiveAll(DAY, userIds);
+
+        // then
+        assertThat(added).isEqualTo(999);
+        assertThat(analytics.activeUsers(DAY)).isEqualTo(1000);
+        assertThat(analytics.isActive(999, DAY)).isTrue();
+        assertThat(analytics.isActive(1000, DAY)).isFalse();
+        assertThat(analytics.markActive(999, DAY)).isFalse();
+    }
+
+    @Test
+    void 기간_활동_사용자는_일별_비트맵의_합집합이다() {
+        // given
+        analytics.markActiveAll(DAY, List.of(1, 2, 3));
+        analytics.markActiveAll(DAY.plusDays(1), List.of(3, 4));
+        analytics.markActiveAll(DAY.plusDays(6), List.of(5, 1_000_000));
+
+        // when
+        long weekly = analytics.activeUsers(DAY, DAY.plusDays(6));
+
+        // then
+        assertThat(weekly).isEqualTo(6);
+        assertThat(analytics.activeUsers(DAY.plusDays(1), DAY.plusDays(2))).isEqualTo(2);
+        assertThat(RedisConnectionProvider.getSync().keys("{dau}:tmp:*")).isEmpty();
+    }
+
+    @Test
+    void cohort_중_이후에_다시_활동한_사용자_수를_센다() {
+        // given
+        analytics.markActiveAll(DAY, List.of(1, 2, 3, 4));
+        analytics.markActiveAll(DAY.plusDays(1), List.of(1, 2, 3, 100));
+        analytics.markActiveAll(DAY.plusDays(7), List.of(2, 200));
+
+        // when
+        BitmapAnalytics.Retention retention = analytics.retention(DAY,
+                List.of(DAY.plusDays(1), DAY.plusDays(7), DAY.plusDays(30)));
+
+        // then
+        assertThat(retention.cohortSize()).isEqualTo(4);
+        assertThat(retention.retained()).containsExactly(
+                entry(DAY.plusDays(1), 3L),
+                entry(DAY.plusDays(7), 1L),
+                entry(DAY.plusDays(30), 0L));
+        assertThat(retention.rate(DAY.plusDays(1))).isEqualTo(0.75);
+        assertThat(RedisConnectionProvider.getSync().keys("{dau}:tmp:*")).isEmpty();
+    }
+
+    @Test
+    void 가져온_비트맵으로_로컬에서_집합_연산을_한다() {
+        // given
+        analytics.markActiveAll(DAY, List.of(0, 9, 70_000, 1_000_000));
+        analytics.markActiveAll(DAY.plusDays(1), List.of(9, 1_000_000, 1_000_001));
+
+        // when
+        CompressedBitmap first = analytics.fetch(DAY);
+        CompressedBitmap second = analytics.fetch(DAY.plusDays(1));
+
+        // then
+        assertThat(first.toArray()).containsExactly(0, 9, 70_000, 1_000_000);
+        assertThat(first.and(second).toArray()).containsExactly(9, 1_000_000);
+        assertThat(first.andNot(second).toArray()).containsExactly(0, 70_000);
+        assertThat(first.or(second).cardinality()).isEqualTo(5);
+        assertThat(analytics.fetch(DAY.plusDays(2)).isEmpty()).isTrue();
+    }
+}
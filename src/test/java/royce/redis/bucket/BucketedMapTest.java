@@ -0,0 +1,118 @@
+package royce.redis.bucket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lettuce.core.api.sync.RedisCommands;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class BucketedMapTest {
+
+    @BeforeEach
+    void cleanUp() {
+        RedisConnectionProvider.getSync().flushall();
+    }
+
+    @Test
+    void 키를_해시_버킷의_필드로_저장_한다() {
+        // given
+        BucketedMap map = BucketedMap.builder(RedisConnectionProvider.pool(), "session").buckets(16).build();
+
+        // when
+        boolean added = map.put("session:1", "token-1");
+        boolean overwritten = map.put("session:1", "token-2");
+
+        // then
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        assertThat(added).isTrue();
+        assertThat(overwritten).isFalse();
+        assertThat(map.get("session:1")).isEqualTo("token-2");
+        assertThat(syncConnection.hget(map.bucketKey("session:1"), "session:1")).isEqualTo("token-2");
+        assertThat(syncConnection.exists("session:1")).isZero();
+        assertThat(map.remove("session:1")).isTrue();
+        assertThat(map.get("session:1")).isNull();
+    }
+
+    @Test
+    void 대량_적재한_버킷은_listpack_인코딩을_유지_한다() {
+        // given
+        BucketedMap map = BucketedMap.builder(RedisConnectionProvider.pool(), "session")
+                .expectedSize(10000)
+                .build();
+        Map<String, String> entries = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            entries.put("session:" + i, "token-" + i);
+        }
+
+        // when
+        long added = map.putAll(entries);
+
+        // then
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        assertThat(added).isEqualTo(10000);
+        assertThat(map.buckets()).isEqualTo(157);
+        assertThat(syncConnection.dbsize()).isEqualTo(157);
+        for (int bucket = 0; bucket < map.buckets(); bucket++) {
+            assertThat(syncConnection.objectEncoding(map.bucketKey(bucket))).isEqualTo("listpack");
+        }
+    }
+
+    @Test
+    void 여러_키를_버킷_별로_묶어_한_번에_조회_한다() {
+        // given
+        BucketedMap map = BucketedMap.builder(RedisConnectionProvider.pool(), "session").buckets(8).build();
+        Map<String, String> entries = new HashMap<>();
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            entries.put("session:" + i, "token-" + i);
+            keys.add("session:" + i);
+        }
+        map.putAll(entries);
+        keys.add("session:missing");
+
+        // when
+        Map<String, String> values = map.getAll(keys);
+
+        // then
+        assertThat(values).hasSize(100).doesNotContainKey("session:missing");
+        assertThat(values).containsAllEntriesOf(entries);
+        assertThat(values.keySet()).containsExactlyElementsOf(keys.subList(0, 100));
+    }
+
+    @Test
+    void 문자열_키를_버킷으로_옮기고_원본을_지운다() {
+        // given
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        Map<String, String> flat = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            flat.put("session:" + i, "token-" + i);
+        }
+        syncConnection.mset(flat);
+        syncConnection.sadd("session:members", "a");
+        BucketedMap map = BucketedMap.builder(RedisConnectionProvider.pool(), "bucket:session")
+                .expectedSize(1000)
+                .build();
+
+        // when
+        BucketMigration.Result result = BucketMigration.builder(RedisConnectionProvider.pool(), map, "session:*")
+                .scanCount(100)
+                .build()
+                .run();
+
+        // then
+        assertThat(result.scannedKeys()).isEqualTo(1001);
+        assertThat(result.migratedKeys()).isEqualTo(1000);
+        assertThat(syncConnection.exists("session:0", "session:999")).isZero();
+        assertThat(syncConnection.exists("session:members")).isOne();
+        assertThat(map.get("session:42")).isEqualTo("token-42");
+    }
+}
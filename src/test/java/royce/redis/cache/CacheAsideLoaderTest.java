@@ -0,0 +1,191 @@
+package royce.redis.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class CacheAsideLoaderTest {
+
+    @BeforeEach
+    void cleanUp() {
+        RedisConnectionProvider.getSync().flushall();
+    }
+
+    @Test
+    void 같은_키를_동시에_miss_하면_원본은_한_번만_호출_한다() throws Exception {
+        // given
+        AtomicInteger backendCalls = new AtomicInteger();
+        CacheAsideLoader loader = CacheAsideLoader.builder(RedisConnectionProvider.pool(), "user", key -> {
+            backendCalls.incrementAndGet();
+            sleep(200);
+            return "name-of-" + key;
+        }).build();
+        ExecutorService threads = Executors.newFixedThreadPool(50);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // when
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            results.add(threads.submit(() -> {
+                start.await();
+                return loader.get("1");
+            }));
+        }
+        start.countDown();
+
+        // then
+        for (Future<String> result : results) {
+            assertThat(result.get()).isEqualTo("name-of-1");
+        }
+        assertThat(backendCalls).hasValue(1);
+        assertThat(loader.metrics().snapshot().loadCount()).isEqualTo(1);
+        threads.shutdown();
+        loader.close();
+    }
+
+    @Test
+    void 다른_인스턴스가_로드_잠금을_잡고_있으면_값이_채워질_때_까지_기다린다() throws Exception {
+        // given
+        AtomicInteger firstCalls = new AtomicInteger();
+        AtomicInteger secondCalls = new AtomicInteger();
+        CacheAsideLoader first = CacheAsideLoader.builder(RedisConnectionProvider.pool(), "user", key -> {
+            firstCalls.incrementAndGet();
+            sleep(300);
+            return "from-first";
+        }).build();
+        CacheAsideLoader second = CacheAsideLoader.builder(RedisConnectionProvider.pool(), "user", key -> {
+            secondCalls.incrementAndGet();
+            return "from-second";
+        }).build();
+        ExecutorService thread = Executors.newSingleThreadExecutor();
+
+        // when
+        Future<String> loading = thread.submit(() -> first.get("1"));
+        sleep(100);
+        String waited = second.get("1");
+
+        // then
+        assertThat(loading.get()).isEqualTo("from-first");
+        assertThat(waited).isEqualTo("from-first");
+        assertThat(firstCalls).hasValue(1);
+        assertThat(secondCalls).hasValue(0);
+        assertThat(second.metrics().snapshot().lockWaitCount()).isEqualTo(1);
+        assertThat(RedisConnectionProvider.getSync().exists(first.lockKey("1"))).isZero();
+        thread.shutdown();
+        first.close();
+        second.close();
+    }
+
+    @Test
+    void 만료_후에는_이전_값을_돌려_주고_백그라운드에서_갱신_한다() throws Exception {
+        // given
+        AtomicReference<String> backend = new AtomicReference<>("v1");
+        CacheAsideLoader loader = CacheAsideLoader.builder(RedisConnectionProvider.pool(), "config",
+                        key -> backend.get())
+                .ttl(Duration.ofMillis(200))
+                .staleWhileRefresh(Duration.ofSeconds(10))
+                .beta(0)
+                .build();
+        assertThat(loader.get("flag")).isEqualTo("v1");
+
+        // when
+        backend.set("v2");
+        sleep(300);
+        String stale = loader.get("flag");
+
+        // then
+        assertThat(stale).isEqualTo("v1");
+        assertThat(loader.metrics().snapshot().staleHitCount()).isEqualTo(1);
+        long deadline = System.nanoTime() + Duration.ofSeconds(3).toNanos();
+        while (!"v2".equals(loader.get("flag")) && System.nanoTime() < deadline) {
+            sleep(20);
+        }
+        assertThat(loader.get("flag")).isEqualTo("v2");
+        assertThat(RedisConnectionProvider.getSync().pttl(loader.key("flag"))).isGreaterThan(10_000);
+        loader.close();
+    }
+
+    @Test
+    void 로드가_오래_걸리는_값은_XFetch_로_만료_전에_미리_갱신_한다() throws Exception {
+        // given
+        AtomicInteger backendCalls = new AtomicInteger();
+        CacheAsideLoader loader = CacheAsideLoader.builder(RedisConnectionProvider.pool(), "report", key -> {
+                    backendCalls.incrementAndGet();
+                    sleep(50);
+                    return "report";
+                })
+                .ttl(Duration.ofSeconds(1))
+                .beta(1_000_000)
+                .build();
+        loader.get("daily");
+
+        // when
+        String value = loader.get("daily");
+
+        // then
+        assertThat(value).isEqualTo("report");
+        assertThat(loader.metrics().snapshot().earlyRefreshCount()).isEqualTo(1);
+        long deadline = System.nanoTime() + Duration.ofSeconds(3).toNanos();
+        while (backendCalls.get() < 2 && System.nanoTime() < deadline) {
+            sleep(20);
+        }
+        assertThat(backendCalls).hasValue(2);
+        loader.close();
+    }
+
+    @Test
+    void getAll_은_없는_키만_한_번에_로드_하고_원본에_없는_키도_기억_한다() {
+        // given
+        List<Set<String>> batches = new CopyOnWriteArrayList<>();
+        CacheAsideLoader loader = CacheAsideLoader.builder(RedisConnectionProvider.pool(), "product", key -> "p" + key)
+                .batchLoader(keys -> {
+                    batches.add(keys);
+                    Map<String, String> values = new HashMap<>();
+                    keys.stream().filter(key -> !key.equals("404")).forEach(key -> values.put(key, "p" + key));
+                    return values;
+                })
+                .build();
+        loader.get("1");
+        loader.get("2");
+
+        // when
+        Map<String, String> values = loader.getAll(List.of("1", "2", "3", "4", "404", "3"));
+        Map<String, String> again = loader.getAll(List.of("3", "404"));
+
+        // then
+        assertThat(values).containsExactly(Map.entry("1", "p1"), Map.entry("2", "p2"),
+                Map.entry("3", "p3"), Map.entry("4", "p4"));
+        assertThat(batches).containsExactly(Set.of("3", "4", "404"));
+        assertThat(again).containsExactly(Map.entry("3", "p3"));
+        assertThat(RedisConnectionProvider.getSync().pttl(loader.key("404"))).isPositive();
+        loader.close();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
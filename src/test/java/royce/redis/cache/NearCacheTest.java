@@ -0,0 +1,163 @@
+package royce.redis.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.protocol.ProtocolVersion;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class NearCacheTest {
+
+    private static final String ENDPOINT_KEY = "endpoint:/admin/{id}";
+
+    @BeforeEach
+    void cleanUp() {
+        RedisConnectionProvider.getSync().flushall();
+    }
+
+    @Test
+    void 두_번째_조회는_로컬_캐시에서_응답_한다() {
+        // given
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        syncConnection.hset(ENDPOINT_KEY, "caller", "user:123");
+
+        try (NearCache cache = RedisConnectionProvider.nearCache(100)) {
+
+            // when
+            String first = cache.hget(ENDPOINT_KEY, "caller");
+            String second = cache.hget(ENDPOINT_KEY, "caller");
+
+            // then
+            assertThat(first).isEqualTo("user:123");
+            assertThat(second).isEqualTo("user:123");
+            assertThat(cache.metrics().snapshot().missCount()).isEqualTo(1);
+            assertThat(cache.metrics().snapshot().hitCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void 다른_커넥션이_키를_변경_하면_서버_알림으로_무효화_된다() {
+        // given
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        syncConnection.hset(ENDPOINT_KEY, "caller", "user:123");
+
+        try (NearCache cache = RedisConnectionProvider.nearCache(100)) {
+            cache.hget(ENDPOINT_KEY, "caller");
+
+            // when
+            syncConnection.hset(ENDPOINT_KEY, "caller", "user:456");
+            awaitUntil(() -> cache.size() == 0);
+
+            // then
+            assertThat(cache.hget(ENDPOINT_KEY, "caller")).isEqualTo("user:456");
+            assertThat(cache.metrics().snapshot().invalidationCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void 최대_크기를_넘으면_가장_오래_사용_하지_않은_항목을_밀어_낸다() {
+        // given
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        syncConnection.mset(Map.of("a", "1", "b", "2", "c", "3"));
+
+        try (NearCache cache = RedisConnectionProvider.nearCache(2)) {
+            cache.get("a");
+            cache.get("b");
+            cache.get("a");
+
+            // when
+            cache.get("c");
+
+            // then
+            assertThat(cache.size()).isEqualTo(2);
+            assertThat(cache.metrics().snapshot().evictionCount()).isEqualTo(1);
+            cache.get("a");
+            assertThat(cache.metrics().snapshot().hitCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void broadcast_모드는_prefix_에_맞는_키만_캐시_한다() {
+        // given
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        syncConnection.set("endpoint:count", "1");
+        syncConnection.set("other", "1");
+
+        try (NearCache cache = NearCache.builder(RedisConnectionProvider.pool().client())
+                .broadcast("endpoint:")
+                .build()) {
+            cache.get("endpoint:count");
+            cache.get("other");
+
+            // when
+            syncConnection.incr("endpoint:count");
+            awaitUntil(() -> cache.size() == 0);
+
+            // then
+            assertThat(cache.get("endpoint:count")).isEqualTo("2");
+            assertThat(cache.metrics().snapshot().missCount()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void RESP2_에서는_ttl_이_지나면_다시_읽는다() throws InterruptedException {
+        // given
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        syncConnection.set("key", "before");
+        RedisClient client = RedisConnectionProvider.client();
+        client.setOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP2).build());
+
+        try (NearCache cache = NearCache.builder(client).ttl(Duration.ofMillis(200)).build()) {
+            cache.get("key");
+            syncConnection.set("key", "after");
+
+            // when
+            String cached = cache.get("key");
+            Thread.sleep(300);
+            String reloaded = cache.get("key");
+
+            // then
+            assertThat(cache.isTracking()).isFalse();
+            assertThat(cached).isEqualTo("before");
+            assertThat(reloaded).isEqualTo("after");
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    void RESP2_에서_ttl_이_없으면_예외가_발생_한다() {
+        // given
+        RedisClient client = RedisConnectionProvider.client();
+        client.setOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP2).build());
+
+        // when & then
+        try {
+            assertThatThrownBy(() -> NearCache.builder(client).build()).isInstanceOf(IllegalStateException.class);
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new AssertionError("condition not met within 2 seconds");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
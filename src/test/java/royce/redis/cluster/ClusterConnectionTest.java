@@ -0,0 +1,139 @@
+package royce.redis.cluster;
+
+import static java.util.stream.Collectors.toSet;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.sync.RedisAdvancedClusterCommands;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+import royce.redis.connection.SharedClientResources;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class ClusterConnectionTest {
+
+    private static RedisClusterClient client;
+
+    @BeforeAll
+    static void connect() {
+        client = RedisConnectionProvider.clusterClient();
+    }
+
+    @AfterAll
+    static void shutdown() {
+        client.shutdown();
+    }
+
+    @BeforeEach
+    void cleanUp() {
+        try (ClusterConnection cluster = ClusterConnection.builder(client).build()) {
+            cluster.execute(RedisAdvancedClusterCommands::flushall);
+        }
+    }
+
+    @Test
+    void 클러스터_노드는_다른_노드의_slot_을_MOVED_로_돌려_보낸다() {
+        // given
+        RedisClient standalone = RedisClient.create(SharedClientResources.get(),
+                EmbeddedRedisExtension.clusterSettings().toRedisURI());
+        try (var connection = standalone.connect()) {
+            RedisCommands<String, String> commands = connection.sync();
+
+            // when, then
+            assertThat(commands.clusterKeyslot("user:{1}:name")).isEqualTo((long) ClusterConnection.slot("1"));
+            assertThatThrownBy(() -> commands.set("a", "1")).hasMessageStartingWith("MOVED 15495");
+            assertThatThrownBy(() -> commands.mget("a", "b")).hasMessageStartingWith("CROSSSLOT");
+        } finally {
+            standalone.shutdown();
+        }
+    }
+
+    @Test
+    void 여러_키_명령은_slot_별로_나누어_노드_마다_한_번에_보내고_순서대로_모은다() {
+        try (ClusterConnection cluster = ClusterConnection.builder(client).build()) {
+            // given
+            Map<String, String> values = new LinkedHashMap<>();
+            for (int i = 0; i < 1000; i++) {
+                values.put("key:" + i, "value:" + i);
+            }
+            List<String> keys = new ArrayList<>(values.keySet());
+            keys.add(500, "missing");
+            Set<Integer> slots = values.keySet().stream().map(ClusterConnection::slot).collect(toSet());
+
+            // when
+            cluster.mset(values);
+            ClusterMetrics.Snapshot afterMset = cluster.metrics().snapshot();
+            List<String> fetched = cluster.mget(keys);
+            long deleted = cluster.del(values.keySet());
+
+            // then
+            assertThat(afterMset.commandCount()).isEqualTo(slots.size());
+            assertThat(afterMset.nodeBatchCount()).isEqualTo(3);
+            assertThat(afterMset.redirectCount()).isZero();
+            assertThat(fetched).hasSize(1001);
+            assertThat(fetched.get(0)).isEqualTo("value:0");
+            assertThat(fetched.get(500)).isNull();
+            assertThat(fetched.get(1000)).isEqualTo("value:999");
+            assertThat(deleted).isEqualTo(1000);
+            assertThat(cluster.execute(commands -> commands.get("key:1"))).isNull();
+        }
+    }
+
+    @Test
+    void hash_tag_가_같은_키는_명령_하나로_처리_한다() {
+        try (ClusterConnection cluster = ClusterConnection.builder(client).build()) {
+            // given
+            Map<String, String> user = new LinkedHashMap<>();
+            user.put("user:{1}:name", "royce");
+            user.put("user:{1}:age", "20");
+            user.put("user:{1}:email", "royce@example.com");
+
+            // when
+            cluster.mset(user);
+            List<String> fetched = cluster.mget(List.of("user:{1}:email", "user:{1}:name"));
+
+            // then
+            ClusterMetrics.Snapshot snapshot = cluster.metrics().snapshot();
+            assertThat(fetched).containsExactly("royce@example.com", "royce");
+            assertThat(snapshot.commandCount()).isEqualTo(2);
+            assertThat(snapshot.nodeBatchCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void readFrom_이_replica_이면_읽기는_replica_로_보낸다() {
+        try (ClusterConnection cluster = ClusterConnection.builder(client).readFrom(ReadFrom.REPLICA).build()) {
+            // given
+            Map<String, String> values = new LinkedHashMap<>();
+            for (int i = 0; i < 100; i++) {
+                values.put("key:" + i, "value:" + i);
+            }
+            Set<Integer> slots = values.keySet().stream().map(ClusterConnection::slot).collect(toSet());
+            cluster.mset(values);
+
+            // when
+            List<String> fetched = cluster.mget(new ArrayList<>(values.keySet()));
+
+            // then
+            ClusterMetrics.Snapshot snapshot = cluster.metrics().snapshot();
+            assertThat(fetched).containsExactlyElementsOf(values.values());
+            assertThat(snapshot.replicaCommandCount()).isEqualTo(slots.size());
+            assertThat(snapshot.redirectCount()).isZero();
+        }
+    }
+}
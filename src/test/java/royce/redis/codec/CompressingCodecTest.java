@@ -0,0 +1,157 @@
+package royce.redis.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.StringCodec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class CompressingCodecTest {
+
+    private static final String LARGE_JSON = "{\"id\":1,\"items\":[" + "{\"sku\":\"A-100\",\"qty\":1},".repeat(200) + "{}]}";
+
+    private RedisClient client;
+
+    @BeforeEach
+    void setUp() {
+        RedisConnectionProvider.getSync().flushall();
+        client = RedisConnectionProvider.client();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+    }
+
+    @Test
+    void threshold_이상인_값만_압축_해서_저장_한다() {
+        // given
+        CompressingCodec<String, String> codec = CompressingCodec.builder(StringCodec.UTF8)
+                .threshold(512)
+                .build();
+
+        // when
+        try (StatefulRedisConnection<String, String> connection = client.connect(codec)) {
+            connection.sync().set("small", "{\"id\":1}");
+            connection.sync().set("large", LARGE_JSON);
+
+            // then
+            assertThat(connection.sync().get("small")).isEqualTo("{\"id\":1}");
+            assertThat(connection.sync().get("large")).isEqualTo(LARGE_JSON);
+            assertThat(RedisConnectionProvider.getSync().get("small")).isEqualTo("{\"id\":1}");
+            assertThat(RedisConnectionProvider.getSync().strlen("large")).isLessThan(LARGE_JSON.length() / 5);
+        }
+    }
+
+    @Test
+    void 압축_전에_저장된_값과_섞여_있어도_읽을_수_있다() {
+        // given
+        RedisConnectionProvider.getSync().set("legacy", LARGE_JSON);
+        CompressingCodec<String, String> codec = CompressingCodec.builder(StringCodec.UTF8).build();
+
+        // when
+        try (StatefulRedisConnection<String, String> connection = client.connect(codec)) {
+            connection.sync().set("compressed", LARGE_JSON);
+
+            // then
+            assertThat(connection.sync().mget("legacy", "compressed"))
+                    .extracting(kv -> kv.getValue())
+                    .containsExactly(LARGE_JSON, LARGE_JSON);
+        }
+    }
+
+    @Test
+    void 압축_전에_저장된_바이너리_값은_첫_바이트와_상관_없이_그대로_읽힌다() {
+        // given
+        byte[] key = "legacy".getBytes(StandardCharsets.UTF_8);
+        byte[] value = {CompressingCodec.RAW, CompressingCodec.ZSTD, CompressingCodec.ZSTD_DICTIONARY, 'a'};
+        try (StatefulRedisConnection<byte[], byte[]> connection = client.connect(ByteArrayCodec.INSTANCE)) {
+            connection.sync().set(key, value);
+        }
+        CompressingCodec<byte[], byte[]> codec = CompressingCodec.builder(ByteArrayCodec.INSTANCE).build();
+
+        // when
+        try (StatefulRedisConnection<byte[], byte[]> connection = client.connect(codec)) {
+
+            // then
+            assertThat(connection.sync().get(key)).containsExactly(value);
+        }
+    }
+
+    @Test
+    void magic_으로_시작하는_작은_값은_RAW_태그를_붙여_구분_한다() {
+        // given
+        CompressingCodec<byte[], byte[]> codec = CompressingCodec.builder(ByteArrayCodec.INSTANCE).build();
+        byte[] value = {(byte) 0xFF, 'R', 'Z', CompressingCodec.ZSTD, 'a', 'b'};
+
+        // when
+        try (StatefulRedisConnection<byte[], byte[]> connection = client.connect(codec)) {
+            connection.sync().set("k".getBytes(StandardCharsets.UTF_8), value);
+
+            // then
+            assertThat(connection.sync().get("k".getBytes(StandardCharsets.UTF_8))).containsExactly(value);
+            assertThat(RedisConnectionProvider.getSync().strlen("k")).isEqualTo(value.length + 4);
+        }
+    }
+
+    @Test
+    void 학습한_사전을_쓰면_작은_값도_압축_된다() {
+        // given
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            samples.add(user(i).getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] dictionary = CompressingCodec.trainDictionary(samples, 4 * 1024);
+        CompressingCodec<String, String> codec = CompressingCodec.builder(StringCodec.UTF8)
+                .threshold(32)
+                .dictionary(dictionary)
+                .build();
+        String value = user(5000);
+
+        // when
+        try (StatefulRedisConnection<String, String> connection = client.connect(codec)) {
+            connection.sync().set("user:5000", value);
+
+            // then
+            assertThat(connection.sync().get("user:5000")).isEqualTo(value);
+            assertThat(RedisConnectionProvider.getSync().strlen("user:5000")).isLessThan(value.length() / 2);
+        }
+    }
+
+    @Test
+    void 리포트는_압축_전후_메모리를_비교_한다() {
+        // given
+        for (int i = 0; i < 20; i++) {
+            RedisConnectionProvider.getSync().set("order:" + i, LARGE_JSON);
+        }
+        RedisConnectionProvider.getSync().set("other", LARGE_JSON);
+        CompressingCodec<byte[], byte[]> codec = CompressingCodec.builder(ByteArrayCodec.INSTANCE).build();
+
+        // when
+        CompressionReport.Result result = CompressionReport.sample(client, "order:*", 10, codec);
+
+        // then
+        assertThat(result.sampledKeys()).isEqualTo(10);
+        assertThat(result.compressedKeys()).isEqualTo(10);
+        assertThat(result.memoryAfter()).isLessThan(result.memoryBefore());
+        assertThat(result.savingRatio()).isGreaterThan(0.5);
+        assertThat(RedisConnectionProvider.getSync().keys("compression-report:*")).isEmpty();
+    }
+
+    private static String user(int id) {
+        return "{\"id\":" + id + ",\"name\":\"user" + id + "\",\"status\":\"active\",\"plan\":\"premium\","
+                + "\"locale\":\"ko-KR\",\"timezone\":\"Asia/Seoul\"}";
+    }
+}
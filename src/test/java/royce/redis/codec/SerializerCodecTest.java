@@ -0,0 +1,142 @@
+package royce.redis.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.Deflater;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class SerializerCodecTest {
+
+    private RedisClient client;
+
+    @BeforeEach
+    void setUp() {
+        RedisConnectionProvider.getSync().flushall();
+        client = RedisConnectionProvider.client();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+    }
+
+    @Test
+    void 바이트_값은_그대로_저장_된다() {
+        // given
+        byte[] value = {0, (byte) 0xff, 0x7f, (byte) 0x80};
+
+        // when
+        try (StatefulRedisConnection<String, byte[]> connection =
+                     client.connect(SerializerCodec.of(ValueSerializers.bytes()))) {
+            connection.sync().set("raw", value);
+
+            // then
+            assertThat(connection.sync().get("raw")).containsExactly(value);
+            assertThat(connection.sync().strlen("raw")).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void 문자열_map_은_JSON_보다_작게_저장_된다() {
+        // given
+        Map<String, String> user = Map.of("name", "royce", "city", "서울", "age", "20");
+
+        // when
+        try (StatefulRedisConnection<String, Map<String, String>> connection =
+                     client.connect(SerializerCodec.of(ValueSerializers.stringMap()))) {
+            connection.sync().set("user:1", user);
+
+            // then
+            assertThat(connection.sync().get("user:1")).isEqualTo(user);
+            assertThat(connection.sync().strlen("user:1"))
+                    .isLessThan("{\"name\":\"royce\",\"city\":\"서울\",\"age\":\"20\"}"
+                            .getBytes(StandardCharsets.UTF_8).length);
+        }
+    }
+
+    @Test
+    void deflate_는_반복이_많은_값을_압축_해서_저장_한다() {
+        // given
+        byte[] value = "{\"status\":\"ok\"}".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        ValueSerializer<byte[]> serializer = ValueSerializers.deflate(ValueSerializers.bytes(), Deflater.BEST_SPEED);
+
+        // when
+        try (StatefulRedisConnection<String, byte[]> connection = client.connect(SerializerCodec.of(serializer))) {
+            connection.sync().set("response", value);
+
+            // then
+            assertThat(connection.sync().get("response")).containsExactly(value);
+            assertThat(connection.sync().strlen("response")).isLessThan(value.length / 10);
+        }
+    }
+
+    @Test
+    void 풀_버퍼로_받은_값을_복사_없이_채널에_쓴다() throws Exception {
+        // given
+        RedisConnectionProvider.getSync().set("payload", "x".repeat(10_000));
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+
+        // when
+        try (StatefulRedisConnection<String, ByteBuf> connection = client.connect(PooledByteBufCodec.INSTANCE)) {
+            ByteBuf value = connection.sync().get("payload");
+            assertThat(value.isDirect()).isTrue();
+            PooledByteBufCodec.transferTo(value, Channels.newChannel(sink));
+
+            // then
+            assertThat(value.refCnt()).isZero();
+            assertThat(sink.toString(StandardCharsets.US_ASCII)).isEqualTo("x".repeat(10_000));
+        }
+    }
+
+    @Test
+    void 보낸_ByteBuf_의_readerIndex_는_움직이지_않는다() {
+        // given
+        ByteBuf value = Unpooled.copiedBuffer("hello", StandardCharsets.US_ASCII);
+
+        // when
+        try (StatefulRedisConnection<String, ByteBuf> connection = client.connect(PooledByteBufCodec.INSTANCE)) {
+            connection.sync().set("first", value);
+            connection.sync().set("second", value);
+
+            // then
+            assertThat(value.readableBytes()).isEqualTo(5);
+            assertThat(RedisConnectionProvider.getSync().mget("first", "second"))
+                    .extracting(kv -> kv.getValue())
+                    .containsExactly("hello", "hello");
+        }
+    }
+
+    @Test
+    void UTF8_이_아닌_바이너리_키를_그대로_쓰고_돌려_받는다() {
+        // given
+        ByteBuf key = Unpooled.wrappedBuffer(new byte[]{'k', (byte) 0xff, 0, (byte) 0xc3});
+        ByteBuf value = Unpooled.copiedBuffer("hello", StandardCharsets.US_ASCII);
+
+        // when
+        try (StatefulRedisConnection<ByteBuf, ByteBuf> connection = client.connect(ByteBufCodec.INSTANCE)) {
+            connection.sync().set(key, value);
+            ByteBuf stored = connection.sync().get(key);
+
+            // then
+            assertThat(key.readableBytes()).isEqualTo(4);
+            assertThat(connection.sync().keys(Unpooled.wrappedBuffer(new byte[]{'k', '*'}))).containsExactly(key);
+            assertThat(stored.toString(StandardCharsets.US_ASCII)).isEqualTo("hello");
+            stored.release();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package royce.redis.common;
+
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ExtensionContext.Namespace;
+import org.junit.jupiter.api.extension.ExtensionContext.Store.CloseableResource;
+import royce.redis.connection.RedisConnectionSettings;
+import royce.redis.server.RespServer;
+
+/**
+ * 테스트 실행 동안 임의의 포트에 프로세스 내 RESP 서버를 띄운다.
+ * -Dredis.external=true 로 실행 하면 서버를 띄우지 않고 localhost:6379 의 실제 Redis 를 사용 한다.
+ * 클러스터 테스트는 primary 3 개, primary 마다 replica 1 개인 프로세스 내 클러스터를 사용 하며,
+ * external 이면 localhost:7000 부터 떠 있는 실제 클러스터를 사용 한다.
+ */
+public class EmbeddedRedisExtension implements BeforeAllCallback {
+
+    private static final String HOST = "localhost";
+    private static final int PORT = 6379;
+    private static final int CLUSTER_PORT = 7000;
+    private static final String PASSWORD = "royceredis";
+    private static final Namespace NAMESPACE = Namespace.create(EmbeddedRedisExtension.class);
+
+    private static RespServer server;
+    private static RespServer cluster;
+
+    public static boolean isExternal() {
+        return Boolean.getBoolean("redis.external");
+    }
+
+    public static synchronized RedisConnectionSettings settings() {
+        if (isExternal()) {
+            return RedisConnectionSettings.of(HOST, PORT, PASSWORD);
+        }
+        if (server == null) {
+            server = RespServer.builder()
+                    .port(0)
+                    .password(PASSWORD)
+                    .build()
+                    .start();
+        }
+        return RedisConnectionSettings.of(server.host(), server.port(), PASSWORD);
+    }
+
+    /**
+     * 클러스터의 seed 노드 접속 정보.
+     */
+    public static synchronized RedisConnectionSettings clusterSettings() {
+        if (isExternal()) {
+            return RedisConnectionSettings.of(HOST, CLUSTER_PORT, PASSWORD);
+        }
+        if (cluster == null) {
+            cluster = RespServer.builder()
+                    .port(0)
+                    .password(PASSWORD)
+                    .cluster(3, 1)
+                    .build()
+                    .start();
+        }
+        return RedisConnectionSettings.of(cluster.host(), cluster.port(), PASSWORD);
+    }
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        settings();
+        context.getRoot().getStore(NAMESPACE)
+                .getOrComputeIfAbsent(RespServer.class, key -> new ServerResource(), ServerResource.class);
+    }
+
+    private static class ServerResource implements CloseableResource {
+
+        @Override
+        public void close() {
+            synchronized (EmbeddedRedisExtension.class) {
+                if (server != null) {
+                    server.close();
+                    server = null;
+                }
+                if (cluster != null) {
+                    cluster.close();
+                    cluster = null;
+                }
+            }
+        }
+    }
+}
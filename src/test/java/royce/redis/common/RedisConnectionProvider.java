@@ -1,39 +1,73 @@
 package royce.redis.common;
 
 import io.lettuce.core.RedisClient;
-import io.lettuce.core.RedisURI;
-import io.lettuce.core.RedisURI.Builder;
 import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.reactive.RedisReactiveCommands;
 import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.cluster.RedisClusterClient;
+import java.time.Duration;
 import java.util.Arrays;
+import royce.redis.cache.NearCache;
+import royce.redis.cluster.ClusterConnection;
+import royce.redis.connection.RedisConnectionPool;
+import royce.redis.connection.RedisConnectionSettings;
+import royce.redis.connection.SharedClientResources;
 
 public class RedisConnectionProvider {
 
-    private static final String HOST = "localhost";
-    private static final int PORT = 6379;
-    private static final String PASSWORD = "royceredis";
-    private static final StatefulRedisConnection<String, String> redisConnection = connection();
+    private static final int POOL_SIZE = 10;
+    private static final RedisConnectionSettings settings = EmbeddedRedisExtension.settings();
+    private static final RedisConnectionPool pool = RedisConnectionPool.builder(settings)
+            .size(POOL_SIZE)
+            .build();
+    private static final StatefulRedisConnection<String, String> redisConnection = pool.client().connect();
 
     private RedisConnectionProvider() {
     }
 
-    private static StatefulRedisConnection<String, String> connection() {
-        return client().connect();
+    public static RedisClient client() {
+        return RedisClient.create(SharedClientResources.get(), settings.toRedisURI());
     }
 
-    public static RedisClient client() {
-        RedisURI redisURI = Builder.redis(HOST)
-                .withPort(PORT)
-                .withPassword(PASSWORD.toCharArray())
-                .withDatabase(0)
-                .build();
-        return RedisClient.create(redisURI);
+    /**
+     * 프로세스 내 클러스터에 대한 RedisClusterClient. 사용 후 shutdown 해야 한다.
+     */
+    public static RedisClusterClient clusterClient() {
+        RedisClusterClient client = RedisClusterClient.create(SharedClientResources.get(),
+                EmbeddedRedisExtension.clusterSettings().toRedisURI());
+        client.setOptions(ClusterConnection.clientOptions(Duration.ofSeconds(30)));
+        return client;
+    }
+
+    public static RedisConnectionSettings settings() {
+        return settings;
     }
 
     public static RedisCommands<String, String> getSync() {
         return redisConnection.sync();
     }
 
+    public static RedisReactiveCommands<String, String> getReactive() {
+        return redisConnection.reactive();
+    }
+
+    public static StatefulRedisConnection<String, String> connection() {
+        return redisConnection;
+    }
+
+    public static RedisConnectionPool pool() {
+        return pool;
+    }
+
+    /**
+     * 전용 커넥션으로 CLIENT TRACKING 을 켠 near cache. 사용 후 close 해야 한다.
+     */
+    public static NearCache nearCache(int maximumSize) {
+        return NearCache.builder(pool.client())
+                .maximumSize(maximumSize)
+                .build();
+    }
+
     public static int getConnectionCount(RedisCommands<String, String> syncConnection) {
         String infos = syncConnection.info();
         String connectedClientsCount = Arrays.stream(infos.split(System.lineSeparator()))
@@ -0,0 +1,111 @@
+package royce.redis.connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lettuce.core.RedisClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class BlockingPopDispatcherTest {
+
+    private RedisClient client;
+    private BlockingPopDispatcher dispatcher;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        RedisConnectionProvider.getSync().flushall();
+        client = RedisConnectionProvider.client();
+        dispatcher = BlockingPopDispatcher.builder(client)
+                .connections(2)
+                .build();
+        executor = VirtualThreads.newPerTaskExecutor("blocking-consumer");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        dispatcher.close();
+        client.shutdown();
+    }
+
+    @Test
+    void 많은_소비자가_적은_커넥션으로_원소를_하나씩_나눠_받는다() throws Exception {
+        // given
+        int consumers = 500;
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < consumers; i++) {
+            String queue = "queue:" + (i % 10);
+            results.add(executor.submit(() -> dispatcher.brpop(queue, Duration.ofSeconds(10))));
+        }
+        awaitWaiting(consumers);
+
+        // when
+        for (int i = 0; i < consumers; i++) {
+            RedisConnectionProvider.getSync().lpush("queue:" + (i % 10), "job:" + i);
+        }
+
+        // then
+        List<String> received = new ArrayList<>();
+        for (Future<String> result : results) {
+            received.add(result.get());
+        }
+        assertThat(received).doesNotContainNull().doesNotHaveDuplicates().hasSize(consumers);
+        assertThat(dispatcher.connectionCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void 원소가_없으면_타임아웃_후_null_을_반환_한다() {
+        // when
+        String value = dispatcher.blpop("empty", Duration.ofMillis(100));
+
+        // then
+        assertThat(value).isNull();
+        assertThat(dispatcher.waitingCount()).isZero();
+    }
+
+    @Test
+    void 이미_원소가_있으면_바로_꺼낸다() {
+        // given
+        RedisConnectionProvider.getSync().rpush("queue", "a", "b");
+
+        // when
+        String first = dispatcher.blpop("queue", Duration.ofSeconds(1));
+        String last = dispatcher.brpop("queue", Duration.ofSeconds(1));
+
+        // then
+        assertThat(first).isEqualTo("a");
+        assertThat(last).isEqualTo("b");
+    }
+
+    @Test
+    void 소비자가_모두_떠난_뒤_들어온_원소는_리스트에_남는다() throws Exception {
+        // given
+        assertThat(dispatcher.brpop("queue", Duration.ofMillis(100))).isNull();
+
+        // when
+        RedisConnectionProvider.getSync().lpush("queue", "job");
+        Thread.sleep(200);
+
+        // then
+        assertThat(RedisConnectionProvider.getSync().lrange("queue", 0, -1)).containsExactly("job");
+    }
+
+    private void awaitWaiting(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (dispatcher.waitingCount() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package royce.redis.connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.lettuce.core.RedisConnectionException;
+import io.lettuce.core.RedisFuture;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class RedisConnectionPoolTest {
+
+    private RedisConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        RedisConnectionProvider.getSync().flushall();
+        pool = RedisConnectionPool.builder(RedisConnectionProvider.settings())
+                .size(2)
+                .borrowTimeout(Duration.ofMillis(100))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void 풀은_미리_연결된_커넥션을_빌려주고_반납_받는다() {
+        // given
+        assertThat(pool.idleCount()).isEqualTo(2);
+
+        // when
+        String pong = pool.execute(commands -> commands.ping());
+
+        // then
+        assertThat(pong).isEqualTo("PONG");
+        assertThat(pool.idleCount()).isEqualTo(2);
+        assertThat(pool.metrics().snapshot().borrowCount()).isEqualTo(1);
+    }
+
+    @Test
+    void 풀이_비어_있으면_타임아웃_후_예외가_발생_한다() {
+        // given
+        var first = pool.borrow();
+        var second = pool.borrow();
+
+        // when & then
+        assertThatThrownBy(() -> pool.borrow()).isInstanceOf(RedisConnectionException.class);
+        assertThat(pool.metrics().snapshot().borrowTimeoutCount()).isEqualTo(1);
+
+        pool.release(first);
+        pool.release(second);
+    }
+
+    @Test
+    void 파이프라인_모드는_N개_마다_한번에_전송_한다() throws Exception {
+        // given
+        List<RedisFuture<Long>> futures = new ArrayList<>();
+
+        // when
+        try (PipelinedConnection pipeline = pool.pipelined(100)) {
+            for (int i = 0; i < 1000; i++) {
+                futures.add(pipeline.submit(commands -> commands.incr("counter")));
+            }
+        }
+
+        // then
+        assertThat(futures.get(999).get()).isEqualTo(1000L);
+        assertThat(RedisConnectionProvider.getSync().get("counter")).isEqualTo("1000");
+    }
+}
@@ -7,19 +7,18 @@ import io.lettuce.core.RedisURI;
 import io.lettuce.core.RedisURI.Builder;
 import io.lettuce.core.api.StatefulRedisConnection;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
 
+@ExtendWith(EmbeddedRedisExtension.class)
 class RedisConnectionTest {
 
-    private static final String HOST = "localhost";
-    private static final int PORT = 6379;
-    private static final String PASSWORD = "royceredis";
-
-
     @Test
     void connection() {
-        RedisURI redisURI = Builder.redis(HOST)
-                .withPort(PORT)
-                .withPassword(PASSWORD.toCharArray())
+        RedisConnectionSettings settings = EmbeddedRedisExtension.settings();
+        RedisURI redisURI = Builder.redis(settings.host())
+                .withPort(settings.port())
+                .withPassword(settings.password().toCharArray())
                 .withDatabase(0)
                 .build();
         RedisClient client = RedisClient.create(redisURI);
@@ -0,0 +1,142 @@
+package royce.redis.counter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.api.sync.RedisCommands;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class BatchedCounterTest {
+
+    @BeforeEach
+    void cleanUp() {
+        RedisConnectionProvider.getSync().flushall();
+    }
+
+    @Test
+    void 여러_스레드의_증가를_모아_보내도_합계는_정확_하다() throws InterruptedException {
+        // given
+        ExecutorService executorService = Executors.newFixedThreadPool(10);
+        List<Callable<Void>> runners = new ArrayList<>();
+        BatchedCounter counter = BatchedCounter.builder(RedisConnectionProvider.pool()).build();
+        for (int i = 0; i < 10; i++) {
+            runners.add(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    counter.increment("test");
+                }
+                return null;
+            });
+        }
+
+        // when
+        executorService.invokeAll(runners);
+        executorService.shutdown();
+        counter.close();
+
+        // then
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        CounterMetrics.Snapshot snapshot = counter.metrics().snapshot();
+        assertThat(syncConnection.get("test")).isEqualTo("100000");
+        assertThat(snapshot.updateCount()).isEqualTo(100000);
+        assertThat(snapshot.commandCount()).isLessThan(1000);
+    }
+
+    @Test
+    void maxStaleness_가_지나면_자동으로_flush_한다() throws InterruptedException {
+        // given
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        try (BatchedCounter counter = BatchedCounter.builder(RedisConnectionProvider.pool())
+                .maxStaleness(Duration.ofMillis(50))
+                .build()) {
+
+            // when
+            counter.incrementBy("page:view", 3);
+            counter.hincrementBy("endpoint:/admin/{id}", "count", 2);
+            Thread.sleep(300);
+
+            // then
+            assertThat(syncConnection.get("page:view")).isEqualTo("3");
+            assertThat(syncConnection.hget("endpoint:/admin/{id}", "count")).isEqualTo("2");
+        }
+    }
+
+    @Test
+    void maxPendingUpdates_만큼_쌓이면_주기를_기다리지_않고_flush_한다() throws InterruptedException {
+        // given
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        try (BatchedCounter counter = BatchedCounter.builder(RedisConnectionProvider.pool())
+                .maxStaleness(Duration.ofHours(1))
+                .maxPendingUpdates(10)
+                .build()) {
+
+            // when
+            for (int i = 0; i < 10; i++) {
+                counter.increment("test");
+            }
+            Thread.sleep(300);
+
+            // then
+            assertThat(syncConnection.get("test")).isEqualTo("10");
+        }
+    }
+
+    @Test
+    void 더_이상_증가하지_않는_키는_로컬_맵에서_지운다() {
+        // given
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        try (BatchedCounter counter = BatchedCounter.builder(RedisConnectionProvider.pool())
+                .maxStaleness(Duration.ofHours(1))
+                .build()) {
+            for (int minute = 0; minute < 100; minute++) {
+                counter.increment("rate:user:1:" + minute);
+            }
+
+            // when
+            counter.flush();
+            counter.flush();
+            counter.increment("rate:user:1:0");
+            counter.flush();
+
+            // then
+            assertThat(counter.trackedTargets()).isEqualTo(1);
+            assertThat(syncConnection.get("rate:user:1:0")).isEqualTo("2");
+            assertThat(syncConnection.get("rate:user:1:99")).isEqualTo("1");
+        }
+    }
+
+    @Test
+    void 서버가_거절한_증감량은_로컬에_되돌려_다음_flush_에서_보낸다() {
+        // given
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        syncConnection.set("test", "not a number");
+        try (BatchedCounter counter = BatchedCounter.builder(RedisConnectionProvider.pool())
+                .maxStaleness(Duration.ofHours(1))
+                .build()) {
+            counter.incrementBy("test", 3);
+            assertThatThrownBy(counter::flush).isInstanceOf(RedisCommandExecutionException.class);
+            syncConnection.set("test", "10");
+
+            // when
+            counter.flush();
+
+            // then
+            CounterMetrics.Snapshot snapshot = counter.metrics().snapshot();
+            assertThat(syncConnection.get("test")).isEqualTo("13");
+            assertThat(snapshot.failedCommandCount()).isEqualTo(1);
+            assertThat(snapshot.unconfirmedCommandCount()).isZero();
+        }
+    }
+}
@@ -8,8 +8,11 @@ import java.time.Instant;
 import java.util.function.Supplier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
 import royce.redis.common.RedisConnectionProvider;
 
+@ExtendWith(EmbeddedRedisExtension.class)
 @SuppressWarnings("NonAsciiCharacters")
 public class HLLTest {
 
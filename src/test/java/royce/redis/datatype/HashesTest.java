@@ -15,8 +15,11 @@ import java.util.Map;
 import java.util.function.Supplier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
 import royce.redis.common.RedisConnectionProvider;
 
+@ExtendWith(EmbeddedRedisExtension.class)
 @SuppressWarnings("NonAsciiCharacters")
 public class HashesTest {
 
@@ -33,7 +36,7 @@ public class HashesTest {
         syncConnection.hset("endpoint:/admin/{id}", "caller", "user:123");
 
         // when
-        String value = syncConnection.hget(":endpoint:/admin/{id}", "caller");
+        String value = syncConnection.hget("endpoint:/admin/{id}", "caller");
 
         // then
         assertThat(value).isEqualTo("user:123");
@@ -6,8 +6,11 @@ import io.lettuce.core.RedisClient;
 import io.lettuce.core.api.sync.RedisCommands;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
 import royce.redis.common.RedisConnectionProvider;
 
+@ExtendWith(EmbeddedRedisExtension.class)
 @SuppressWarnings("NonAsciiCharacters")
 public class ListsTest {
 
@@ -8,8 +8,11 @@ import java.util.List;
 import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
 import royce.redis.common.RedisConnectionProvider;
 
+@ExtendWith(EmbeddedRedisExtension.class)
 @SuppressWarnings("NonAsciiCharacters")
 public class SetsTest {
 
@@ -15,8 +15,11 @@ import java.util.concurrent.Executors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
 import royce.redis.common.RedisConnectionProvider;
 
+@ExtendWith(EmbeddedRedisExtension.class)
 @SuppressWarnings("NonAsciiCharacters")
 class StringTypeTest {
 
@@ -152,8 +155,7 @@ class StringTypeTest {
             @Override
             public Void call() {
                 for (int i = 0; i < 10000; i++) {
-                    RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
-                    syncConnection.incr("test");
+                    RedisConnectionProvider.pool().execute(commands -> commands.incr("test"));
                 }
 
                 return null;
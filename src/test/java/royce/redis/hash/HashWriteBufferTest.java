@@ -0,0 +1,214 @@
+package royce.redis.hash;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.lettuce.core.RedisConnectionException;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+import royce.redis.connection.RedisConnectionPool;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class HashWriteBufferTest {
+
+    @BeforeEach
+    void cleanUp() {
+        RedisConnectionProvider.getSync().flushall();
+    }
+
+    @Test
+    void 여러_스레드의_필드_수정을_키_마다_합쳐_보낸다() throws InterruptedException {
+        // given
+        ExecutorService executorService = Executors.newFixedThreadPool(10);
+        List<Callable<Void>> runners = new ArrayList<>();
+        HashWriteBuffer buffer = HashWriteBuffer.builder(RedisConnectionProvider.pool()).build();
+        for (int i = 0; i < 10; i++) {
+            String ip = "127.0.0." + i;
+            runners.add(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    String key = "endpoint:/admin/" + (j % 10);
+                    buffer.hsetnx(key, "initAccessIp", ip);
+                    buffer.hset(key, "caller", "admin");
+                    buffer.hincrby(key, "count", 1);
+                }
+                return null;
+            });
+        }
+
+        // when
+        executorService.invokeAll(runners);
+        executorService.shutdown();
+        buffer.close();
+
+        // then
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        HashWriteMetrics.Snapshot snapshot = buffer.metrics().snapshot();
+        for (int i = 0; i < 10; i++) {
+            Map<String, String> endpoint = syncConnection.hgetall("endpoint:/admin/" + i);
+            assertThat(endpoint).containsEntry("caller", "admin").containsEntry("count", "1000");
+            assertThat(endpoint.get("initAccessIp")).startsWith("127.0.0.");
+        }
+        assertThat(snapshot.writeCount()).isEqualTo(30000);
+        assertThat(snapshot.commandCount()).isLessThan(3000);
+        assertThat(buffer.pendingFields()).isZero();
+    }
+
+    @Test
+    void 합쳐서_보내도_호출_순서대로_보낸_것과_결과가_같다() {
+        // given
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        HashWriteBuffer buffer = HashWriteBuffer.builder(RedisConnectionProvider.pool())
+                .maxStaleness(Duration.ofMinutes(1))
+                .build();
+        syncConnection.hset("direct", Map.of("a", "10", "e", "old"));
+        syncConnection.hset("buffered", Map.of("a", "10", "e", "old"));
+
+        // when
+        for (String key : List.of("direct", "buffered")) {
+            boolean direct = key.equals("direct");
+            apply(direct, buffer, key, "hincrby", "a", "5");
+            apply(direct, buffer, key, "hset", "a", "1");
+            apply(direct, buffer, key, "hincrby", "a", "2");
+            apply(direct, buffer, key, "hsetnx", "b", "4");
+            apply(direct, buffer, key, "hsetnx", "b", "5");
+            apply(direct, buffer, key, "hincrby", "b", "0");
+            apply(direct, buffer, key, "hincrby", "c", "3");
+            apply(direct, buffer, key, "hsetnx", "c", "ignored");
+            apply(direct, buffer, key, "hsetnx", "d", "7");
+            apply(direct, buffer, key, "hset", "d", "8");
+            apply(direct, buffer, key, "hincrby", "d", "1");
+            apply(direct, buffer, key, "hsetnx", "e", "new");
+        }
+        buffer.flush();
+
+        // then
+        assertThat(syncConnection.hgetall("buffered")).isEqualTo(syncConnection.hgetall("direct"));
+        assertThat(buffer.metrics().snapshot().commandCount()).isEqualTo(7);
+        buffer.close();
+    }
+
+    @Test
+    void 서버가_오류로_응답한_명령은_버리고_나머지는_적용_한다() {
+        // given
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        HashWriteBuffer buffer = HashWriteBuffer.builder(RedisConnectionProvider.pool())
+                .maxStaleness(Duration.ofMinutes(1))
+                .build();
+        buffer.hset("endpoint:/admin/1", "caller", "admin");
+        buffer.hincrby("endpoint:/admin/1", "caller", 1);
+        buffer.hincrby("endpoint:/admin/1", "count", 1);
+
+        // when
+        try {
+            buffer.flush();
+        } catch (RuntimeException ignored) {
+            // HINCRBY 가 문자열 필드에 실패 한다
+        }
+        buffer.close();
+
+        // then
+        assertThat(syncConnection.hgetall("endpoint:/admin/1"))
+                .containsExactlyInAnyOrderEntriesOf(Map.of("caller", "admin", "count", "1"));
+        assertThat(buffer.metrics().snapshot().droppedCommandCount()).isEqualTo(1);
+        assertThat(buffer.pendingFields()).isZero();
+    }
+
+    @Test
+    void 보내지_못한_batch_는_원래_순서대로_되돌려_뒤의_쓰기_보다_먼저_적용_한다() {
+        // given
+        RedisConnectionPool pool = RedisConnectionPool.builder(RedisConnectionProvider.settings())
+                .size(1)
+                .borrowTimeout(Duration.ofMillis(50))
+                .build();
+        HashWriteBuffer buffer = HashWriteBuffer.builder(pool)
+                .maxStaleness(Duration.ofMinutes(1))
+                .build();
+        buffer.hset("endpoint:/admin/1", "count", "10");
+        buffer.hincrby("endpoint:/admin/1", "count", 5);
+        buffer.hsetnx("endpoint:/admin/1", "initAccessIp", "127.0.0.1");
+        StatefulRedisConnection<String, String> held = pool.borrow();
+        assertThatThrownBy(buffer::flush).isInstanceOf(RedisConnectionException.class);
+        buffer.hincrby("endpoint:/admin/1", "count", 1);
+        buffer.hsetnx("endpoint:/admin/1", "initAccessIp", "127.0.0.2");
+        pool.release(held);
+
+        // when
+        buffer.flush();
+
+        // then
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        HashWriteMetrics.Snapshot snapshot = buffer.metrics().snapshot();
+        assertThat(syncConnection.hgetall("endpoint:/admin/1"))
+                .containsExactlyInAnyOrderEntriesOf(Map.of("count", "16", "initAccessIp", "127.0.0.1"));
+        assertThat(snapshot.retriedCommandCount()).isEqualTo(3);
+        assertThat(snapshot.unconfirmedCommandCount()).isZero();
+        assertThat(buffer.pendingFields()).isZero();
+        buffer.close();
+        pool.close();
+    }
+
+    @Test
+    void capacity_가_차면_보낼_때_까지_쓰기를_기다린다() {
+        // given
+        HashWriteBuffer buffer = HashWriteBuffer.builder(RedisConnectionProvider.pool())
+                .maxPendingFields(10)
+                .capacity(10)
+                .maxStaleness(Duration.ofMinutes(1))
+                .build();
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            buffer.hset("endpoint:/admin/" + (i % 3), "field" + i, "value");
+            assertThat(buffer.pendingFields()).isLessThanOrEqualTo(10);
+        }
+        buffer.close();
+
+        // then
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        long fields = syncConnection.hlen("endpoint:/admin/0") + syncConnection.hlen("endpoint:/admin/1")
+                + syncConnection.hlen("endpoint:/admin/2");
+        assertThat(fields).isEqualTo(1000);
+        assertThat(buffer.metrics().snapshot().backpressureWaitCount()).isPositive();
+    }
+
+    private static void apply(boolean direct, HashWriteBuffer buffer, String key, String command, String field,
+                              String value) {
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        switch (command) {
+            case "hset" -> {
+                if (direct) {
+                    syncConnection.hset(key, field, value);
+                } else {
+                    buffer.hset(key, field, value);
+                }
+            }
+            case "hsetnx" -> {
+                if (direct) {
+                    syncConnection.hsetnx(key, field, value);
+                } else {
+                    buffer.hsetnx(key, field, value);
+                }
+            }
+            default -> {
+                if (direct) {
+                    syncConnection.hincrby(key, field, Long.parseLong(value));
+                } else {
+                    buffer.hincrby(key, field, Long.parseLong(value));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package royce.redis.hll;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class HyperLogLogTest {
+
+    private RedisClient client;
+    private StatefulRedisConnection<String, byte[]> connection;
+
+    @BeforeEach
+    void setUp() {
+        RedisConnectionProvider.getSync().flushall();
+        client = RedisConnectionProvider.client();
+        connection = client.connect(HyperLogLogs.CODEC);
+    }
+
+    @AfterEach
+    void tearDown() {
+        connection.close();
+        client.shutdown();
+    }
+
+    @Test
+    void 로컬에서_모은_HLL_을_서버에서_PFMERGE_할_수_있다() {
+        // given
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 10000; i++) {
+            sketch.add("user:" + i);
+        }
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        syncConnection.pfadd("user:online:hll", "user:0", "user:10000");
+
+        // when
+        HyperLogLogs.mergeInto(connection.sync(), "user:online:hll", sketch);
+
+        // then
+        HyperLogLog expected = new HyperLogLog();
+        expected.merge(sketch);
+        expected.add("user:10000");
+        assertThat(syncConnection.pfcount("user:online:hll")).isEqualTo(expected.cardinality());
+        assertThat(syncConnection.keys("user:online:hll:*")).isEmpty();
+    }
+
+    @Test
+    void PFADD_로_만든_값을_로컬에서_읽으면_같은_레지스터를_갖는다() {
+        // given
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        HyperLogLog local = new HyperLogLog();
+        for (int i = 0; i < 100; i++) {
+            syncConnection.pfadd("endpoint:/admin", "user:" + i);
+            local.add("user:" + i);
+        }
+
+        // when
+        HyperLogLog loaded = HyperLogLogs.load(connection.sync(), "endpoint:/admin");
+
+        // then
+        assertThat(loaded.toBytes()).isEqualTo(local.toBytes());
+        assertThat(loaded.cardinality()).isEqualTo(syncConnection.pfcount("endpoint:/admin"));
+    }
+
+    @Test
+    void sparse_와_dense_인코딩은_같은_카디널리티를_갖는다() {
+        // given
+        HyperLogLog hll = new HyperLogLog();
+        for (int i = 0; i < 1000; i++) {
+            hll.add("user:" + i);
+        }
+
+        // when
+        byte[] sparse = hll.toSparseBytes();
+        byte[] dense = hll.toDenseBytes();
+
+        // then
+        assertThat(sparse).isNotNull().hasSizeLessThan(HyperLogLog.SPARSE_MAX_BYTES);
+        assertThat(dense).hasSize(HyperLogLog.DENSE_SIZE);
+        assertThat(HyperLogLog.fromBytes(sparse).cardinality()).isEqualTo(hll.cardinality());
+        assertThat(HyperLogLog.fromBytes(dense).cardinality()).isEqualTo(hll.cardinality());
+    }
+
+    @Test
+    void 빈_HLL_은_Redis_와_같은_18_바이트_sparse_값이다() {
+        // given
+        HyperLogLog hll = new HyperLogLog();
+
+        // when
+        byte[] bytes = hll.toBytes();
+
+        // then
+        assertThat(bytes).hasSize(18);
+        assertThat(hll.cardinality()).isZero();
+    }
+}
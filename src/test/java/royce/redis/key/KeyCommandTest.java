@@ -6,13 +6,17 @@ import io.lettuce.core.KeyScanArgs.Builder;
 import io.lettuce.core.api.sync.RedisCommands;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
 import royce.redis.common.RedisConnectionProvider;
+import royce.redis.load.BulkLoader;
+import royce.redis.load.BulkRecord;
 
+@ExtendWith(EmbeddedRedisExtension.class)
 @SuppressWarnings("NonAsciiCharacters")
 public class KeyCommandTest {
 
@@ -90,11 +94,9 @@ public class KeyCommandTest {
     void 해쉬_전체_조회_성능_평가() {
         // given
         var syncConnection = RedisConnectionProvider.getSync();
-        Map<String, String> hashes = new LinkedHashMap<>();
-        for (int i = 0; i < 100000; i++) {
-            hashes.put("key" + i, "value" + i);
-        }
-        syncConnection.mset(hashes);
+        BulkLoader.builder(RedisConnectionProvider.pool()).build().load(IntStream.range(0, 100000)
+                .<BulkRecord>mapToObj(i -> new BulkRecord.StringRecord("key" + i, "value" + i))
+                .iterator());
 
         // when
         Long hgetLatency = timeRater(() -> syncConnection.keys("*"));
@@ -0,0 +1,223 @@
+package royce.redis.leaderboard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.lettuce.core.RedisConnectionException;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+import royce.redis.connection.RedisConnectionPool;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class LeaderboardTest {
+
+    @BeforeEach
+    void cleanUp() {
+        RedisConnectionProvider.getSync().flushall();
+    }
+
+    @Test
+    void 멤버_별_갱신을_합쳐_ZADD_와_ZINCRBY_로_보낸다() {
+        // given
+        Leaderboard leaderboard = Leaderboard.builder(RedisConnectionProvider.pool(), "ranking")
+                .maxPendingUpdates(1_000_000)
+                .maxStaleness(Duration.ofMinutes(1))
+                .build();
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            leaderboard.setScore("player:" + i, 100);
+            for (int j = 0; j < 10; j++) {
+                leaderboard.incrementScore("player:" + i, 1);
+            }
+        }
+        leaderboard.incrementScore("player:new", 5);
+        leaderboard.incrementScore("player:new", 5);
+        leaderboard.close();
+
+        // then
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        LeaderboardMetrics.Snapshot snapshot = leaderboard.metrics().snapshot();
+        assertThat(syncConnection.zcard("ranking")).isEqualTo(1001);
+        assertThat(syncConnection.zscore("ranking", "player:7")).isEqualTo(110.0);
+        assertThat(syncConnection.zscore("ranking", "player:new")).isEqualTo(10.0);
+        assertThat(snapshot.updateCount()).isEqualTo(11002);
+        assertThat(snapshot.commandCount()).isEqualTo(3);
+    }
+
+    @Test
+    void 보내지_못한_갱신은_되돌려_뒤의_갱신_보다_먼저_적용_한다() {
+        // given
+        RedisConnectionPool pool = RedisConnectionPool.builder(RedisConnectionProvider.settings())
+                .size(1)
+                .borrowTimeout(Duration.ofMillis(50))
+                .build();
+        Leaderboard leaderboard = Leaderboard.builder(pool, "ranking")
+                .maxStaleness(Duration.ofMinutes(1))
+                .build();
+        leaderboard.setScore("player:1", 10);
+        leaderboard.incrementScore("player:2", 5);
+        StatefulRedisConnection<String, String> held = pool.borrow();
+        assertThatThrownBy(leaderboard::flush).isInstanceOf(RedisConnectionException.class);
+        leaderboard.incrementScore("player:1", 1);
+        leaderboard.incrementScore("player:2", 2);
+        pool.release(held);
+
+        // when
+        leaderboard.flush();
+
+        // then
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        LeaderboardMetrics.Snapshot snapshot = leaderboard.metrics().snapshot();
+        assertThat(syncConnection.zscore("ranking", "player:1")).isEqualTo(11.0);
+        assertThat(syncConnection.zscore("ranking", "player:2")).isEqualTo(7.0);
+        assertThat(snapshot.unconfirmedCommandCount()).isZero();
+        leaderboard.close();
+        pool.close();
+    }
+
+    @Test
+    void 오류_응답을_받은_증감은_되돌려_다음_flush_에서_보낸다() {
+        // given
+        Leaderboard leaderboard = Leaderboard.builder(RedisConnectionProvider.pool(), "ranking")
+                .maxStaleness(Duration.ofMinutes(1))
+                .build();
+        RedisConnectionProvider.getSync().set("ranking", "not a sorted set");
+        leaderboard.incrementScore("player:1", 3);
+        leaderboard.flush();
+        RedisConnectionProvider.getSync().del("ranking");
+
+        // when
+        leaderboard.incrementScore("player:1", 1);
+        leaderboard.close();
+
+        // then
+        LeaderboardMetrics.Snapshot snapshot = leaderboard.metrics().snapshot();
+        assertThat(RedisConnectionProvider.getSync().zscore("ranking", "player:1")).isEqualTo(4.0);
+        assertThat(snapshot.failedCommandCount()).isEqualTo(1);
+        assertThat(snapshot.unconfirmedCommandCount()).isZero();
+    }
+
+    @Test
+    void 샤드를_합쳐_상위_목록과_순위를_계산_한다() {
+        // given
+        try (Leaderboard leaderboard = Leaderboard.builder(RedisConnectionProvider.pool(), "ranking")
+                .shards(4)
+                .cacheTtl(Duration.ZERO)
+                .build()) {
+            for (int i = 0; i < 100; i++) {
+                leaderboard.setScore("player:" + i, i);
+            }
+            leaderboard.flush();
+
+            // when
+            List<Leaderboard.Entry> top = leaderboard.top(3);
+            Long rank = leaderboard.rank("player:50");
+
+            // then
+            assertThat(RedisConnectionProvider.getSync().exists("ranking:0", "ranking:1", "ranking:2", "ranking:3"))
+                    .isEqualTo(4);
+            assertThat(top).containsExactly(
+                    new Leaderboard.Entry(0, "player:99", 99),
+                    new Leaderboard.Entry(1, "player:98", 98),
+                    new Leaderboard.Entry(2, "player:97", 97));
+            assertThat(rank).isEqualTo(49);
+            assertThat(leaderboard.rank("player:missing")).isNull();
+        }
+    }
+
+    @Test
+    void 샤드를_합쳐_멤버_주변_순위를_계산_한다() {
+        // given
+        try (Leaderboard leaderboard = Leaderboard.builder(RedisConnectionProvider.pool(), "ranking")
+                .shards(4)
+                .build()) {
+            for (int i = 0; i < 100; i++) {
+                leaderboard.setScore("player:" + i, i);
+            }
+            leaderboard.flush();
+
+            // when
+            List<Leaderboard.Entry> around = leaderboard.around("player:50", 2);
+            List<Leaderboard.Entry> first = leaderboard.around("player:99", 2);
+
+            // then
+            assertThat(around).containsExactly(
+                    new Leaderboard.Entry(47, "player:52", 52),
+                    new Leaderboard.Entry(48, "player:51", 51),
+                    new Leaderboard.Entry(49, "player:50", 50),
+                    new Leaderboard.Entry(50, "player:49", 49),
+                    new Leaderboard.Entry(51, "player:48", 48));
+            assertThat(first).extracting(Leaderboard.Entry::rank).containsExactly(0L, 1L, 2L);
+            assertThat(leaderboard.around("player:missing", 2)).isEmpty();
+        }
+    }
+
+    @Test
+    void 조회_중에_멤버의_순위가_바뀌어도_멤버를_포함한_구간을_돌려_준다() throws Exception {
+        // given
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try (Leaderboard leaderboard = Leaderboard.builder(RedisConnectionProvider.pool(), "ranking")
+                .cacheTtl(Duration.ZERO)
+                .build()) {
+            for (int i = 0; i < 100; i++) {
+                leaderboard.setScore("player:" + i, i);
+            }
+            leaderboard.flush();
+            Future<?> mover = executorService.submit(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    int score = i % 2 == 0 ? 1000 + i : -i;
+                    RedisConnectionProvider.pool().execute(commands -> commands.zadd("ranking", score, "player:50"));
+                }
+            });
+
+            // when
+            List<List<Leaderboard.Entry>> windows = new ArrayList<>();
+            while (!mover.isDone()) {
+                windows.add(leaderboard.around("player:50", 2));
+            }
+            mover.get();
+
+            // then
+            assertThat(windows).isNotEmpty().allSatisfy(window -> assertThat(window)
+                    .extracting(Leaderboard.Entry::member)
+                    .contains("player:50"));
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    void cacheTtl_동안은_로컬에_보관한_상위_목록을_사용_한다() {
+        // given
+        try (Leaderboard leaderboard = Leaderboard.builder(RedisConnectionProvider.pool(), "ranking")
+                .cacheTtl(Duration.ofMinutes(1))
+                .build()) {
+            leaderboard.setScore("player:1", 10);
+            leaderboard.flush();
+            leaderboard.top(10);
+
+            // when
+            RedisConnectionProvider.getSync().zadd("ranking", 20, "player:2");
+            List<Leaderboard.Entry> top = leaderboard.top(5);
+
+            // then
+            LeaderboardMetrics.Snapshot snapshot = leaderboard.metrics().snapshot();
+            assertThat(top).extracting(Leaderboard.Entry::member).containsExactly("player:1");
+            assertThat(snapshot.cacheMissCount()).isEqualTo(1);
+            assertThat(snapshot.cacheHitCount()).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package royce.redis.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import io.lettuce.core.Range;
+import io.lettuce.core.api.sync.RedisCommands;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class BulkLoaderTest {
+
+    @BeforeEach
+    void cleanUp() {
+        RedisConnectionProvider.getSync().flushall();
+    }
+
+    @Test
+    void CSV_의_모든_타입을_적재한다() throws IOException {
+        // given
+        String csv = """
+                string,user:1:name,"kim, alice"
+                hash,user:1,name,alice,quote,"say ""hi"""
+                list,jobs,job1,job2
+                set,tags,redis,java
+                zset,scores,10,alice,20.5,bob
+                stream,events,type,"multi
+                line"
+                """;
+        BulkLoader loader = BulkLoader.builder(RedisConnectionProvider.pool()).build();
+
+        // when
+        BulkLoadReport report;
+        try (RecordReader records = RecordReader.csv(new StringReader(csv))) {
+            report = loader.load(records);
+        }
+
+        // then
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        assertThat(report.loadedRecords()).isEqualTo(6);
+        assertThat(syncConnection.get("user:1:name")).isEqualTo("kim, alice");
+        assertThat(syncConnection.hgetall("user:1")).containsExactly(entry("name", "alice"), entry("quote", "say \"hi\""));
+        assertThat(syncConnection.lrange("jobs", 0, -1)).containsExactly("job1", "job2");
+        assertThat(syncConnection.smembers("tags")).containsExactlyInAnyOrder("redis", "java");
+        assertThat(syncConnection.zscore("scores", "bob")).isEqualTo(20.5);
+        assertThat(syncConnection.xrange("events", Range.unbounded()).get(0).getBody())
+                .containsExactly(entry("type", "multi\nline"));
+    }
+
+    @Test
+    void 확장자로_형식을_골라_NDJSON_파일을_적재한다(@TempDir Path directory) throws IOException {
+        // given
+        Path file = directory.resolve("users.ndjson");
+        Files.writeString(file, """
+                {"type": "string", "key": "user:1:name", "value": "alice"}
+
+                {"type": "hash", "key": "user:1", "value": {"age": 30, "admin": true}}
+                {"type": "zset", "key": "scores", "value": {"alice": 10, "bob": 1.5e1}}
+                """);
+
+        // when
+        BulkLoadReport report = BulkLoader.builder(RedisConnectionProvider.pool()).build().load(file);
+
+        // then
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        assertThat(report.loadedRecords()).isEqualTo(3);
+        assertThat(syncConnection.get("user:1:name")).isEqualTo("alice");
+        assertThat(syncConnection.hgetall("user:1")).containsExactly(entry("age", "30"), entry("admin", "true"));
+        assertThat(syncConnection.zrange("scores", 0, -1)).containsExactly("alice", "bob");
+    }
+
+    @Test
+    void window_보다_많은_레코드를_응답을_기다리며_흘려_보낸다() {
+        // given
+        List<BulkLoadReport> progress = new ArrayList<>();
+        BulkLoader loader = BulkLoader.builder(RedisConnectionProvider.pool())
+                .window(50)
+                .batchSize(5, 1, 20)
+                .progress(Duration.ZERO, progress::add)
+                .build();
+
+        // when
+        BulkLoadReport report = loader.load(IntStream.range(0, 10_000)
+                .<BulkRecord>mapToObj(i -> new BulkRecord.SetRecord("set:" + i % 10, List.of("member" + i)))
+                .iterator());
+
+        // then
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        assertThat(report.sentRecords()).isEqualTo(10_000);
+        assertThat(report.loadedRecords()).isEqualTo(10_000);
+        assertThat(report.batchSize()).isBetween(1, 20);
+        assertThat(syncConnection.scard("set:0")).isEqualTo(1_000);
+        assertThat(progress).isNotEmpty()
+                .allSatisfy(each -> assertThat(each.sentRecords() - each.loadedRecords()).isLessThanOrEqualTo(50));
+    }
+
+    @Test
+    void 서버가_거절한_레코드는_세고_나머지를_적재한다() {
+        // given
+        RedisConnectionProvider.getSync().set("user:1", "not a hash");
+        List<BulkRecord> records = List.of(
+                new BulkRecord.HashRecord("user:1", Map.of("name", "alice")),
+                new BulkRecord.HashRecord("user:2", Map.of("name", "bob")));
+
+        // when
+        BulkLoadReport report = BulkLoader.builder(RedisConnectionProvider.pool()).build().load(records.iterator());
+
+        // then
+        assertThat(report.loadedRecords()).isEqualTo(1);
+        assertThat(report.failedRecords()).isEqualTo(1);
+        assertThat(report.firstError()).startsWith("user:1: WRONGTYPE");
+        assertThat(RedisConnectionProvider.getSync().hget("user:2", "name")).isEqualTo("bob");
+    }
+}
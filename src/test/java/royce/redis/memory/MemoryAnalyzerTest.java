@@ -0,0 +1,93 @@
+package royce.redis.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.sync.RedisCommands;
+import java.util.HashMap;
+import java.util.Map;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+import royce.redis.memory.MemoryReport.Recommendation.Kind;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class MemoryAnalyzerTest {
+
+    private RedisClient client;
+
+    @BeforeEach
+    void setUp() {
+        RedisCommands<String, String> commands = RedisConnectionProvider.getSync();
+        commands.flushall();
+        Map<String, String> sessions = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            sessions.put("session:" + i, "token-" + i);
+        }
+        commands.mset(sessions);
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            fields.put("/api/v1/resource/" + i, String.valueOf(i));
+        }
+        commands.hset("endpoint:1", fields);
+        for (int i = 0; i < 2000; i++) {
+            commands.sadd("visitors:2024", "user:" + i);
+        }
+        client = RedisConnectionProvider.client();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+    }
+
+    @Test
+    void 키를_숫자를_지운_패턴으로_묶어_집계_한다() {
+        // when
+        MemoryReport report = MemoryAnalyzer.builder(client).build().analyze();
+
+        // then
+        assertThat(report.sampledKeys()).isEqualTo(2002);
+        assertThat(report.scale()).isEqualTo(1.0);
+        MemoryReport.PatternSummary sessions = report.pattern("session:*");
+        assertThat(sessions.sampledKeys()).isEqualTo(2000);
+        assertThat(sessions.types()).containsEntry("string", 2000L);
+        assertThat(sessions.histogram()).containsOnly(0, 2000).hasSize(MemoryReport.HISTOGRAM_BUCKETS);
+        assertThat(report.pattern("endpoint:*").encodings()).containsEntry("hashtable", 1L);
+    }
+
+    @Test
+    void 메모리를_줄일_수_있는_패턴을_추천_한다() {
+        // when
+        MemoryReport report = MemoryAnalyzer.builder(client).build().analyze();
+
+        // then
+        assertThat(report.recommendations())
+                .extracting(MemoryReport.Recommendation::pattern, MemoryReport.Recommendation::kind)
+                .contains(
+                        Tuple.tuple("session:*", Kind.BUCKET_SMALL_STRINGS),
+                        Tuple.tuple("endpoint:*", Kind.HASH_OUT_OF_LISTPACK),
+                        Tuple.tuple("visitors:*", Kind.SET_AS_HYPERLOGLOG));
+    }
+
+    @Test
+    void 표본만_재고_DBSIZE_로_전체를_추정_한다() {
+        // when
+        MemoryReport report = MemoryAnalyzer.builder(client)
+                .maxSampledKeys(500)
+                .scanCount(100)
+                .build()
+                .analyze();
+
+        // then
+        assertThat(report.sampledKeys()).isEqualTo(500);
+        assertThat(report.totalKeys()).isEqualTo(2002);
+        long estimatedKeys = report.patterns().stream().mapToLong(MemoryReport.PatternSummary::estimatedKeys).sum();
+        assertThat(estimatedKeys).isBetween(1990L, 2010L);
+    }
+}
@@ -0,0 +1,174 @@
+package royce.redis.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScriptOutputType;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+import royce.redis.connection.PipelinedConnection;
+import royce.redis.connection.RedisConnectionPool;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class CommandInstrumentationTest {
+
+    private CommandInstrumentation instrumentation;
+    private RedisConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        RedisConnectionProvider.getSync().flushall();
+        instrumentation = CommandInstrumentation.builder(RedisConnectionProvider.settings()).pollServer(false).build();
+        pool = RedisConnectionPool.builder(RedisConnectionProvider.settings())
+                .client(instrumentation.client())
+                .size(2)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+        instrumentation.close();
+        RedisConnectionProvider.getSync().configSet("slowlog-log-slower-than", "10000");
+        RedisConnectionProvider.getSync().configSet("latency-monitor-threshold", "0");
+    }
+
+    @Test
+    void 명령_별로_첫_응답과_완료_까지의_지연_시간을_나노초로_기록_한다() {
+        // given
+        instrumentation.report();
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            String key = "key:" + i;
+            pool.execute(commands -> commands.set(key, "value"));
+            pool.execute(commands -> commands.get(key));
+        }
+        MetricsReport report = instrumentation.report();
+
+        // then
+        assertThat(report.commands()).containsKeys("SET", "GET");
+        CommandMetrics.CommandLatency set = report.commands().get("SET");
+        assertThat(set.count()).isEqualTo(100);
+        assertThat(set.completion().p50()).isPositive();
+        assertThat(set.firstResponse().p50()).isLessThanOrEqualTo(set.completion().max());
+        assertThat(report.inFlight()).isZero();
+
+        MetricsReport next = instrumentation.report();
+        assertThat(next.commands()).doesNotContainKey("SET");
+        assertThat(instrumentation.metrics().totals().get("SET").count()).isEqualTo(100);
+    }
+
+    @Test
+    void 파이프라인에_쌓인_명령은_대기열_깊이로_보인다() {
+        // given
+        instrumentation.report();
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+
+        // when
+        try (PipelinedConnection pipeline = pool.pipelined(1_000)) {
+            for (int i = 0; i < 500; i++) {
+                String key = "key:" + i;
+                RedisFuture<String> future = pipeline.submit(commands -> commands.set(key, "value"));
+                futures.add(future.toCompletableFuture());
+            }
+            assertThat(instrumentation.metrics().inFlight()).isEqualTo(500);
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).join();
+        MetricsReport report = instrumentation.report();
+
+        // then
+        assertThat(report.maxInFlight()).isGreaterThanOrEqualTo(500);
+        assertThat(report.inFlight()).isZero();
+        assertThat(report.commands().get("SET").count()).isEqualTo(500);
+    }
+
+    @Test
+    void 같은_구간에_서버가_남긴_SLOWLOG_와_LATENCY_기록을_함께_보고_한다() {
+        // given
+        try (CommandInstrumentation polling = CommandInstrumentation.builder(RedisConnectionProvider.settings()).build()) {
+            RedisConnectionProvider.getSync().configSet("slowlog-log-slower-than", "0");
+            RedisConnectionProvider.getSync().configSet("latency-monitor-threshold", "1");
+            polling.report();
+
+            // when
+            polling.client().connect().sync().set("slow", "value");
+            RedisConnectionProvider.getSync().<Long>eval(
+                    "local i = 0 while i < 3000000 do i = i + 1 end return i", ScriptOutputType.INTEGER);
+            MetricsReport report = polling.report();
+
+            // then
+            assertThat(report.slowlog("SET")).isNotEmpty();
+            assertThat(report.slowlog("SET").get(0).args()).containsExactly("SET", "slow", "value");
+            assertThat(report.slowlog("EVAL").get(0).duration()).isGreaterThanOrEqualTo(Duration.ofMillis(1));
+            assertThat(report.latencyEvents()).extracting(MetricsReport.LatencyEvent::name).contains("command");
+            assertThat(report.commands()).containsKey("SET");
+
+            MetricsReport next = polling.report();
+            assertThat(next.slowlog("SET")).isEmpty();
+            assertThat(next.commands()).doesNotContainKeys("SLOWLOG", "LATENCY");
+        }
+    }
+
+    @Test
+    void 명령이_없거나_권한이_없을_때만_서버_기록_읽기를_멈춘다() {
+        // given
+        RedisCommandExecutionException unknown = new RedisCommandExecutionException(
+                "ERR unknown command 'SLOWLOG', with args beginning with: 'GET' '128' ");
+        RedisCommandExecutionException noPermission = new RedisCommandExecutionException(
+                "NOPERM this user has no permissions to run the 'latency' command");
+        RedisCommandExecutionException loading = new RedisCommandExecutionException(
+                "LOADING Redis is loading the dataset in memory");
+        RedisCommandExecutionException busy = new RedisCommandExecutionException(
+                "BUSY Redis is busy running a script. You can only call SCRIPT KILL or SHUTDOWN NOSAVE.");
+
+        // when & then
+        assertThat(ServerLatencySampler.isUnsupported(unknown)).isTrue();
+        assertThat(ServerLatencySampler.isUnsupported(noPermission)).isTrue();
+        assertThat(ServerLatencySampler.isUnsupported(loading)).isFalse();
+        assertThat(ServerLatencySampler.isUnsupported(busy)).isFalse();
+    }
+
+    @Test
+    void 보고_주기_마다_모든_exporter_에게_보고서를_넘긴다() throws InterruptedException {
+        // given
+        CountDownLatch exported = new CountDownLatch(2);
+        List<MetricsReport> reports = new ArrayList<>();
+        try (CommandInstrumentation periodic = CommandInstrumentation.builder(RedisConnectionProvider.settings())
+                .reportInterval(Duration.ofMillis(50))
+                .pollServer(false)
+                .exporter(report -> {
+                    throw new IllegalStateException("broken exporter");
+                })
+                .exporter(report -> {
+                    synchronized (reports) {
+                        reports.add(report);
+                    }
+                    exported.countDown();
+                })
+                .build()) {
+
+            // when
+            periodic.start();
+            periodic.client().connect().sync().ping();
+
+            // then
+            assertThat(exported.await(5, TimeUnit.SECONDS)).isTrue();
+            synchronized (reports) {
+                assertThat(reports).anySatisfy(report -> assertThat(report.commands()).containsKey("PING"));
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package royce.redis.queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.sync.RedisCommands;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class ReliableQueueTest {
+
+    private RedisClient client;
+    private ReliableQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        RedisConnectionProvider.getSync().flushall();
+        client = RedisConnectionProvider.client();
+        queue = ReliableQueue.builder(client, "jobs").build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.close();
+        client.shutdown();
+    }
+
+    @Test
+    void 한번에_여러_작업을_넣은_순서대로_꺼내_처리_중_리스트로_옮긴다() {
+        // given
+        queue.push("job:1", "job:2", "job:3");
+        QueueConsumer consumer = queue.consumer("worker-1");
+
+        // when
+        List<String> items = consumer.poll(2, Duration.ofSeconds(1));
+
+        // then
+        RedisCommands<String, String> commands = RedisConnectionProvider.getSync();
+        assertThat(items).containsExactly("job:1", "job:2");
+        assertThat(commands.lrange("{jobs}:processing:worker-1", 0, -1)).containsExactlyInAnyOrder("job:1", "job:2");
+        assertThat(queue.size()).isEqualTo(1);
+    }
+
+    @Test
+    void ack_한_작업은_처리_중_리스트에서_지워진다() {
+        // given
+        queue.push("job:1", "job:2");
+        QueueConsumer consumer = queue.consumer("worker-1");
+        List<String> items = consumer.poll(10, Duration.ofSeconds(1));
+
+        // when
+        long acked = consumer.ack(items);
+
+        // then
+        assertThat(acked).isEqualTo(2);
+        assertThat(RedisConnectionProvider.getSync().llen("{jobs}:processing:worker-1")).isZero();
+    }
+
+    @Test
+    void 큐가_비어_있으면_첫_작업이_들어올_때_까지_기다린다() throws InterruptedException {
+        // given
+        QueueConsumer consumer = queue.consumer("worker-1");
+        Thread producer = new Thread(() -> {
+            sleep(100);
+            queue.push("job:1");
+        });
+        producer.start();
+
+        // when
+        List<String> items = consumer.poll(10, Duration.ofSeconds(2));
+
+        // then
+        producer.join();
+        assertThat(items).containsExactly("job:1");
+        assertThat(consumer.poll(10, Duration.ofMillis(100))).isEmpty();
+    }
+
+    @Test
+    void heartbeat_가_없는_소비자의_작업은_reaper_가_큐로_되돌린다() {
+        // given
+        RedisCommands<String, String> commands = RedisConnectionProvider.getSync();
+        commands.sadd("{jobs}:consumers", "dead");
+        commands.lpush("{jobs}:processing:dead", "job:1", "job:2");
+        queue.consumer("alive").poll(10, Duration.ofMillis(10));
+
+        // when
+        long requeued = queue.reap();
+
+        // then
+        assertThat(requeued).isEqualTo(2);
+        assertThat(commands.lrange("jobs", 0, -1)).containsExactlyInAnyOrder("job:1", "job:2");
+        assertThat(commands.smembers("{jobs}:consumers")).containsExactly("alive");
+    }
+
+    @Test
+    void 되돌린_작업은_처음_꺼낸_순서대로_다시_꺼낸다() {
+        // given
+        queue.push("job:1", "job:2", "job:3");
+        QueueConsumer consumer = queue.consumer("worker-1");
+        consumer.poll(3, Duration.ofSeconds(1));
+        queue.push("job:4");
+
+        // when
+        consumer.close();
+
+        // then
+        assertThat(queue.consumer("worker-2").poll(4, Duration.ofSeconds(1)))
+                .containsExactly("job:1", "job:2", "job:3", "job:4");
+    }
+
+    @Test
+    void 소비자를_닫으면_ack_하지_않은_작업을_큐로_되돌린다() {
+        // given
+        queue.push("job:1", "job:2");
+        QueueConsumer consumer = queue.consumer("worker-1");
+        List<String> items = consumer.poll(10, Duration.ofSeconds(1));
+        consumer.ack(items.subList(0, 1));
+
+        // when
+        consumer.close();
+
+        // then
+        assertThat(RedisConnectionProvider.getSync().lrange("jobs", 0, -1)).containsExactly(items.get(1));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package royce.redis.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class RateLimiterTest {
+
+    @BeforeEach
+    void cleanUp() {
+        RedisConnectionProvider.getSync().flushall();
+        RedisConnectionProvider.getSync().scriptFlush();
+    }
+
+    @Test
+    void 모든_알고리즘은_limit_개_까지_허용_하고_그_다음은_거절_한다() {
+        for (RateLimiter.Algorithm algorithm : RateLimiter.Algorithm.values()) {
+            // given
+            RateLimiter limiter = RateLimiter.builder(RedisConnectionProvider.pool(), "limit:" + algorithm)
+                    .algorithm(algorithm)
+                    .limit(5, Duration.ofMinutes(1))
+                    .build();
+
+            // when
+            List<RateLimiter.Decision> decisions = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                decisions.add(limiter.tryAcquire("user:1"));
+            }
+
+            // then
+            assertThat(decisions).extracting(RateLimiter.Decision::allowed)
+                    .as(algorithm.name())
+                    .containsExactly(true, true, true, true, true, false);
+            assertThat(decisions.get(4).remaining()).as(algorithm.name()).isZero();
+            assertThat(decisions.get(5).retryAfter()).as(algorithm.name())
+                    .isPositive()
+                    .isLessThanOrEqualTo(Duration.ofMinutes(1));
+            assertThat(limiter.tryAcquire("user:2").allowed()).as(algorithm.name()).isTrue();
+        }
+    }
+
+    @Test
+    void GCRA_는_burst_만큼_몰아서_허용_하고_interval_마다_회복_한다() throws InterruptedException {
+        // given
+        RateLimiter limiter = RateLimiter.builder(RedisConnectionProvider.pool(), "limit")
+                .algorithm(RateLimiter.Algorithm.GCRA)
+                .limit(20, Duration.ofSeconds(1))
+                .burst(3)
+                .build();
+
+        // when
+        List<Boolean> burst = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            burst.add(limiter.tryAcquire("user:1").allowed());
+        }
+        Thread.sleep(60);
+        RateLimiter.Decision recovered = limiter.tryAcquire("user:1");
+
+        // then
+        assertThat(burst).containsExactly(true, true, true, false);
+        assertThat(recovered.allowed()).isTrue();
+    }
+
+    @Test
+    void 여러_id_를_한_파이프라인으로_판정_하고_NOSCRIPT_는_다시_보낸다() {
+        // given
+        RateLimiter limiter = RateLimiter.builder(RedisConnectionProvider.pool(), "limit")
+                .algorithm(RateLimiter.Algorithm.FIXED_WINDOW)
+                .limit(2, Duration.ofMinutes(1))
+                .build();
+        List<String> ids = List.of("a", "b", "a", "a", "c", "b");
+
+        // when
+        List<RateLimiter.Decision> decisions = limiter.tryAcquireAll(ids);
+        RedisConnectionProvider.getSync().scriptFlush();
+        RateLimiter.Decision afterFlush = limiter.tryAcquire("c");
+
+        // then
+        assertThat(decisions).extracting(RateLimiter.Decision::allowed)
+                .containsExactly(true, true, true, false, true, true);
+        assertThat(afterFlush.allowed()).isTrue();
+        assertThat(afterFlush.remaining()).isZero();
+    }
+}
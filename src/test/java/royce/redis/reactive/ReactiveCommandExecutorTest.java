@@ -0,0 +1,145 @@
+package royce.redis.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionException;
+import io.lettuce.core.api.StatefulRedisConnection;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class ReactiveCommandExecutorTest {
+
+    @BeforeEach
+    void cleanUp() {
+        RedisConnectionProvider.getSync().flushall();
+    }
+
+    @Test
+    void ordered_이면_결과를_입력_순서대로_내보낸다() {
+        // given
+        ReactiveCommandExecutor executor = ReactiveCommandExecutor.builder(RedisConnectionProvider.connection())
+                .maxInFlight(16)
+                .build();
+        List<Integer> inputs = IntStream.range(0, 1000).boxed().toList();
+        executor.executeAll(Flux.fromIterable(inputs), (commands, i) -> commands.set("key" + i, "value" + i))
+                .blockLast();
+
+        // when
+        List<String> values = executor.executeAll(Flux.fromIterable(inputs), (commands, i) -> commands.get("key" + i))
+                .collectList()
+                .block();
+
+        // then
+        assertThat(values).hasSize(1000);
+        assertThat(values.get(0)).isEqualTo("value0");
+        assertThat(values.get(999)).isEqualTo("value999");
+    }
+
+    @Test
+    void 동시에_보내는_명령_수는_maxInFlight_를_넘지_않는다() {
+        // given
+        ReactiveCommandExecutor executor = ReactiveCommandExecutor.builder(RedisConnectionProvider.connection())
+                .maxInFlight(4)
+                .ordered(false)
+                .build();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxObserved = new AtomicInteger();
+
+        // when
+        executor.executeAll(Flux.range(0, 200), (commands, i) -> commands.incr("counter")
+                        .doOnSubscribe(subscription -> maxObserved.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                        .doFinally(signal -> inFlight.decrementAndGet()))
+                .blockLast();
+
+        // then
+        assertThat(maxObserved.get()).isLessThanOrEqualTo(4);
+        assertThat(RedisConnectionProvider.getSync().get("counter")).isEqualTo("200");
+    }
+
+    @Test
+    void 묶음_별_결과는_입력_순서를_따른다() {
+        // given
+        ReactiveCommandExecutor executor = ReactiveCommandExecutor.builder(RedisConnectionProvider.connection()).build();
+
+        // when
+        List<List<Long>> batches = executor.executeBatches(Flux.range(0, 10), 4,
+                        (commands, i) -> commands.incrby("counter:" + i, i))
+                .collectList()
+                .block();
+
+        // then
+        assertThat(batches).containsExactly(List.of(0L, 1L, 2L, 3L), List.of(4L, 5L, 6L, 7L), List.of(8L, 9L));
+    }
+
+    @Test
+    void 묶음이_maxInFlight_보다_커도_동시에_보내는_명령_수는_maxInFlight_를_넘지_않는다() {
+        // given
+        ReactiveCommandExecutor executor = ReactiveCommandExecutor.builder(RedisConnectionProvider.connection())
+                .maxInFlight(4)
+                .build();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxObserved = new AtomicInteger();
+
+        // when
+        List<List<Long>> batches = executor.executeBatches(Flux.range(0, 200), 50, (commands, i) -> commands.incr("counter")
+                        .doOnSubscribe(subscription -> maxObserved.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                        .doFinally(signal -> inFlight.decrementAndGet()))
+                .collectList()
+                .block();
+
+        // then
+        assertThat(batches).hasSize(4).allSatisfy(batch -> assertThat(batch).hasSize(50));
+        assertThat(maxObserved.get()).isLessThanOrEqualTo(4);
+        assertThat(RedisConnectionProvider.getSync().get("counter")).isEqualTo("200");
+    }
+
+    @Test
+    void 응답이_늦으면_타임아웃_오류가_발생_한다() {
+        // given
+        RedisClient client = RedisConnectionProvider.client();
+        try (StatefulRedisConnection<String, String> connection = client.connect()) {
+            ReactiveCommandExecutor executor = ReactiveCommandExecutor.builder(connection)
+                    .timeout(Duration.ofMillis(100))
+                    .build();
+
+            // when & then
+            assertThatThrownBy(() -> executor.execute(commands -> commands.blpop(1, "empty")).block())
+                    .hasCauseInstanceOf(TimeoutException.class);
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    void 연결_오류는_재시도_한다() {
+        // given
+        ReactiveCommandExecutor executor = ReactiveCommandExecutor.builder(RedisConnectionProvider.connection())
+                .retry(2, Duration.ofMillis(10))
+                .build();
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when
+        String pong = executor.execute(commands -> Mono.defer(() -> attempts.incrementAndGet() == 1
+                        ? Mono.error(new RedisConnectionException("connection reset"))
+                        : commands.ping()))
+                .block();
+
+        // then
+        assertThat(pong).isEqualTo("PONG");
+        assertThat(attempts.get()).isEqualTo(2);
+    }
+}
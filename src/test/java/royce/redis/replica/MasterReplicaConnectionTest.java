@@ -0,0 +1,332 @@
+package royce.redis.replica;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.models.role.RedisInstance;
+import io.lettuce.core.models.role.RedisNodeDescription;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import royce.redis.connection.RedisConnectionSettings;
+import royce.redis.connection.SharedClientResources;
+import royce.redis.server.RespServer;
+
+@SuppressWarnings("NonAsciiCharacters")
+class MasterReplicaConnectionTest {
+
+    private static final String PASSWORD = "secret";
+
+    private static RespServer server;
+    private static RedisClient client;
+    private static List<RedisConnectionSettings> nodes;
+
+    @BeforeAll
+    static void start() {
+        server = RespServer.builder().port(0).password(PASSWORD).replicas(2).build().start();
+        client = RedisClient.create(SharedClientResources.get());
+        nodes = new ArrayList<>();
+        for (int port : server.ports()) {
+            nodes.add(RedisConnectionSettings.of(server.host(), port, PASSWORD));
+        }
+    }
+
+    @AfterAll
+    static void stop() {
+        client.shutdown();
+        server.close();
+    }
+
+    @BeforeEach
+    void cleanUp() {
+        try (var connection = client.connect(nodes.get(0).toRedisURI())) {
+            connection.sync().flushall();
+        }
+        server.resumeReplication(server.ports().get(1));
+        server.resumeReplication(server.ports().get(2));
+    }
+
+    @Test
+    void 쓰기는_primary_로_읽기는_replica_로_보내고_노드_별_RTT_를_측정_한다() {
+        // given
+        try (MasterReplicaConnection connection = MasterReplicaConnection.builder(nodes)
+                .readRouting(ReadRouting.replicaPreferred())
+                .samplingInterval(Duration.ofMillis(20))
+                .client(client)
+                .build()) {
+
+            // when
+            connection.execute(commands -> commands.set("key", "value"));
+            String value = connection.execute(commands -> commands.get("key"));
+            awaitUntil(() -> connection.latencies().values().stream().allMatch(snapshot -> snapshot.count() > 0));
+
+            // then
+            assertThat(value).isEqualTo("value");
+            assertThat(portsRunning("set")).containsExactly(server.ports().get(0));
+            assertThat(portsRunning("get")).isSubsetOf(server.ports().subList(1, 3)).hasSize(1);
+            assertThat(connection.latencies()).hasSize(3);
+        }
+    }
+
+    @Test
+    void replica_에_직접_쓰면_READONLY_로_거절_한다() {
+        // given
+        try (var connection = client.connect(nodes.get(1).toRedisURI())) {
+
+            // when, then
+            assertThatThrownBy(() -> connection.sync().set("key", "value")).hasMessageStartingWith("READONLY");
+            assertThat(connection.sync().role().get(0)).isEqualTo("slave");
+        }
+    }
+
+    @Test
+    void RTT_가_가장_짧은_노드_부터_고르고_지연이_큰_replica_는_제외_한다() {
+        // given
+        List<RedisURI> uris = nodes.stream().map(RedisConnectionSettings::toRedisURI).toList();
+        FakeClock clock = new FakeClock();
+        Map<RedisURI, FakeProbe> probes = Map.of(
+                uris.get(0), new FakeProbe(clock, 5_000_000, "role:master\r\nmaster_repl_offset:10000"),
+                uris.get(1), new FakeProbe(clock, 1_000_000, "role:slave\r\nslave_repl_offset:5000"),
+                uris.get(2), new FakeProbe(clock, 3_000_000, "role:slave\r\nslave_repl_offset:9500"));
+        NodeLatencyMonitor monitor = new NodeLatencyMonitor(uris, probes::get, clock);
+        monitor.sample();
+        ReadFrom.Nodes candidates = nodes(uris);
+
+        // when
+        List<RedisNodeDescription> lowestLatency = ReadRouting.lowestLatency().readFrom(monitor).select(candidates);
+        List<RedisNodeDescription> staleTolerant = ReadRouting.staleTolerant(1_000).readFrom(monitor).select(candidates);
+        List<RedisNodeDescription> strict = ReadRouting.staleTolerant(0).readFrom(monitor).select(candidates);
+
+        // then
+        assertThat(lowestLatency).extracting(RedisNodeDescription::getUri)
+                .containsExactly(uris.get(1), uris.get(2), uris.get(0));
+        assertThat(staleTolerant).extracting(RedisNodeDescription::getUri)
+                .containsExactly(uris.get(2), uris.get(0));
+        assertThat(strict).extracting(RedisNodeDescription::getUri)
+                .containsExactly(uris.get(0));
+    }
+
+    @Test
+    void PING_응답을_기다리는_노드는_마지막_RTT_에_머물지_않고_순위가_뒤로_밀린다() {
+        // given
+        List<RedisURI> uris = nodes.stream().map(RedisConnectionSettings::toRedisURI).toList();
+        FakeClock clock = new FakeClock();
+        FakeProbe stalled = new FakeProbe(clock, 1_000, "role:master\r\nmaster_repl_offset:0");
+        Map<RedisURI, FakeProbe> probes = Map.of(
+                uris.get(0), stalled,
+                uris.get(1), new FakeProbe(clock, 2_000_000, "role:slave\r\nslave_repl_offset:0"),
+                uris.get(2), new FakeProbe(clock, 2_000_000, "role:slave\r\nslave_repl_offset:0"));
+        try (NodeLatencyMonitor monitor = new NodeLatencyMonitor(uris, probes::get, clock)) {
+            monitor.sample();
+            stalled.stall();
+            monitor.sample();
+            clock.advance(50_000_000);
+
+            // when
+            monitor.sample();
+
+            // then
+            assertThat(monitor.latency(uris.get(0))).isGreaterThanOrEqualTo(50_000_000);
+            assertThat(ReadRouting.lowestLatency().readFrom(monitor).select(nodes(uris)))
+                    .extracting(RedisNodeDescription::getUri)
+                    .endsWith(uris.get(0));
+        }
+    }
+
+    @Test
+    void 실제_커넥션의_읽기는_모두_RTT_가_가장_짧은_노드로_간다() {
+        // given
+        List<RedisURI> uris = nodes.stream().map(RedisConnectionSettings::toRedisURI).toList();
+        FakeClock clock = new FakeClock();
+        Map<RedisURI, FakeProbe> probes = Map.of(
+                uris.get(0), new FakeProbe(clock, 1_000_000_000, "role:master\r\nmaster_repl_offset:0"),
+                uris.get(1), new FakeProbe(clock, 500_000_000, "role:slave\r\nslave_repl_offset:0"),
+                uris.get(2), new FakeProbe(clock, 1_000, "role:slave\r\nslave_repl_offset:0"));
+        NodeLatencyMonitor measured = new NodeLatencyMonitor(uris, probes::get, clock);
+        measured.sample();
+        try (MasterReplicaConnection connection = MasterReplicaConnection.builder(nodes)
+                .readRouting(monitor -> ReadRouting.lowestLatency().readFrom(measured))
+                .samplingInterval(Duration.ofHours(1))
+                .client(client)
+                .build()) {
+            connection.execute(commands -> commands.set("key", "value"));
+
+            // when
+            for (int i = 0; i < 30; i++) {
+                connection.execute(commands -> commands.get("key"));
+            }
+
+            // then
+            assertThat(portsRunning("get")).containsExactly(server.ports().get(2));
+        }
+    }
+
+    @Test
+    void 복제가_멈춘_replica_는_지연이_허용치를_넘으면_읽지_않는다() {
+        // given
+        int paused = server.ports().get(1);
+        int healthy = server.ports().get(2);
+        try (MasterReplicaConnection connection = MasterReplicaConnection.builder(nodes)
+                .readRouting(ReadRouting.staleTolerant(100))
+                .samplingInterval(Duration.ofMillis(20))
+                .client(client)
+                .build()) {
+            server.pauseReplication(paused);
+            for (int i = 0; i < 10; i++) {
+                connection.execute(commands -> commands.set("key", "0123456789abcdefghij"));
+            }
+            RedisURI pausedUri = RedisConnectionSettings.of(server.host(), paused, PASSWORD).toRedisURI();
+            RedisURI healthyUri = RedisConnectionSettings.of(server.host(), healthy, PASSWORD).toRedisURI();
+            awaitUntil(() -> connection.monitor().replicationLag(pausedUri) > 100
+                    && connection.monitor().replicationLag(healthyUri) == 0);
+
+            // when
+            String value = connection.execute(commands -> commands.get("key"));
+
+            // then
+            assertThat(value).isEqualTo("0123456789abcdefghij");
+            assertThat(portsRunning("get")).containsExactly(healthy);
+        }
+    }
+
+    /**
+     * CLIENT LIST 에서 마지막 명령이 command 인 커넥션이 접속한 노드의 포트.
+     */
+    private static List<Integer> portsRunning(String command) {
+        try (var connection = client.connect(nodes.get(0).toRedisURI())) {
+            List<Integer> ports = new ArrayList<>();
+            for (String line : connection.sync().clientList().split("\n")) {
+                if (line.contains(" cmd=" + command)) {
+                    String laddr = line.split(" laddr=")[1].split(" ")[0];
+                    ports.add(Integer.parseInt(laddr.substring(laddr.lastIndexOf(':') + 1)));
+                }
+            }
+            return ports;
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not met within 5 seconds");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private static ReadFrom.Nodes nodes(List<RedisURI> uris) {
+        List<RedisNodeDescription> descriptions = new ArrayList<>();
+        for (int i = 0; i < uris.size(); i++) {
+            descriptions.add(new Node(uris.get(i), i == 0 ? RedisInstance.Role.UPSTREAM : RedisInstance.Role.REPLICA));
+        }
+        return new ReadFrom.Nodes() {
+            @Override
+            public List<RedisNodeDescription> getNodes() {
+                return descriptions;
+            }
+
+            @Override
+            public Iterator<RedisNodeDescription> iterator() {
+                return descriptions.iterator();
+            }
+        };
+    }
+
+    private static final class Node implements RedisNodeDescription {
+
+        private final RedisURI uri;
+        private final RedisInstance.Role role;
+
+        Node(RedisURI uri, RedisInstance.Role role) {
+            this.uri = uri;
+            this.role = role;
+        }
+
+        @Override
+        public RedisURI getUri() {
+            return uri;
+        }
+
+        @Override
+        public RedisInstance.Role getRole() {
+            return role;
+        }
+    }
+
+    private static final class FakeClock implements LongSupplier {
+
+        private long nanos;
+
+        void advance(long elapsed) {
+            nanos += elapsed;
+        }
+
+        @Override
+        public long getAsLong() {
+            return nanos;
+        }
+    }
+
+    /**
+     * PING 을 받으면 시계를 rtt 만큼 진행 시키고 바로 응답 한다. stall 한 뒤로는 PING 에 응답 하지 않는다.
+     */
+    private static final class FakeProbe implements NodeLatencyMonitor.Probe {
+
+        private final FakeClock clock;
+        private final long rttNanos;
+        private final String replication;
+        private boolean stalled;
+
+        FakeProbe(FakeClock clock, long rttNanos, String replication) {
+            this.clock = clock;
+            this.rttNanos = rttNanos;
+            this.replication = replication;
+        }
+
+        void stall() {
+            stalled = true;
+        }
+
+        @Override
+        public CompletionStage<String> ping() {
+            if (stalled) {
+                return new CompletableFuture<>();
+            }
+            clock.advance(rttNanos);
+            return CompletableFuture.completedFuture("PONG");
+        }
+
+        @Override
+        public CompletionStage<String> replication() {
+            return CompletableFuture.completedFuture(replication);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package royce.redis.scan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.sync.RedisAdvancedClusterCommands;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.cluster.ClusterConnection;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+import royce.redis.scan.ScanSource.DatabaseKey;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class ScanPublisherTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        RedisConnectionProvider.getSync().flushall();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void 커서를_끝까지_따라가_모든_키를_전달_한다() throws InterruptedException {
+        // given
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            values.put("key" + i, "value" + i);
+        }
+        syncConnection.mset(values);
+        ScanPublisher<String> publisher = ScanPublisher.of(
+                ScanSource.keys(syncConnection, ScanArgs.Builder.limit(1000)), executor, 1000);
+
+        // when
+        CollectingSubscriber<String> subscriber = new CollectingSubscriber<>(100);
+        publisher.subscribe(subscriber);
+
+        // then
+        assertThat(subscriber.completed.await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(subscriber.items).hasSize(100000).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void 요청한_만큼만_전달_한다() throws InterruptedException {
+        // given
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            fields.put("field" + i, "value" + i);
+        }
+        syncConnection.hset("endpoint:/admin/{id}", fields);
+        ScanPublisher<KeyValue<String, String>> publisher = ScanPublisher.of(
+                ScanSource.hscan(syncConnection, "endpoint:/admin/{id}", ScanArgs.Builder.limit(100)), executor, 10);
+
+        // when
+        CollectingSubscriber<KeyValue<String, String>> subscriber = new CollectingSubscriber<>(0);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(5);
+        Thread.sleep(200);
+
+        // then
+        assertThat(subscriber.items).hasSize(5);
+        assertThat(subscriber.completed.getCount()).isEqualTo(1);
+        subscriber.subscription.cancel();
+    }
+
+    @Test
+    void 여러_논리_DB_를_동시에_훑는다() throws InterruptedException {
+        // given
+        RedisClient client = RedisConnectionProvider.client();
+        try (StatefulRedisConnection<String, String> connection = client.connect()) {
+            for (int database = 0; database < 3; database++) {
+                connection.sync().select(database);
+                connection.sync().mset(Map.of("a", "1", "b", "2"));
+            }
+        }
+        ScanPublisher<DatabaseKey> publisher = ScanPublisher.databases(
+                client, ScanArgs.Builder.limit(10), executor, 16, 0, 1, 2);
+
+        // when
+        CollectingSubscriber<DatabaseKey> subscriber = new CollectingSubscriber<>(1);
+        publisher.subscribe(subscriber);
+
+        // then
+        assertThat(subscriber.completed.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(subscriber.items).hasSize(6).contains(new DatabaseKey(2, "b"));
+        client.shutdown();
+    }
+
+    @Test
+    void 클러스터의_모든_primary_를_동시에_훑는다() throws InterruptedException {
+        // given
+        RedisClusterClient clusterClient = RedisConnectionProvider.clusterClient();
+        try (ClusterConnection cluster = ClusterConnection.builder(clusterClient).build()) {
+            cluster.execute(RedisAdvancedClusterCommands::flushall);
+            Map<String, String> values = new LinkedHashMap<>();
+            for (int i = 0; i < 1000; i++) {
+                values.put("key" + i, "value" + i);
+            }
+            cluster.mset(values);
+            ScanPublisher<String> publisher = ScanPublisher.cluster(cluster, ScanArgs.Builder.limit(100), executor, 64);
+
+            // when
+            CollectingSubscriber<String> subscriber = new CollectingSubscriber<>(16);
+            publisher.subscribe(subscriber);
+
+            // then
+            assertThat(subscriber.completed.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(subscriber.items).hasSize(1000).doesNotHaveDuplicates().containsAll(values.keySet());
+        } finally {
+            clusterClient.shutdown();
+        }
+    }
+
+    /**
+     * 원소를 하나 받을 때 마다 batch 개를 다시 요청 한다. batch 가 0 이면 직접 request 해야 한다.
+     */
+    private static class CollectingSubscriber<T> implements Flow.Subscriber<T> {
+
+        private final int batch;
+        private final List<T> items = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private Flow.Subscription subscription;
+        private int remaining;
+
+        CollectingSubscriber(int batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (batch > 0) {
+                remaining = batch;
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+            if (batch > 0 && --remaining == 0) {
+                remaining = batch;
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+}
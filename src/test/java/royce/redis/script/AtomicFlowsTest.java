@@ -0,0 +1,137 @@
+package royce.redis.script;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.output.StatusOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+import royce.redis.script.AtomicFlows.Engine;
+import royce.redis.script.AtomicFlows.FieldUpdate;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class AtomicFlowsTest {
+
+    private enum Keyword implements ProtocolKeyword {
+        FUNCTION, FLUSH;
+
+        @Override
+        public byte[] getBytes() {
+            return name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    @BeforeEach
+    void cleanUp() {
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        syncConnection.flushall();
+        syncConnection.scriptFlush();
+        functionFlush();
+    }
+
+    @Test
+    void 기대_값이_같을_때만_해시_필드를_바꾼다() {
+        for (Engine engine : Engine.values()) {
+            // given
+            RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+            AtomicFlows flows = AtomicFlows.builder(RedisConnectionProvider.pool()).engine(engine).build();
+            String key = "endpoint:/admin/" + engine;
+
+            // when
+            boolean created = flows.compareAndSet(key, "caller", null, "admin");
+            boolean createdAgain = flows.compareAndSet(key, "caller", null, "guest");
+            boolean stale = flows.compareAndSet(key, "caller", "guest", "root");
+            boolean swapped = flows.compareAndSet(key, "caller", "admin", "root");
+
+            // then
+            assertThat(List.of(created, createdAgain, stale, swapped)).containsExactly(true, false, false, true);
+            assertThat(syncConnection.hget(key, "caller")).isEqualTo("root");
+        }
+    }
+
+    @Test
+    void 원소를_옮긴_경우에만_카운터를_올린다() {
+        for (Engine engine : Engine.values()) {
+            // given
+            RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+            AtomicFlows flows = AtomicFlows.builder(RedisConnectionProvider.pool()).engine(engine).build();
+            String source = "pending:" + engine;
+            String destination = "processing:" + engine;
+            String counter = "moved:" + engine;
+            syncConnection.rpush(source, "job1", "job2");
+
+            // when
+            String first = flows.moveAndCount(source, destination, counter);
+            String second = flows.moveAndCount(source, destination, counter);
+            String empty = flows.moveAndCount(source, destination, counter);
+
+            // then
+            assertThat(first).isEqualTo("job1");
+            assertThat(second).isEqualTo("job2");
+            assertThat(empty).isNull();
+            assertThat(syncConnection.lrange(destination, 0, -1)).containsExactly("job1", "job2");
+            assertThat(syncConnection.get(counter)).isEqualTo("2");
+        }
+    }
+
+    @Test
+    void 서버의_스크립트_캐시가_비워져도_다시_올리고_호출_한다() {
+        // given
+        RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+        AtomicFlows scripts = AtomicFlows.builder(RedisConnectionProvider.pool()).engine(Engine.SCRIPT).build();
+        AtomicFlows functions = AtomicFlows.builder(RedisConnectionProvider.pool()).engine(Engine.FUNCTION).build();
+
+        // when
+        syncConnection.scriptFlush();
+        functionFlush();
+        boolean byScript = scripts.compareAndSet("script", "caller", null, "admin");
+        boolean byFunction = functions.compareAndSet("function", "caller", null, "admin");
+
+        // then
+        assertThat(byScript).isTrue();
+        assertThat(byFunction).isTrue();
+        assertThat(syncConnection.hget("script", "caller")).isEqualTo("admin");
+        assertThat(syncConnection.hget("function", "caller")).isEqualTo("admin");
+    }
+
+    @Test
+    void 파이프라인으로_보낸_호출도_캐시가_비워지면_다시_올리고_보낸다() {
+        for (Engine engine : Engine.values()) {
+            // given
+            RedisCommands<String, String> syncConnection = RedisConnectionProvider.getSync();
+            AtomicFlows flows = AtomicFlows.builder(RedisConnectionProvider.pool())
+                    .engine(engine)
+                    .pipelineSize(10)
+                    .build();
+            String key = "endpoint:/admin/" + engine;
+            syncConnection.hset(key, "field0", "old");
+            syncConnection.scriptFlush();
+            functionFlush();
+
+            // when
+            List<Boolean> results = flows.compareAndSetAll(List.of(
+                    new FieldUpdate(key, "field0", "old", "new"),
+                    new FieldUpdate(key, "field0", "old", "newer"),
+                    new FieldUpdate(key, "field1", null, "created"),
+                    new FieldUpdate(key, "field1", null, "ignored")));
+
+            // then
+            assertThat(results).containsExactly(true, false, true, false);
+            assertThat(syncConnection.hgetall(key)).containsEntry("field0", "new").containsEntry("field1", "created");
+        }
+    }
+
+    private static void functionFlush() {
+        RedisConnectionProvider.getSync().dispatch(Keyword.FUNCTION, new StatusOutput<>(StringCodec.UTF8),
+                new CommandArgs<>(StringCodec.UTF8).add(Keyword.FLUSH));
+    }
+}
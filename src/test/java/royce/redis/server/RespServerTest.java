@@ -0,0 +1,134 @@
+package royce.redis.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.protocol.ProtocolVersion;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import royce.redis.connection.RedisConnectionSettings;
+
+@SuppressWarnings("NonAsciiCharacters")
+class RespServerTest {
+
+    private static RespServer server;
+    private static RedisClient client;
+
+    @BeforeAll
+    static void start() {
+        server = RespServer.builder().port(0).password("secret").build().start();
+        client = RedisClient.create(RedisConnectionSettings.of(server.host(), server.port(), "secret").toRedisURI());
+    }
+
+    @AfterAll
+    static void stop() {
+        client.shutdown();
+        server.close();
+    }
+
+    @BeforeEach
+    void cleanUp() {
+        try (var connection = client.connect()) {
+            connection.sync().flushall();
+        }
+    }
+
+    @Test
+    void RESP2_와_RESP3_클라이언트가_같은_데이터를_읽는다() {
+        // given
+        try (StatefulRedisConnection<String, String> resp3 = connect(ProtocolVersion.RESP3);
+             StatefulRedisConnection<String, String> resp2 = connect(ProtocolVersion.RESP2)) {
+            resp3.sync().hset("hash", Map.of("a", "1", "b", "2"));
+            resp3.sync().zadd("zset", 1.5, "member");
+
+            // when & then
+            assertThat(resp2.sync().hgetall("hash")).containsEntry("a", "1").containsEntry("b", "2");
+            assertThat(resp3.sync().hgetall("hash")).containsEntry("a", "1").containsEntry("b", "2");
+            assertThat(resp2.sync().zscore("zset", "member")).isEqualTo(1.5);
+            assertThat(resp3.sync().zscore("zset", "member")).isEqualTo(1.5);
+            assertThat(resp3.sync().get("missing")).isNull();
+        }
+    }
+
+    @Test
+    void 블로킹_명령은_타임아웃이_지나면_null_을_반환_한다() {
+        // given
+        try (var connection = client.connect()) {
+
+            // when
+            var popped = connection.sync().brpop(1, "empty");
+
+            // then
+            assertThat(popped).isNull();
+        }
+    }
+
+    @Test
+    void SCAN_커서를_끝까지_순회_하면_모든_키를_반환_한다() {
+        // given
+        try (var connection = client.connect()) {
+            var commands = connection.sync();
+            Map<String, String> values = new LinkedHashMap<>();
+            for (int i = 0; i < 1000; i++) {
+                values.put("key" + i, "value" + i);
+            }
+            commands.mset(values);
+
+            // when
+            Set<String> scanned = new HashSet<>();
+            ScanCursor cursor = ScanCursor.INITIAL;
+            do {
+                KeyScanCursor<String> page = commands.scan(cursor, ScanArgs.Builder.limit(100));
+                scanned.addAll(page.getKeys());
+                cursor = page;
+            } while (!cursor.isFinished());
+
+            // then
+            assertThat(scanned).hasSize(1000);
+        }
+    }
+
+    @Test
+    void EVAL_은_스크립트_안의_명령을_한_번에_실행_한다() {
+        // given
+        try (var connection = client.connect()) {
+            var commands = connection.sync();
+            String sha = commands.scriptLoad(
+                    "return {KEYS[1], ARGV[1], 3, false, redis.pcall('HGET', KEYS[1], 'f')['err']}");
+
+            // when
+            Long incremented = commands.eval("redis.call('SET', KEYS[1], ARGV[1]) return redis.call('INCRBY', KEYS[1], 5)",
+                    ScriptOutputType.INTEGER, new String[]{"counter"}, "10");
+            List<Object> values = commands.evalsha(sha, ScriptOutputType.MULTI, new String[]{"counter"}, "x");
+
+            // then
+            assertThat(incremented).isEqualTo(15);
+            assertThat(values).containsExactly("counter", "x", 3L, null, CommandException.WRONG_TYPE);
+            assertThat(commands.scriptExists(sha)).containsExactly(true);
+            commands.scriptFlush();
+            assertThatThrownBy(() -> commands.evalsha(sha, ScriptOutputType.MULTI, new String[]{"counter"}, "x"))
+                    .isInstanceOf(RedisCommandExecutionException.class)
+                    .hasMessageStartingWith("NOSCRIPT");
+        }
+    }
+
+    private StatefulRedisConnection<String, String> connect(ProtocolVersion version) {
+        client.setOptions(ClientOptions.builder().protocolVersion(version).build());
+        return client.connect();
+    }
+}
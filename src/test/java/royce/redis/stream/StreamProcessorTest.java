@@ -0,0 +1,241 @@
+package royce.redis.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lettuce.core.Consumer;
+import io.lettuce.core.Range;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.XReadArgs.StreamOffset;
+import io.lettuce.core.api.sync.RedisCommands;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import royce.redis.common.EmbeddedRedisExtension;
+import royce.redis.common.RedisConnectionProvider;
+
+@ExtendWith(EmbeddedRedisExtension.class)
+@SuppressWarnings("NonAsciiCharacters")
+class StreamProcessorTest {
+
+    private static final String KEY = "events";
+    private static final String GROUP = "billing";
+
+    private RedisClient client;
+
+    @BeforeEach
+    void setUp() {
+        RedisConnectionProvider.getSync().flushall();
+        client = RedisConnectionProvider.client();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+    }
+
+    @Test
+    void 그룹_생성은_여러번_호출_해도_한번만_만든다() {
+        // given
+        RedisCommands<String, String> commands = RedisConnectionProvider.getSync();
+
+        // when
+        boolean first = StreamProcessor.createGroup(commands, KEY, GROUP);
+        boolean second = StreamProcessor.createGroup(commands, KEY, GROUP);
+
+        // then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        assertThat(commands.xinfoGroups(KEY)).hasSize(1);
+    }
+
+    @Test
+    void 묶음으로_읽어_처리_하고_모두_ack_한다() {
+        // given
+        RedisCommands<String, String> commands = RedisConnectionProvider.getSync();
+        Set<String> handled = ConcurrentHashMap.newKeySet();
+        StreamProcessor processor = StreamProcessor.builder(client, KEY, GROUP)
+                .consumer("worker-1")
+                .batchSize(100)
+                .block(Duration.ofMillis(100))
+                .maintenanceInterval(Duration.ofMillis(100))
+                .handler(message -> handled.add(message.getBody().get("order")))
+                .build()
+                .start();
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            commands.xadd(KEY, "order", "order:" + i);
+        }
+
+        // then
+        try (processor) {
+            awaitUntil(() -> handled.size() == 1000);
+            awaitUntil(() -> commands.xpending(KEY, GROUP).getCount() == 0);
+            StreamMetrics.Snapshot snapshot = processor.metrics().snapshot();
+            assertThat(snapshot.processedCount()).isEqualTo(1000);
+            assertThat(snapshot.batchCount()).isLessThan(1000);
+            awaitUntil(() -> processor.metrics().snapshot().lag() == 0);
+        }
+    }
+
+    @Test
+    void 처리에_실패한_항목은_claimIdle_이_지나면_다시_처리_한다() {
+        // given
+        RedisCommands<String, String> commands = RedisConnectionProvider.getSync();
+        Set<String> failedOnce = ConcurrentHashMap.newKeySet();
+        Set<String> handled = ConcurrentHashMap.newKeySet();
+        StreamProcessor processor = StreamProcessor.builder(client, KEY, GROUP)
+                .consumer("worker-1")
+                .block(Duration.ofMillis(50))
+                .claimIdle(Duration.ofMillis(50))
+                .maintenanceInterval(Duration.ofMillis(100))
+                .handler(message -> {
+                    if (failedOnce.add(message.getId())) {
+                        throw new IllegalStateException("temporary failure");
+                    }
+                    handled.add(message.getId());
+                })
+                .build()
+                .start();
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            commands.xadd(KEY, "order", "order:" + i);
+        }
+
+        // then
+        try (processor) {
+            awaitUntil(() -> handled.size() == 10);
+            StreamMetrics.Snapshot snapshot = processor.metrics().snapshot();
+            assertThat(snapshot.failedCount()).isEqualTo(10);
+            assertThat(snapshot.claimedCount()).isGreaterThanOrEqualTo(10);
+        }
+    }
+
+    @Test
+    void 전달_횟수를_넘은_항목은_dead_letter_stream_으로_옮기고_ack_한다() {
+        // given
+        RedisCommands<String, String> commands = RedisConnectionProvider.getSync();
+        AtomicInteger attempts = new AtomicInteger();
+        StreamProcessor processor = StreamProcessor.builder(client, KEY, GROUP)
+                .consumer("worker-1")
+                .block(Duration.ofMillis(50))
+                .claimIdle(Duration.ofMillis(50))
+                .maintenanceInterval(Duration.ofMillis(50))
+                .maxDeliveries(3)
+                .deadLetter("events:dead")
+                .handler(message -> {
+                    attempts.incrementAndGet();
+                    throw new IllegalStateException("poison message");
+                })
+                .build()
+                .start();
+
+        // when
+        commands.xadd(KEY, "order", "order:1");
+
+        // then
+        try (processor) {
+            awaitUntil(() -> commands.xlen("events:dead") == 1);
+            awaitUntil(() -> commands.xpending(KEY, GROUP).getCount() == 0);
+            assertThat(attempts.get()).isEqualTo(3);
+            assertThat(commands.xrange("events:dead", Range.create("-", "+")).get(0).getBody())
+                    .containsEntry("order", "order:1");
+            assertThat(processor.metrics().snapshot().deadLetteredCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void 한번에_가져오지_못한_pending_항목은_다음_회차에_이어서_가져온다() {
+        // given
+        RedisCommands<String, String> commands = RedisConnectionProvider.getSync();
+        StreamProcessor.createGroup(commands, KEY, GROUP);
+        for (int i = 0; i < 10; i++) {
+            commands.xadd(KEY, "order", "order:" + i);
+        }
+        commands.xreadgroup(Consumer.from(GROUP, "crashed"), StreamOffset.lastConsumed(KEY));
+        Set<String> handled = ConcurrentHashMap.newKeySet();
+
+        // when
+        StreamProcessor processor = StreamProcessor.builder(client, KEY, GROUP)
+                .consumer("worker-1")
+                .batchSize(3)
+                .block(Duration.ofMillis(50))
+                .claimIdle(Duration.ofMillis(10))
+                .maintenanceInterval(Duration.ofMillis(50))
+                .handler(message -> handled.add(message.getBody().get("order")))
+                .build()
+                .start();
+
+        // then
+        try (processor) {
+            awaitUntil(() -> handled.size() == 10);
+            awaitUntil(() -> commands.xpending(KEY, GROUP).getCount() == 0);
+            assertThat(processor.metrics().snapshot().claimedCount()).isEqualTo(10);
+        }
+    }
+
+    @Test
+    void 재시작한_소비자는_ack_하지_못한_자신의_항목부터_처리_한다() {
+        // given
+        RedisCommands<String, String> commands = RedisConnectionProvider.getSync();
+        StreamProcessor.createGroup(commands, KEY, GROUP);
+        commands.xadd(KEY, "order", "order:1");
+        commands.xreadgroup(Consumer.from(GROUP, "worker-1"), StreamOffset.lastConsumed(KEY));
+        Set<String> handled = ConcurrentHashMap.newKeySet();
+
+        // when
+        StreamProcessor processor = StreamProcessor.builder(client, KEY, GROUP)
+                .consumer("worker-1")
+                .block(Duration.ofMillis(50))
+                .handler(message -> handled.add(message.getBody().get("order")))
+                .build()
+                .start();
+
+        // then
+        try (processor) {
+            awaitUntil(() -> handled.contains("order:1"));
+            awaitUntil(() -> commands.xpending(KEY, GROUP).getCount() == 0);
+        }
+    }
+
+    @Test
+    void 근사_트리밍으로_stream_길이를_줄인다() {
+        // given
+        RedisCommands<String, String> commands = RedisConnectionProvider.getSync();
+        for (int i = 0; i < 100; i++) {
+            commands.xadd(KEY, "order", "order:" + i);
+        }
+
+        // when
+        StreamProcessor processor = StreamProcessor.builder(client, KEY, GROUP)
+                .block(Duration.ofMillis(50))
+                .maintenanceInterval(Duration.ofMillis(50))
+                .trimMaxLen(10)
+                .handler(message -> {
+                })
+                .build()
+                .start();
+
+        // then
+        try (processor) {
+            awaitUntil(() -> commands.xlen(KEY) < 100);
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new AssertionError("condition not met within 5 seconds");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}